@@ -186,3 +186,29 @@ CREATE TABLE `answer_record` (
     CONSTRAINT `fk_answer_record_question` FOREIGN KEY (`question_id`) REFERENCES `question` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='答题记录表';
 
+-- ============================================
+-- 8. 试题分析结果表 (exam_item_analysis)
+-- ============================================
+DROP TABLE IF EXISTS `exam_item_analysis`;
+CREATE TABLE `exam_item_analysis` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '记录ID',
+    `exam_id` BIGINT NOT NULL COMMENT '考试ID',
+    `question_id` BIGINT NOT NULL COMMENT '题目ID',
+    `student_count` INT NOT NULL COMMENT '参与分析的已交卷人数',
+    `answered_count` INT NOT NULL DEFAULT 0 COMMENT '作答人数',
+    `correct_count` INT NOT NULL DEFAULT 0 COMMENT '答对人数',
+    `partial_count` INT NOT NULL DEFAULT 0 COMMENT '部分正确人数（多选题）',
+    `average_score` DECIMAL(10,4) COMMENT '平均得分（需要人工批改的题目为空）',
+    `difficulty` DECIMAL(6,4) COMMENT '难度（P值）：答对人数 / 已交卷人数',
+    `point_biserial` DECIMAL(6,4) COMMENT '区分度：答对与否和总分的点二列相关系数（全部答对或全部答错时为空）',
+    `upper_correct_rate` DECIMAL(6,4) COMMENT '高分组（总分前27%）正确率',
+    `lower_correct_rate` DECIMAL(6,4) COMMENT '低分组（总分后27%）正确率',
+    `discrimination` DECIMAL(6,4) COMMENT '区分度：高分组正确率 - 低分组正确率',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_exam_question` (`exam_id`, `question_id`),
+    KEY `idx_question_id` (`question_id`),
+    CONSTRAINT `fk_exam_item_analysis_exam` FOREIGN KEY (`exam_id`) REFERENCES `exam` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='试题分析结果表';
+
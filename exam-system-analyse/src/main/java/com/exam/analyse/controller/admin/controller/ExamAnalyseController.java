@@ -0,0 +1,233 @@
+package com.exam.analyse.controller.admin.controller;
+
+import com.exam.analyse.dto.ExamCardinalityDTO;
+import com.exam.analyse.dto.ExamExportDTO;
+import com.exam.analyse.dto.ExamScoreSummaryDTO;
+import com.exam.analyse.dto.ItemAnalysisDTO;
+import com.exam.analyse.dto.LeaderboardEntryDTO;
+import com.exam.analyse.dto.LeaderboardPageDTO;
+import com.exam.analyse.dto.QuestionStatsDTO;
+import com.exam.analyse.dto.ScoreQuantilesDTO;
+import com.exam.analyse.dto.ScoreRankDTO;
+import com.exam.analyse.service.ExamAnalyticsService;
+import com.exam.analyse.service.ExamCardinalityService;
+import com.exam.analyse.service.ExamExportService;
+import com.exam.analyse.service.ItemAnalysisService;
+import com.exam.analyse.service.LeaderboardService;
+import com.exam.analyse.service.ScoreDistributionService;
+import com.exam.excute.util.DistributedLockUtil;
+import com.exam.manage.config.AuthUtil;
+import com.exam.manage.util.ExamRedisKeys;
+import com.exam.userService.dto.Result;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 考试成绩统计控制器（教师查看实时成绩）
+ */
+@RestController
+@RequestMapping("/exam-online/analyse/exam")
+public class ExamAnalyseController {
+
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private ScoreDistributionService scoreDistributionService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ExamExportService examExportService;
+
+    @Autowired
+    private ExamCardinalityService examCardinalityService;
+
+    @Autowired
+    private DistributedLockUtil distributedLockUtil;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    // 学生身份校验（执行模块）
+    @Autowired
+    private com.exam.excute.config.AuthUtil studentAuthUtil;
+
+    /**
+     * 考试成绩统计：已交卷人数、平均分、方差、最值、及格率、分数段分布
+     */
+    @GetMapping("/{examId}/summary")
+    public Result<ExamScoreSummaryDTO> getScoreSummary(@PathVariable Long examId, HttpServletRequest request) {
+        // 只有管理员或教师可以查看成绩统计
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(examAnalyticsService.getScoreSummary(examId));
+    }
+
+    /**
+     * 逐题统计：作答率、正确率、部分正确人数、平均得分
+     */
+    @GetMapping("/{examId}/questions")
+    public Result<List<QuestionStatsDTO>> getQuestionStats(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(examAnalyticsService.getQuestionStats(examId));
+    }
+
+    /**
+     * 基数统计（近似值）：在线考生数、答题考生数、客户端IP数、逐题作答考生数
+     */
+    @GetMapping("/{examId}/cardinality")
+    public Result<ExamCardinalityDTO> getCardinality(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(examCardinalityService.getCardinality(examId));
+    }
+
+    /**
+     * 试题分析结果：难度、点二列相关系数、高低分组区分度（考试结束后自动计算）
+     */
+    @GetMapping("/{examId}/items")
+    public Result<List<ItemAnalysisDTO>> getItemAnalysis(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(itemAnalysisService.getItemAnalysis(examId));
+    }
+
+    /**
+     * 重新计算试题分析（如人工批改简答题之后）
+     */
+    @PostMapping("/{examId}/items/analyse")
+    public Result<List<ItemAnalysisDTO>> analyseItems(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        // 同一场考试同时只允许一个分析任务
+        return distributedLockUtil.executeWithLock(ExamRedisKeys.itemAnalysisLock(examId), 600, () ->
+                Result.success(itemAnalysisService.toDTOList(itemAnalysisService.analyse(examId))));
+    }
+
+    /**
+     * 分位数：考试总分或某个分类（知识点）得分的分位数
+     * @param category 分类，不传表示考试总分
+     * @param q 分位点，默认 0.1,0.25,0.5,0.75,0.9
+     */
+    @GetMapping("/{examId}/quantiles")
+    public Result<ScoreQuantilesDTO> getQuantiles(@PathVariable Long examId,
+                                                  @RequestParam(required = false) String category,
+                                                  @RequestParam(defaultValue = "0.1,0.25,0.5,0.75,0.9") List<Double> q,
+                                                  HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(scoreDistributionService.getQuantiles(examId, category, q));
+    }
+
+    /**
+     * 某个得分的名次和百分位
+     * @param category 分类，不传表示考试总分
+     */
+    @GetMapping("/{examId}/rank")
+    public Result<ScoreRankDTO> getRank(@PathVariable Long examId,
+                                        @RequestParam Integer score,
+                                        @RequestParam(required = false) String category,
+                                        HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(scoreDistributionService.getRank(examId, category, score));
+    }
+
+    /**
+     * 学生查询本人的名次和百分位（第一项为考试总分，其后为各分类；考试结束并公布成绩后可见）
+     */
+    @GetMapping("/{examId}/my-rank")
+    public Result<List<ScoreRankDTO>> getMyRank(@PathVariable Long examId, HttpServletRequest request) {
+        Long studentId = studentAuthUtil.checkStudent(request);
+        leaderboardService.checkPublished(examId);
+        return Result.success(scoreDistributionService.getStudentRanks(examId, studentId));
+    }
+
+    /**
+     * 排行榜（教师查看，考试进行中也可以查看已交卷考生）
+     */
+    @GetMapping("/{examId}/leaderboard")
+    public Result<LeaderboardPageDTO> getLeaderboard(@PathVariable Long examId,
+                                                     @RequestParam(defaultValue = "1") Integer pageNum,
+                                                     @RequestParam(defaultValue = "20") Integer pageSize,
+                                                     HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(leaderboardService.getPage(examId, pageNum, pageSize));
+    }
+
+    /**
+     * 排行榜（学生查看，考试结束并公布成绩后可见）
+     */
+    @GetMapping("/{examId}/leaderboard/public")
+    public Result<LeaderboardPageDTO> getPublicLeaderboard(@PathVariable Long examId,
+                                                           @RequestParam(defaultValue = "1") Integer pageNum,
+                                                           @RequestParam(defaultValue = "20") Integer pageSize,
+                                                           HttpServletRequest request) {
+        studentAuthUtil.checkStudent(request);
+        leaderboardService.checkPublished(examId);
+        return Result.success(leaderboardService.getPage(examId, pageNum, pageSize));
+    }
+
+    /**
+     * 学生查询本人在排行榜中的名次（考试结束并公布成绩后可见）
+     */
+    @GetMapping("/{examId}/leaderboard/me")
+    public Result<LeaderboardEntryDTO> getMyLeaderboardEntry(@PathVariable Long examId, HttpServletRequest request) {
+        Long studentId = studentAuthUtil.checkStudent(request);
+        leaderboardService.checkPublished(examId);
+        return Result.success(leaderboardService.getStudentEntry(examId, studentId));
+    }
+
+    /**
+     * 从 MySQL 重建排行榜（Redis 数据丢失或人工改分后）
+     * @return 写入的考生数
+     */
+    @PostMapping("/{examId}/leaderboard/rebuild")
+    public Result<Long> rebuildLeaderboard(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(leaderboardService.rebuild(examId));
+    }
+
+    /**
+     * 导出考试结果（Arrow IPC 列式文件，供数据组离线分析），后台执行，返回导出任务
+     */
+    @PostMapping("/{examId}/export")
+    public Result<ExamExportDTO> exportResults(@PathVariable Long examId, HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(examExportService.startExport(examId));
+    }
+
+    /**
+     * 查询导出进度
+     */
+    @GetMapping("/{examId}/export/{jobId}")
+    public Result<ExamExportDTO> getExport(@PathVariable Long examId, @PathVariable String jobId,
+                                           HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        return Result.success(examExportService.getExport(examId, jobId));
+    }
+
+    /**
+     * 下载导出文件
+     */
+    @GetMapping("/{examId}/export/{jobId}/file")
+    public ResponseEntity<Resource> downloadExport(@PathVariable Long examId, @PathVariable String jobId,
+                                                   HttpServletRequest request) {
+        authUtil.checkAdminOrTeacher(request);
+        Path file = examExportService.getExportFile(examId, jobId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .contentType(MediaType.parseMediaType("application/vnd.apache.arrow.stream"))
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,77 @@
+package com.exam.analyse.dal.dataobject;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 考试结果导出的一行数据（考试记录 LEFT JOIN 答题记录）
+ * 没有任何答题记录的考生也有一行，答题相关字段为空
+ */
+@Data
+public class ExportRowDO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 学生ID
+     */
+    private Long studentId;
+
+    /**
+     * 考试记录状态：in_progress-答题中, submitted-已提交, timeout-超时, cancelled-取消
+     */
+    private String recordStatus;
+
+    /**
+     * 考生总得分（exam_record.score）
+     */
+    private Integer recordScore;
+
+    /**
+     * 开始答题时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime submitTime;
+
+    /**
+     * 切屏次数
+     */
+    private Integer switchCount;
+
+    /**
+     * 是否作弊：0-否, 1-是
+     */
+    private Integer isCheating;
+
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 学生答案
+     */
+    private String studentAnswer;
+
+    /**
+     * 是否正确：0-错误, 1-正确, 2-部分正确（多选题）
+     */
+    private Integer isCorrect;
+
+    /**
+     * 该题得分
+     */
+    private Integer score;
+
+    /**
+     * 答题时间（毫秒）
+     */
+    private Long answerTime;
+}
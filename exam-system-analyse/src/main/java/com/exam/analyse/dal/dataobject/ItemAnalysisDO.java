@@ -0,0 +1,85 @@
+package com.exam.analyse.dal.dataobject;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 试题分析结果实体类
+ */
+@Data
+public class ItemAnalysisDO {
+    /**
+     * 记录ID
+     */
+    private Long id;
+
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 参与分析的已交卷人数
+     */
+    private Integer studentCount;
+
+    /**
+     * 作答人数
+     */
+    private Integer answeredCount;
+
+    /**
+     * 答对人数
+     */
+    private Integer correctCount;
+
+    /**
+     * 部分正确人数（多选题）
+     */
+    private Integer partialCount;
+
+    /**
+     * 平均得分（需要人工批改的题目为空）
+     */
+    private Double averageScore;
+
+    /**
+     * 难度（P值）：答对人数 / 已交卷人数
+     */
+    private Double difficulty;
+
+    /**
+     * 点二列相关系数（全部答对或全部答错、总分没有差异时为空）
+     */
+    private Double pointBiserial;
+
+    /**
+     * 高分组（总分前27%）正确率
+     */
+    private Double upperCorrectRate;
+
+    /**
+     * 低分组（总分后27%）正确率
+     */
+    private Double lowerCorrectRate;
+
+    /**
+     * 区分度：高分组正确率 - 低分组正确率
+     */
+    private Double discrimination;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
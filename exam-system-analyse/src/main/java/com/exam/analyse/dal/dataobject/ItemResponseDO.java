@@ -0,0 +1,35 @@
+package com.exam.analyse.dal.dataobject;
+
+import lombok.Data;
+
+/**
+ * 试题分析读取的一行作答数据（考试记录 LEFT JOIN 答题记录）
+ * 没有任何答题记录的考生也有一行，questionId 为空
+ */
+@Data
+public class ItemResponseDO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 考生总得分（exam_record.score）
+     */
+    private Integer recordScore;
+
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 是否正确：0-错误, 1-正确, 2-部分正确（多选题）
+     */
+    private Integer isCorrect;
+
+    /**
+     * 该题得分
+     */
+    private Integer score;
+}
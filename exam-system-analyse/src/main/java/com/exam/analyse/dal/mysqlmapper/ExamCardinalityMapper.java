@@ -0,0 +1,22 @@
+package com.exam.analyse.dal.mysqlmapper;
+
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 基数统计Mapper接口（答题事件只带考试记录ID，按考试记录ID查询所属考试）
+ */
+@Mapper
+public interface ExamCardinalityMapper {
+
+    /**
+     * 批量查询考试记录所属的考试（只取 id、exam_id）
+     */
+    @Select("<script>" +
+            "SELECT id, exam_id FROM exam_record WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<ExamRecordDO> selectExamIdsByIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,32 @@
+package com.exam.analyse.dal.mysqlmapper;
+
+import com.exam.analyse.dal.dataobject.ExportRowDO;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * 考试结果导出Mapper接口
+ */
+@Mapper
+public interface ExamExportMapper {
+
+    /**
+     * 导出的总行数（用于计算进度，与 streamRows 的行数一致）
+     */
+    @Select("SELECT COUNT(*) FROM exam_record er LEFT JOIN answer_record ar ON ar.exam_record_id = er.id " +
+            "WHERE er.exam_id = #{examId}")
+    long countRows(@Param("examId") Long examId);
+
+    /**
+     * 按考试记录顺序流式读取一场考试的全部考试记录和答题记录，需要在事务中逐行读取
+     * MySQL 连接串已开启 useCursorFetch=true，每次只从服务端拉取 fetchSize 行
+     */
+    @Select("SELECT er.id AS exam_record_id, er.student_id, er.status AS record_status, er.score AS record_score, " +
+            "er.start_time, er.submit_time, er.switch_count, er.is_cheating, " +
+            "ar.question_id, ar.student_answer, ar.is_correct, ar.score, ar.answer_time " +
+            "FROM exam_record er LEFT JOIN answer_record ar ON ar.exam_record_id = er.id " +
+            "WHERE er.exam_id = #{examId} " +
+            "ORDER BY er.id")
+    @Options(fetchSize = 5000)
+    Cursor<ExportRowDO> streamRows(@Param("examId") Long examId);
+}
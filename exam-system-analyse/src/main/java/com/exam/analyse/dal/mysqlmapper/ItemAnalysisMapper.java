@@ -0,0 +1,63 @@
+package com.exam.analyse.dal.mysqlmapper;
+
+import com.exam.analyse.dal.dataobject.ItemAnalysisDO;
+import com.exam.analyse.dal.dataobject.ItemResponseDO;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
+
+/**
+ * 试题分析Mapper接口
+ */
+@Mapper
+public interface ItemAnalysisMapper {
+
+    /**
+     * 按考试记录顺序流式读取一场考试所有已交卷考生的作答
+     * 结果集不一次性加载到内存，需要在事务中逐行读取；MySQL 连接串需开启 useCursorFetch=true，按 fetchSize 分批拉取
+     * 按 exam_record.id 排序可直接走 idx_exam_id 索引（二级索引叶子节点按主键有序），不需要额外排序
+     */
+    @Select("SELECT er.id AS exam_record_id, er.score AS record_score, ar.question_id, ar.is_correct, ar.score " +
+            "FROM exam_record er LEFT JOIN answer_record ar ON ar.exam_record_id = er.id " +
+            "WHERE er.exam_id = #{examId} AND er.status = 'submitted' " +
+            "ORDER BY er.id")
+    @Options(fetchSize = 1000)
+    Cursor<ItemResponseDO> streamResponses(@Param("examId") Long examId);
+
+    /**
+     * 批量写入试题分析结果（同一考试同一题目已存在时覆盖）
+     */
+    @Insert("<script>" +
+            "INSERT INTO exam_item_analysis (exam_id, question_id, student_count, answered_count, correct_count, partial_count, " +
+            "average_score, difficulty, point_biserial, upper_correct_rate, lower_correct_rate, discrimination, create_time, update_time) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.examId}, #{item.questionId}, #{item.studentCount}, #{item.answeredCount}, #{item.correctCount}, #{item.partialCount}, " +
+            "#{item.averageScore}, #{item.difficulty}, #{item.pointBiserial}, #{item.upperCorrectRate}, #{item.lowerCorrectRate}, #{item.discrimination}, NOW(), NOW())" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE student_count = VALUES(student_count), answered_count = VALUES(answered_count), " +
+            "correct_count = VALUES(correct_count), partial_count = VALUES(partial_count), average_score = VALUES(average_score), " +
+            "difficulty = VALUES(difficulty), point_biserial = VALUES(point_biserial), upper_correct_rate = VALUES(upper_correct_rate), " +
+            "lower_correct_rate = VALUES(lower_correct_rate), discrimination = VALUES(discrimination), update_time = NOW()" +
+            "</script>")
+    int batchUpsert(@Param("list") List<ItemAnalysisDO> list);
+
+    /**
+     * 查询一场考试的试题分析结果
+     */
+    @Select("SELECT id, exam_id, question_id, student_count, answered_count, correct_count, partial_count, average_score, " +
+            "difficulty, point_biserial, upper_correct_rate, lower_correct_rate, discrimination, create_time, update_time " +
+            "FROM exam_item_analysis WHERE exam_id = #{examId} ORDER BY question_id")
+    List<ItemAnalysisDO> selectByExamId(@Param("examId") Long examId);
+
+    /**
+     * 查询已结束、已全部交卷但还没有试题分析结果的考试（用于定时任务）
+     */
+    @Select("SELECT e.id FROM exam e " +
+            "WHERE e.status = 'finished' " +
+            "AND EXISTS (SELECT 1 FROM paper_question pq WHERE pq.paper_id = e.paper_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM exam_item_analysis a WHERE a.exam_id = e.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM exam_record r WHERE r.exam_id = e.id AND r.status = 'in_progress') " +
+            "ORDER BY e.end_time LIMIT #{limit}")
+    List<Long> selectExamIdsPendingAnalysis(@Param("limit") int limit);
+}
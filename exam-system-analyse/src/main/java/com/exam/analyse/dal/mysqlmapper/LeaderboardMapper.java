@@ -0,0 +1,20 @@
+package com.exam.analyse.dal.mysqlmapper;
+
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * 排行榜Mapper接口（从MySQL重建排行榜）
+ */
+@Mapper
+public interface LeaderboardMapper {
+
+    /**
+     * 流式读取一场考试所有已提交的考试记录（只取排行榜需要的列），需要在事务中逐行读取
+     */
+    @Select("SELECT id, exam_id, student_id, score, submit_time " +
+            "FROM exam_record WHERE exam_id = #{examId} AND status = 'submitted'")
+    @Options(fetchSize = 1000)
+    Cursor<ExamRecordDO> streamSubmittedRecords(@Param("examId") Long examId);
+}
@@ -0,0 +1,36 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 考试基数统计DTO（HyperLogLog 近似值，标准误差约 0.81%）
+ */
+@Data
+public class ExamCardinalityDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 进入考试或在线过的考生数
+     */
+    private Long connectedStudents;
+
+    /**
+     * 至少保存过一道题答案的考生数
+     */
+    private Long answeredStudents;
+
+    /**
+     * 不同的客户端IP数
+     */
+    private Long distinctIps;
+
+    /**
+     * 逐题作答考生数（按试卷题目）
+     */
+    private List<QuestionCardinalityDTO> questions;
+}
@@ -0,0 +1,66 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 考试结果导出任务DTO（进度查询）
+ */
+@Data
+public class ExamExportDTO {
+    /**
+     * 导出任务ID
+     */
+    private String jobId;
+
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 状态：queued-排队中, running-导出中, finished-已完成, failed-失败
+     */
+    private String status;
+
+    /**
+     * 总行数（每道题的作答一行，没有作答的考生一行）
+     */
+    private Long totalRows;
+
+    /**
+     * 已导出行数
+     */
+    private Long exportedRows;
+
+    /**
+     * 进度百分比（0-100）
+     */
+    private Double progress;
+
+    /**
+     * 已写入文件的字节数
+     */
+    private Long bytesWritten;
+
+    /**
+     * 导出文件名（Arrow IPC 流格式），完成后可下载
+     */
+    private String fileName;
+
+    /**
+     * 失败原因
+     */
+    private String error;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishTime;
+}
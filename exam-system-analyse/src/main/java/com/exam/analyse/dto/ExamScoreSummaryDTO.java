@@ -0,0 +1,70 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 考试成绩统计DTO（交卷时增量更新，查询不扫描答题记录）
+ */
+@Data
+public class ExamScoreSummaryDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 已交卷人数
+     */
+    private Long submittedCount;
+
+    /**
+     * 试卷总分
+     */
+    private Integer totalScore;
+
+    /**
+     * 平均分
+     */
+    private Double mean;
+
+    /**
+     * 方差（总体方差，已交卷考生即全体）
+     */
+    private Double variance;
+
+    /**
+     * 标准差
+     */
+    private Double stdDev;
+
+    /**
+     * 最低分
+     */
+    private Double minScore;
+
+    /**
+     * 最高分
+     */
+    private Double maxScore;
+
+    /**
+     * 及格线
+     */
+    private Double passScore;
+
+    /**
+     * 及格人数
+     */
+    private Long passCount;
+
+    /**
+     * 及格率
+     */
+    private Double passRate;
+
+    /**
+     * 分数段分布（按试卷总分等分）
+     */
+    private List<ScoreBucketDTO> histogram;
+}
@@ -0,0 +1,70 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 试题分析DTO（难度和区分度，比例的分母都是已交卷人数，未作答按答错计）
+ */
+@Data
+public class ItemAnalysisDTO {
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 参与分析的已交卷人数
+     */
+    private Integer studentCount;
+
+    /**
+     * 作答人数
+     */
+    private Integer answeredCount;
+
+    /**
+     * 答对人数
+     */
+    private Integer correctCount;
+
+    /**
+     * 部分正确人数（多选题）
+     */
+    private Integer partialCount;
+
+    /**
+     * 平均得分（需要人工批改的题目为空）
+     */
+    private Double averageScore;
+
+    /**
+     * 难度（P值），越大越容易
+     */
+    private Double difficulty;
+
+    /**
+     * 点二列相关系数，越大说明答对的考生总分越高
+     */
+    private Double pointBiserial;
+
+    /**
+     * 高分组（总分前27%）正确率
+     */
+    private Double upperCorrectRate;
+
+    /**
+     * 低分组（总分后27%）正确率
+     */
+    private Double lowerCorrectRate;
+
+    /**
+     * 区分度：高分组正确率 - 低分组正确率
+     */
+    private Double discrimination;
+
+    /**
+     * 分析时间
+     */
+    private LocalDateTime updateTime;
+}
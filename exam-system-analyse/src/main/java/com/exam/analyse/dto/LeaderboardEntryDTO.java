@@ -0,0 +1,35 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 排行榜条目DTO
+ */
+@Data
+public class LeaderboardEntryDTO {
+    /**
+     * 名次（从1开始，同分时先提交者在前）
+     */
+    private Long rank;
+
+    /**
+     * 学生ID
+     */
+    private Long studentId;
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 得分
+     */
+    private Integer score;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime submitTime;
+}
@@ -0,0 +1,36 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 排行榜分页结果DTO
+ */
+@Data
+public class LeaderboardPageDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 上榜人数（已交卷人数）
+     */
+    private Long total;
+
+    /**
+     * 当前页码
+     */
+    private Integer pageNum;
+
+    /**
+     * 每页大小
+     */
+    private Integer pageSize;
+
+    /**
+     * 当前页条目
+     */
+    private List<LeaderboardEntryDTO> list;
+}
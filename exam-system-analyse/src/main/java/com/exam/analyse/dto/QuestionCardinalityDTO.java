@@ -0,0 +1,19 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+/**
+ * 单道题的基数统计DTO（近似值）
+ */
+@Data
+public class QuestionCardinalityDTO {
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 作答过该题的考生数
+     */
+    private Long answeredStudents;
+}
@@ -0,0 +1,44 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+/**
+ * 逐题统计DTO（比例的分母都是已交卷人数，未作答按答错计）
+ */
+@Data
+public class QuestionStatsDTO {
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 作答人数
+     */
+    private Long answeredCount;
+
+    /**
+     * 答对人数
+     */
+    private Long correctCount;
+
+    /**
+     * 部分正确人数（多选题少选）
+     */
+    private Long partialCount;
+
+    /**
+     * 作答率
+     */
+    private Double answerRate;
+
+    /**
+     * 正确率
+     */
+    private Double correctRate;
+
+    /**
+     * 平均得分（需要人工批改的题目为空）
+     */
+    private Double averageScore;
+}
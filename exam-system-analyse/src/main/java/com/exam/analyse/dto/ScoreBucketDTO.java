@@ -0,0 +1,28 @@
+package com.exam.analyse.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分数段DTO：[lowerScore, upperScore)，最后一段包含满分
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreBucketDTO {
+    /**
+     * 分数段下限（含）
+     */
+    private Double lowerScore;
+
+    /**
+     * 分数段上限（不含，最后一段包含）
+     */
+    private Double upperScore;
+
+    /**
+     * 人数
+     */
+    private Long count;
+}
@@ -0,0 +1,23 @@
+package com.exam.analyse.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分位数DTO：至少有 quantile 比例的考生得分不高于 score
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreQuantileDTO {
+    /**
+     * 分位点（0 到 1）
+     */
+    private Double quantile;
+
+    /**
+     * 得分（没有考生时为空）
+     */
+    private Integer score;
+}
@@ -0,0 +1,31 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 考试总分或分类得分的分位数DTO
+ */
+@Data
+public class ScoreQuantilesDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 分类（知识点），为空表示考试总分
+     */
+    private String category;
+
+    /**
+     * 已交卷人数
+     */
+    private Long studentCount;
+
+    /**
+     * 各分位点的得分
+     */
+    private List<ScoreQuantileDTO> quantiles;
+}
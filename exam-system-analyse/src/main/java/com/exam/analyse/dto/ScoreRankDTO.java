@@ -0,0 +1,39 @@
+package com.exam.analyse.dto;
+
+import lombok.Data;
+
+/**
+ * 名次和百分位DTO（同分同名次、同百分位）
+ */
+@Data
+public class ScoreRankDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 分类（知识点），为空表示考试总分
+     */
+    private String category;
+
+    /**
+     * 得分
+     */
+    private Integer score;
+
+    /**
+     * 名次：得分更高的人数 + 1
+     */
+    private Long rank;
+
+    /**
+     * 已交卷人数
+     */
+    private Long studentCount;
+
+    /**
+     * 百分位：得分更低的人数加同分人数的一半，占已交卷人数的百分比
+     */
+    private Double percentile;
+}
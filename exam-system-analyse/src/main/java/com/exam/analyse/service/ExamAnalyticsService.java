@@ -0,0 +1,262 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dto.ExamScoreSummaryDTO;
+import com.exam.analyse.dto.QuestionStatsDTO;
+import com.exam.analyse.dto.ScoreBucketDTO;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.excute.service.ExamSubmissionGradedEvent;
+import com.exam.manage.util.ExamRedisKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 考试成绩流式统计
+ * 交卷批改完成时（ExamSubmissionGradedEvent）增量更新该考试的统计，教师查询时直接读取，不再对 answer_record 做 GROUP BY：
+ * 1. 平均分和方差使用 Welford 在线算法（保存人数、均值、M2），数值稳定，每次交卷 O(1)
+ * 2. 分数段按试卷总分等分为固定个数的桶，及格人数按及格线累加
+ * 3. 逐题统计作答人数、答对人数、部分正确人数、得分合计
+ * 4. 按得分计数的总分分布和分类（知识点）得分分布，用于分位数和名次查询（见 ScoreDistributionService）
+ * 统计保存在 Redis 中，由一个 Lua 脚本原子更新：多个节点同时处理交卷时结果一致，应用重启不丢失
+ * 事件只在考试记录由进行中变为已提交时发布一次，因此每名考生只计入一次
+ */
+@Service
+public class ExamAnalyticsService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    // 及格线占试卷总分的比例
+    @Value("${exam.analyse.pass-ratio:0.6}")
+    private double passRatio;
+
+    // 分数段个数
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    // 统计数据保留时间（秒）
+    private static final long STATS_TTL_SECONDS = 30L * 24 * 60 * 60;
+
+    // Lua脚本：KEYS[1] 成绩统计Hash，KEYS[2] 逐题统计Hash，KEYS[3] 总分分布Hash，KEYS[4..] 各分类得分分布Hash
+    // （同一 {examId} hash tag，位于同一槽位）
+    // ARGV：得分、总分、是否及格、分数段、过期时间、分类个数 k，之后 k 个分类得分，
+    // 再之后每道题依次为 题目ID、是否正确、得分（-1 表示待人工批改）
+    private static final String RECORD_SUBMISSION_LUA =
+        "local x = tonumber(ARGV[1]) " +
+        "local n = redis.call('hincrby', KEYS[1], 'count', 1) " +
+        "local stats = redis.call('hmget', KEYS[1], 'mean', 'm2', 'min', 'max') " +
+        "local mean = tonumber(stats[1]) or 0 " +
+        "local m2 = tonumber(stats[2]) or 0 " +
+        "local delta = x - mean " +
+        "mean = mean + delta / n " +
+        "m2 = m2 + delta * (x - mean) " +
+        "local min = tonumber(stats[3]) " +
+        "if not min or x < min then min = x end " +
+        "local max = tonumber(stats[4]) " +
+        "if not max or x > max then max = x end " +
+        "redis.call('hset', KEYS[1], 'mean', string.format('%.17g', mean), 'm2', string.format('%.17g', m2), " +
+        "    'min', min, 'max', max, 'total', ARGV[2]) " +
+        "if ARGV[3] == '1' then redis.call('hincrby', KEYS[1], 'pass', 1) end " +
+        "redis.call('hincrby', KEYS[1], 'bucket:' .. ARGV[4], 1) " +
+        "redis.call('hincrby', KEYS[3], ARGV[1], 1) " +
+        "redis.call('expire', KEYS[3], ARGV[5]) " +
+        "local k = tonumber(ARGV[6]) " +
+        "for j = 1, k do " +
+        "    redis.call('hincrby', KEYS[3 + j], ARGV[6 + j], 1) " +
+        "    redis.call('expire', KEYS[3 + j], ARGV[5]) " +
+        "end " +
+        "for i = 7 + k, #ARGV, 3 do " +
+        "    local q = ARGV[i] " +
+        "    redis.call('hincrby', KEYS[2], q .. ':answered', 1) " +
+        "    if ARGV[i + 1] == '1' then " +
+        "        redis.call('hincrby', KEYS[2], q .. ':correct', 1) " +
+        "    elseif ARGV[i + 1] == '2' then " +
+        "        redis.call('hincrby', KEYS[2], q .. ':partial', 1) " +
+        "    end " +
+        "    if ARGV[i + 2] ~= '-1' then " +
+        "        redis.call('hincrby', KEYS[2], q .. ':score', tonumber(ARGV[i + 2])) " +
+        "        redis.call('hincrby', KEYS[2], q .. ':graded', 1) " +
+        "    end " +
+        "end " +
+        "redis.call('expire', KEYS[1], ARGV[5]) " +
+        "redis.call('expire', KEYS[2], ARGV[5]) " +
+        "return n";
+
+    private static final DefaultRedisScript<Long> RECORD_SUBMISSION_SCRIPT =
+            new DefaultRedisScript<>(RECORD_SUBMISSION_LUA, Long.class);
+
+    /**
+     * 交卷批改完成：把该考生的成绩计入考试统计
+     * 统计失败不影响交卷，只记录日志
+     */
+    @EventListener
+    public void onSubmissionGraded(ExamSubmissionGradedEvent event) {
+        try {
+            recordSubmission(event);
+        } catch (Exception e) {
+            System.err.println("更新考试统计失败: " + event.getExamRecordId() + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private void recordSubmission(ExamSubmissionGradedEvent event) {
+        int score = event.getScore();
+        int totalScore = event.getTotalScore();
+        List<ExamSubmissionGradedEvent.QuestionResult> questions = event.getQuestions();
+        Map<String, Integer> categoryScores = categoryScores(event);
+
+        List<String> keys = new ArrayList<>(3 + categoryScores.size());
+        keys.add(ExamRedisKeys.analyseScore(event.getExamId()));
+        keys.add(ExamRedisKeys.analyseQuestion(event.getExamId()));
+        keys.add(ExamRedisKeys.analyseDistribution(event.getExamId()));
+
+        Object[] args = new Object[6 + categoryScores.size() + questions.size() * 3];
+        args[0] = String.valueOf(score);
+        args[1] = String.valueOf(totalScore);
+        args[2] = score >= passScore(totalScore) ? "1" : "0";
+        args[3] = String.valueOf(bucketOf(score, totalScore));
+        args[4] = String.valueOf(STATS_TTL_SECONDS);
+        args[5] = String.valueOf(categoryScores.size());
+        int i = 6;
+        for (Map.Entry<String, Integer> entry : categoryScores.entrySet()) {
+            keys.add(ExamRedisKeys.analyseCategoryDistribution(event.getExamId(), entry.getKey()));
+            args[i++] = String.valueOf(entry.getValue());
+        }
+        for (ExamSubmissionGradedEvent.QuestionResult question : questions) {
+            args[i++] = question.getQuestionId().toString();
+            args[i++] = String.valueOf(question.getIsCorrect() != null ? question.getIsCorrect() : -1);
+            args[i++] = String.valueOf(question.getScore() != null ? question.getScore() : -1);
+        }
+        stringRedisTemplate.execute(RECORD_SUBMISSION_SCRIPT, keys, args);
+    }
+
+    /**
+     * 考生在试卷各分类（知识点）上的得分，未作答或待人工批改的题目按 0 分计，试卷中的每个分类都有一项
+     */
+    private Map<String, Integer> categoryScores(ExamSubmissionGradedEvent event) {
+        ExamGradingService.PaperKey paperKey = examGradingService.getPaperKey(event.getPaperId());
+        Map<String, Integer> scores = new TreeMap<>();
+        for (String category : paperKey.getCategories()) {
+            scores.put(category, 0);
+        }
+        for (ExamSubmissionGradedEvent.QuestionResult question : event.getQuestions()) {
+            String category = paperKey.getCategory(question.getQuestionId());
+            if (category != null && question.getScore() != null) {
+                scores.merge(category, question.getScore(), Integer::sum);
+            }
+        }
+        return scores;
+    }
+
+    private double passScore(int totalScore) {
+        return totalScore * passRatio;
+    }
+
+    /**
+     * 得分所在的分数段（满分计入最后一段）
+     */
+    private static int bucketOf(int score, int totalScore) {
+        if (totalScore <= 0 || score <= 0) {
+            return 0;
+        }
+        return (int) Math.min(HISTOGRAM_BUCKETS - 1, (long) score * HISTOGRAM_BUCKETS / totalScore);
+    }
+
+    /**
+     * 查询考试成绩统计
+     * @param examId 考试ID
+     */
+    public ExamScoreSummaryDTO getScoreSummary(Long examId) {
+        Map<Object, Object> stats = stringRedisTemplate.opsForHash().entries(ExamRedisKeys.analyseScore(examId));
+        ExamScoreSummaryDTO summary = new ExamScoreSummaryDTO();
+        summary.setExamId(examId);
+        long count = longOf(stats.get("count"));
+        summary.setSubmittedCount(count);
+        if (count == 0) {
+            summary.setPassCount(0L);
+            summary.setHistogram(new ArrayList<>());
+            return summary;
+        }
+
+        int totalScore = (int) longOf(stats.get("total"));
+        double mean = doubleOf(stats.get("mean"));
+        double variance = doubleOf(stats.get("m2")) / count;
+        long passCount = longOf(stats.get("pass"));
+        summary.setTotalScore(totalScore);
+        summary.setMean(mean);
+        summary.setVariance(variance);
+        summary.setStdDev(Math.sqrt(variance));
+        summary.setMinScore(doubleOf(stats.get("min")));
+        summary.setMaxScore(doubleOf(stats.get("max")));
+        summary.setPassScore(passScore(totalScore));
+        summary.setPassCount(passCount);
+        summary.setPassRate((double) passCount / count);
+
+        List<ScoreBucketDTO> histogram = new ArrayList<>(HISTOGRAM_BUCKETS);
+        double width = (double) totalScore / HISTOGRAM_BUCKETS;
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            histogram.add(new ScoreBucketDTO(bucket * width, (bucket + 1) * width, longOf(stats.get("bucket:" + bucket))));
+        }
+        summary.setHistogram(histogram);
+        return summary;
+    }
+
+    /**
+     * 查询考试逐题统计（按题目ID排序）
+     * @param examId 考试ID
+     */
+    public List<QuestionStatsDTO> getQuestionStats(Long examId) {
+        long submitted = longOf(stringRedisTemplate.opsForHash().get(ExamRedisKeys.analyseScore(examId), "count"));
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(ExamRedisKeys.analyseQuestion(examId));
+
+        // field 格式：{questionId}:{指标}
+        Map<Long, Map<String, Long>> metricsByQuestion = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = (String) entry.getKey();
+            int separator = field.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            Long questionId = Long.parseLong(field.substring(0, separator));
+            metricsByQuestion.computeIfAbsent(questionId, k -> new HashMap<>())
+                    .put(field.substring(separator + 1), longOf(entry.getValue()));
+        }
+
+        List<QuestionStatsDTO> result = new ArrayList<>(metricsByQuestion.size());
+        for (Map.Entry<Long, Map<String, Long>> entry : metricsByQuestion.entrySet()) {
+            Map<String, Long> metrics = entry.getValue();
+            QuestionStatsDTO stats = new QuestionStatsDTO();
+            stats.setQuestionId(entry.getKey());
+            stats.setAnsweredCount(metrics.getOrDefault("answered", 0L));
+            stats.setCorrectCount(metrics.getOrDefault("correct", 0L));
+            stats.setPartialCount(metrics.getOrDefault("partial", 0L));
+            if (submitted > 0) {
+                stats.setAnswerRate((double) stats.getAnsweredCount() / submitted);
+                stats.setCorrectRate((double) stats.getCorrectCount() / submitted);
+                if (metrics.getOrDefault("graded", 0L) > 0) {
+                    stats.setAverageScore((double) metrics.getOrDefault("score", 0L) / submitted);
+                }
+            }
+            result.add(stats);
+        }
+        return result;
+    }
+
+    private static long longOf(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+
+    private static double doubleOf(Object value) {
+        return value != null ? Double.parseDouble(value.toString()) : 0D;
+    }
+}
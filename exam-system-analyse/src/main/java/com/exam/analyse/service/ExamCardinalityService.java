@@ -0,0 +1,266 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.mysqlmapper.ExamCardinalityMapper;
+import com.exam.analyse.dto.ExamCardinalityDTO;
+import com.exam.analyse.dto.QuestionCardinalityDTO;
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.service.AnswerGrader;
+import com.exam.excute.service.ExamActivityEvent;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.excute.util.LongLongHashMap;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 考试基数统计（HyperLogLog）：在线考生数、答题考生数、逐题作答考生数、客户端IP数
+ * 精确统计需要为每场考试每道题维护一个考生集合，内存与考生数 × 题目数成正比；
+ * HyperLogLog 每个 key 最多约 12KB，标准误差约 0.81%，PFADD 重复元素无影响，多节点各自写入即为合并
+ * 请求线程只把活动事件放入本地队列（队列满时丢弃），后台线程按固定间隔取出一批，
+ * 在本地按 key 去重后通过 pipeline 批量 PFADD，不增加保存答案和心跳的延迟
+ * 考生元素使用考试记录ID（同一场考试每个考生只有一条考试记录）
+ */
+@Service
+public class ExamCardinalityService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ExamCardinalityMapper examCardinalityMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    @Value("${exam.analyse.cardinality.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${exam.analyse.cardinality.queue-capacity:65536}")
+    private int queueCapacity;
+
+    // 基数统计保留时间（秒），与考试统计一致
+    private static final long HLL_TTL_SECONDS = 30L * 24 * 60 * 60;
+
+    // 每次从队列取出的最大事件数
+    private static final int DRAIN_BATCH_SIZE = 10000;
+
+    // 单次查询考试记录所属考试的最大ID数
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    // 考试记录ID -> 考试ID 本地缓存的条目上限，超过后清空重建
+    private static final int MAX_CACHED_RECORDS = 1_000_000;
+
+    // 本地缓存中表示考试记录不存在
+    private static final long UNKNOWN_EXAM = 0;
+
+    private BlockingQueue<ExamActivityEvent> queue;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    // 考试记录ID -> 考试ID（只由刷新线程访问）
+    private LongLongHashMap recordExamIds = new LongLongHashMap(1024);
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "exam-cardinality-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录活动事件（非阻塞，队列满时丢弃：基数统计本身是近似值，不影响考试流程）
+     */
+    @EventListener
+    public void onActivity(ExamActivityEvent event) {
+        if (event.getExamRecordId() == null) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            long dropped = droppedEvents.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                System.err.println("基数统计事件队列已满，累计丢弃 " + dropped + " 个事件");
+            }
+        }
+    }
+
+    /**
+     * 取出队列中的事件，按 key 去重后批量写入 Redis
+     */
+    void flush() {
+        List<ExamActivityEvent> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        try {
+            while (queue.drainTo(batch, DRAIN_BATCH_SIZE) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (Exception e) {
+            System.err.println("写入基数统计失败，丢弃 " + batch.size() + " 个事件, 错误: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<ExamActivityEvent> batch) {
+        resolveExamIds(batch);
+
+        // key -> 本批需要写入的元素（已去重）
+        Map<String, Set<String>> elements = new HashMap<>();
+        for (ExamActivityEvent event : batch) {
+            long examId = recordExamIds.get(event.getExamRecordId());
+            if (examId == LongLongHashMap.MISSING || examId == UNKNOWN_EXAM) {
+                continue;
+            }
+            String member = event.getExamRecordId().toString();
+            if (event.getType() == ExamActivityEvent.Type.CONNECT) {
+                add(elements, ExamRedisKeys.analyseConnectedStudents(examId), member);
+                if (event.getClientIp() != null) {
+                    add(elements, ExamRedisKeys.analyseClientIps(examId), event.getClientIp());
+                }
+            } else if (event.getQuestionIds() != null && !event.getQuestionIds().isEmpty()) {
+                add(elements, ExamRedisKeys.analyseAnsweredStudents(examId), member);
+                for (Long questionId : event.getQuestionIds()) {
+                    add(elements, ExamRedisKeys.analyseQuestionStudents(examId, questionId), member);
+                }
+            }
+        }
+        if (elements.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, Set<String>> entry : elements.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[][] values = new byte[entry.getValue().size()][];
+                int i = 0;
+                for (String value : entry.getValue()) {
+                    values[i++] = value.getBytes(StandardCharsets.UTF_8);
+                }
+                connection.hyperLogLogCommands().pfAdd(key, values);
+                connection.keyCommands().expire(key, HLL_TTL_SECONDS);
+            }
+            return null;
+        });
+    }
+
+    private static void add(Map<String, Set<String>> elements, String key, String value) {
+        elements.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+    }
+
+    /**
+     * 补全事件所属考试：进入考试事件自带考试ID，其余事件先查本地缓存，缓存中没有的批量查询数据库
+     */
+    private void resolveExamIds(List<ExamActivityEvent> batch) {
+        if (recordExamIds.size() > MAX_CACHED_RECORDS) {
+            recordExamIds = new LongLongHashMap(1024);
+        }
+        Set<Long> missing = new HashSet<>();
+        for (ExamActivityEvent event : batch) {
+            if (event.getExamId() != null) {
+                recordExamIds.put(event.getExamRecordId(), event.getExamId());
+            } else if (recordExamIds.get(event.getExamRecordId()) == LongLongHashMap.MISSING) {
+                missing.add(event.getExamRecordId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(missing);
+        for (int from = 0; from < ids.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, ids.size()));
+            for (ExamRecordDO record : examCardinalityMapper.selectExamIdsByIds(chunk)) {
+                recordExamIds.put(record.getId(), record.getExamId());
+            }
+        }
+        // 不存在的考试记录（客户端伪造的ID）也缓存下来，避免每批都查询数据库
+        for (Long id : ids) {
+            if (recordExamIds.get(id) == LongLongHashMap.MISSING) {
+                recordExamIds.put(id, UNKNOWN_EXAM);
+            }
+        }
+    }
+
+    /**
+     * 查询考试的基数统计（近似值）
+     * @param examId 考试ID
+     */
+    public ExamCardinalityDTO getCardinality(Long examId) {
+        ExamDO exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+        List<Long> questionIds = new ArrayList<>();
+        for (AnswerGrader.Key key : examGradingService.getPaperKey(exam.getPaperId()).getKeys()) {
+            questionIds.add(key.getQuestionId());
+        }
+
+        List<String> keys = new ArrayList<>(questionIds.size() + 3);
+        keys.add(ExamRedisKeys.analyseConnectedStudents(examId));
+        keys.add(ExamRedisKeys.analyseAnsweredStudents(examId));
+        keys.add(ExamRedisKeys.analyseClientIps(examId));
+        for (Long questionId : questionIds) {
+            keys.add(ExamRedisKeys.analyseQuestionStudents(examId, questionId));
+        }
+        // 逐个 key 计数（多个 key 一起 PFCOUNT 得到的是并集基数）
+        List<Object> counts = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hyperLogLogCommands().pfCount(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        ExamCardinalityDTO result = new ExamCardinalityDTO();
+        result.setExamId(examId);
+        result.setConnectedStudents(toLong(counts.get(0)));
+        result.setAnsweredStudents(toLong(counts.get(1)));
+        result.setDistinctIps(toLong(counts.get(2)));
+        List<QuestionCardinalityDTO> questions = new ArrayList<>(questionIds.size());
+        for (int i = 0; i < questionIds.size(); i++) {
+            QuestionCardinalityDTO question = new QuestionCardinalityDTO();
+            question.setQuestionId(questionIds.get(i));
+            question.setAnsweredStudents(toLong(counts.get(i + 3)));
+            questions.add(question);
+        }
+        result.setQuestions(questions);
+        return result;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+    }
+}
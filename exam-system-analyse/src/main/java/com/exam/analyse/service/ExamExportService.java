@@ -0,0 +1,252 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ExportRowDO;
+import com.exam.analyse.dal.mysqlmapper.ExamExportMapper;
+import com.exam.analyse.dto.ExamExportDTO;
+import com.exam.excute.service.AnswerGrader;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 考试结果列式导出服务（供数据组离线分析）
+ * 导出在单独的线程中执行：通过 MyBatis 游标流式读取考试记录和答题记录，逐行写入 Arrow IPC 流文件，
+ * 整个过程不把考试数据加载到堆内存，内存占用只与写入批次大小有关
+ * 任务和文件都在执行导出的节点本地，进度查询和下载需要路由到同一节点（单节点部署或按考试ID粘滞）
+ */
+@Service
+public class ExamExportService {
+
+    @Autowired
+    private ExamExportMapper examExportMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    // 游标需要在事务中读取（导出在独立线程执行，使用编程式事务）
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.analyse.export.dir:./data/exports}")
+    private String exportDir;
+
+    // 单个导出任务可用的堆外内存上限（字节），正常只用到几 MB
+    private static final long MEMORY_LIMIT_BYTES = 256L * 1024 * 1024;
+
+    // 文件输出缓冲区大小（字节）
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 20;
+
+    // 已结束任务的保留时间（小时），超过后不再能查询进度和下载（文件保留在磁盘上）
+    private static final long JOB_RETENTION_HOURS = 24;
+
+    private static final String FILE_SUFFIX = ".arrows";
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService exportExecutor;
+
+    /**
+     * 导出任务（导出线程更新进度，查询线程读取）
+     */
+    private static final class ExportJob {
+        private final String jobId;
+        private final Long examId;
+        private final LocalDateTime createTime = LocalDateTime.now();
+        private volatile String status = "queued";
+        private volatile long totalRows;
+        private volatile long exportedRows;
+        private volatile long bytesWritten;
+        private volatile String fileName;
+        private volatile String error;
+        private volatile LocalDateTime finishTime;
+
+        private ExportJob(String jobId, Long examId) {
+            this.jobId = jobId;
+            this.examId = examId;
+        }
+
+        private boolean isDone() {
+            return "finished".equals(status) || "failed".equals(status);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        // 导出任务依次执行，避免多个大考试同时占用数据库连接和磁盘带宽
+        exportExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "exam-result-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交导出任务，同一场考试已有未结束的任务时直接返回该任务
+     * @param examId 考试ID
+     */
+    public ExamExportDTO startExport(Long examId) {
+        ExamDO exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+        if (!"finished".equals(exam.getStatus())) {
+            throw new RuntimeException("考试结束后才能导出结果");
+        }
+        removeExpiredJobs();
+        synchronized (jobs) {
+            for (ExportJob job : jobs.values()) {
+                if (job.examId.equals(examId) && !job.isDone()) {
+                    return toDTO(job);
+                }
+            }
+            ExportJob job = new ExportJob(UUID.randomUUID().toString().replace("-", ""), examId);
+            jobs.put(job.jobId, job);
+            exportExecutor.execute(() -> run(job, exam.getPaperId()));
+            return toDTO(job);
+        }
+    }
+
+    /**
+     * 查询导出进度
+     * @param examId 考试ID
+     * @param jobId 导出任务ID
+     */
+    public ExamExportDTO getExport(Long examId, String jobId) {
+        return toDTO(getJob(examId, jobId));
+    }
+
+    /**
+     * 获取已完成的导出文件
+     * @param examId 考试ID
+     * @param jobId 导出任务ID
+     */
+    public Path getExportFile(Long examId, String jobId) {
+        ExportJob job = getJob(examId, jobId);
+        if (!"finished".equals(job.status)) {
+            throw new RuntimeException("导出尚未完成");
+        }
+        Path file = Paths.get(exportDir, job.fileName);
+        if (!Files.exists(file)) {
+            throw new RuntimeException("导出文件已被删除");
+        }
+        return file;
+    }
+
+    private ExportJob getJob(Long examId, String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !job.examId.equals(examId)) {
+            throw new RuntimeException("导出任务不存在或已过期");
+        }
+        return job;
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.isDone() && job.finishTime.isBefore(expireBefore));
+    }
+
+    private void run(ExportJob job, Long paperId) {
+        job.status = "running";
+        String fileName = "exam-" + job.examId + "-" + job.jobId + FILE_SUFFIX;
+        Path file = Paths.get(exportDir, fileName);
+        // 先写临时文件，完成后再改名，下载时不会拿到写了一半的文件
+        Path partFile = Paths.get(exportDir, fileName + ".part");
+        try {
+            Files.createDirectories(file.getParent());
+            job.totalRows = examExportMapper.countRows(job.examId);
+
+            List<Long> questionIds = new ArrayList<>();
+            for (AnswerGrader.Key key : examGradingService.getPaperKey(paperId).getKeys()) {
+                questionIds.add(key.getQuestionId());
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (BufferAllocator allocator = new RootAllocator(MEMORY_LIMIT_BYTES);
+                     ExamResultArrowWriter writer = new ExamResultArrowWriter(allocator,
+                             Channels.newChannel(new BufferedOutputStream(Files.newOutputStream(partFile), OUTPUT_BUFFER_BYTES)),
+                             job.examId, questionIds);
+                     Cursor<ExportRowDO> cursor = examExportMapper.streamRows(job.examId)) {
+                    for (ExportRowDO row : cursor) {
+                        writer.write(row);
+                        job.exportedRows = writer.getRowsWritten();
+                        job.bytesWritten = writer.getBytesWritten();
+                    }
+                    writer.finish();
+                    job.bytesWritten = writer.getBytesWritten();
+                } catch (IOException e) {
+                    throw new RuntimeException("写入导出文件失败: " + e.getMessage(), e);
+                }
+            });
+
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.fileName = fileName;
+            job.finishTime = LocalDateTime.now();
+            job.status = "finished";
+        } catch (Exception e) {
+            System.err.println("导出考试结果失败: " + job.examId + ", 错误: " + e.getMessage());
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException ignored) {
+                // 临时文件删除失败不影响任务状态
+            }
+            job.error = e.getMessage();
+            job.finishTime = LocalDateTime.now();
+            job.status = "failed";
+        }
+    }
+
+    private ExamExportDTO toDTO(ExportJob job) {
+        ExamExportDTO dto = new ExamExportDTO();
+        dto.setJobId(job.jobId);
+        dto.setExamId(job.examId);
+        dto.setStatus(job.status);
+        dto.setTotalRows(job.totalRows);
+        dto.setExportedRows(job.exportedRows);
+        if ("finished".equals(job.status)) {
+            dto.setProgress(100.0);
+        } else {
+            dto.setProgress(job.totalRows > 0 ? Math.min(100.0, job.exportedRows * 100.0 / job.totalRows) : 0.0);
+        }
+        dto.setBytesWritten(job.bytesWritten);
+        dto.setFileName(job.fileName);
+        dto.setError(job.error);
+        dto.setCreateTime(job.createTime);
+        dto.setFinishTime(job.finishTime);
+        return dto;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ExportRowDO;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 考试结果列式写入器（Arrow IPC 流格式，每行为一道题的作答，附带所属考试记录的字段）
+ * 逐行追加到固定大小的批次中，批次写满后输出一个 record batch 并复用同一组向量，内存占用只与批次大小有关，与考试人数无关
+ * 字典编码：
+ * 1. question_id：以试卷题目预先建立字典，通常只在第一个批次前写出一次；出现试卷外的题目时追加，之前的下标仍然有效
+ * 2. student_answer、record_status：每个批次单独建立字典（IPC 流格式的字典替换），字典大小不超过批次行数，
+ *    选择题答案、状态这类重复值很多的列每个值每批只存一份
+ * 时间列为不带时区的毫秒时间戳，取值即数据库中的本地时间
+ */
+public final class ExamResultArrowWriter implements AutoCloseable {
+
+    /**
+     * 每个批次的行数
+     */
+    public static final int BATCH_ROWS = 65536;
+
+    private static final long QUESTION_DICTIONARY_ID = 1;
+    private static final long ANSWER_DICTIONARY_ID = 2;
+    private static final long STATUS_DICTIONARY_ID = 3;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+    private static final ArrowType INT64 = new ArrowType.Int(64, true);
+    private static final ArrowType INT32 = new ArrowType.Int(32, true);
+    private static final ArrowType INT8 = new ArrowType.Int(8, true);
+    private static final ArrowType TIMESTAMP = new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+
+    private final BigIntVector examRecordId;
+    private final BigIntVector studentId;
+    private final IntVector recordStatus;
+    private final IntVector recordScore;
+    private final TimeStampMilliVector startTime;
+    private final TimeStampMilliVector submitTime;
+    private final IntVector switchCount;
+    private final TinyIntVector isCheating;
+    private final IntVector questionId;
+    private final IntVector studentAnswer;
+    private final TinyIntVector isCorrect;
+    private final IntVector score;
+    private final BigIntVector answerTime;
+
+    // 题目字典：整个文件共用，只追加
+    private final BigIntVector questionDictionary;
+    private final Map<Long, Integer> questionIndexes = new HashMap<>();
+
+    private final StringDictionary answerDictionary;
+    private final StringDictionary statusDictionary;
+
+    private int batchRows;
+    private long rowsWritten;
+
+    /**
+     * @param allocator 向量内存分配器，由调用方关闭
+     * @param out 输出通道，关闭写入器时一并关闭
+     * @param examId 考试ID（写入 schema 元数据）
+     * @param questionIds 试卷题目ID（预先建立题目字典）
+     */
+    public ExamResultArrowWriter(BufferAllocator allocator, WritableByteChannel out,
+                                 Long examId, List<Long> questionIds) throws IOException {
+        DictionaryEncoding questionEncoding = new DictionaryEncoding(QUESTION_DICTIONARY_ID, false, INDEX_TYPE);
+        DictionaryEncoding answerEncoding = new DictionaryEncoding(ANSWER_DICTIONARY_ID, false, INDEX_TYPE);
+        DictionaryEncoding statusEncoding = new DictionaryEncoding(STATUS_DICTIONARY_ID, false, INDEX_TYPE);
+
+        Schema schema = new Schema(List.of(
+                Field.notNullable("exam_record_id", INT64),
+                Field.notNullable("student_id", INT64),
+                new Field("record_status", new FieldType(true, INDEX_TYPE, statusEncoding), null),
+                Field.nullable("record_score", INT32),
+                Field.nullable("start_time", TIMESTAMP),
+                Field.nullable("submit_time", TIMESTAMP),
+                Field.nullable("switch_count", INT32),
+                Field.nullable("is_cheating", INT8),
+                new Field("question_id", new FieldType(true, INDEX_TYPE, questionEncoding), null),
+                new Field("student_answer", new FieldType(true, INDEX_TYPE, answerEncoding), null),
+                Field.nullable("is_correct", INT8),
+                Field.nullable("score", INT32),
+                Field.nullable("answer_time", INT64)
+        ), Map.of("exam_id", String.valueOf(examId)));
+
+        root = VectorSchemaRoot.create(schema, allocator);
+        examRecordId = (BigIntVector) root.getVector("exam_record_id");
+        studentId = (BigIntVector) root.getVector("student_id");
+        recordStatus = (IntVector) root.getVector("record_status");
+        recordScore = (IntVector) root.getVector("record_score");
+        startTime = (TimeStampMilliVector) root.getVector("start_time");
+        submitTime = (TimeStampMilliVector) root.getVector("submit_time");
+        switchCount = (IntVector) root.getVector("switch_count");
+        isCheating = (TinyIntVector) root.getVector("is_cheating");
+        questionId = (IntVector) root.getVector("question_id");
+        studentAnswer = (IntVector) root.getVector("student_answer");
+        isCorrect = (TinyIntVector) root.getVector("is_correct");
+        score = (IntVector) root.getVector("score");
+        answerTime = (BigIntVector) root.getVector("answer_time");
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.setInitialCapacity(BATCH_ROWS);
+            vector.allocateNew();
+        }
+
+        questionDictionary = new BigIntVector(Field.notNullable("question_id", INT64), allocator);
+        for (Long id : questionIds) {
+            questionIndex(id);
+        }
+        questionDictionary.setValueCount(questionIndexes.size());
+        answerDictionary = new StringDictionary("student_answer", answerEncoding, allocator);
+        statusDictionary = new StringDictionary("record_status", statusEncoding, allocator);
+
+        DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        provider.put(new Dictionary(questionDictionary, questionEncoding));
+        provider.put(answerDictionary.dictionary);
+        provider.put(statusDictionary.dictionary);
+
+        writer = new ArrowStreamWriter(root, provider, out);
+        writer.start();
+    }
+
+    /**
+     * 追加一行，批次写满时输出
+     */
+    public void write(ExportRowDO row) throws IOException {
+        int i = batchRows;
+        examRecordId.setSafe(i, row.getExamRecordId());
+        studentId.setSafe(i, row.getStudentId());
+        setIndex(recordStatus, i, row.getRecordStatus() != null ? statusDictionary.indexOf(row.getRecordStatus()) : -1);
+        setInt(recordScore, i, row.getRecordScore());
+        setTime(startTime, i, row.getStartTime());
+        setTime(submitTime, i, row.getSubmitTime());
+        setInt(switchCount, i, row.getSwitchCount());
+        setByte(isCheating, i, row.getIsCheating());
+        setIndex(questionId, i, row.getQuestionId() != null ? questionIndex(row.getQuestionId()) : -1);
+        setIndex(studentAnswer, i, row.getStudentAnswer() != null ? answerDictionary.indexOf(row.getStudentAnswer()) : -1);
+        setByte(isCorrect, i, row.getIsCorrect());
+        setInt(score, i, row.getScore());
+        if (row.getAnswerTime() != null) {
+            answerTime.setSafe(i, row.getAnswerTime());
+        } else {
+            answerTime.setNull(i);
+        }
+        rowsWritten++;
+        if (++batchRows >= BATCH_ROWS) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * 输出最后一个批次和流结束标记
+     */
+    public void finish() throws IOException {
+        flushBatch();
+        writer.end();
+    }
+
+    /**
+     * 已追加的行数
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * 已输出的字节数（不含尚未写满的批次）
+     */
+    public long getBytesWritten() {
+        return writer.bytesWritten();
+    }
+
+    private void flushBatch() throws IOException {
+        if (batchRows == 0) {
+            return;
+        }
+        questionDictionary.setValueCount(questionIndexes.size());
+        answerDictionary.seal();
+        statusDictionary.seal();
+        root.setRowCount(batchRows);
+        // 字典与上一批不同时先写出新的字典批次（替换），再写数据批次
+        writer.writeBatch();
+
+        // 复用已分配的缓冲区
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+        answerDictionary.clear();
+        statusDictionary.clear();
+        batchRows = 0;
+    }
+
+    private int questionIndex(Long id) {
+        Integer index = questionIndexes.get(id);
+        if (index == null) {
+            index = questionIndexes.size();
+            questionDictionary.setSafe(index, id);
+            questionIndexes.put(id, index);
+        }
+        return index;
+    }
+
+    private static void setIndex(IntVector vector, int i, int index) {
+        if (index >= 0) {
+            vector.setSafe(i, index);
+        } else {
+            vector.setNull(i);
+        }
+    }
+
+    private static void setInt(IntVector vector, int i, Integer value) {
+        if (value != null) {
+            vector.setSafe(i, value);
+        } else {
+            vector.setNull(i);
+        }
+    }
+
+    private static void setByte(TinyIntVector vector, int i, Integer value) {
+        if (value != null) {
+            vector.setSafe(i, value);
+        } else {
+            vector.setNull(i);
+        }
+    }
+
+    private static void setTime(TimeStampMilliVector vector, int i, LocalDateTime value) {
+        if (value != null) {
+            vector.setSafe(i, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        } else {
+            vector.setNull(i);
+        }
+    }
+
+    @Override
+    public void close() {
+        // 关闭写入器会关闭输出通道；未调用 finish 时（导出失败）文件不完整，由调用方删除
+        writer.close();
+        root.close();
+        questionDictionary.close();
+        answerDictionary.vector.close();
+        statusDictionary.vector.close();
+    }
+
+    /**
+     * 每个批次单独建立的字符串字典
+     */
+    private static final class StringDictionary {
+        private final VarCharVector vector;
+        private final Dictionary dictionary;
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private StringDictionary(String name, DictionaryEncoding encoding, BufferAllocator allocator) {
+            vector = new VarCharVector(Field.notNullable(name, new ArrowType.Utf8()), allocator);
+            vector.allocateNew();
+            dictionary = new Dictionary(vector, encoding);
+        }
+
+        private int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = indexes.size();
+                vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+                indexes.put(value, index);
+            }
+            return index;
+        }
+
+        private void seal() {
+            vector.setValueCount(indexes.size());
+        }
+
+        private void clear() {
+            vector.reset();
+            indexes.clear();
+        }
+    }
+}
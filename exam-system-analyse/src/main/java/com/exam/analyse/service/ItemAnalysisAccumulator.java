@@ -0,0 +1,208 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ItemAnalysisDO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 试题分析累加器：一次遍历所有作答，计算每道题的难度和区分度
+ * 1. 每道题只保存基本类型计数，外加“按考生总分分组的答对人数”（题目数 × (试卷总分 + 1) 个 int），
+ *    内存只与试卷规模有关，与考生人数无关
+ * 2. 点二列相关系数需要答对组和答错组的平均总分，由按总分分组的计数直接求和得到
+ * 3. 高分组/低分组取总分前后 27%：遍历结束后总分分布已知，从两端按分数累计人数确定分组，
+ *    边界分数上的考生按比例计入（相当于同分考生随机分组的期望），不需要对考生排序，也不需要再读一遍数据
+ * 非线程安全，每次分析创建一个实例
+ */
+public final class ItemAnalysisAccumulator {
+
+    // 高分组、低分组占考生人数的比例
+    static final double GROUP_RATIO = 0.27;
+
+    private final Long[] questionIds;
+    private final Map<Long, Integer> indexByQuestion;
+    private final int maxScore;
+
+    // 总分为 s 的考生人数
+    private final int[] studentsByScore;
+    // 题目 q、总分为 s 的答对人数：correctByScore[q * (maxScore + 1) + s]
+    private final int[] correctByScore;
+    private final int[] answered;
+    private final int[] correct;
+    private final int[] partial;
+    private final long[] scoreSum;
+    // 已自动批改（得分不为空）的作答数
+    private final int[] graded;
+
+    private int studentCount;
+    private Long currentRecordId;
+    private int currentScore;
+
+    /**
+     * @param questionIds 试卷中的题目ID
+     * @param totalScore 试卷总分（考生总分超出范围时按边界计）
+     */
+    public ItemAnalysisAccumulator(List<Long> questionIds, int totalScore) {
+        int size = questionIds.size();
+        this.questionIds = questionIds.toArray(new Long[0]);
+        this.indexByQuestion = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexByQuestion.put(this.questionIds[i], i);
+        }
+        this.maxScore = Math.max(totalScore, 0);
+        this.studentsByScore = new int[maxScore + 1];
+        this.correctByScore = new int[size * (maxScore + 1)];
+        this.answered = new int[size];
+        this.correct = new int[size];
+        this.partial = new int[size];
+        this.scoreSum = new long[size];
+        this.graded = new int[size];
+    }
+
+    /**
+     * 累加一行作答，行需按考试记录ID有序（同一考生的行连续）
+     * @param examRecordId 考试记录ID
+     * @param recordScore 考生总得分
+     * @param questionId 题目ID（考生没有任何作答时为空）
+     * @param isCorrect 是否正确
+     * @param score 该题得分
+     */
+    public void add(Long examRecordId, Integer recordScore, Long questionId, Integer isCorrect, Integer score) {
+        if (!examRecordId.equals(currentRecordId)) {
+            currentRecordId = examRecordId;
+            currentScore = clamp(recordScore);
+            studentsByScore[currentScore]++;
+            studentCount++;
+        }
+        if (questionId == null) {
+            return;
+        }
+        Integer index = indexByQuestion.get(questionId);
+        if (index == null) {
+            // 不属于该试卷的题目不参与分析
+            return;
+        }
+        int q = index;
+        answered[q]++;
+        if (isCorrect != null) {
+            if (isCorrect == 1) {
+                correct[q]++;
+                correctByScore[q * (maxScore + 1) + currentScore]++;
+            } else if (isCorrect == 2) {
+                partial[q]++;
+            }
+        }
+        if (score != null) {
+            scoreSum[q] += score;
+            graded[q]++;
+        }
+    }
+
+    private int clamp(Integer score) {
+        if (score == null || score < 0) {
+            return 0;
+        }
+        return Math.min(score, maxScore);
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    /**
+     * 计算所有题目的分析结果
+     * @param examId 考试ID
+     */
+    public List<ItemAnalysisDO> finish(Long examId) {
+        int n = studentCount;
+        int width = maxScore + 1;
+
+        // 总分的合计和平方和（总体标准差）
+        double sum = 0;
+        double sumSquares = 0;
+        for (int s = 0; s < width; s++) {
+            sum += (double) s * studentsByScore[s];
+            sumSquares += (double) s * s * studentsByScore[s];
+        }
+        double mean = n > 0 ? sum / n : 0;
+        double variance = n > 0 ? Math.max(sumSquares / n - mean * mean, 0) : 0;
+        double stdDev = Math.sqrt(variance);
+
+        // 高分组/低分组：每个分数上有多大比例的考生计入该组
+        double groupSize = n * GROUP_RATIO;
+        double[] upperWeight = groupWeights(groupSize, true);
+        double[] lowerWeight = groupWeights(groupSize, false);
+
+        List<ItemAnalysisDO> result = new ArrayList<>(questionIds.length);
+        for (int q = 0; q < questionIds.length; q++) {
+            ItemAnalysisDO item = new ItemAnalysisDO();
+            item.setExamId(examId);
+            item.setQuestionId(questionIds[q]);
+            item.setStudentCount(n);
+            item.setAnsweredCount(answered[q]);
+            item.setCorrectCount(correct[q]);
+            item.setPartialCount(partial[q]);
+            if (n > 0) {
+                // 未作答按答错计，分母是已交卷人数
+                double p = (double) correct[q] / n;
+                item.setDifficulty(p);
+                if (graded[q] > 0) {
+                    item.setAverageScore((double) scoreSum[q] / n);
+                }
+
+                int offset = q * width;
+                double correctScoreSum = 0;
+                double upperCorrect = 0;
+                double lowerCorrect = 0;
+                for (int s = 0; s < width; s++) {
+                    int c = correctByScore[offset + s];
+                    if (c == 0) {
+                        continue;
+                    }
+                    correctScoreSum += (double) s * c;
+                    upperCorrect += c * upperWeight[s];
+                    lowerCorrect += c * lowerWeight[s];
+                }
+
+                // 点二列相关：(答对组平均总分 - 答错组平均总分) / 总分标准差 * sqrt(p * (1 - p))
+                int wrong = n - correct[q];
+                if (correct[q] > 0 && wrong > 0 && stdDev > 0) {
+                    double correctMean = correctScoreSum / correct[q];
+                    double wrongMean = (sum - correctScoreSum) / wrong;
+                    item.setPointBiserial((correctMean - wrongMean) / stdDev * Math.sqrt(p * (1 - p)));
+                }
+
+                if (groupSize > 0) {
+                    double upperRate = upperCorrect / groupSize;
+                    double lowerRate = lowerCorrect / groupSize;
+                    item.setUpperCorrectRate(upperRate);
+                    item.setLowerCorrectRate(lowerRate);
+                    item.setDiscrimination(upperRate - lowerRate);
+                }
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * 从最高分（或最低分）开始累计人数，计算每个分数上计入分组的考生比例
+     */
+    private double[] groupWeights(double groupSize, boolean fromTop) {
+        double[] weights = new double[maxScore + 1];
+        double remaining = groupSize;
+        for (int i = 0; i <= maxScore && remaining > 0; i++) {
+            int s = fromTop ? maxScore - i : i;
+            int count = studentsByScore[s];
+            if (count == 0) {
+                continue;
+            }
+            double taken = Math.min(count, remaining);
+            weights[s] = taken / count;
+            remaining -= taken;
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,53 @@
+package com.exam.analyse.service;
+
+import com.exam.excute.util.DistributedLockUtil;
+import com.exam.manage.util.ExamRedisKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 试题分析定时任务
+ * 考试结束且提交队列处理完（没有答题中的考试记录）后，自动计算一次试题分析
+ */
+@Component
+public class ItemAnalysisScheduler {
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private DistributedLockUtil distributedLockUtil;
+
+    // 每次最多分析的考试数
+    private static final int BATCH_SIZE = 5;
+
+    // 分析锁的超时时间（秒），需大于一场大型考试的分析耗时
+    private static final long LOCK_TIMEOUT_SECONDS = 600;
+
+    /**
+     * 每分钟执行一次，分析刚结束的考试
+     */
+    @Scheduled(fixedDelay = 60000) // 1分钟
+    public void analyseFinishedExams() {
+        List<Long> examIds = itemAnalysisService.getExamIdsPendingAnalysis(BATCH_SIZE);
+        for (Long examId : examIds) {
+            String lockKey = ExamRedisKeys.itemAnalysisLock(examId);
+            // 其他节点正在分析时跳过
+            String lockValue = distributedLockUtil.tryLock(lockKey, LOCK_TIMEOUT_SECONDS);
+            if (lockValue == null) {
+                continue;
+            }
+            try {
+                itemAnalysisService.analyse(examId);
+            } catch (Exception e) {
+                // 记录日志，继续处理下一个
+                System.err.println("试题分析失败: " + examId + ", 错误: " + e.getMessage());
+            } finally {
+                distributedLockUtil.releaseLock(lockKey, lockValue);
+            }
+        }
+    }
+}
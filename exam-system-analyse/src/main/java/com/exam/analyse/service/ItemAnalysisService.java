@@ -0,0 +1,105 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ItemAnalysisDO;
+import com.exam.analyse.dal.dataobject.ItemResponseDO;
+import com.exam.analyse.dal.mysqlmapper.ItemAnalysisMapper;
+import com.exam.analyse.dto.ItemAnalysisDTO;
+import com.exam.excute.service.AnswerGrader;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 试题分析服务：计算考试每道题的难度（P值）和区分度（点二列相关系数、高低分组正确率之差）
+ * 用游标按考试记录顺序流式读取 exam_record LEFT JOIN answer_record，一次遍历完成全部指标的计算，
+ * 不在数据库中做多次 GROUP BY，也不把整场考试的作答加载到内存（累加器见 ItemAnalysisAccumulator）
+ */
+@Service
+public class ItemAnalysisService {
+
+    @Autowired
+    private ItemAnalysisMapper itemAnalysisMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    // 每批写入的分析结果条数
+    private static final int UPSERT_BATCH_SIZE = 200;
+
+    /**
+     * 计算一场考试的试题分析并保存（已存在的结果会被覆盖，人工批改后可以重新计算）
+     * 游标需要在事务中读取，读取完毕关闭后再写入结果
+     * @param examId 考试ID
+     * @return 各题的分析结果
+     */
+    @Transactional
+    public List<ItemAnalysisDO> analyse(Long examId) {
+        ExamDO exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+
+        ExamGradingService.PaperKey paperKey = examGradingService.getPaperKey(exam.getPaperId());
+        List<Long> questionIds = new ArrayList<>();
+        for (AnswerGrader.Key key : paperKey.getKeys()) {
+            questionIds.add(key.getQuestionId());
+        }
+        questionIds.sort(null);
+
+        ItemAnalysisAccumulator accumulator = new ItemAnalysisAccumulator(questionIds, paperKey.getTotalScore());
+        try (Cursor<ItemResponseDO> cursor = itemAnalysisMapper.streamResponses(examId)) {
+            for (ItemResponseDO row : cursor) {
+                accumulator.add(row.getExamRecordId(), row.getRecordScore(), row.getQuestionId(), row.getIsCorrect(), row.getScore());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取作答数据失败", e);
+        }
+
+        List<ItemAnalysisDO> items = accumulator.finish(examId);
+        for (int from = 0; from < items.size(); from += UPSERT_BATCH_SIZE) {
+            itemAnalysisMapper.batchUpsert(items.subList(from, Math.min(from + UPSERT_BATCH_SIZE, items.size())));
+        }
+        return items;
+    }
+
+    /**
+     * 查询一场考试已保存的试题分析结果
+     * @param examId 考试ID
+     */
+    public List<ItemAnalysisDTO> getItemAnalysis(Long examId) {
+        return toDTOList(itemAnalysisMapper.selectByExamId(examId));
+    }
+
+    /**
+     * 转换为DTO
+     */
+    public List<ItemAnalysisDTO> toDTOList(List<ItemAnalysisDO> items) {
+        List<ItemAnalysisDTO> result = new ArrayList<>(items.size());
+        for (ItemAnalysisDO item : items) {
+            ItemAnalysisDTO dto = new ItemAnalysisDTO();
+            BeanUtils.copyProperties(item, dto);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * 查询等待试题分析的考试：已结束、提交队列已处理完、还没有分析结果
+     * @param limit 最多返回的考试数
+     */
+    public List<Long> getExamIdsPendingAnalysis(int limit) {
+        return itemAnalysisMapper.selectExamIdsPendingAnalysis(limit);
+    }
+}
@@ -0,0 +1,281 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.mysqlmapper.LeaderboardMapper;
+import com.exam.analyse.dto.LeaderboardEntryDTO;
+import com.exam.analyse.dto.LeaderboardPageDTO;
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.service.ExamSubmissionGradedEvent;
+import com.exam.excute.util.DistributedLockUtil;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import com.exam.userService.dal.dataobject.UserDO;
+import com.exam.userService.dal.mysqlmapper.UserMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试排行榜服务
+ * 每场考试一个 Redis ZSet（member 为学生ID），交卷批改完成时写入，分页查询和个人名次都是 O(log n)
+ * 同分时先提交者排在前面：排序分 = 得分 * 10^10 + (9999999999 - 提交时间的秒数)，
+ * 得分不超过 90 万时排序分小于 2^53，double 可以精确表示；同一秒提交的同分考生按学生ID字典序倒序，结果仍然确定
+ * Redis 数据丢失时可以从 exam_record 重建：重建只做 ZADD（同一学生的排序分不变，重复写入无影响；
+ * 提交时间写库前已截断到秒，与 MySQL DATETIME 一致），
+ * 不需要先删除再写入，重建期间新的交卷也不会丢失
+ */
+@Service
+public class LeaderboardService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private LeaderboardMapper leaderboardMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private DistributedLockUtil distributedLockUtil;
+
+    // 流式读取考试记录需要在事务中进行（本类内部调用不经过 @Transactional 代理，使用编程式事务）
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final long SCORE_FACTOR = 10_000_000_000L;
+    private static final long MAX_TIME_SECONDS = SCORE_FACTOR - 1;
+
+    // 排行榜保留时间（秒），与考试统计一致
+    private static final long LEADERBOARD_TTL_SECONDS = 30L * 24 * 60 * 60;
+
+    // 重建时每批写入 Redis 的条数
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    // 重建结果为空时的标记保留时间（秒）：考试还没有人交卷时排行榜 key 不存在，避免每次查询都扫描 MySQL
+    private static final long EMPTY_MARKER_SECONDS = 10;
+
+    // 重建锁的超时时间（秒）
+    private static final long REBUILD_LOCK_SECONDS = 300;
+
+    // 每页最多条数
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 交卷批改完成：写入排行榜
+     * 写入失败不影响交卷，只记录日志（可以通过重建恢复）
+     */
+    @EventListener
+    public void onSubmissionGraded(ExamSubmissionGradedEvent event) {
+        try {
+            String key = ExamRedisKeys.leaderboard(event.getExamId());
+            stringRedisTemplate.opsForZSet().add(key, event.getStudentId().toString(),
+                    rankScore(event.getScore(), event.getSubmitTime()));
+            stringRedisTemplate.expire(key, LEADERBOARD_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("更新排行榜失败: " + event.getExamRecordId() + ", 错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 排序分：得分在高位，提交越早低位越大
+     */
+    static double rankScore(int score, LocalDateTime submitTime) {
+        long seconds = submitTime != null ? submitTime.atZone(ZoneId.systemDefault()).toEpochSecond() : MAX_TIME_SECONDS;
+        long tieBreaker = MAX_TIME_SECONDS - Math.min(Math.max(seconds, 0), MAX_TIME_SECONDS);
+        return (double) (Math.max(score, 0) * SCORE_FACTOR + tieBreaker);
+    }
+
+    private static int scoreOf(double rankScore) {
+        return (int) ((long) rankScore / SCORE_FACTOR);
+    }
+
+    private static LocalDateTime submitTimeOf(double rankScore) {
+        long tieBreaker = (long) rankScore % SCORE_FACTOR;
+        if (tieBreaker == 0) {
+            // 没有提交时间的历史记录
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(MAX_TIME_SECONDS - tieBreaker), ZoneId.systemDefault());
+    }
+
+    /**
+     * 校验学生是否可以查看排行榜和本人名次：考试已结束且允许查看答案（成绩已公布）
+     * @param examId 考试ID
+     */
+    public void checkPublished(Long examId) {
+        ExamDO exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+        if (!"finished".equals(exam.getStatus()) || !Integer.valueOf(1).equals(exam.getAllowViewAnswer())) {
+            throw new RuntimeException("考试结束并公布成绩后才能查看排名");
+        }
+    }
+
+    /**
+     * 分页查询排行榜
+     * @param examId 考试ID
+     * @param pageNum 页码（从1开始）
+     * @param pageSize 每页大小
+     */
+    public LeaderboardPageDTO getPage(Long examId, int pageNum, int pageSize) {
+        if (pageNum < 1 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RuntimeException("分页参数不合法，每页最多" + MAX_PAGE_SIZE + "条");
+        }
+        String key = ExamRedisKeys.leaderboard(examId);
+        ensureLeaderboard(examId, key);
+
+        long start = (long) (pageNum - 1) * pageSize;
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, start, start + pageSize - 1);
+        Long total = stringRedisTemplate.opsForZSet().zCard(key);
+
+        List<LeaderboardEntryDTO> entries = new ArrayList<>();
+        List<Long> studentIds = new ArrayList<>();
+        long rank = start;
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                LeaderboardEntryDTO entry = toEntry(++rank, Long.parseLong(tuple.getValue()), tuple.getScore());
+                entries.add(entry);
+                studentIds.add(entry.getStudentId());
+            }
+        }
+        fillUsernames(entries, studentIds);
+
+        LeaderboardPageDTO page = new LeaderboardPageDTO();
+        page.setExamId(examId);
+        page.setTotal(total != null ? total : 0L);
+        page.setPageNum(pageNum);
+        page.setPageSize(pageSize);
+        page.setList(entries);
+        return page;
+    }
+
+    /**
+     * 查询学生本人的名次
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     */
+    public LeaderboardEntryDTO getStudentEntry(Long examId, Long studentId) {
+        String key = ExamRedisKeys.leaderboard(examId);
+        ensureLeaderboard(examId, key);
+        String member = studentId.toString();
+        Long index = stringRedisTemplate.opsForZSet().reverseRank(key, member);
+        Double rankScore = stringRedisTemplate.opsForZSet().score(key, member);
+        if (index == null || rankScore == null) {
+            throw new RuntimeException("考试尚未提交，暂无名次");
+        }
+        LeaderboardEntryDTO entry = toEntry(index + 1, studentId, rankScore);
+        fillUsernames(List.of(entry), List.of(studentId));
+        return entry;
+    }
+
+    private LeaderboardEntryDTO toEntry(long rank, Long studentId, Double rankScore) {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setRank(rank);
+        entry.setStudentId(studentId);
+        if (rankScore != null) {
+            entry.setScore(scoreOf(rankScore));
+            entry.setSubmitTime(submitTimeOf(rankScore));
+        }
+        return entry;
+    }
+
+    private void fillUsernames(List<LeaderboardEntryDTO> entries, List<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        Map<Long, String> usernames = new HashMap<>();
+        for (UserDO user : userMapper.selectUsernamesByIds(studentIds)) {
+            usernames.put(user.getId(), user.getUsername());
+        }
+        for (LeaderboardEntryDTO entry : entries) {
+            entry.setUsername(usernames.get(entry.getStudentId()));
+        }
+    }
+
+    /**
+     * 排行榜不存在（Redis 数据丢失或已过期）时从 MySQL 重建，其他节点正在重建时直接返回
+     * 重建没有写入任何考生时记录空标记，标记有效期内直接返回（交卷写入的 ZADD 会创建排行榜，不受标记影响）
+     */
+    private void ensureLeaderboard(Long examId, String key) {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            return;
+        }
+        String emptyKey = ExamRedisKeys.leaderboardEmpty(examId);
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(emptyKey))) {
+            return;
+        }
+        String lockKey = ExamRedisKeys.leaderboardLock(examId);
+        String lockValue = distributedLockUtil.tryLock(lockKey, REBUILD_LOCK_SECONDS);
+        if (lockValue == null) {
+            return;
+        }
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key)) && rebuildUnlocked(examId) == 0) {
+                stringRedisTemplate.opsForValue().set(emptyKey, "1", EMPTY_MARKER_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            distributedLockUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    /**
+     * 从 MySQL 重建排行榜（流式读取已提交的考试记录，分批写入）
+     * @param examId 考试ID
+     * @return 写入的考生数
+     */
+    public long rebuild(Long examId) {
+        return distributedLockUtil.executeWithLock(ExamRedisKeys.leaderboardLock(examId), REBUILD_LOCK_SECONDS,
+                () -> rebuildUnlocked(examId));
+    }
+
+    private long rebuildUnlocked(Long examId) {
+        String key = ExamRedisKeys.leaderboard(examId);
+        Long count = transactionTemplate.execute(status -> {
+            long written = 0;
+            Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+            try (Cursor<ExamRecordDO> cursor = leaderboardMapper.streamSubmittedRecords(examId)) {
+                for (ExamRecordDO record : cursor) {
+                    int score = record.getScore() != null ? record.getScore() : 0;
+                    batch.add(new DefaultTypedTuple<>(record.getStudentId().toString(), rankScore(score, record.getSubmitTime())));
+                    if (batch.size() >= REBUILD_BATCH_SIZE) {
+                        stringRedisTemplate.opsForZSet().add(key, batch);
+                        written += batch.size();
+                        batch.clear();
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("读取考试记录失败", e);
+            }
+            if (!batch.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(key, batch);
+                written += batch.size();
+            }
+            return written;
+        });
+        stringRedisTemplate.expire(key, LEADERBOARD_TTL_SECONDS, TimeUnit.SECONDS);
+        return count != null ? count : 0L;
+    }
+}
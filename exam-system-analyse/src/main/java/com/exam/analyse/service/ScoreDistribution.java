@@ -0,0 +1,105 @@
+package com.exam.analyse.service;
+
+import java.util.Map;
+
+/**
+ * 整数得分的分布（每个得分的人数），用于分位数、名次和百分位查询
+ * 得分是 0 到试卷总分（或分类总分）之间的整数，按得分计数本身就是一个可合并、无误差、大小固定的分位数草图：
+ * 多个节点各自对 Redis Hash 做 HINCRBY 即为合并，大小只与满分有关，与考生人数无关
+ * 构造时计算累计人数，之后每次查询只在累计数组上二分查找，O(log 满分)
+ */
+public final class ScoreDistribution {
+
+    // 得分为 s 的人数
+    private final long[] counts;
+    // 得分 <= s 的人数
+    private final long[] cumulative;
+    private final long total;
+
+    private ScoreDistribution(long[] counts) {
+        this.counts = counts;
+        this.cumulative = new long[counts.length];
+        long sum = 0;
+        for (int s = 0; s < counts.length; s++) {
+            sum += counts[s];
+            cumulative[s] = sum;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * 由 Redis Hash 的内容构造（field 为得分，value 为人数）
+     */
+    public static ScoreDistribution fromHash(Map<Object, Object> entries) {
+        int maxScore = -1;
+        for (Object field : entries.keySet()) {
+            maxScore = Math.max(maxScore, Integer.parseInt(field.toString()));
+        }
+        long[] counts = new long[maxScore + 1];
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            int score = Integer.parseInt(entry.getKey().toString());
+            if (score >= 0) {
+                counts[score] = Long.parseLong(entry.getValue().toString());
+            }
+        }
+        return new ScoreDistribution(counts);
+    }
+
+    /**
+     * 总人数
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 分位数（最近秩法）：至少有 q 比例的考生得分不高于该分数的最低得分
+     * @param q 0 到 1 之间，0 为最低分，1 为最高分
+     * @return 没有考生时返回 null
+     */
+    public Integer quantile(double q) {
+        if (total == 0) {
+            return null;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(Math.max(q, 0), 1) * total));
+        // 第一个累计人数 >= target 的得分
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] >= target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 名次：得分高于该分数的人数 + 1，同分同名次
+     */
+    public long rank(int score) {
+        return 1 + total - countAtOrBelow(score);
+    }
+
+    /**
+     * 百分位：得分低于该分数的人数加同分人数的一半，占总人数的百分比（同分考生百分位相同）
+     * @return 没有考生时返回 null
+     */
+    public Double percentile(int score) {
+        if (total == 0) {
+            return null;
+        }
+        long equal = score >= 0 && score < counts.length ? counts[score] : 0;
+        long below = countAtOrBelow(score - 1);
+        return (below + equal / 2.0) * 100 / total;
+    }
+
+    private long countAtOrBelow(int score) {
+        if (score < 0 || cumulative.length == 0) {
+            return 0;
+        }
+        return cumulative[Math.min(score, cumulative.length - 1)];
+    }
+}
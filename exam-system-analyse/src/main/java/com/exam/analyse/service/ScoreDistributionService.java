@@ -0,0 +1,155 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dto.ScoreQuantileDTO;
+import com.exam.analyse.dto.ScoreQuantilesDTO;
+import com.exam.analyse.dto.ScoreRankDTO;
+import com.exam.excute.dal.dataobject.AnswerRecordDO;
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.dal.mysqlmapper.AnswerRecordMapper;
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.manage.util.ExamRedisKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分位数、名次、百分位查询
+ * 分布由 ExamAnalyticsService 在交卷时增量写入 Redis，这里读取后在本地缓存几秒：
+ * 成绩公布后大量考生同时查询名次时，每个节点每场考试每几秒只读取一次 Redis，单次查询只做二分查找
+ */
+@Service
+public class ScoreDistributionService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+
+    @Autowired
+    private AnswerRecordMapper answerRecordMapper;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    // 本地缓存有效期（毫秒），交卷期间分布还在变化，名次最多滞后这么久
+    private static final long CACHE_TTL_MS = 5000;
+
+    // 本地缓存的分布个数上限，超过后清空重建
+    private static final int MAX_CACHED = 1024;
+
+    private final Map<String, CachedDistribution> cache = new ConcurrentHashMap<>();
+
+    private static final class CachedDistribution {
+        private final ScoreDistribution distribution;
+        private final long loadedAt;
+
+        private CachedDistribution(ScoreDistribution distribution, long loadedAt) {
+            this.distribution = distribution;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 获取考试总分分布或分类得分分布
+     * @param examId 考试ID
+     * @param category 分类（知识点），为空表示考试总分
+     */
+    public ScoreDistribution getDistribution(Long examId, String category) {
+        String key = category == null || category.isEmpty()
+                ? ExamRedisKeys.analyseDistribution(examId)
+                : ExamRedisKeys.analyseCategoryDistribution(examId, category);
+        long now = System.currentTimeMillis();
+        CachedDistribution cached = cache.get(key);
+        if (cached != null && now - cached.loadedAt < CACHE_TTL_MS) {
+            return cached.distribution;
+        }
+        ScoreDistribution distribution = ScoreDistribution.fromHash(stringRedisTemplate.opsForHash().entries(key));
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        }
+        cache.put(key, new CachedDistribution(distribution, now));
+        return distribution;
+    }
+
+    /**
+     * 查询分位数
+     * @param examId 考试ID
+     * @param category 分类（知识点），为空表示考试总分
+     * @param quantiles 要查询的分位点（0 到 1）
+     */
+    public ScoreQuantilesDTO getQuantiles(Long examId, String category, List<Double> quantiles) {
+        ScoreDistribution distribution = getDistribution(examId, category);
+        List<ScoreQuantileDTO> points = new ArrayList<>(quantiles.size());
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new RuntimeException("分位点必须在0到1之间");
+            }
+            points.add(new ScoreQuantileDTO(q, distribution.quantile(q)));
+        }
+        ScoreQuantilesDTO result = new ScoreQuantilesDTO();
+        result.setExamId(examId);
+        result.setCategory(category);
+        result.setStudentCount(distribution.getTotal());
+        result.setQuantiles(points);
+        return result;
+    }
+
+    /**
+     * 查询某个得分的名次和百分位
+     * @param examId 考试ID
+     * @param category 分类（知识点），为空表示考试总分
+     * @param score 得分
+     */
+    public ScoreRankDTO getRank(Long examId, String category, int score) {
+        ScoreDistribution distribution = getDistribution(examId, category);
+        ScoreRankDTO result = new ScoreRankDTO();
+        result.setExamId(examId);
+        result.setCategory(category);
+        result.setScore(score);
+        result.setStudentCount(distribution.getTotal());
+        if (distribution.getTotal() > 0) {
+            result.setRank(distribution.rank(score));
+            result.setPercentile(distribution.percentile(score));
+        }
+        return result;
+    }
+
+    /**
+     * 查询学生本人在考试总分和各分类上的名次和百分位（第一项为总分）
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     */
+    public List<ScoreRankDTO> getStudentRanks(Long examId, Long studentId) {
+        ExamRecordDO record = examRecordMapper.selectByExamIdAndStudentId(examId, studentId);
+        if (record == null || !"submitted".equals(record.getStatus())) {
+            throw new RuntimeException("考试尚未提交，暂无名次");
+        }
+        List<ScoreRankDTO> result = new ArrayList<>();
+        result.add(getRank(examId, null, record.getScore() != null ? record.getScore() : 0));
+
+        // 分类得分：与交卷统计时的口径一致（待人工批改的题目按 0 分计）
+        ExamGradingService.PaperKey paperKey = examGradingService.getPaperKey(record.getPaperId());
+        Map<String, Integer> categoryScores = new TreeMap<>();
+        for (String category : paperKey.getCategories()) {
+            categoryScores.put(category, 0);
+        }
+        for (AnswerRecordDO answer : answerRecordMapper.selectByExamRecordId(record.getId())) {
+            String category = paperKey.getCategory(answer.getQuestionId());
+            if (category != null && answer.getScore() != null) {
+                categoryScores.merge(category, answer.getScore(), Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : categoryScores.entrySet()) {
+            result.add(getRank(examId, entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+}
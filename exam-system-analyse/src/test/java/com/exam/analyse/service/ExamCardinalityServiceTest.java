@@ -0,0 +1,159 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.mysqlmapper.ExamCardinalityMapper;
+import com.exam.analyse.dto.ExamCardinalityDTO;
+import com.exam.analyse.dto.QuestionCardinalityDTO;
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.service.AnswerGrader;
+import com.exam.excute.service.ExamActivityEvent;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 基数统计测试：2000 名考生的进入考试、作答事件经本地队列批量写入 Redis（jedis-mock）后，
+ * 在线人数、答题人数、逐题作答人数、客户端IP数都在 HyperLogLog 的误差范围内
+ */
+class ExamCardinalityServiceTest {
+
+    private static final long EXAM_ID = 1L;
+    private static final long OTHER_EXAM_ID = 2L;
+    private static final long PAPER_ID = 10L;
+
+    private static final int STUDENTS = 2000;
+    // 只有前 1800 名考生保存过答案
+    private static final int ANSWERING_STUDENTS = 1800;
+    private static final int QUESTIONS = 5;
+    private static final int DISTINCT_IPS = 500;
+
+    // 其他考试的考试记录ID起点
+    private static final long OTHER_EXAM_RECORDS = 100_000L;
+    // 数据库中不存在的考试记录ID（客户端伪造）
+    private static final long FORGED_RECORD = 999_999L;
+
+    // HyperLogLog 标准误差约 0.81%，按 3 倍误差判断
+    private static final double TOLERANCE = 0.025;
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private ExamCardinalityService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        ExamCardinalityMapper cardinalityMapper = mock(ExamCardinalityMapper.class);
+        when(cardinalityMapper.selectExamIdsByIds(anyList())).thenAnswer(invocation -> {
+            List<ExamRecordDO> records = new ArrayList<>();
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                if (id <= STUDENTS || id > OTHER_EXAM_RECORDS && id != FORGED_RECORD) {
+                    ExamRecordDO record = new ExamRecordDO();
+                    record.setId(id);
+                    record.setExamId(id <= STUDENTS ? EXAM_ID : OTHER_EXAM_ID);
+                    records.add(record);
+                }
+            }
+            return records;
+        });
+
+        ExamDO exam = new ExamDO();
+        exam.setId(EXAM_ID);
+        exam.setPaperId(PAPER_ID);
+        ExamMapper examMapper = mock(ExamMapper.class);
+        when(examMapper.selectById(anyLong())).thenReturn(exam);
+
+        List<AnswerGrader.Key> keys = new ArrayList<>();
+        for (long q = 1; q <= QUESTIONS; q++) {
+            keys.add(AnswerGrader.key(q, "single_choice", "A", 2));
+        }
+        ExamGradingService.PaperKey paperKey = mock(ExamGradingService.PaperKey.class);
+        when(paperKey.getKeys()).thenReturn(keys);
+        ExamGradingService gradingService = mock(ExamGradingService.class);
+        when(gradingService.getPaperKey(PAPER_ID)).thenReturn(paperKey);
+
+        service = new ExamCardinalityService();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(service, "examCardinalityMapper", cardinalityMapper);
+        ReflectionTestUtils.setField(service, "examMapper", examMapper);
+        ReflectionTestUtils.setField(service, "examGradingService", gradingService);
+        // 不依赖后台线程的刷新时机，测试中手动刷新
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "queueCapacity", 65536);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.shutdown();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void countsDistinctStudentsQuestionsAndIps() {
+        // 每名考生进入考试两次（重连），作答事件分两轮刷新，重复元素不影响计数
+        for (int round = 0; round < 2; round++) {
+            for (long student = 1; student <= STUDENTS; student++) {
+                service.onActivity(ExamActivityEvent.connect(student, EXAM_ID, ipOf(student)));
+            }
+            for (long student = 1; student <= ANSWERING_STUDENTS; student++) {
+                // 题目 q 由学号能被 q 整除的考生作答
+                List<Long> questionIds = new ArrayList<>();
+                for (long q = 1; q <= QUESTIONS; q++) {
+                    if (student % q == 0) {
+                        questionIds.add(q);
+                    }
+                }
+                service.onActivity(ExamActivityEvent.answer(student, questionIds));
+            }
+            service.flush();
+        }
+        // 其他考试的考生、伪造的考试记录不计入
+        for (long i = 1; i <= 300; i++) {
+            service.onActivity(ExamActivityEvent.answer(OTHER_EXAM_RECORDS + i, List.of(1L)));
+        }
+        service.onActivity(ExamActivityEvent.answer(FORGED_RECORD, List.of(1L)));
+        service.flush();
+
+        ExamCardinalityDTO result = service.getCardinality(EXAM_ID);
+        assertApproximately(STUDENTS, result.getConnectedStudents(), "在线考生数");
+        assertApproximately(ANSWERING_STUDENTS, result.getAnsweredStudents(), "答题考生数");
+        assertApproximately(DISTINCT_IPS, result.getDistinctIps(), "客户端IP数");
+        assertEquals(QUESTIONS, result.getQuestions().size());
+        for (QuestionCardinalityDTO question : result.getQuestions()) {
+            assertApproximately(ANSWERING_STUDENTS / question.getQuestionId(), question.getAnsweredStudents(),
+                    "题目 " + question.getQuestionId() + " 作答考生数");
+        }
+    }
+
+    private static String ipOf(long student) {
+        long ip = student % DISTINCT_IPS;
+        return "10.0." + ip / 256 + "." + ip % 256;
+    }
+
+    private static void assertApproximately(long expected, Long actual, String name) {
+        double error = Math.abs(actual - expected) / (double) expected;
+        assertEquals(expected, (double) actual, expected * TOLERANCE,
+                name + "误差 " + String.format("%.2f%%", error * 100) + " 超出范围");
+    }
+}
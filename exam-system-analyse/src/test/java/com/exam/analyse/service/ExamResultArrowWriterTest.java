@@ -0,0 +1,182 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ExportRowDO;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arrow 导出往返测试：写入超过一个批次的行，用 ArrowStreamReader 读回，
+ * 校验每个批次替换后的 student_answer、record_status 字典都能正确解码
+ */
+class ExamResultArrowWriterTest {
+
+    private static final int QUESTIONS = 10;
+    // 两个完整批次加一个不满的批次
+    private static final int ROWS = ExamResultArrowWriter.BATCH_ROWS * 2 + 1234;
+    private static final long EXAM_ID = 7L;
+    // 试卷外的题目：第二个批次中才出现，追加到题目字典
+    private static final long EXTRA_QUESTION_ID = 999L;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 6, 1, 9, 0, 0);
+
+    private BufferAllocator allocator;
+
+    @BeforeEach
+    void createAllocator() {
+        allocator = new RootAllocator();
+    }
+
+    @AfterEach
+    void closeAllocator() {
+        allocator.close();
+    }
+
+    @Test
+    void dictionariesReplacedPerBatchDecodeAcrossBatches() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> questionIds = LongStream.rangeClosed(1, QUESTIONS).boxed().toList();
+        try (ExamResultArrowWriter writer = new ExamResultArrowWriter(allocator, Channels.newChannel(out), EXAM_ID, questionIds)) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(rowOf(i));
+            }
+            writer.finish();
+            assertEquals(ROWS, writer.getRowsWritten());
+        }
+
+        int row = 0;
+        int batches = 0;
+        try (ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(String.valueOf(EXAM_ID), root.getSchema().getCustomMetadata().get("exam_id"));
+            while (reader.loadNextBatch()) {
+                batches++;
+                Map<Long, Dictionary> dictionaries = reader.getDictionaryVectors();
+                for (int r = 0; r < root.getRowCount(); r++, row++) {
+                    assertRow(row, root, dictionaries);
+                }
+            }
+        }
+        assertEquals(3, batches);
+        assertEquals(ROWS, row);
+    }
+
+    /**
+     * 第 i 行：每个批次使用不同的答案和状态取值，字典没有按批次替换时解码结果会错位
+     */
+    private static ExportRowDO rowOf(int i) {
+        int batch = i / ExamResultArrowWriter.BATCH_ROWS;
+        ExportRowDO row = new ExportRowDO();
+        row.setExamRecordId((long) (i / QUESTIONS + 1));
+        row.setStudentId((long) (i / QUESTIONS + 10_000));
+        row.setRecordStatus(i % 7 == 0 ? null : "status-" + batch + "-" + i % 3);
+        row.setRecordScore(i % 5 == 0 ? null : i % 100);
+        row.setStartTime(START);
+        row.setSubmitTime(i % 11 == 0 ? null : START.plusSeconds(i));
+        row.setSwitchCount(i % 4);
+        row.setIsCheating(i % 9 == 0 ? 1 : 0);
+        row.setQuestionId(batch == 1 && i % 13 == 0 ? EXTRA_QUESTION_ID : (long) (i % QUESTIONS + 1));
+        row.setStudentAnswer(answerOf(i, batch));
+        row.setIsCorrect(i % 6 == 0 ? null : i % 2);
+        row.setScore(i % 6 == 0 ? null : (i % 2) * 5);
+        row.setAnswerTime(i % 8 == 0 ? null : (long) i * 1000);
+        return row;
+    }
+
+    private static String answerOf(int i, int batch) {
+        if (i % 10 == 0) {
+            return null;
+        }
+        // 选择题答案重复多，简答题每行不同
+        return i % 3 == 0 ? "简答 " + i : "ABCD".charAt((i + batch) % 4) + "," + batch;
+    }
+
+    private static void assertRow(int i, VectorSchemaRoot root, Map<Long, Dictionary> dictionaries) {
+        ExportRowDO expected = rowOf(i);
+        int r = i % ExamResultArrowWriter.BATCH_ROWS;
+        assertEquals(expected.getExamRecordId(), ((BigIntVector) root.getVector("exam_record_id")).getObject(r));
+        assertEquals(expected.getStudentId(), ((BigIntVector) root.getVector("student_id")).getObject(r));
+        assertEquals(expected.getRecordStatus(), decodeString(root, dictionaries, "record_status", r), "第 " + i + " 行 record_status");
+        assertEquals(expected.getRecordScore(), ((IntVector) root.getVector("record_score")).getObject(r));
+        assertEquals(millisOf(expected.getStartTime()), millisOf((TimeStampMilliVector) root.getVector("start_time"), r));
+        assertEquals(millisOf(expected.getSubmitTime()), millisOf((TimeStampMilliVector) root.getVector("submit_time"), r));
+        assertEquals(expected.getSwitchCount(), ((IntVector) root.getVector("switch_count")).getObject(r));
+        assertEquals(expected.getIsCheating(), byteOf((TinyIntVector) root.getVector("is_cheating"), r));
+        assertEquals(expected.getQuestionId(), decodeQuestionId(root, dictionaries, r), "第 " + i + " 行 question_id");
+        assertEquals(expected.getStudentAnswer(), decodeString(root, dictionaries, "student_answer", r), "第 " + i + " 行 student_answer");
+        assertEquals(expected.getIsCorrect(), byteOf((TinyIntVector) root.getVector("is_correct"), r));
+        assertEquals(expected.getScore(), ((IntVector) root.getVector("score")).getObject(r));
+        assertEquals(expected.getAnswerTime(), ((BigIntVector) root.getVector("answer_time")).getObject(r));
+    }
+
+    private static String decodeString(VectorSchemaRoot root, Map<Long, Dictionary> dictionaries, String column, int r) {
+        IntVector indexes = (IntVector) root.getVector(column);
+        if (indexes.isNull(r)) {
+            return null;
+        }
+        long dictionaryId = indexes.getField().getDictionary().getId();
+        VarCharVector values = (VarCharVector) dictionaries.get(dictionaryId).getVector();
+        int index = indexes.get(r);
+        assertTrue(index < values.getValueCount(), column + " 字典下标越界: " + index);
+        return new String(values.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static Long decodeQuestionId(VectorSchemaRoot root, Map<Long, Dictionary> dictionaries, int r) {
+        IntVector indexes = (IntVector) root.getVector("question_id");
+        if (indexes.isNull(r)) {
+            return null;
+        }
+        BigIntVector values = (BigIntVector) dictionaries.get(indexes.getField().getDictionary().getId()).getVector();
+        assertFalse(values.isNull(indexes.get(r)));
+        return values.get(indexes.get(r));
+    }
+
+    private static Integer byteOf(TinyIntVector vector, int r) {
+        return vector.isNull(r) ? null : (int) vector.get(r);
+    }
+
+    private static Long millisOf(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : null;
+    }
+
+    private static Long millisOf(TimeStampMilliVector vector, int r) {
+        return vector.isNull(r) ? null : vector.get(r);
+    }
+
+    @Test
+    void emptyExportIsAValidStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExamResultArrowWriter writer = new ExamResultArrowWriter(allocator, Channels.newChannel(out), EXAM_ID, List.of(1L))) {
+            writer.finish();
+        }
+        try (ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertNotNull(reader.getVectorSchemaRoot().getSchema().findField("question_id").getDictionary());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.exam.analyse.service;
+
+import com.exam.analyse.dal.dataobject.ItemAnalysisDO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 试题分析累加器：用手算结果校验难度、点二列相关和 27% 分组（包括边界分数上的同分考生）
+ *
+ * 夹具：10 名考生，试卷总分 10，总分依次为 10, 8, 8, 8, 6, 5, 2, 2, 2, 0
+ * 总分合计 51，平均 5.1；平方和 365，总体方差 36.5 - 5.1² = 10.49
+ * 分组人数 10 × 27% = 2.7：
+ *   高分组 = 10 分的 1 人 + 8 分的 3 人中按 1.7/3 计入
+ *   低分组 = 0 分的 1 人 + 2 分的 3 人中按 1.7/3 计入
+ */
+class ItemAnalysisAccumulatorTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static final long Q1 = 101L;
+    private static final long Q2 = 102L;
+    private static final long NOT_IN_PAPER = 999L;
+
+    private static final int[] TOTAL_SCORES = {10, 8, 8, 8, 6, 5, 2, 2, 2, 0};
+
+    // Q1 答对的考生（下标）：总分 10、8、8、6、2
+    private static final boolean[] Q1_CORRECT = {true, true, true, false, true, false, false, true, false, false};
+
+    private ItemAnalysisDO q1;
+    private ItemAnalysisDO q2;
+
+    @BeforeEach
+    void analyse() {
+        ItemAnalysisAccumulator accumulator = new ItemAnalysisAccumulator(List.of(Q1, Q2), 10);
+        // 最后一名考生（0 分）没有任何作答
+        for (int i = 0; i < TOTAL_SCORES.length - 1; i++) {
+            long examRecordId = i + 1;
+            accumulator.add(examRecordId, TOTAL_SCORES[i], Q1, Q1_CORRECT[i] ? 1 : 0, Q1_CORRECT[i] ? 5 : 0);
+            // Q2：作答的考生除总分 6 分的考生（部分得分，不计入答对）外全部答对
+            boolean partial = TOTAL_SCORES[i] == 6;
+            accumulator.add(examRecordId, TOTAL_SCORES[i], Q2, partial ? 2 : 1, partial ? 3 : 5);
+            accumulator.add(examRecordId, TOTAL_SCORES[i], NOT_IN_PAPER, 1, 5);
+        }
+        accumulator.add((long) TOTAL_SCORES.length, 0, null, null, null);
+
+        assertEquals(10, accumulator.getStudentCount());
+        List<ItemAnalysisDO> items = accumulator.finish(1L);
+        assertEquals(2, items.size());
+        q1 = items.get(0);
+        q2 = items.get(1);
+    }
+
+    @Test
+    void difficultyCountsUnansweredAsWrong() {
+        assertEquals(Q1, q1.getQuestionId());
+        assertEquals(10, q1.getStudentCount());
+        assertEquals(9, q1.getAnsweredCount());
+        assertEquals(5, q1.getCorrectCount());
+        assertEquals(0.5, q1.getDifficulty(), DELTA);
+        // 得分合计 25，按已交卷人数平均
+        assertEquals(2.5, q1.getAverageScore(), DELTA);
+
+        assertEquals(8, q2.getCorrectCount());
+        assertEquals(1, q2.getPartialCount());
+        assertEquals(0.8, q2.getDifficulty(), DELTA);
+    }
+
+    @Test
+    void pointBiserialMatchesHandComputedValue() {
+        // Q1：答对组总分 10+8+8+6+2=34，平均 6.8；答错组 51-34=17，平均 3.4
+        // r = (6.8 - 3.4) / sqrt(10.49) × sqrt(0.5 × 0.5)
+        assertEquals(1.7 / Math.sqrt(10.49), q1.getPointBiserial(), DELTA);
+
+        // Q2：答对组 51-6=45，8 人平均 5.625；答错组（6 分部分得分、0 分未作答）平均 3
+        // r = (5.625 - 3) / sqrt(10.49) × sqrt(0.8 × 0.2)
+        assertEquals(2.625 / Math.sqrt(10.49) * 0.4, q2.getPointBiserial(), DELTA);
+    }
+
+    @Test
+    void boundaryTiesAreWeightedFractionally() {
+        // Q1 高分组：10 分 1 人答对 + 8 分 3 人中 2 人答对 × 1.7/3 => (1 + 3.4/3) / 2.7 = 6.4/8.1
+        assertEquals(6.4 / 8.1, q1.getUpperCorrectRate(), DELTA);
+        // Q1 低分组：0 分答错 + 2 分 3 人中 1 人答对 × 1.7/3 => (1.7/3) / 2.7 = 1.7/8.1
+        assertEquals(1.7 / 8.1, q1.getLowerCorrectRate(), DELTA);
+        assertEquals(4.7 / 8.1, q1.getDiscrimination(), DELTA);
+
+        // Q2 高分组全部答对；低分组：2 分 3 人全部答对 × 1.7/3 => 1.7 / 2.7
+        assertEquals(1.0, q2.getUpperCorrectRate(), DELTA);
+        assertEquals(1.7 / 2.7, q2.getLowerCorrectRate(), DELTA);
+        assertEquals(1.0 / 2.7, q2.getDiscrimination(), DELTA);
+    }
+
+    @Test
+    void pointBiserialIsUndefinedWhenEveryoneAnswersCorrectly() {
+        ItemAnalysisAccumulator accumulator = new ItemAnalysisAccumulator(List.of(Q1), 10);
+        accumulator.add(1L, 10, Q1, 1, 5);
+        accumulator.add(2L, 4, Q1, 1, 5);
+        ItemAnalysisDO item = accumulator.finish(1L).get(0);
+
+        assertEquals(1.0, item.getDifficulty(), DELTA);
+        assertNull(item.getPointBiserial());
+        // 2 × 27% = 0.54 人：只取 10 分和 4 分考生各自的 0.54
+        assertEquals(1.0, item.getUpperCorrectRate(), DELTA);
+        assertEquals(1.0, item.getLowerCorrectRate(), DELTA);
+    }
+}
@@ -0,0 +1,124 @@
+package com.exam.benchmark;
+
+import com.exam.analyse.dal.dataobject.ExportRowDO;
+import com.exam.analyse.service.ExamResultArrowWriter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试结果导出基准测试
+ * 对应 ExamExportService 的 Arrow 写入部分（不含 MySQL 流式读取）：单线程逐行写入，结果为每秒写入的行数
+ * 每次调用写出一个完整文件（多个批次，含每批的字典替换），输出到丢弃数据的通道
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ArrowExportBenchmark {
+
+    private static final int QUESTIONS = 50;
+    // 每次调用写入的行数：4000 名考生 × 50 题，约 3 个批次
+    private static final int ROWS = 200_000;
+
+    private BufferAllocator allocator;
+    private List<Long> questionIds;
+    private ExportRowDO[] rows;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        questionIds = new ArrayList<>(QUESTIONS);
+        for (long q = 1; q <= QUESTIONS; q++) {
+            questionIds.add(q);
+        }
+        rows = new ExportRowDO[ROWS];
+        LocalDateTime start = LocalDateTime.of(2026, 6, 1, 9, 0);
+        for (int i = 0; i < ROWS; i++) {
+            int student = i / QUESTIONS;
+            int question = i % QUESTIONS;
+            ExportRowDO row = new ExportRowDO();
+            row.setExamRecordId((long) student + 1);
+            row.setStudentId((long) student + 10_000);
+            row.setRecordStatus("submitted");
+            row.setRecordScore(student % 101);
+            row.setStartTime(start);
+            row.setSubmitTime(start.plusSeconds(3600 + student % 1800));
+            row.setSwitchCount(student % 3);
+            row.setIsCheating(0);
+            row.setQuestionId((long) question + 1);
+            // 前 40 题为选择题，后 10 题为简答题
+            row.setStudentAnswer(question < 40 ? String.valueOf("ABCD".charAt((student + question) % 4))
+                    : "第" + question + "题简答，考生" + student + "的作答内容");
+            row.setIsCorrect((student + question) % 4 == 0 ? 1 : 0);
+            row.setScore((student + question) % 4 == 0 ? 2 : 0);
+            row.setAnswerTime((long) (question + 1) * 30_000);
+            rows[i] = row;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        allocator.close();
+    }
+
+    /**
+     * 写出一个完整的导出文件，返回写出的字节数
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long writeRows() throws IOException {
+        try (ExamResultArrowWriter writer = new ExamResultArrowWriter(allocator, new DiscardingChannel(), 1L, questionIds)) {
+            for (ExportRowDO row : rows) {
+                writer.write(row);
+            }
+            writer.finish();
+            return writer.getBytesWritten();
+        }
+    }
+
+    /**
+     * 丢弃写入数据的通道（只统计写入器本身的开销）
+     */
+    private static final class DiscardingChannel implements WritableByteChannel {
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.exam.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JMH 结果与基线对比
+ * 按 benchmark + 参数匹配两份 JSON 结果，输出耗时和每次操作分配字节数（gc.alloc.rate.norm）的变化；
+ * 变化超过阈值（默认 10%，系统属性 benchmark.threshold）的项标记为“回退”或“提升”
+ *
+ * 也可以单独运行：java -cp target/benchmarks.jar com.exam.benchmark.BaselineComparator 基线.json 结果.json
+ */
+public class BaselineComparator {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: BaselineComparator <基线.json> <结果.json>");
+            System.exit(1);
+        }
+        compare(Paths.get(args[0]), Paths.get(args[1]), System.out);
+    }
+
+    public static void compare(Path baselineFile, Path resultFile, PrintStream out) throws IOException {
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+        Map<String, JsonNode> baseline = load(baselineFile);
+        Map<String, JsonNode> current = load(resultFile);
+
+        out.println();
+        out.println("与基线对比（" + baselineFile + "）：");
+        out.printf("%-70s %14s %14s %9s %14s %14s %9s%n",
+                "Benchmark", "基线耗时", "本次耗时", "变化", "基线分配(B/op)", "本次分配(B/op)", "变化");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            double alloc = allocOf(now);
+            if (before == null) {
+                out.printf("%-70s %14s %14.3f %9s %14s %14.1f %9s%n",
+                        entry.getKey(), "-", score, "新增", "-", alloc, "");
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double baseAlloc = allocOf(before);
+            double scoreChange = percent(baseScore, score);
+            double allocChange = percent(baseAlloc, alloc);
+            out.printf("%-70s %14.3f %14.3f %8.1f%% %14.1f %14.1f %8.1f%%%s%n",
+                    entry.getKey(), baseScore, score, scoreChange, baseAlloc, alloc, allocChange,
+                    mark(scoreChange, allocChange, higherIsBetter(now), threshold));
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                out.printf("%-70s（本次未运行）%n", name);
+            }
+        }
+    }
+
+    /**
+     * 读取 JMH JSON 结果，key 为 benchmark 名称加参数，例如 GradingBenchmark.gradePaper{questionType=fill_blank}
+     */
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder name = new StringBuilder(node.path("benchmark").asText().replace("com.exam.benchmark.", ""));
+            JsonNode params = node.path("params");
+            if (params.isObject() && params.size() > 0) {
+                name.append('{');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    name.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (fields.hasNext()) {
+                        name.append(',');
+                    }
+                }
+                name.append('}');
+            }
+            results.put(name.toString(), node);
+        }
+        return results;
+    }
+
+    private static double allocOf(JsonNode node) {
+        return node.path("secondaryMetrics").path(ALLOC_METRIC).path("score").asDouble(Double.NaN);
+    }
+
+    private static boolean higherIsBetter(JsonNode node) {
+        // 吞吐量模式（ops/时间）越高越好，其余模式（时间/op）越低越好
+        return "thrpt".equals(node.path("mode").asText());
+    }
+
+    private static double percent(double before, double now) {
+        if (before == 0 || Double.isNaN(before) || Double.isNaN(now)) {
+            return 0;
+        }
+        return (now - before) * 100 / before;
+    }
+
+    private static String mark(double scoreChange, double allocChange, boolean higherIsBetter, double threshold) {
+        double worse = higherIsBetter ? -scoreChange : scoreChange;
+        if (worse > threshold || allocChange > threshold) {
+            return "  回退";
+        }
+        if (worse < -threshold || allocChange < -threshold) {
+            return "  提升";
+        }
+        return "";
+    }
+}
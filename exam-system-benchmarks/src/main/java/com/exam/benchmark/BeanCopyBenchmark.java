@@ -0,0 +1,147 @@
+package com.exam.benchmark;
+
+import com.exam.manage.dal.dataobject.PaperDO;
+import com.exam.manage.dal.dataobject.QuestionDO;
+import com.exam.manage.dto.PaperDTO;
+import com.exam.manage.dto.PaperQuestionDTO;
+import com.exam.manage.dto.QuestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 试卷 DTO 映射基准测试
+ * 对应 PaperService 查询试卷详情时的 BeanUtils.copyProperties（试卷 1 次 + 每道题 1 次），
+ * 以手写 setter 映射作为参照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCopyBenchmark {
+
+    private static final int QUESTIONS = 50;
+
+    private PaperDO paper;
+    private List<QuestionDO> questions;
+
+    @Setup
+    public void setup() {
+        paper = new PaperDO();
+        paper.setId(1L);
+        paper.setName("2024 春季学期期末考试");
+        paper.setDescription("闭卷，共 50 题");
+        paper.setType("fixed");
+        paper.setTotalScore(100);
+        paper.setDuration(120);
+        paper.setCreateUserId(1L);
+        paper.setStatus(1);
+        paper.setCreateTime(LocalDateTime.now());
+        paper.setUpdateTime(LocalDateTime.now());
+
+        questions = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            QuestionDO question = new QuestionDO();
+            question.setId((long) i + 1);
+            question.setContent("第" + (i + 1) + "题题干");
+            question.setType("single_choice");
+            question.setDifficulty("medium");
+            question.setOptions("{\"A\":\"选项A\",\"B\":\"选项B\",\"C\":\"选项C\",\"D\":\"选项D\"}");
+            question.setAnswer("A");
+            question.setScore(2);
+            question.setCategory("数据结构");
+            question.setCreateUserId(1L);
+            question.setStatus(1);
+            question.setCreateTime(LocalDateTime.now());
+            question.setUpdateTime(LocalDateTime.now());
+            questions.add(question);
+        }
+    }
+
+    @Benchmark
+    public QuestionDTO copyQuestionWithBeanUtils() {
+        QuestionDTO dto = new QuestionDTO();
+        BeanUtils.copyProperties(questions.get(0), dto);
+        return dto;
+    }
+
+    @Benchmark
+    public QuestionDTO copyQuestionManually() {
+        return toQuestionDTO(questions.get(0));
+    }
+
+    /**
+     * 一份 50 题试卷的完整映射（与 PaperService.getPaperById 的映射方式一致）
+     */
+    @Benchmark
+    public PaperDTO copyPaperWithBeanUtils() {
+        PaperDTO paperDTO = new PaperDTO();
+        BeanUtils.copyProperties(paper, paperDTO);
+        List<PaperQuestionDTO> questionDTOList = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            QuestionDTO questionDTO = new QuestionDTO();
+            BeanUtils.copyProperties(questions.get(i), questionDTO);
+            questionDTOList.add(toPaperQuestionDTO(i, questionDTO));
+        }
+        paperDTO.setQuestions(questionDTOList);
+        return paperDTO;
+    }
+
+    @Benchmark
+    public PaperDTO copyPaperManually() {
+        PaperDTO paperDTO = new PaperDTO();
+        paperDTO.setId(paper.getId());
+        paperDTO.setName(paper.getName());
+        paperDTO.setDescription(paper.getDescription());
+        paperDTO.setType(paper.getType());
+        paperDTO.setTotalScore(paper.getTotalScore());
+        paperDTO.setDuration(paper.getDuration());
+        paperDTO.setCreateUserId(paper.getCreateUserId());
+        paperDTO.setStatus(paper.getStatus());
+        List<PaperQuestionDTO> questionDTOList = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            questionDTOList.add(toPaperQuestionDTO(i, toQuestionDTO(questions.get(i))));
+        }
+        paperDTO.setQuestions(questionDTOList);
+        return paperDTO;
+    }
+
+    private static PaperQuestionDTO toPaperQuestionDTO(int index, QuestionDTO questionDTO) {
+        PaperQuestionDTO dto = new PaperQuestionDTO();
+        dto.setQuestionId(questionDTO.getId());
+        dto.setOrderNum(index + 1);
+        dto.setScore(questionDTO.getScore());
+        dto.setQuestion(questionDTO);
+        return dto;
+    }
+
+    private static QuestionDTO toQuestionDTO(QuestionDO question) {
+        QuestionDTO dto = new QuestionDTO();
+        dto.setId(question.getId());
+        dto.setContent(question.getContent());
+        dto.setType(question.getType());
+        dto.setDifficulty(question.getDifficulty());
+        dto.setOptions(question.getOptions());
+        dto.setAnswer(question.getAnswer());
+        dto.setScore(question.getScore());
+        dto.setCategory(question.getCategory());
+        dto.setCreateUserId(question.getCreateUserId());
+        dto.setStatus(question.getStatus());
+        return dto;
+    }
+}
@@ -0,0 +1,47 @@
+package com.exam.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试入口（benchmarks.jar 的 Main-Class）
+ * 在 JMH 命令行参数的基础上固定开启 gc 分析器（输出 gc.alloc.rate.norm，即每次操作分配的字节数），
+ * 结果写入 JSON 文件，并与保存的基线逐项对比
+ *
+ * 用法：java -jar target/benchmarks.jar [JMH参数，例如 Jwt -f 1]
+ * 系统属性：
+ * benchmark.result   本次结果文件，默认 target/jmh-result.json
+ * benchmark.baseline 基线文件，默认 baseline/jmh-baseline.json，不存在时跳过对比
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Path result = Paths.get(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        Path baseline = Paths.get(System.getProperty("benchmark.baseline", "baseline/jmh-baseline.json"));
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build();
+        new Runner(options).run();
+
+        if (Files.exists(baseline)) {
+            BaselineComparator.compare(baseline, result, System.out);
+        } else {
+            System.out.println("未找到基线文件 " + baseline + "，跳过对比；保存本次结果作为基线：cp " + result + " " + baseline);
+        }
+    }
+}
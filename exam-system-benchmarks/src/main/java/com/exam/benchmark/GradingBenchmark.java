@@ -0,0 +1,113 @@
+package com.exam.benchmark;
+
+import com.exam.excute.dal.dataobject.AnswerRecordDO;
+import com.exam.excute.service.AnswerGrader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交卷批改基准测试
+ * 对应 ExamGradingService.grade：时间耗尽批量交卷时逐个考生批改，一名考生的整张试卷逐题与预处理后的标准答案比对
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradingBenchmark {
+
+    private static final int QUESTIONS = 50;
+
+    /**
+     * 题型：single_choice-单选, multiple_choice-多选, true_false-判断, fill_blank-填空
+     */
+    @Param({"single_choice", "multiple_choice", "true_false", "fill_blank"})
+    private String questionType;
+
+    private List<AnswerGrader.Key> keys;
+    private List<AnswerRecordDO> answers;
+
+    @Setup
+    public void setup() {
+        keys = new ArrayList<>(QUESTIONS);
+        answers = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            keys.add(AnswerGrader.key((long) i + 1, questionType, correctAnswerOf(i), 5));
+            AnswerRecordDO record = new AnswerRecordDO();
+            record.setQuestionId((long) i + 1);
+            // 约三分之二答对，其余答错或少选
+            record.setStudentAnswer(i % 3 == 0 ? wrongAnswerOf(i) : studentCorrectAnswerOf(i));
+            answers.add(record);
+        }
+    }
+
+    /**
+     * 批改一名考生的整张试卷，返回得分
+     */
+    @Benchmark
+    public int gradePaper() {
+        int score = 0;
+        for (int i = 0; i < QUESTIONS; i++) {
+            AnswerRecordDO answer = answers.get(i);
+            AnswerGrader.grade(keys.get(i), answer);
+            score += answer.getScore();
+        }
+        return score;
+    }
+
+    private String correctAnswerOf(int i) {
+        switch (questionType) {
+            case "single_choice":
+                return String.valueOf("ABCD".charAt(i % 4));
+            case "multiple_choice":
+                return i % 2 == 0 ? "A,B,D" : "B,C";
+            case "true_false":
+                return i % 2 == 0 ? "true" : "false";
+            default:
+                return "synchronized" + i;
+        }
+    }
+
+    /**
+     * 考生的正确作答，写法与标准答案不完全相同（大小写、分隔符、空白），覆盖归一化的开销
+     */
+    private String studentCorrectAnswerOf(int i) {
+        switch (questionType) {
+            case "single_choice":
+                return String.valueOf("abcd".charAt(i % 4));
+            case "multiple_choice":
+                return i % 2 == 0 ? "ABD" : "B, C";
+            case "true_false":
+                return i % 2 == 0 ? "对" : "错";
+            default:
+                return " Synchronized" + i + " ";
+        }
+    }
+
+    private String wrongAnswerOf(int i) {
+        switch (questionType) {
+            case "single_choice":
+                return String.valueOf("BCDA".charAt(i % 4));
+            case "multiple_choice":
+                return i % 2 == 0 ? "A,B" : "A,C";
+            case "true_false":
+                return i % 2 == 0 ? "false" : "true";
+            default:
+                return "volatile" + i;
+        }
+    }
+}
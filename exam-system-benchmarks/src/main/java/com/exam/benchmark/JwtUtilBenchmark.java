@@ -0,0 +1,71 @@
+package com.exam.benchmark;
+
+import com.exam.userService.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil 基准测试
+ * 每个 REST 请求和 STOMP CONNECT 都要校验一次令牌，这里测量签发、解析验签和 validateToken 的耗时与分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtil = new JwtUtil();
+        // 与 application.yml 中的默认配置保持一致
+        setField(jwtUtil, "secret", "exam-online-system-secret-key-2024-very-long-secret-key-for-security");
+        setField(jwtUtil, "expiration", 86400000L);
+        token = jwtUtil.generateToken(10001L, "student10001", "student");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(10001L, "student10001", "student");
+    }
+
+    @Benchmark
+    public Claims parseAndVerify() {
+        return jwtUtil.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public Long getUserId() {
+        return jwtUtil.getUserIdFromToken(token);
+    }
+
+    /**
+     * validateToken 内部会解析两次（校验签名 + 判断过期）
+     */
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,90 @@
+package com.exam.benchmark;
+
+import com.exam.manage.util.ExamRedisKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis key 构造与序列化基准测试
+ * 对应 ExamSyncService 保存答案时的 key 拼接和参数序列化；
+ * 对比 StringRedisTemplate（原始字符串）和原先 RedisTemplate 使用的 GenericJackson2JsonRedisSerializer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisKeyBenchmark {
+
+    private final StringRedisSerializer stringSerializer = StringRedisSerializer.UTF_8;
+    private final RedisSerializer<Object> jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    private Long examRecordId;
+    private Long questionId;
+    private String examToken;
+    private String answer;
+
+    private byte[] stringAnswerBytes;
+    private byte[] jsonAnswerBytes;
+
+    @Setup
+    public void setup() {
+        examRecordId = 1234567L;
+        questionId = 42L;
+        examToken = "9f86d081884c7d659a2feaa0c55ad015";
+        answer = "A,B,D";
+        stringAnswerBytes = stringSerializer.serialize(answer);
+        jsonAnswerBytes = jsonSerializer.serialize(answer);
+    }
+
+    /**
+     * 保存一次答案需要拼接的全部 key（答案、已答题、待同步、版本号、进度）
+     */
+    @Benchmark
+    public void buildSaveKeys(Blackhole bh) {
+        bh.consume(ExamRedisKeys.answer(examRecordId, examToken, questionId));
+        bh.consume(ExamRedisKeys.answered(examRecordId, examToken));
+        bh.consume(ExamRedisKeys.syncQueue(examRecordId, examToken));
+        bh.consume(ExamRedisKeys.answerVersion(examRecordId, examToken));
+        bh.consume(ExamRedisKeys.progress(examRecordId));
+    }
+
+    @Benchmark
+    public void serializeAnswerAsString(Blackhole bh) {
+        bh.consume(stringSerializer.serialize(ExamRedisKeys.answer(examRecordId, examToken, questionId)));
+        bh.consume(stringSerializer.serialize(answer));
+        bh.consume(stringSerializer.serialize(String.valueOf(questionId)));
+    }
+
+    @Benchmark
+    public void serializeAnswerAsJson(Blackhole bh) {
+        bh.consume(stringSerializer.serialize(ExamRedisKeys.answer(examRecordId, examToken, questionId)));
+        bh.consume(jsonSerializer.serialize(answer));
+        bh.consume(jsonSerializer.serialize(questionId));
+    }
+
+    @Benchmark
+    public String deserializeAnswerAsString() {
+        return stringSerializer.deserialize(stringAnswerBytes);
+    }
+
+    @Benchmark
+    public Object deserializeAnswerAsJson() {
+        return jsonSerializer.deserialize(jsonAnswerBytes);
+    }
+}
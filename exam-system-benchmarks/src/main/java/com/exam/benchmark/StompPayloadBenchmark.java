@@ -0,0 +1,149 @@
+package com.exam.benchmark;
+
+import com.exam.excute.dto.AnswerBatchMessageDTO;
+import com.exam.excute.dto.AnswerItemDTO;
+import com.exam.excute.dto.ExamEventMessageDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOMP 消息体解析基准测试
+ * 1. 批量答案帧：对比原先的 Map 解析 + 手动取值、JSON 直接映射 DTO、CBOR 直接映射 DTO 的单次耗时
+ * 2. 心跳帧（考试中数量最多的帧）：从完整的 STOMP SEND 帧字节开始解码并映射消息体，
+ *    以吞吐量模式运行（单线程），结果即每个核心每秒能处理的心跳帧数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StompPayloadBenchmark {
+
+    private static final int ANSWERS = 10;
+
+    // 与 Spring 默认 JSON 消息转换器、WebSocketConfig 中 CBOR 转换器使用的 ObjectMapper 配置一致
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    private final StompDecoder stompDecoder = new StompDecoder();
+
+    private byte[] jsonPayload;
+    private byte[] cborPayload;
+    private byte[] heartbeatJsonFrame;
+    private byte[] heartbeatCborFrame;
+
+    @Setup
+    public void setup() throws IOException {
+        AnswerBatchMessageDTO message = new AnswerBatchMessageDTO();
+        message.setExamRecordId(1234567L);
+        message.setExamToken("9f86d081884c7d659a2feaa0c55ad015");
+        List<AnswerItemDTO> answers = new ArrayList<>(ANSWERS);
+        for (int i = 0; i < ANSWERS; i++) {
+            answers.add(new AnswerItemDTO((long) i + 1, i % 2 == 0 ? "A" : "B,C", (long) i + 3));
+        }
+        message.setAnswers(answers);
+        jsonPayload = jsonMapper.writeValueAsBytes(message);
+        cborPayload = cborMapper.writeValueAsBytes(message);
+
+        ExamEventMessageDTO heartbeat = new ExamEventMessageDTO();
+        heartbeat.setExamRecordId(1234567L);
+        heartbeatJsonFrame = sendFrame("/app/exam/heartbeat", "application/json", jsonMapper.writeValueAsBytes(heartbeat));
+        heartbeatCborFrame = sendFrame("/app/exam/heartbeat", "application/cbor", cborMapper.writeValueAsBytes(heartbeat));
+    }
+
+    /**
+     * 客户端发出的 STOMP SEND 帧
+     */
+    private static byte[] sendFrame(String destination, String contentType, byte[] body) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        String headers = "SEND\ndestination:" + destination + "\ncontent-type:" + contentType
+                + "\ncontent-length:" + body.length + "\n\n";
+        frame.write(headers.getBytes(StandardCharsets.UTF_8));
+        frame.write(body);
+        frame.write(0);
+        return frame.toByteArray();
+    }
+
+    /**
+     * 原先的处理方式：解析为 Map，再逐个字段 toString 转换
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public long readJsonAsMap() throws IOException {
+        Map<String, Object> payload = jsonMapper.readValue(jsonPayload, new TypeReference<Map<String, Object>>() {});
+        long checksum = Long.valueOf(payload.get("examRecordId").toString());
+        String examToken = payload.get("examToken").toString();
+        List<Map<String, Object>> answers = (List<Map<String, Object>>) payload.get("answers");
+        for (Map<String, Object> answer : answers) {
+            checksum += Long.valueOf(answer.get("questionId").toString());
+            checksum += answer.get("studentAnswer").toString().length();
+            checksum += Long.valueOf(answer.get("version").toString());
+        }
+        return checksum + examToken.length();
+    }
+
+    @Benchmark
+    public AnswerBatchMessageDTO readJsonAsDto() throws IOException {
+        return jsonMapper.readValue(jsonPayload, AnswerBatchMessageDTO.class);
+    }
+
+    @Benchmark
+    public AnswerBatchMessageDTO readCborAsDto() throws IOException {
+        return cborMapper.readValue(cborPayload, AnswerBatchMessageDTO.class);
+    }
+
+    /**
+     * 心跳帧，原先的处理方式：消息体解析为 Map，再 toString 取考试记录ID
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long heartbeatFrameJsonAsMap() throws IOException {
+        Map<String, Object> payload = jsonMapper.readValue(decodeFrame(heartbeatJsonFrame),
+                new TypeReference<Map<String, Object>>() {});
+        return Long.valueOf(payload.get("examRecordId").toString());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Long heartbeatFrameJsonAsDto() throws IOException {
+        return jsonMapper.readValue(decodeFrame(heartbeatJsonFrame), ExamEventMessageDTO.class).getExamRecordId();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Long heartbeatFrameCborAsDto() throws IOException {
+        return cborMapper.readValue(decodeFrame(heartbeatCborFrame), ExamEventMessageDTO.class).getExamRecordId();
+    }
+
+    private byte[] decodeFrame(byte[] frame) {
+        List<Message<byte[]>> messages = stompDecoder.decode(ByteBuffer.wrap(frame));
+        return messages.get(0).getPayload();
+    }
+}
@@ -0,0 +1,55 @@
+package com.exam.excute.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流（令牌桶），可以标注在 HTTP 接口和 STOMP 消息处理方法上，同一方法可以标注多个（如同时按学生和按IP限流）
+ * 由 highConcurrency-disposal 模块的 RateLimitAspect 执行；超出限制时 HTTP 返回 429（带 Retry-After），
+ * STOMP 消息向发送者的 /user/queue/rate-limit 推送拒绝原因和建议重试间隔
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimits.class)
+public @interface RateLimit {
+
+    /**
+     * 限流名称（同名的限流共用令牌桶），默认使用"类名.方法名"
+     */
+    String name() default "";
+
+    /**
+     * 限流对象
+     */
+    Key key() default Key.STUDENT;
+
+    /**
+     * 每秒允许的请求数
+     */
+    double permitsPerSecond();
+
+    /**
+     * 令牌桶容量（允许的突发请求数），默认为每秒允许的请求数
+     */
+    int burst() default 0;
+
+    enum Key {
+        /**
+         * 按学生（HTTP 从登录令牌解析，STOMP 从会话身份获取）
+         */
+        STUDENT,
+        /**
+         * 按考试（路径参数 examId，没有时通过考试记录ID查询所属考试）
+         */
+        EXAM,
+        /**
+         * 按客户端IP
+         */
+        IP
+    }
+}
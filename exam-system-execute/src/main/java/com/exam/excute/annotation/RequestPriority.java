@@ -0,0 +1,34 @@
+package com.exam.excute.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口的过载保护优先级：并发达到上限附近时，低优先级的请求先被拒绝（503），保证交卷和保存答案
+ * 由 highConcurrency-disposal 模块的 ConcurrencyLimitInterceptor 执行，未标注的接口为 NORMAL
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestPriority {
+
+    Level value();
+
+    enum Level {
+        /**
+         * 交卷、保存答案：只要并发未达到上限就放行
+         */
+        CRITICAL,
+        /**
+         * 获取令牌、进入考试等
+         */
+        NORMAL,
+        /**
+         * 进度轮询、考试记录查询：可以稍后重试，最先被拒绝
+         */
+        LOW
+    }
+}
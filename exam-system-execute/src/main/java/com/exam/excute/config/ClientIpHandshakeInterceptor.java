@@ -0,0 +1,46 @@
+package com.exam.excute.config;
+
+import com.exam.excute.util.ClientIpUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * WebSocket 握手拦截器：把客户端IP保存到会话属性中，之后该会话的 STOMP 消息可以直接读取
+ */
+@Component
+public class ClientIpHandshakeInterceptor implements HandshakeInterceptor {
+
+    /**
+     * 会话属性名
+     */
+    public static final String CLIENT_IP_ATTRIBUTE = "clientIp";
+
+    @Autowired
+    private ClientIpUtil clientIpUtil;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        HttpHeaders headers = request.getHeaders();
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = clientIpUtil.resolve(headers.getFirst("X-Forwarded-For"), headers.getFirst("X-Real-IP"),
+                remoteAddress != null && remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : null);
+        if (clientIp != null) {
+            attributes.put(CLIENT_IP_ATTRIBUTE, clientIp);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.exam.excute.config;
+
+import com.exam.excute.service.ExamMessagePublisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 发布订阅广播配置（exam.websocket.broker.mode=redis 时生效）
+ * 每个节点订阅广播频道，把其他节点发布的推送消息投递给本节点的 WebSocket 客户端
+ */
+@Configuration
+@ConditionalOnProperty(name = "exam.websocket.broker.mode", havingValue = "redis")
+public class RedisBroadcastConfig {
+
+    @Bean
+    public RedisMessageListenerContainer examBroadcastListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                        ExamMessagePublisher examMessagePublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(examMessagePublisher, new ChannelTopic(ExamMessagePublisher.BROADCAST_CHANNEL));
+        return container;
+    }
+}
@@ -9,6 +9,9 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
  * Redis配置类
+ * 考试热点数据（答案、计数器、令牌、时间戳、队列）统一使用 Spring Boot 自动配置的 StringRedisTemplate：
+ * 值为原始 UTF-8 字符串或整数，没有 JSON 引号和类型信息，整数可直接 INCR，Set 中的题目ID可使用 intset 编码
+ * JSON 序列化的 RedisTemplate 只用于需要传递对象的场景（如跨节点消息广播）
  */
 @Configuration
 public class RedisConfig {
@@ -0,0 +1,47 @@
+package com.exam.excute.config;
+
+import com.exam.userService.config.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * STOMP 连接认证拦截器
+ * 客户端在 CONNECT 帧中携带 Authorization: Bearer {jwt}，校验通过后把学生身份绑定到会话，
+ * 之后该会话的所有消息都使用会话中的学生ID，不再信任消息体中的 studentId
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new MessageDeliveryException("未登录或令牌缺失");
+        }
+        String token = authHeader.substring(7);
+        if (!jwtUtil.validateToken(token)) {
+            throw new MessageDeliveryException("令牌无效或已过期");
+        }
+        if (!"student".equals(jwtUtil.getRoleFromToken(token))) {
+            throw new MessageDeliveryException("仅学生可以进行考试");
+        }
+
+        accessor.setUser(new StudentPrincipal(jwtUtil.getUserIdFromToken(token)));
+        return message;
+    }
+}
@@ -0,0 +1,48 @@
+package com.exam.excute.config;
+
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket 会话中的学生身份（CONNECT 时由 JWT 解析得到）
+ * 同一会话的后续消息共用该对象，已校验归属的考试记录ID缓存在这里，每个会话每条记录只查一次 ExamRecordOwnerCache
+ */
+public class StudentPrincipal implements Principal {
+
+    // 单个会话缓存的考试记录数上限（正常只有当前考试的一条）
+    private static final int MAX_OWNED_RECORDS = 16;
+
+    private final Long studentId;
+
+    private final Set<Long> ownedExamRecordIds = ConcurrentHashMap.newKeySet();
+
+    public StudentPrincipal(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * 考试记录是否已确认属于该学生
+     */
+    public boolean ownsExamRecord(Long examRecordId) {
+        return ownedExamRecordIds.contains(examRecordId);
+    }
+
+    /**
+     * 记录已确认归属的考试记录
+     */
+    public void addOwnedExamRecord(Long examRecordId) {
+        if (ownedExamRecordIds.size() < MAX_OWNED_RECORDS) {
+            ownedExamRecordIds.add(examRecordId);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return studentId.toString();
+    }
+}
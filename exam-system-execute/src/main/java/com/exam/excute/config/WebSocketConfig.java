@@ -1,22 +1,79 @@
 package com.exam.excute.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.MimeType;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 /**
  * WebSocket配置类
+ * 消息代理模式（exam.websocket.broker.mode）：
+ * - simple：内存消息代理，只能推送给连接在本节点的客户端（单节点部署）
+ * - relay：转发到外部 STOMP 消息代理（ActiveMQ/RabbitMQ 等），订阅关系由外部代理维护，多节点无需会话粘滞
+ * - redis：本地内存代理 + Redis 发布订阅广播，服务端推送经 Redis 分发到所有节点（见 ExamMessagePublisher）
+ * 消息格式：默认 JSON；开启 exam.websocket.cbor-enabled 后客户端可在帧头设置 content-type:application/cbor 发送二进制帧
+ * （二进制帧需连接不经过 SockJS 的 /ws/exam-native 端点）
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public static final MimeType CBOR_MIME_TYPE = new MimeType("application", "cbor");
+
+    @Autowired
+    private StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    @Autowired
+    private ClientIpHandshakeInterceptor clientIpHandshakeInterceptor;
+
+    @Value("${exam.websocket.cbor-enabled:false}")
+    private boolean cborEnabled;
+
+    @Value("${exam.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${exam.websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${exam.websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${exam.websocket.broker.relay-login:guest}")
+    private String relayLogin;
+
+    @Value("${exam.websocket.broker.relay-passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${exam.websocket.broker.relay-virtual-host:}")
+    private String relayVirtualHost;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // 启用简单的消息代理，用于向客户端发送消息
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equals(brokerMode)) {
+            // 转发到外部 STOMP 消息代理
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost.isEmpty() ? null : relayVirtualHost);
+        } else {
+            // 启用简单的消息代理，用于向客户端发送消息
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         // 客户端发送消息的前缀
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -26,7 +83,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // 注册WebSocket端点
         registry.addEndpoint("/ws/exam")
                 .setAllowedOriginPatterns("*")
+                .addInterceptors(clientIpHandshakeInterceptor)
                 .withSockJS();
+        // 原生WebSocket端点（不经过SockJS，支持二进制帧）
+        registry.addEndpoint("/ws/exam-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(clientIpHandshakeInterceptor);
     }
-}
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // CONNECT 时校验 JWT 并把学生身份绑定到会话
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        if (cborEnabled) {
+            // CBOR 二进制消息转换器，仅处理 content-type 为 application/cbor 的帧，其他帧仍走默认 JSON 转换器
+            MappingJackson2MessageConverter cborConverter = new MappingJackson2MessageConverter(CBOR_MIME_TYPE);
+            cborConverter.setObjectMapper(new ObjectMapper(new CBORFactory()));
+            cborConverter.setSerializedPayloadClass(byte[].class);
+            messageConverters.add(cborConverter);
+        }
+        // 保留默认转换器
+        return true;
+    }
+}
@@ -1,17 +1,29 @@
 package com.exam.excute.controller;
 
+import com.exam.excute.annotation.RateLimit;
+import com.exam.excute.config.ClientIpHandshakeInterceptor;
+import com.exam.excute.config.StudentPrincipal;
+import com.exam.excute.dto.AnswerBatchMessageDTO;
+import com.exam.excute.dto.AnswerMessageDTO;
+import com.exam.excute.dto.ExamEventMessageDTO;
 import com.exam.excute.service.AntiCheatService;
+import com.exam.excute.service.ExamActivityEvent;
+import com.exam.excute.service.ExamRecordOwnerCache;
 import com.exam.excute.service.ExamSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
 import java.util.Map;
 
 /**
  * 考试WebSocket控制器
+ * 学生ID取自会话认证信息（见 StompAuthChannelInterceptor），消息体只携带考试相关字段
+ * 消息体中的考试记录ID必须属于会话中的学生，归属在每个会话中只校验一次（缓存在 StudentPrincipal 中，未命中时查 ExamRecordOwnerCache）
  */
 @Controller
 public class ExamWebSocketController {
@@ -22,24 +34,36 @@ public class ExamWebSocketController {
     @Autowired
     private ExamSyncService examSyncService;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ExamRecordOwnerCache examRecordOwnerCache;
+
     /**
      * 处理心跳
      */
+    @RateLimit(permitsPerSecond = 1, burst = 5)
     @MessageMapping("/exam/heartbeat")
-    public void handleHeartbeat(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor headerAccessor) {
-        Long examRecordId = Long.valueOf(payload.get("examRecordId").toString());
-        Long studentId = Long.valueOf(payload.get("studentId").toString());
-        antiCheatService.recordHeartbeat(examRecordId, studentId);
+    public void handleHeartbeat(@Payload ExamEventMessageDTO message, Principal principal,
+                                SimpMessageHeaderAccessor headerAccessor) {
+        Long examRecordId = requireExamRecordId(message);
+        antiCheatService.recordHeartbeat(examRecordId, requireOwner(principal, examRecordId));
+
+        // 在线考生和客户端IP的基数统计（握手时记录的IP）
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+        String clientIp = attributes != null ? (String) attributes.get(ClientIpHandshakeInterceptor.CLIENT_IP_ATTRIBUTE) : null;
+        applicationEventPublisher.publishEvent(ExamActivityEvent.connect(examRecordId, null, clientIp));
     }
 
     /**
      * 处理切屏事件
      */
+    @RateLimit(name = "anti-cheat-event", permitsPerSecond = 5, burst = 20)
     @MessageMapping("/exam/switch")
-    public void handleSwitch(@Payload Map<String, Object> payload) {
-        Long examRecordId = Long.valueOf(payload.get("examRecordId").toString());
-        Long studentId = Long.valueOf(payload.get("studentId").toString());
-        antiCheatService.recordSwitch(examRecordId, studentId);
+    public void handleSwitch(@Payload ExamEventMessageDTO message, Principal principal) {
+        Long examRecordId = requireExamRecordId(message);
+        antiCheatService.recordSwitch(examRecordId, requireOwner(principal, examRecordId));
         
         // 推送警告
         examSyncService.pushWarning(examRecordId, "检测到切屏行为，请注意！");
@@ -48,39 +72,85 @@ public class ExamWebSocketController {
     /**
      * 处理窗口失焦
      */
+    @RateLimit(name = "anti-cheat-event", permitsPerSecond = 5, burst = 20)
     @MessageMapping("/exam/blur")
-    public void handleBlur(@Payload Map<String, Object> payload) {
-        Long examRecordId = Long.valueOf(payload.get("examRecordId").toString());
-        Long studentId = Long.valueOf(payload.get("studentId").toString());
-        antiCheatService.recordBlur(examRecordId, studentId);
+    public void handleBlur(@Payload ExamEventMessageDTO message, Principal principal) {
+        Long examRecordId = requireExamRecordId(message);
+        antiCheatService.recordBlur(examRecordId, requireOwner(principal, examRecordId));
     }
 
     /**
      * 处理窗口聚焦
      */
+    @RateLimit(name = "anti-cheat-event", permitsPerSecond = 5, burst = 20)
     @MessageMapping("/exam/focus")
-    public void handleFocus(@Payload Map<String, Object> payload) {
-        Long examRecordId = Long.valueOf(payload.get("examRecordId").toString());
-        Long studentId = Long.valueOf(payload.get("studentId").toString());
-        antiCheatService.recordFocus(examRecordId, studentId);
+    public void handleFocus(@Payload ExamEventMessageDTO message, Principal principal) {
+        Long examRecordId = requireExamRecordId(message);
+        antiCheatService.recordFocus(examRecordId, requireOwner(principal, examRecordId));
     }
 
     /**
      * 处理答案保存
      * payload 需要包含：examRecordId, questionId, studentAnswer, examToken
+     * 可选：version（按题目单调递增的答案版本号，乱序到达的旧帧会被丢弃）
      */
+    @RateLimit(name = "answer", permitsPerSecond = 10, burst = 30)
     @MessageMapping("/exam/answer")
-    public void handleAnswer(@Payload Map<String, Object> payload) {
-        Long examRecordId = Long.valueOf(payload.get("examRecordId").toString());
-        Long questionId = Long.valueOf(payload.get("questionId").toString());
-        String studentAnswer = payload.get("studentAnswer").toString();
-        String examToken = payload.get("examToken") != null ? payload.get("examToken").toString() : null;
+    public void handleAnswer(@Payload AnswerMessageDTO message, Principal principal) {
+        if (message.getExamRecordId() == null || message.getQuestionId() == null || message.getStudentAnswer() == null) {
+            throw new RuntimeException("考试记录ID、题目ID和答案不能为空");
+        }
+        // 必须是已认证的学生会话，且考试记录属于该学生
+        requireOwner(principal, message.getExamRecordId());
+        requireExamToken(message.getExamToken());
         
+        examSyncService.saveAnswerRealtime(message.getExamRecordId(), message.getQuestionId(),
+                message.getStudentAnswer(), message.getVersion(), message.getExamToken());
+    }
+
+    /**
+     * 处理批量答案保存
+     * payload 需要包含：examRecordId, examToken, answers（每项包含 questionId, studentAnswer, 可选 version）
+     */
+    @RateLimit(name = "answer-batch", permitsPerSecond = 2, burst = 10)
+    @MessageMapping("/exam/answer/batch")
+    public void handleAnswerBatch(@Payload AnswerBatchMessageDTO message, Principal principal) {
+        if (message.getExamRecordId() == null) {
+            throw new RuntimeException("考试记录ID不能为空");
+        }
+        // 必须是已认证的学生会话，且考试记录属于该学生
+        requireOwner(principal, message.getExamRecordId());
+        requireExamToken(message.getExamToken());
+        
+        examSyncService.saveAnswersBatch(message.getExamRecordId(), message.getAnswers(), message.getExamToken());
+    }
+
+    /**
+     * 校验考试记录属于会话中的学生
+     * @return 学生ID
+     */
+    private Long requireOwner(Principal principal, Long examRecordId) {
+        if (!(principal instanceof StudentPrincipal student)) {
+            throw new RuntimeException("未登录或令牌缺失");
+        }
+        if (student.ownsExamRecord(examRecordId)) {
+            return student.getStudentId();
+        }
+        examRecordOwnerCache.checkOwner(examRecordId, student.getStudentId());
+        student.addOwnedExamRecord(examRecordId);
+        return student.getStudentId();
+    }
+
+    private Long requireExamRecordId(ExamEventMessageDTO message) {
+        if (message.getExamRecordId() == null) {
+            throw new RuntimeException("考试记录ID不能为空");
+        }
+        return message.getExamRecordId();
+    }
+
+    private void requireExamToken(String examToken) {
         if (examToken == null || examToken.trim().isEmpty()) {
             throw new RuntimeException("考试令牌不能为空");
         }
-        
-        examSyncService.saveAnswerRealtime(examRecordId, questionId, studentAnswer, examToken);
     }
 }
-
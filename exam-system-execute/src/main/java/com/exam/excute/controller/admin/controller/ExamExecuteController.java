@@ -1,18 +1,26 @@
 package com.exam.excute.controller.admin.controller;
 
+import com.exam.excute.annotation.RateLimit;
+import com.exam.excute.annotation.RequestPriority;
 import com.exam.excute.config.AuthUtil;
+import com.exam.excute.dto.AnswerBatchDTO;
 import com.exam.excute.dto.AnswerDTO;
 import com.exam.excute.dto.ExamRecordInfoDTO;
 import com.exam.excute.dal.dataobject.ExamRecordDO;
 import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.service.ExamActivityEvent;
+import com.exam.excute.service.ExamRecordOwnerCache;
 import com.exam.excute.service.ExamSyncService;
 import com.exam.excute.service.ExamTokenService;
+import com.exam.excute.util.ClientIpUtil;
 import com.exam.excute.util.DistributedLockUtil;
 import com.exam.manage.dal.dataobject.ExamDO;
 import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import com.exam.manage.util.ExamRedisKeys;
 import com.exam.userService.dto.Result;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -37,21 +45,32 @@ public class ExamExecuteController {
     @Autowired
     private ExamTokenService examTokenService;
 
+    @Autowired
+    private ExamRecordOwnerCache examRecordOwnerCache;
+
     @Autowired
     private DistributedLockUtil distributedLockUtil;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ClientIpUtil clientIpUtil;
+
     /**
      * 获取考试令牌（学生进入考试前需要先获取令牌）
      * 只有进行中的考试才能获取令牌
      * 使用分布式锁防止重复获取
      */
+    @RateLimit(permitsPerSecond = 1, burst = 5)
+    @RateLimit(key = RateLimit.Key.IP, permitsPerSecond = 200, burst = 1000)
     @GetMapping("/token/{examId}")
     public Result<String> getExamToken(@PathVariable Long examId, HttpServletRequest request) {
         // 验证学生身份
         Long studentId = authUtil.checkStudent(request);
         
         // 使用分布式锁，防止同一学生重复获取令牌
-        String lockKey = "lock:exam:token:" + examId + ":" + studentId;
+        String lockKey = ExamRedisKeys.tokenLock(examId, studentId);
         
         return distributedLockUtil.executeWithLock(lockKey, 10, () -> {
             // 查询考试信息
@@ -65,13 +84,9 @@ public class ExamExecuteController {
                 throw new RuntimeException("考试未开始或已结束，无法获取令牌");
             }
             
-            // 从Redis获取令牌
-            String token = examTokenService.getToken(examId);
-            
-            // 如果令牌不存在，自动生成一个（兜底处理：可能是定时任务开启了考试但未生成令牌，或令牌过期）
-            if (token == null) {
-                token = examTokenService.issueToken(examId, exam.getEndTime());
-            }
+            // 从Redis获取令牌，不存在时自动生成一个（兜底处理：可能是定时任务开启了考试但未生成令牌，或令牌过期）
+            // 锁只针对同一学生，不同学生可能同时兜底，由 SET NX 保证只有一个令牌生效
+            String token = examTokenService.getOrIssueToken(examId, exam.getEndTime());
             
             return Result.success("获取令牌成功", token);
         });
@@ -81,6 +96,8 @@ public class ExamExecuteController {
      * 学生进入考试：创建或获取考试记录ID
      * 需要提供考试令牌（从请求头 X-Exam-Token 获取）
      */
+    @RateLimit(permitsPerSecond = 1, burst = 5)
+    @RateLimit(key = RateLimit.Key.IP, permitsPerSecond = 200, burst = 1000)
     @PostMapping("/start/{examId}")
     public Result<Long> startExam(@PathVariable Long examId, 
                                   @RequestHeader(value = "X-Exam-Token", required = false) String examToken,
@@ -106,11 +123,16 @@ public class ExamExecuteController {
         }
 
         // 使用分布式锁，防止同一学生重复进入考试
-        String lockKey = "lock:exam:start:" + examId + ":" + studentId;
+        String lockKey = ExamRedisKeys.startLock(examId, studentId);
         
         Long examRecordId = distributedLockUtil.executeWithLock(lockKey, 10, () -> {
             return examSyncService.startExam(examId, studentId, exam.getPaperId());
         });
+        // 记录归属，之后保存答案时校验归属不需要查数据库
+        examRecordOwnerCache.remember(examRecordId, studentId);
+
+        // 进入考试的考生和客户端IP的基数统计
+        applicationEventPublisher.publishEvent(ExamActivityEvent.connect(examRecordId, examId, clientIpUtil.fromRequest(request)));
         
         return Result.success(examRecordId);
     }
@@ -118,6 +140,8 @@ public class ExamExecuteController {
     /**
      * 根据考试记录ID获取考试/试卷等基础信息
      */
+    @RateLimit(permitsPerSecond = 2, burst = 10)
+    @RequestPriority(RequestPriority.Level.LOW)
     @GetMapping("/record/{examRecordId}")
     public Result<ExamRecordInfoDTO> getExamRecordInfo(@PathVariable Long examRecordId,
                                                        HttpServletRequest request) {
@@ -139,30 +163,65 @@ public class ExamExecuteController {
      * 保存答案（REST接口，作为WebSocket的补充）
      * 需要提供考试令牌（从请求头 X-Exam-Token 获取）
      */
+    @RateLimit(name = "answer", permitsPerSecond = 10, burst = 30)
+    @RequestPriority(RequestPriority.Level.CRITICAL)
     @PostMapping("/answer")
     public Result<Object> saveAnswer(@RequestBody AnswerDTO answerDTO,
                                      @RequestHeader(value = "X-Exam-Token", required = false) String examToken,
                                      HttpServletRequest request) {
-        // 只有学生可以提交答案
-        authUtil.checkStudent(request);
+        // 只有学生可以提交答案，且只能写入本人的考试记录
+        Long studentId = authUtil.checkStudent(request);
+        examRecordOwnerCache.checkOwner(answerDTO.getExamRecordId(), studentId);
         
         // 验证令牌
         if (examToken == null || examToken.trim().isEmpty()) {
             throw new RuntimeException("考试令牌不能为空");
         }
         
-        examSyncService.saveAnswerRealtime(
+        boolean applied = examSyncService.saveAnswerRealtime(
             answerDTO.getExamRecordId(),
             answerDTO.getQuestionId(),
             answerDTO.getStudentAnswer(),
+            answerDTO.getVersion(),
             examToken
         );
-        return Result.success("答案保存成功");
+        // 旧版本（重试或乱序到达）被忽略，按成功处理，客户端无需重发
+        return Result.success(applied ? "答案保存成功" : "答案版本已过期，已忽略");
+    }
+
+    /**
+     * 批量保存答案（客户端合并多次修改后一次提交，一次Redis脚本调用完成）
+     * 需要提供考试令牌（从请求头 X-Exam-Token 获取）
+     * @return 保存后的答题进度
+     */
+    @RateLimit(name = "answer-batch", permitsPerSecond = 2, burst = 10)
+    @RequestPriority(RequestPriority.Level.CRITICAL)
+    @PostMapping("/answer/batch")
+    public Result<Long> saveAnswerBatch(@RequestBody AnswerBatchDTO answerBatchDTO,
+                                        @RequestHeader(value = "X-Exam-Token", required = false) String examToken,
+                                        HttpServletRequest request) {
+        // 只有学生可以提交答案，且只能写入本人的考试记录
+        Long studentId = authUtil.checkStudent(request);
+        examRecordOwnerCache.checkOwner(answerBatchDTO.getExamRecordId(), studentId);
+        
+        // 验证令牌
+        if (examToken == null || examToken.trim().isEmpty()) {
+            throw new RuntimeException("考试令牌不能为空");
+        }
+        
+        Long progress = examSyncService.saveAnswersBatch(
+            answerBatchDTO.getExamRecordId(),
+            answerBatchDTO.getAnswers(),
+            examToken
+        );
+        return Result.success(progress);
     }
 
     /**
      * 获取答题进度
      */
+    @RateLimit(permitsPerSecond = 2, burst = 10)
+    @RequestPriority(RequestPriority.Level.LOW)
     @GetMapping("/progress/{examRecordId}")
     public Result<Long> getProgress(@PathVariable Long examRecordId, HttpServletRequest request) {
         // 只有学生可以查看自己的答题进度
@@ -175,6 +234,8 @@ public class ExamExecuteController {
      * 考生提前结束考试（直接提交答案到数据库，清除该考生的考试令牌）
      * 需要提供考试令牌（从请求头 X-Exam-Token 获取）
      */
+    @RateLimit(permitsPerSecond = 1, burst = 5)
+    @RequestPriority(RequestPriority.Level.CRITICAL)
     @PostMapping("/submit/{examRecordId}")
     public Result<Object> submitExam(@PathVariable Long examRecordId,
                                      @RequestHeader(value = "X-Exam-Token", required = false) String examToken,
@@ -206,4 +267,3 @@ public class ExamExecuteController {
         return Result.success("考试提交成功");
     }
 }
-
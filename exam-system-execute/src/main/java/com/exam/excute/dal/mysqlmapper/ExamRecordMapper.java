@@ -40,10 +40,28 @@ public interface ExamRecordMapper {
     int update(ExamRecordDO examRecord);
 
     /**
-     * 更新切屏次数
+     * 交卷：只有进行中的记录才会更新（多个节点或提前交卷与时间耗尽同时处理同一考生时，只有一次生效）
+     * 不覆盖作弊标记；切屏次数取较大值
+     * @return 1-本次交卷生效，0-已经交过卷
      */
-    @Update("UPDATE exam_record SET switch_count = switch_count + 1, update_time = NOW() WHERE id = #{id}")
-    int incrementSwitchCount(@Param("id") Long id);
+    @Update("UPDATE exam_record SET submit_time = #{submitTime}, total_score = #{totalScore}, score = #{score}, " +
+            "status = 'submitted', switch_count = GREATEST(switch_count, #{switchCount}), update_time = NOW() " +
+            "WHERE id = #{id} AND status = 'in_progress'")
+    int submit(ExamRecordDO examRecord);
+
+    /**
+     * 批量更新切屏次数（key 为考试记录ID，value 为 Redis 中的累计切屏次数）
+     * 使用 GREATEST 保证乱序或重复刷新不会让次数倒退
+     */
+    @Update("<script>" +
+            "UPDATE exam_record SET switch_count = CASE id " +
+            "<foreach collection='counts' index='id' item='count'>" +
+            "WHEN #{id} THEN GREATEST(switch_count, #{count}) " +
+            "</foreach>" +
+            "END, update_time = NOW() WHERE id IN " +
+            "<foreach collection='counts' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchUpdateSwitchCount(@Param("counts") java.util.Map<Long, Long> counts);
 
     /**
      * 标记作弊
@@ -51,6 +69,19 @@ public interface ExamRecordMapper {
     @Update("UPDATE exam_record SET is_cheating = 1, cheating_reason = #{reason}, update_time = NOW() WHERE id = #{id}")
     int markCheating(@Param("id") Long id, @Param("reason") String reason);
 
+    /**
+     * 批量标记作弊（key 为考试记录ID，value 为作弊原因）
+     */
+    @Update("<script>" +
+            "UPDATE exam_record SET is_cheating = 1, cheating_reason = CASE id " +
+            "<foreach collection='reasons' index='id' item='reason'>" +
+            "WHEN #{id} THEN #{reason} " +
+            "</foreach>" +
+            "END, update_time = NOW() WHERE id IN " +
+            "<foreach collection='reasons' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchMarkCheating(@Param("reasons") java.util.Map<Long, String> reasons);
+
     /**
      * 根据考试ID查询所有进行中的考试记录
      */
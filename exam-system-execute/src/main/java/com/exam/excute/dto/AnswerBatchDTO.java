@@ -0,0 +1,21 @@
+package com.exam.excute.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量答题DTO（客户端合并多次修改后一次提交）
+ */
+@Data
+public class AnswerBatchDTO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 答案列表（题目ID、答案、版本号）
+     */
+    private List<AnswerItemDTO> answers;
+}
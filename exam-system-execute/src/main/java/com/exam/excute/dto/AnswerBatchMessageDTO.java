@@ -0,0 +1,26 @@
+package com.exam.excute.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * WebSocket 批量答案保存消息
+ */
+@Data
+public class AnswerBatchMessageDTO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 答案列表（题目ID、答案、版本号）
+     */
+    private List<AnswerItemDTO> answers;
+
+    /**
+     * 考试令牌
+     */
+    private String examToken;
+}
@@ -21,5 +21,10 @@ public class AnswerDTO {
      * 学生答案
      */
     private String studentAnswer;
+
+    /**
+     * 答案版本号（客户端按题目单调递增，重试或乱序到达的旧版本会被忽略）
+     */
+    private Long version;
 }
 
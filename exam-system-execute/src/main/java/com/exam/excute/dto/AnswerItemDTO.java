@@ -0,0 +1,28 @@
+package com.exam.excute.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单题答案（带客户端版本号）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerItemDTO {
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 学生答案
+     */
+    private String studentAnswer;
+
+    /**
+     * 答案版本号（客户端按题目单调递增，为空表示不做版本校验）
+     */
+    private Long version;
+}
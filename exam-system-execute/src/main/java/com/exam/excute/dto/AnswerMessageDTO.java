@@ -0,0 +1,34 @@
+package com.exam.excute.dto;
+
+import lombok.Data;
+
+/**
+ * WebSocket 答案保存消息
+ */
+@Data
+public class AnswerMessageDTO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 学生答案
+     */
+    private String studentAnswer;
+
+    /**
+     * 答案版本号（可选，按题目单调递增）
+     */
+    private Long version;
+
+    /**
+     * 考试令牌
+     */
+    private String examToken;
+}
@@ -0,0 +1,23 @@
+package com.exam.excute.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 跨节点广播的 WebSocket 推送消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastMessageDTO {
+    /**
+     * 推送目的地，例如 /topic/exam/status/{examId}
+     */
+    private String destination;
+
+    /**
+     * 推送内容
+     */
+    private Object payload;
+}
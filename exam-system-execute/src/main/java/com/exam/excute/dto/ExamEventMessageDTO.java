@@ -0,0 +1,15 @@
+package com.exam.excute.dto;
+
+import lombok.Data;
+
+/**
+ * 考试行为事件消息（心跳、切屏、失焦、聚焦）
+ * 学生ID从 WebSocket 会话的认证信息中获取，不信任客户端提交的值
+ */
+@Data
+public class ExamEventMessageDTO {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+}
@@ -0,0 +1,187 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.dataobject.AnswerRecordDO;
+
+/**
+ * 客观题自动批改
+ * 1. 单选、判断、填空与标准答案一致得满分，否则不得分
+ * 2. 多选全部选对得满分；少选（所选选项都正确）判为部分正确，得一半分（向下取整）；有错选不得分
+ * 3. 简答题和未知题型需要人工批改，是否正确和得分都留空
+ * 标准答案在加载试卷时预处理成 Key（选项转为位掩码），批改一道题只做几次比较，不分配对象
+ */
+public final class AnswerGrader {
+
+    /**
+     * 是否正确：0-错误, 1-正确, 2-部分正确（与 answer_record.is_correct 一致）
+     */
+    public static final int WRONG = 0;
+    public static final int CORRECT = 1;
+    public static final int PARTIAL = 2;
+
+    private static final int MODE_MANUAL = 0;
+    private static final int MODE_SINGLE = 1;
+    private static final int MODE_MULTIPLE = 2;
+    private static final int MODE_TRUE_FALSE = 3;
+    private static final int MODE_TEXT = 4;
+
+    private AnswerGrader() {
+    }
+
+    /**
+     * 一道题的标准答案（预处理后）
+     */
+    public static final class Key {
+        private final Long questionId;
+        private final int mode;
+        private final int score;
+        // 单选/多选：选项位掩码；判断：1-对 0-错
+        private final int expected;
+        // 填空：去掉首尾空白的标准答案
+        private final String text;
+
+        private Key(Long questionId, int mode, int score, int expected, String text) {
+            this.questionId = questionId;
+            this.mode = mode;
+            this.score = score;
+            this.expected = expected;
+            this.text = text;
+        }
+
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * 是否可以自动批改
+         */
+        public boolean isAutoGraded() {
+            return mode != MODE_MANUAL;
+        }
+    }
+
+    /**
+     * 预处理一道题的标准答案
+     * @param questionId 题目ID
+     * @param type 题目类型
+     * @param answer 标准答案
+     * @param score 该题在试卷中的分值
+     */
+    public static Key key(Long questionId, String type, String answer, int score) {
+        if (answer == null || type == null) {
+            return new Key(questionId, MODE_MANUAL, score, 0, null);
+        }
+        switch (type) {
+            case "single_choice":
+            case "multiple_choice": {
+                int mask = choiceMask(answer);
+                // 标准答案本身无法解析时交给人工批改，避免把所有考生都判错
+                if (mask <= 0) {
+                    return new Key(questionId, MODE_MANUAL, score, 0, null);
+                }
+                return new Key(questionId, "single_choice".equals(type) ? MODE_SINGLE : MODE_MULTIPLE, score, mask, null);
+            }
+            case "true_false": {
+                int value = trueFalse(answer);
+                if (value < 0) {
+                    return new Key(questionId, MODE_MANUAL, score, 0, null);
+                }
+                return new Key(questionId, MODE_TRUE_FALSE, score, value, null);
+            }
+            case "fill_blank":
+                return new Key(questionId, MODE_TEXT, score, 0, answer.strip());
+            default:
+                return new Key(questionId, MODE_MANUAL, score, 0, null);
+        }
+    }
+
+    /**
+     * 批改一道题，把是否正确和得分写入答题记录
+     * @param key 标准答案
+     * @param record 答题记录（studentAnswer 为学生答案）
+     */
+    public static void grade(Key key, AnswerRecordDO record) {
+        if (key.mode == MODE_MANUAL) {
+            record.setIsCorrect(null);
+            record.setScore(null);
+            return;
+        }
+        String studentAnswer = record.getStudentAnswer();
+        int result = studentAnswer == null ? WRONG : judge(key, studentAnswer);
+        record.setIsCorrect(result);
+        record.setScore(result == CORRECT ? key.score : result == PARTIAL ? key.score / 2 : 0);
+    }
+
+    private static int judge(Key key, String studentAnswer) {
+        switch (key.mode) {
+            case MODE_SINGLE:
+                return choiceMask(studentAnswer) == key.expected ? CORRECT : WRONG;
+            case MODE_MULTIPLE: {
+                int mask = choiceMask(studentAnswer);
+                if (mask == key.expected) {
+                    return CORRECT;
+                }
+                return mask > 0 && (mask & ~key.expected) == 0 ? PARTIAL : WRONG;
+            }
+            case MODE_TRUE_FALSE:
+                return trueFalse(studentAnswer) == key.expected ? CORRECT : WRONG;
+            case MODE_TEXT:
+                return textEquals(key.text, studentAnswer) ? CORRECT : WRONG;
+            default:
+                return WRONG;
+        }
+    }
+
+    /**
+     * 填空题比对：忽略首尾空白和大小写，直接按区间比较，不生成去空白后的新字符串
+     */
+    static boolean textEquals(String expected, String answer) {
+        int start = 0;
+        int end = answer.length();
+        while (start < end && Character.isWhitespace(answer.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(answer.charAt(end - 1))) {
+            end--;
+        }
+        return end - start == expected.length() && expected.regionMatches(true, 0, answer, start, end - start);
+    }
+
+    /**
+     * 选项字母转位掩码：A -> 1, B -> 2, C -> 4 ...，不区分大小写
+     * 兼容 "A,C,D"、"ACD"、"A C D"、"A，C、D" 等写法；出现其他字符返回 -1
+     */
+    static int choiceMask(String answer) {
+        int mask = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                mask |= 1 << (c - 'A');
+            } else if (c >= 'a' && c <= 'z') {
+                mask |= 1 << (c - 'a');
+            } else if (c != ',' && c != '，' && c != '、' && c != ';' && !Character.isWhitespace(c)) {
+                return -1;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 判断题答案：1-对, 0-错, -1-无法识别
+     */
+    static int trueFalse(String answer) {
+        String value = answer.trim();
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("T")
+                || value.equals("对") || value.equals("正确") || value.equals("√")) {
+            return 1;
+        }
+        if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("F")
+                || value.equals("错") || value.equals("错误") || value.equals("×")) {
+            return 0;
+        }
+        return -1;
+    }
+}
@@ -1,12 +1,13 @@
 package com.exam.excute.service;
 
+import com.exam.manage.util.ExamRedisKeys;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 答案同步定时任务
@@ -19,9 +20,13 @@ public class AnswerSyncScheduler {
     private ExamSyncService examSyncService;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
 
-    private static final String SYNC_QUEUE_PREFIX = "exam:sync:queue:";  // 格式：exam:sync:queue:{token}:{examRecordId}
+    @Autowired
+    private ExamMetrics examMetrics;
+
+    // 每次从登记分片中取出的考试记录数
+    private static final int POP_BATCH_SIZE = 200;
 
     /**
      * 每30秒执行一次批量同步
@@ -29,57 +34,61 @@ public class AnswerSyncScheduler {
      */
     @Scheduled(fixedDelay = 30000) // 30秒
     public void syncAnswersPeriodically() {
-        // 查找所有待同步的考试记录
-        // 注意：这里简化处理，实际应该维护一个待同步列表
-        // 可以通过 Redis Set 或 List 来维护需要同步的 examRecordId 列表
-        
-        // 方案1：扫描所有 sync queue（性能较低，但实现简单）
-        // 方案2：维护一个待同步列表（推荐，但需要额外维护）
-        
-        // 这里使用方案1，实际生产环境建议使用方案2
-        Set<String> keys = redisTemplate.keys(SYNC_QUEUE_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) {
-            return;
-        }
-
-        for (String key : keys) {
-            try {
-                // 从 key 中提取 token 和 examRecordId
-                // key 格式：exam:sync:queue:{token}:{examRecordId}
-                String suffix = key.substring(SYNC_QUEUE_PREFIX.length());
-                String[] parts = suffix.split(":", 2);
-                if (parts.length != 2) {
-                    continue; // 格式不正确，跳过
+        // 维护待同步列表（方案2）：保存答案时待同步队列由空变非空，考试记录登记到 exam:sync:pending:{shard}
+        // 这里用 SPOP 逐个分片取出，多节点同时执行时每条登记只会被一个节点取到；不使用 KEYS 扫描，兼容 Redis Cluster
+        long startedAt = System.currentTimeMillis();
+        long backlog = 0;
+        int records = 0;
+        for (int shard = 0; shard < ExamRedisKeys.SYNC_PENDING_SHARDS; shard++) {
+            String pendingKey = ExamRedisKeys.syncPending(shard);
+            // 每个分片每轮最多处理开始时的登记数：失败的登记要放回分片，不设上限时数据库故障期间会反复取出、放回
+            Long shardSize = stringRedisTemplate.opsForSet().size(pendingKey);
+            long remaining = shardSize != null ? shardSize : 0;
+            backlog += remaining;
+            List<String> failed = new ArrayList<>();
+            while (remaining > 0) {
+                List<String> members = stringRedisTemplate.opsForSet()
+                        .pop(pendingKey, Math.min(POP_BATCH_SIZE, remaining));
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                for (String member : members) {
+                    if (!syncMember(member)) {
+                        failed.add(member);
+                    }
                 }
-                String examToken = parts[0];
-                Long examRecordId = Long.parseLong(parts[1]);
-                
-                // 批量同步答案
-                examSyncService.syncAnswersToDatabase(examRecordId, examToken);
-            } catch (Exception e) {
-                // 记录日志，继续处理下一个
-                System.err.println("同步答案失败: " + key + ", 错误: " + e.getMessage());
+                records += members.size();
+                remaining -= members.size();
+            }
+            if (!failed.isEmpty()) {
+                // 放回登记集合，下一轮重试
+                stringRedisTemplate.opsForSet().add(pendingKey, failed.toArray(new String[0]));
+                System.err.println("同步答案失败 " + failed.size() + " 条，已放回 " + pendingKey + " 等待下次重试");
             }
         }
+        examMetrics.recordSyncPass(startedAt, backlog, records);
     }
 
     /**
-     * 每小时清理过期的同步队列（防止内存泄漏）
+     * 同步一条登记
+     * @return 是否成功（格式不正确的登记直接丢弃，视为成功）
      */
-    @Scheduled(fixedDelay = 3600000) // 1小时
-    public void cleanupExpiredSyncQueues() {
-        Set<String> keys = redisTemplate.keys(SYNC_QUEUE_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) {
-            return;
-        }
-
-        for (String key : keys) {
-            // 检查 key 是否还有 TTL，如果没有 TTL 或已过期，删除
-            Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
-            if (ttl == null || ttl <= 0) {
-                redisTemplate.delete(key);
+    private boolean syncMember(String member) {
+        try {
+            // 成员格式：{examRecordId}:{token}
+            String[] parts = member.split(":", 2);
+            if (parts.length != 2) {
+                return true; // 格式不正确，跳过
             }
+            Long examRecordId = Long.parseLong(parts[0]);
+            String examToken = parts[1];
+
+            // 批量同步答案
+            examSyncService.syncAnswersToDatabase(examRecordId, examToken);
+            return true;
+        } catch (Exception e) {
+            System.err.println("同步答案失败: " + member + ", 错误: " + e.getMessage());
+            return false;
         }
     }
 }
-
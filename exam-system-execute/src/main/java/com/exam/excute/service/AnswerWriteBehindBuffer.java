@@ -0,0 +1,495 @@
+package com.exam.excute.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 答案写缓冲（Write-Behind）
+ * 1. 同一考生同一题目在刷新窗口内的多次保存只保留最后一次（last write wins），带版本号时保留最高版本；
+ *    已刷入 Redis 的版本号也保留一份，刷新之后到达的旧版本重试同样直接拒绝，不会先报告保存成功再被脚本丢弃
+ * 2. 后台线程每隔几毫秒把缓冲区中的答案以 pipeline 的方式批量写入 Redis（group commit）
+ * 3. 每次保存先追加写入本地日志文件，节点崩溃后启动时从日志恢复未刷入 Redis 的答案
+ * 4. 日志按时间分段（{journal-path}.{序号}），每隔 segment-rotate-ms 切换到新的分段；
+ *    一次刷新成功后，刷新前已封存的分段中的答案都已写入 Redis 或被更新的分段覆盖，直接删除，
+ *    日志大小只与最近一两个分段有关，不随考试时长增长
+ * 5. 考生提交时在日志中写入结束标记，恢复时丢弃该考生此前的答案，不会把已提交、已清理的考试数据写回 Redis
+ * 所有刷新（定时刷新、提交前刷新单个考生）都在同一个刷新线程中执行，同一条答案不会被并发刷新
+ * 默认关闭，通过 exam.answer.write-behind.enabled 开启；
+ * 关闭时也会启动，作为 Redis 不可用（超时、连接失败、熔断）时的降级缓冲：保存答案转入缓冲和日志，Redis 恢复后由后台线程补写
+ */
+@Component
+public class AnswerWriteBehindBuffer {
+
+    @Value("${exam.answer.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${exam.answer.write-behind.flush-interval-ms:10}")
+    private long flushIntervalMs;
+
+    @Value("${exam.answer.write-behind.journal-path:./data/answer-journal.log}")
+    private String journalPath;
+
+    @Value("${exam.answer.write-behind.segment-rotate-ms:1000}")
+    private long segmentRotateMs;
+
+    // 日志中考生结束标记行的第一列
+    private static final String END_MARKER = "-";
+
+    // 保留已刷入版本号的题目数上限，超过后整体清空（清空后旧版本重试由保存脚本丢弃）
+    private static final int MAX_FLUSHED_VERSIONS = 200_000;
+
+    // 待刷入 Redis 的答案，key 格式：{examRecordId}:{questionId}
+    private final Map<String, BufferedAnswer> pending = new ConcurrentHashMap<>();
+
+    // 已刷入 Redis 的最高版本号，key 格式同上；考生提交时移除
+    private final Map<String, Long> flushedVersions = new ConcurrentHashMap<>();
+
+    // 日志追加、分段切换、分段删除互斥
+    private final Object journalLock = new Object();
+
+    // 正在追加的分段
+    private volatile Segment current;
+
+    // 已封存、等待刷新成功后删除的分段（按序号递增）
+    private final List<Segment> sealed = new ArrayList<>();
+
+    private long nextSegmentNo = 1;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private Consumer<List<BufferedAnswer>> flusher;
+
+    // 连续刷新失败次数（只由刷新线程修改），Redis 不可用期间限制日志输出
+    private long consecutiveFailures;
+
+    /**
+     * 是否启用写缓冲
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 缓冲中是否还有未刷入 Redis 的答案
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * 启动写缓冲（由 ExamSyncService 注册刷新逻辑后调用）
+     * 启动时先回放本地日志，再开始定时刷新；未开启写缓冲时日志文件在第一次降级写入时才创建
+     * @param flusher 把一批答案写入 Redis 的逻辑，失败时抛出异常，答案会保留到下次重试
+     */
+    public synchronized void start(Consumer<List<BufferedAnswer>> flusher) {
+        if (this.flusher != null) {
+            return;
+        }
+        this.flusher = flusher;
+        try {
+            recoverFromJournal();
+            if (enabled || !pending.isEmpty()) {
+                synchronized (journalLock) {
+                    openSegment();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("打开答案日志文件失败: " + journalPath, e);
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "answer-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 缓冲一次答案保存：先追加日志，再放入缓冲区（同一题目覆盖旧值）
+     * @return 是否被接受（缓冲中或已刷入 Redis 的版本不低于该版本时返回 false）
+     */
+    public boolean put(Long examRecordId, Long questionId, String studentAnswer, Long version, String examToken) {
+        BufferedAnswer answer = new BufferedAnswer(examRecordId, questionId, studentAnswer, version, examToken);
+        String key = bufferKey(examRecordId, questionId);
+        synchronized (journalLock) {
+            if (version != null) {
+                BufferedAnswer current = pending.get(key);
+                Long latest = current != null ? current.getVersion() : flushedVersions.get(key);
+                if (latest != null && latest >= version) {
+                    return false;
+                }
+            }
+            appendToJournal(answerLine(answer));
+            pending.put(key, answer);
+        }
+        return true;
+    }
+
+    /**
+     * 读取尚未刷入 Redis 的答案，不存在返回 null
+     */
+    public BufferedAnswer get(Long examRecordId, Long questionId) {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        return pending.get(bufferKey(examRecordId, questionId));
+    }
+
+    /**
+     * 立即把某个考生缓冲中的答案刷入 Redis，并在日志中写入该考生的结束标记（考试提交前调用，保证强制同步能读到全部答案）
+     * 交给刷新线程执行并等待完成，不与定时刷新并发；刷入失败时抛出异常
+     */
+    public void flushRecord(Long examRecordId) {
+        if (flusher == null) {
+            return;
+        }
+        Future<?> future;
+        try {
+            future = flushExecutor.submit(() -> flushRecordNow(examRecordId));
+        } catch (RejectedExecutionException e) {
+            // 停机过程中刷新线程已停止，直接在当前线程刷新
+            flushRecordNow(examRecordId);
+            return;
+        }
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("刷新考生答案失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待刷新考生答案被中断", e);
+        }
+    }
+
+    private void flushRecordNow(Long examRecordId) {
+        if (!pending.isEmpty()) {
+            String prefix = examRecordId + ":";
+            List<Map.Entry<String, BufferedAnswer>> batch = new ArrayList<>();
+            for (Map.Entry<String, BufferedAnswer> entry : pending.entrySet()) {
+                if (entry.getKey().startsWith(prefix)) {
+                    batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+            flushBatch(batch);
+        }
+        flushedVersions.keySet().removeIf(key -> key.startsWith(examRecordId + ":"));
+        synchronized (journalLock) {
+            if (current != null) {
+                appendToJournal(END_MARKER + "\t" + examRecordId + "\n");
+            }
+        }
+    }
+
+    /**
+     * 定时刷新：日志落盘（group commit）-> 到期时切换分段 -> pipeline 写 Redis -> 删除刷新前已封存的分段
+     */
+    private void flushSafely() {
+        try {
+            if (pending.isEmpty()) {
+                discardDrainedJournal();
+                return;
+            }
+            Segment writing = current;
+            if (writing != null) {
+                writing.channel.force(false);
+            }
+            List<Segment> flushedSegments;
+            List<Map.Entry<String, BufferedAnswer>> batch = new ArrayList<>(pending.size());
+            synchronized (journalLock) {
+                rotateIfDue();
+                flushedSegments = new ArrayList<>(sealed);
+                // 在锁内取快照：封存分段中仍然有效的答案都在快照里
+                for (Map.Entry<String, BufferedAnswer> entry : pending.entrySet()) {
+                    batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+            flushBatch(batch);
+            deleteSegments(flushedSegments);
+            if (consecutiveFailures > 0) {
+                System.err.println("答案写缓冲恢复刷新，此前连续失败 " + consecutiveFailures + " 次");
+                consecutiveFailures = 0;
+            }
+        } catch (Exception e) {
+            // Redis 不可用时答案保留在缓冲区和日志中，下次重试（每隔一段时间输出一次日志）
+            if (consecutiveFailures++ % 1000 == 0) {
+                System.err.println("答案写缓冲刷新失败（待刷新 " + pending.size() + " 条）: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushBatch(List<Map.Entry<String, BufferedAnswer>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<BufferedAnswer> answers = new ArrayList<>(batch.size());
+        for (Map.Entry<String, BufferedAnswer> entry : batch) {
+            answers.add(entry.getValue());
+        }
+        flusher.accept(answers);
+        if (flushedVersions.size() + batch.size() > MAX_FLUSHED_VERSIONS) {
+            flushedVersions.clear();
+        }
+        // 先记下已刷入的版本号再移除，保存答案时总能在其中之一看到该版本
+        // 只移除已刷入的那一版，刷新期间又被覆盖的新答案留到下一轮
+        for (Map.Entry<String, BufferedAnswer> entry : batch) {
+            Long version = entry.getValue().getVersion();
+            if (version != null) {
+                flushedVersions.merge(entry.getKey(), version, Math::max);
+            }
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 当前分段写入超过 segment-rotate-ms 时封存并切换到新分段（持有 journalLock 时调用）
+     */
+    private void rotateIfDue() throws IOException {
+        Segment writing = current;
+        if (writing == null || writing.channel.size() == 0
+                || System.nanoTime() - writing.openedAt < TimeUnit.MILLISECONDS.toNanos(segmentRotateMs)) {
+            return;
+        }
+        writing.channel.force(false);
+        writing.channel.close();
+        writing.channel = null;
+        sealed.add(writing);
+        current = null;
+        openSegment();
+    }
+
+    /**
+     * 缓冲区已清空：删除所有封存分段，截断当前分段
+     */
+    private void discardDrainedJournal() throws IOException {
+        synchronized (journalLock) {
+            if (!pending.isEmpty()) {
+                return;
+            }
+            for (Segment segment : sealed) {
+                Files.deleteIfExists(segment.path);
+            }
+            sealed.clear();
+            if (current != null && current.channel.size() > 0) {
+                current.channel.truncate(0);
+            }
+        }
+    }
+
+    private void deleteSegments(List<Segment> segments) throws IOException {
+        if (segments.isEmpty()) {
+            return;
+        }
+        synchronized (journalLock) {
+            for (Segment segment : segments) {
+                Files.deleteIfExists(segment.path);
+            }
+            sealed.removeAll(segments);
+        }
+    }
+
+    /**
+     * 打开新的分段（持有 journalLock 时调用）
+     */
+    private void openSegment() throws IOException {
+        if (current != null) {
+            return;
+        }
+        Path path = Paths.get(journalPath + "." + nextSegmentNo);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        current = new Segment(nextSegmentNo++, path, channel, System.nanoTime());
+    }
+
+    /**
+     * 追加一行日志（持有 journalLock 时调用），未开启写缓冲时第一次降级写入才创建分段
+     */
+    private void appendToJournal(String line) {
+        try {
+            if (current == null) {
+                if (flusher == null) {
+                    return;
+                }
+                openSegment();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("写入答案日志失败", e);
+        }
+    }
+
+    private static String answerLine(BufferedAnswer answer) {
+        // 日志行格式：{examRecordId}\t{questionId}\t{version}\t{examToken}\t{base64(answer)}
+        String encodedAnswer = answer.getStudentAnswer() == null ? ""
+                : Base64.getEncoder().encodeToString(answer.getStudentAnswer().getBytes(StandardCharsets.UTF_8));
+        String version = answer.getVersion() == null ? "" : answer.getVersion().toString();
+        return answer.getExamRecordId() + "\t" + answer.getQuestionId() + "\t" + version + "\t"
+                + answer.getExamToken() + "\t" + encodedAnswer + "\n";
+    }
+
+    /**
+     * 按序号依次回放所有分段（兼容旧版本的单个日志文件），回放后的分段作为封存分段，刷新成功后删除
+     */
+    private void recoverFromJournal() throws IOException {
+        Path base = Paths.get(journalPath);
+        Path dir = base.toAbsolutePath().getParent();
+        String prefix = base.getFileName().toString() + ".";
+        List<Segment> segments = new ArrayList<>();
+        if (Files.exists(base)) {
+            segments.add(new Segment(0, base, null, 0));
+        }
+        if (dir != null && Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*")) {
+                for (Path path : stream) {
+                    String suffix = path.getFileName().toString().substring(prefix.length());
+                    if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                        segments.add(new Segment(Long.parseLong(suffix), path, null, 0));
+                    }
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.no));
+
+        int recovered = 0;
+        for (Segment segment : segments) {
+            recovered += replay(segment.path);
+            nextSegmentNo = Math.max(nextSegmentNo, segment.no + 1);
+        }
+        synchronized (journalLock) {
+            sealed.addAll(segments);
+        }
+        if (!pending.isEmpty()) {
+            System.err.println("从答案日志恢复 " + pending.size() + " 条未同步答案（回放 " + recovered + " 行）: " + journalPath);
+        }
+    }
+
+    private int replay(Path path) throws IOException {
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                try {
+                    if (parts.length == 2 && END_MARKER.equals(parts[0])) {
+                        // 考生已提交：丢弃此前缓冲的答案
+                        String recordPrefix = Long.parseLong(parts[1]) + ":";
+                        pending.keySet().removeIf(key -> key.startsWith(recordPrefix));
+                        continue;
+                    }
+                    if (parts.length != 5) {
+                        continue; // 崩溃时写了一半的行，跳过
+                    }
+                    Long examRecordId = Long.parseLong(parts[0]);
+                    Long questionId = Long.parseLong(parts[1]);
+                    Long version = parts[2].isEmpty() ? null : Long.parseLong(parts[2]);
+                    String studentAnswer = new String(Base64.getDecoder().decode(parts[4]), StandardCharsets.UTF_8);
+                    // 按日志顺序回放，后写入的覆盖先写入的
+                    pending.put(bufferKey(examRecordId, questionId),
+                            new BufferedAnswer(examRecordId, questionId, studentAnswer, version, parts[3]));
+                    replayed++;
+                } catch (IllegalArgumentException e) {
+                    // 格式不正确，跳过
+                }
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 停机前把缓冲区全部刷入 Redis
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+        synchronized (journalLock) {
+            if (current == null) {
+                return;
+            }
+            try {
+                current.channel.close();
+            } catch (IOException e) {
+                System.err.println("关闭答案日志失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String bufferKey(Long examRecordId, Long questionId) {
+        return examRecordId + ":" + questionId;
+    }
+
+    /**
+     * 日志分段
+     */
+    private static final class Segment {
+        private final long no;
+        private final Path path;
+        // 封存后关闭，置为 null
+        private FileChannel channel;
+        private final long openedAt;
+
+        private Segment(long no, Path path, FileChannel channel, long openedAt) {
+            this.no = no;
+            this.path = path;
+            this.channel = channel;
+            this.openedAt = openedAt;
+        }
+    }
+
+    /**
+     * 缓冲中的单条答案
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BufferedAnswer {
+        private Long examRecordId;
+        private Long questionId;
+        private String studentAnswer;
+        private Long version;
+        private String examToken;
+    }
+}
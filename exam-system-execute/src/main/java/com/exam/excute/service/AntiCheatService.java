@@ -1,14 +1,30 @@
 package com.exam.excute.service;
 
 import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.service.rule.AntiCheatRuleEngine;
+import com.exam.excute.service.rule.BehaviorEvent;
+import com.exam.excute.service.rule.BehaviorEventType;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 防作弊服务类
+ * 切屏累计次数以 Redis 为准（长时间失焦也计入）；滑动窗口类规则（频繁切屏、答题过快、长时间失焦等）由 AntiCheatRuleEngine 流式评估
+ * 心跳超时只在 Redis 中记录离线状态，不标记作弊：交卷时客户端断开、网络抖动都会造成心跳中断
  */
 @Service
 public class AntiCheatService {
@@ -17,96 +33,166 @@ public class AntiCheatService {
     private ExamRecordMapper examRecordMapper;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
 
-    // Redis key前缀
-    private static final String SWITCH_KEY_PREFIX = "exam:switch:";
-    private static final String HEARTBEAT_KEY_PREFIX = "exam:heartbeat:";
-    private static final String FOCUS_KEY_PREFIX = "exam:focus:";
+    @Autowired
+    private HeartbeatTracker heartbeatTracker;
+
+    @Autowired
+    private AntiCheatRuleEngine antiCheatRuleEngine;
+
+    @Autowired
+    private ExamMetrics examMetrics;
+
+    // 切屏累计次数阈值
+    @Value("${exam.anti-cheat.max-switch-count:5}")
+    private int maxSwitchCount;
+
+    // 每条批量 UPDATE 最多包含的考试记录数
+    private static final int SWITCH_FLUSH_BATCH_SIZE = 500;
 
-    // 切屏阈值
-    private static final int MAX_SWITCH_COUNT = 5;
-    // 心跳超时时间（秒）
-    private static final long HEARTBEAT_TIMEOUT = 30;
-    // 失焦超时时间（秒）
-    private static final long FOCUS_TIMEOUT = 10;
+    // 待刷入 MySQL 的切屏次数：examRecordId -> Redis 中的累计次数（同一考生多次切屏只保留最大值）
+    private final Map<Long, Long> pendingSwitchCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 注册回调：规则引擎检测到的长时间失焦按批计入累计切屏次数
+     */
+    @PostConstruct
+    public void registerListeners() {
+        antiCheatRuleEngine.setLongBlurListener(this::recordLongBlurs);
+    }
 
     /**
      * 记录切屏事件
+     * 切屏次数以 Redis INCR 的返回值为准（原子累加，不会丢失并发的切屏），
+     * MySQL 中的 switch_count 由定时任务批量刷新，提交时再刷新一次
      */
     public void recordSwitch(Long examRecordId, Long studentId) {
-        String key = SWITCH_KEY_PREFIX + examRecordId + ":" + studentId;
-        
-        // 增加切屏次数
-        examRecordMapper.incrementSwitchCount(examRecordId);
-        
-        // 记录到Redis（用于实时监控）
-        Integer count = (Integer) redisTemplate.opsForValue().get(key);
+        String key = ExamRedisKeys.switchCount(examRecordId, studentId);
+
+        Long count = stringRedisTemplate.opsForValue().increment(key);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            stringRedisTemplate.expire(key, 2, TimeUnit.HOURS);
+        }
+        pendingSwitchCounts.merge(examRecordId, count, Math::max);
+        antiCheatRuleEngine.publish(examRecordId, studentId, BehaviorEventType.SWITCH, null);
+
+        checkSwitchCount(examRecordId, count);
+    }
+
+    /**
+     * 长时间失焦按切屏计入累计次数（规则引擎每批调用一次）
+     * 本批的 INCR 在一次管道中执行，累计次数同样进入待刷新集合、同样检查阈值；
+     * 滑动窗口规则已在引擎内评估，不再发布切屏事件
+     */
+    public void recordLongBlurs(List<BehaviorEvent> events) {
+        List<Object> counts = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (BehaviorEvent event : events) {
+                String key = ExamRedisKeys.switchCount(event.getExamRecordId(), event.getStudentId());
+                connection.stringCommands().incr(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (int i = 0; i < events.size(); i++) {
+            if (!(counts.get(i) instanceof Long count)) {
+                continue;
+            }
+            Long examRecordId = events.get(i).getExamRecordId();
+            if (count == 1) {
+                stringRedisTemplate.expire(ExamRedisKeys.switchCount(examRecordId, events.get(i).getStudentId()),
+                        2, TimeUnit.HOURS);
+            }
+            pendingSwitchCounts.merge(examRecordId, count, Math::max);
+            checkSwitchCount(examRecordId, count);
+        }
+    }
+
+    /**
+     * 恰好达到阈值时标记作弊（之后的切屏不再重复写库）
+     */
+    private void checkSwitchCount(Long examRecordId, long count) {
+        if (count == maxSwitchCount) {
+            markCheating(examRecordId, "切屏次数超过限制（" + count + "次）");
+        }
+    }
+
+    /**
+     * 定时把累计的切屏次数批量刷入 MySQL
+     */
+    @Scheduled(fixedDelayString = "${exam.anti-cheat.switch-flush-interval-ms:5000}")
+    public void flushSwitchCounts() {
+        if (pendingSwitchCounts.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new HashMap<>();
+        Iterator<Map.Entry<Long, Long>> iterator = pendingSwitchCounts.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= SWITCH_FLUSH_BATCH_SIZE || !iterator.hasNext()) {
+                try {
+                    writeSwitchCounts(batch);
+                } catch (Exception e) {
+                    // 刷新失败的次数保留在内存中，下次重试
+                    System.err.println("批量刷新切屏次数失败: " + e.getMessage());
+                }
+                batch = new HashMap<>();
+            }
+        }
+    }
+
+    /**
+     * 立即把某个考生的切屏次数刷入 MySQL（提交考试前调用）
+     */
+    public void flushSwitchCount(Long examRecordId) {
+        Long count = pendingSwitchCounts.get(examRecordId);
         if (count == null) {
-            count = 0;
+            return;
         }
-        redisTemplate.opsForValue().set(key, count + 1, 2, TimeUnit.HOURS);
-        
-        // 如果超过阈值，标记为作弊
-        if (count + 1 >= MAX_SWITCH_COUNT) {
-            markCheating(examRecordId, "切屏次数超过限制（" + (count + 1) + "次）");
+        Map<Long, Long> batch = new HashMap<>();
+        batch.put(examRecordId, count);
+        writeSwitchCounts(batch);
+    }
+
+    private void writeSwitchCounts(Map<Long, Long> batch) {
+        examRecordMapper.batchUpdateSwitchCount(batch);
+        examMetrics.recordSwitchCountBatch(batch.size());
+        // 只移除已写入的那一次，刷新期间又有新切屏的留到下一轮
+        for (Map.Entry<Long, Long> entry : batch.entrySet()) {
+            pendingSwitchCounts.remove(entry.getKey(), entry.getValue());
         }
     }
 
     /**
-     * 记录心跳
+     * 记录心跳（只更新本地心跳表，上线/离线状态变化时才写 Redis）
      */
     public void recordHeartbeat(Long examRecordId, Long studentId) {
-        String key = HEARTBEAT_KEY_PREFIX + examRecordId + ":" + studentId;
-        redisTemplate.opsForValue().set(key, System.currentTimeMillis(), HEARTBEAT_TIMEOUT, TimeUnit.SECONDS);
+        heartbeatTracker.heartbeat(examRecordId);
+        antiCheatRuleEngine.publish(examRecordId, studentId, BehaviorEventType.HEARTBEAT, null);
     }
 
     /**
      * 检查心跳是否超时
      */
     public boolean isHeartbeatTimeout(Long examRecordId, Long studentId) {
-        String key = HEARTBEAT_KEY_PREFIX + examRecordId + ":" + studentId;
-        Object raw = redisTemplate.opsForValue().get(key);
-        Long lastHeartbeat = null;
-        if (raw instanceof Long) {
-            lastHeartbeat = (Long) raw;
-        } else if (raw instanceof Integer) {
-            lastHeartbeat = ((Integer) raw).longValue();
-        }
-        if (lastHeartbeat == null) {
-            return true;
-        }
-        return System.currentTimeMillis() - lastHeartbeat > HEARTBEAT_TIMEOUT * 1000;
+        return heartbeatTracker.isTimeout(examRecordId);
     }
 
     /**
-     * 记录窗口失焦
+     * 记录窗口失焦（失焦时长由规则引擎在聚焦时计算）
      */
     public void recordBlur(Long examRecordId, Long studentId) {
-        String key = FOCUS_KEY_PREFIX + examRecordId + ":" + studentId;
-        redisTemplate.opsForValue().set(key, System.currentTimeMillis(), FOCUS_TIMEOUT, TimeUnit.SECONDS);
+        antiCheatRuleEngine.publish(examRecordId, studentId, BehaviorEventType.BLUR, null);
     }
 
     /**
      * 记录窗口聚焦
      */
     public void recordFocus(Long examRecordId, Long studentId) {
-        String key = FOCUS_KEY_PREFIX + examRecordId + ":" + studentId;
-        Object raw = redisTemplate.opsForValue().get(key);
-        Long blurTime = null;
-        if (raw instanceof Long) {
-            blurTime = (Long) raw;
-        } else if (raw instanceof Integer) {
-            blurTime = ((Integer) raw).longValue();
-        }
-        if (blurTime != null) {
-            long blurDuration = System.currentTimeMillis() - blurTime;
-            // 如果失焦时间超过阈值，记录为切屏
-            if (blurDuration > FOCUS_TIMEOUT * 1000) {
-                recordSwitch(examRecordId, studentId);
-            }
-            redisTemplate.delete(key);
-        }
+        antiCheatRuleEngine.publish(examRecordId, studentId, BehaviorEventType.FOCUS, null);
     }
 
     /**
@@ -115,15 +201,5 @@ public class AntiCheatService {
     public void markCheating(Long examRecordId, String reason) {
         examRecordMapper.markCheating(examRecordId, reason);
     }
-
-    /**
-     * 检测异常行为
-     */
-    public void detectAbnormalBehavior(Long examRecordId, Long studentId) {
-        // 检查心跳超时
-        if (isHeartbeatTimeout(examRecordId, studentId)) {
-            markCheating(examRecordId, "心跳超时，可能离开考试页面");
-        }
-    }
 }
 
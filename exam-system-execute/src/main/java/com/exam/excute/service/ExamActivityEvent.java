@@ -0,0 +1,59 @@
+package com.exam.excute.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 考生考试过程中的活动事件（进入考试/WebSocket 心跳、保存答案）
+ * 在请求线程（写缓冲开启时为刷新线程）中同步发布，保存答案只在实际写入 Redis 后发布；统计分析模块（exam-system-analyse）只把事件放入本地队列，由后台线程批量写入 Redis 基数统计
+ */
+@Data
+@AllArgsConstructor
+public class ExamActivityEvent {
+
+    public enum Type {
+        /**
+         * 进入考试或在线（心跳）
+         */
+        CONNECT,
+        /**
+         * 保存答案
+         */
+        ANSWER
+    }
+
+    /**
+     * 事件类型
+     */
+    private Type type;
+
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 考试ID（只有进入考试时已知，其余事件为空，由统计模块按考试记录ID查询）
+     */
+    private Long examId;
+
+    /**
+     * 客户端IP（CONNECT 事件）
+     */
+    private String clientIp;
+
+    /**
+     * 作答的题目ID（ANSWER 事件）
+     */
+    private List<Long> questionIds;
+
+    public static ExamActivityEvent connect(Long examRecordId, Long examId, String clientIp) {
+        return new ExamActivityEvent(Type.CONNECT, examRecordId, examId, clientIp, null);
+    }
+
+    public static ExamActivityEvent answer(Long examRecordId, List<Long> questionIds) {
+        return new ExamActivityEvent(Type.ANSWER, examRecordId, null, null, questionIds);
+    }
+}
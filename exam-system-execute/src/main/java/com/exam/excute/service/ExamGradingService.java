@@ -0,0 +1,164 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.dataobject.AnswerRecordDO;
+import com.exam.manage.dal.dataobject.PaperQuestionDO;
+import com.exam.manage.dal.dataobject.QuestionDO;
+import com.exam.manage.dal.mysqlmapper.PaperQuestionMapper;
+import com.exam.manage.dal.mysqlmapper.QuestionMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 交卷批改服务
+ * 试卷的标准答案按试卷缓存：时间耗尽批量交卷时同一场考试的考生共用一份，每份试卷只查询两次数据库
+ */
+@Service
+public class ExamGradingService {
+
+    @Autowired
+    private PaperQuestionMapper paperQuestionMapper;
+
+    @Autowired
+    private QuestionMapper questionMapper;
+
+    // 标准答案缓存有效期（毫秒），考试进行中一般不会修改试卷，过期后重新加载
+    private static final long PAPER_KEY_TTL_MS = 10 * 60 * 1000;
+
+    private final Map<Long, PaperKey> paperKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 一份试卷的标准答案
+     */
+    public static class PaperKey {
+        private final Map<Long, AnswerGrader.Key> questions;
+        // 题目ID -> 题目分类（知识点），没有分类的题目不在其中
+        private final Map<Long, String> categories;
+        private final int totalScore;
+        private final long loadedAt;
+
+        PaperKey(Map<Long, AnswerGrader.Key> questions, Map<Long, String> categories, int totalScore, long loadedAt) {
+            this.questions = questions;
+            this.categories = categories;
+            this.totalScore = totalScore;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * 题目的标准答案，不属于该试卷时返回 null
+         */
+        public AnswerGrader.Key get(Long questionId) {
+            return questions.get(questionId);
+        }
+
+        /**
+         * 试卷总分（各题在试卷中的分值之和）
+         */
+        public int getTotalScore() {
+            return totalScore;
+        }
+
+        /**
+         * 试卷中所有题目的标准答案
+         */
+        public Collection<AnswerGrader.Key> getKeys() {
+            return questions.values();
+        }
+
+        /**
+         * 题目的分类（知识点），没有分类时返回 null
+         */
+        public String getCategory(Long questionId) {
+            return categories.get(questionId);
+        }
+
+        /**
+         * 试卷涉及的所有分类（按名称排序）
+         */
+        public Set<String> getCategories() {
+            return new TreeSet<>(categories.values());
+        }
+    }
+
+    /**
+     * 获取试卷的标准答案（带缓存）
+     * @param paperId 试卷ID
+     */
+    public PaperKey getPaperKey(Long paperId) {
+        long now = System.currentTimeMillis();
+        PaperKey cached = paperKeys.get(paperId);
+        if (cached != null && now - cached.loadedAt < PAPER_KEY_TTL_MS) {
+            return cached;
+        }
+        PaperKey loaded = loadPaperKey(paperId, now);
+        paperKeys.put(paperId, loaded);
+        return loaded;
+    }
+
+    private PaperKey loadPaperKey(Long paperId, long now) {
+        List<PaperQuestionDO> paperQuestions = paperQuestionMapper.selectByPaperId(paperId);
+        if (paperQuestions == null || paperQuestions.isEmpty()) {
+            return new PaperKey(Collections.emptyMap(), Collections.emptyMap(), 0, now);
+        }
+        List<Long> questionIds = new ArrayList<>(paperQuestions.size());
+        for (PaperQuestionDO paperQuestion : paperQuestions) {
+            questionIds.add(paperQuestion.getQuestionId());
+        }
+        Map<Long, QuestionDO> questionById = new HashMap<>();
+        for (QuestionDO question : questionMapper.selectByIds(questionIds)) {
+            questionById.put(question.getId(), question);
+        }
+
+        Map<Long, AnswerGrader.Key> keys = new HashMap<>();
+        Map<Long, String> categories = new HashMap<>();
+        int totalScore = 0;
+        for (PaperQuestionDO paperQuestion : paperQuestions) {
+            QuestionDO question = questionById.get(paperQuestion.getQuestionId());
+            if (question == null) {
+                continue;
+            }
+            // 试卷中的分值可以覆盖题目的默认分值
+            int score = paperQuestion.getScore() != null ? paperQuestion.getScore()
+                    : question.getScore() != null ? question.getScore() : 0;
+            keys.put(question.getId(), AnswerGrader.key(question.getId(), question.getType(), question.getAnswer(), score));
+            if (question.getCategory() != null && !question.getCategory().isEmpty()) {
+                categories.put(question.getId(), question.getCategory());
+            }
+            totalScore += score;
+        }
+        return new PaperKey(keys, categories, totalScore, now);
+    }
+
+    /**
+     * 批改一名考生的答案，结果直接写入答题记录
+     * @param paperKey 试卷标准答案
+     * @param answers 答题记录
+     * @return 自动批改的得分合计（需要人工批改的题目不计入）
+     */
+    public int grade(PaperKey paperKey, List<AnswerRecordDO> answers) {
+        int score = 0;
+        for (AnswerRecordDO answer : answers) {
+            AnswerGrader.Key key = paperKey.get(answer.getQuestionId());
+            if (key == null) {
+                // 不属于该试卷的题目不计分
+                answer.setIsCorrect(AnswerGrader.WRONG);
+                answer.setScore(0);
+                continue;
+            }
+            AnswerGrader.grade(key, answer);
+            if (answer.getScore() != null) {
+                score += answer.getScore();
+            }
+        }
+        return score;
+    }
+}
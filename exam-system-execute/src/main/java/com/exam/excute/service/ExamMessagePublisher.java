@@ -0,0 +1,59 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dto.BroadcastMessageDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 推送出口
+ * 服务端主动推送统一经过这里：
+ * - simple/relay 模式直接交给消息代理（relay 模式由外部代理负责跨节点分发）
+ * - redis 模式先发布到 Redis 频道，所有节点收到后再投递给各自连接的客户端，负载均衡无需会话粘滞
+ */
+@Component
+public class ExamMessagePublisher implements MessageListener {
+
+    public static final String BROADCAST_CHANNEL = "exam:ws:broadcast";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${exam.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    /**
+     * 推送消息
+     * @param destination 推送目的地
+     * @param payload 推送内容
+     */
+    public void send(String destination, Object payload) {
+        if ("redis".equals(brokerMode)) {
+            redisTemplate.convertAndSend(BROADCAST_CHANNEL, new BroadcastMessageDTO(destination, payload));
+        } else {
+            messagingTemplate.convertAndSend(destination, payload);
+        }
+    }
+
+    /**
+     * 收到 Redis 广播（包括本节点自己发布的），投递给本节点的客户端
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body instanceof BroadcastMessageDTO broadcast) {
+                messagingTemplate.convertAndSend(broadcast.getDestination(), broadcast.getPayload());
+            }
+        } catch (Exception e) {
+            System.err.println("投递广播消息失败: " + e.getMessage());
+        }
+    }
+}
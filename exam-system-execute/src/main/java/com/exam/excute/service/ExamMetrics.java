@@ -0,0 +1,294 @@
+package com.exam.excute.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 考试执行热点路径的 Micrometer 指标，由 server 模块的 Actuator 通过 /actuator/prometheus 暴露
+ * 1. 计时器和分布统计只发布固定边界的直方图桶（SLO 桶），不在服务端计算百分位：
+ *    每次记录只是几次原子累加，考试高峰期可以一直开启，百分位由 Prometheus 的 histogram_quantile 按桶计算
+ * 2. 带考试ID标签的指标只有提交队列深度（MultiGauge，考试结束后对应的行自动移除），其余指标标签取值固定，避免标签基数膨胀
+ * 3. 答案同步的待同步登记按考试记录分片，成员中不含考试ID，按考试区分需要每条登记额外查询一次，
+ *    因此同步积压和同步延迟是全局指标
+ */
+@Component
+public class ExamMetrics {
+
+    // 保存答案耗时的桶边界（毫秒）
+    private static final Duration[] SAVE_LATENCY_SLO = {
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1)
+    };
+
+    // 一轮定时同步耗时的桶边界
+    private static final Duration[] SYNC_PASS_SLO = {
+            Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5),
+            Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(60)
+    };
+
+    // 数据库批量写入条数的桶边界
+    private static final double[] DB_BATCH_SLO = {1, 10, 50, 100, 200, 500, 1000};
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProgressPushDispatcher progressPushDispatcher;
+
+    // WebSocket 出站通道线程池（没有启用 WebSocket 的上下文中不存在）
+    @Autowired(required = false)
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor clientOutboundChannelExecutor;
+
+    private MeterRegistry registry;
+
+    private Timer answerSaveSingle;
+    private Timer answerSaveBatch;
+    private Counter redisCommandsDirect;
+    private Counter redisCommandsWriteBehind;
+    private Counter answersDegraded;
+
+    private Timer syncPass;
+    private Counter syncedRecords;
+    private final AtomicLong syncBacklog = new AtomicLong();
+    // 最近一轮完成的定时同步的开始时间，在此之前登记的答案都已同步
+    private final AtomicLong lastSyncPassStartedAt = new AtomicLong();
+
+    private MultiGauge submitQueueDepth;
+    private Counter submitSucceeded;
+    private Counter submitFailed;
+
+    private DistributionSummary answerInsertBatch;
+    private DistributionSummary answerUpdateBatch;
+    private DistributionSummary switchCountBatch;
+    private DistributionSummary cheatingMarkBatch;
+
+    // 已完成 STOMP 握手的会话（断开事件可能对同一会话触发多次，用集合去重）
+    private final Set<String> stompSessions = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        // 没有注册表时（如不带 Actuator 的测试上下文）记录到全局注册表，未添加具体实现时为空操作
+        registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+
+        answerSaveSingle = saveTimer("single");
+        answerSaveBatch = saveTimer("batch");
+        redisCommandsDirect = redisCommandCounter("direct");
+        redisCommandsWriteBehind = redisCommandCounter("write-behind");
+        answersDegraded = Counter.builder("exam.answer.degraded")
+                .description("Redis 不可用时转入本地缓冲、等待恢复后补写的答案数")
+                .register(registry);
+
+        syncPass = Timer.builder("exam.answer.sync.pass")
+                .description("一轮定时同步（取出所有待同步登记并写库）的耗时")
+                .serviceLevelObjectives(SYNC_PASS_SLO)
+                .register(registry);
+        syncedRecords = Counter.builder("exam.answer.sync.records")
+                .description("定时同步处理的考试记录数")
+                .register(registry);
+        Gauge.builder("exam.answer.sync.backlog", syncBacklog, AtomicLong::get)
+                .description("最近一轮定时同步开始时待同步登记的考试记录数")
+                .register(registry);
+        Gauge.builder("exam.answer.sync.lag", lastSyncPassStartedAt, ExamMetrics::secondsSince)
+                .description("距最近一轮完成的定时同步开始的时间，即未同步答案可能的最长等待时间")
+                .baseUnit("seconds")
+                .register(registry);
+
+        submitQueueDepth = MultiGauge.builder("exam.submit.queue.depth")
+                .description("时间耗尽后各考试提交队列中等待提交的考生数")
+                .register(registry);
+        submitSucceeded = submitCounter("success");
+        submitFailed = submitCounter("failure");
+
+        answerInsertBatch = dbBatchSummary("answer_insert");
+        answerUpdateBatch = dbBatchSummary("answer_update");
+        switchCountBatch = dbBatchSummary("switch_count");
+        cheatingMarkBatch = dbBatchSummary("cheating_mark");
+
+        Gauge.builder("exam.websocket.sessions", stompSessions, Set::size)
+                .description("本节点已连接的 STOMP 会话数")
+                .register(registry);
+        Gauge.builder("exam.progress.push.pending", progressPushDispatcher, ProgressPushDispatcher::pendingCount)
+                .description("等待合并推送的答题进度数")
+                .register(registry);
+        if (clientOutboundChannelExecutor != null) {
+            Gauge.builder("exam.websocket.outbound.queue", clientOutboundChannelExecutor,
+                            executor -> executor.getThreadPoolExecutor().getQueue().size())
+                    .description("WebSocket 出站通道线程池中排队等待发送的消息数")
+                    .register(registry);
+        }
+    }
+
+    private Timer saveTimer(String type) {
+        return Timer.builder("exam.answer.save")
+                .description("保存答案耗时（单题或批量，写缓冲开启时只包含写入本地缓冲）")
+                .tag("type", type)
+                .serviceLevelObjectives(SAVE_LATENCY_SLO)
+                .register(registry);
+    }
+
+    private Counter redisCommandCounter(String path) {
+        return Counter.builder("exam.answer.redis.commands")
+                .description("保存答案产生的 Redis 命令数，除以 exam.answer.save 的次数即为每次保存的 Redis 命令数")
+                .tag("path", path)
+                .register(registry);
+    }
+
+    private Counter submitCounter(String result) {
+        return Counter.builder("exam.submit.processed")
+                .description("从提交队列取出并处理的考生数")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private DistributionSummary dbBatchSummary(String operation) {
+        return DistributionSummary.builder("exam.db.batch.size")
+                .description("批量写库每批的记录数")
+                .tag("operation", operation)
+                .serviceLevelObjectives(DB_BATCH_SLO)
+                .register(registry);
+    }
+
+    private static double secondsSince(AtomicLong startedAt) {
+        long value = startedAt.get();
+        return value == 0 ? 0 : (System.currentTimeMillis() - value) / 1000.0;
+    }
+
+    /**
+     * 记录一次保存答案
+     * @param beginNanos 开始时的 System.nanoTime()
+     * @param batch 是否批量保存
+     */
+    public void recordAnswerSave(long beginNanos, boolean batch) {
+        (batch ? answerSaveBatch : answerSaveSingle).record(System.nanoTime() - beginNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录保存答案在请求线程中直接执行的 Redis 命令数
+     */
+    public void recordDirectRedisCommands(int commands) {
+        redisCommandsDirect.increment(commands);
+    }
+
+    /**
+     * 记录写缓冲批量刷入 Redis 时执行的命令数
+     */
+    public void recordWriteBehindRedisCommands(int commands) {
+        redisCommandsWriteBehind.increment(commands);
+    }
+
+    /**
+     * 记录 Redis 不可用时转入本地缓冲的答案数
+     */
+    public void recordDegradedAnswers(int answers) {
+        answersDegraded.increment(answers);
+    }
+
+    /**
+     * 记录一轮定时同步
+     * @param startedAt 开始时间（毫秒）
+     * @param backlog 开始时待同步登记的考试记录数
+     * @param records 本轮处理的考试记录数
+     */
+    public void recordSyncPass(long startedAt, long backlog, int records) {
+        syncPass.record(System.currentTimeMillis() - startedAt, TimeUnit.MILLISECONDS);
+        syncBacklog.set(backlog);
+        syncedRecords.increment(records);
+        lastSyncPassStartedAt.set(startedAt);
+    }
+
+    /**
+     * 更新各考试提交队列深度（不在本次结果中的考试对应的行会被移除）
+     * @param depths 考试ID -> 队列长度
+     */
+    public void updateSubmitQueueDepths(Map<Long, Long> depths) {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(depths.size());
+        for (Map.Entry<Long, Long> entry : depths.entrySet()) {
+            rows.add(MultiGauge.Row.of(Tags.of("examId", entry.getKey().toString()), entry.getValue()));
+        }
+        submitQueueDepth.register(rows, true);
+    }
+
+    /**
+     * 记录提交队列中一名考生的处理结果
+     */
+    public void recordSubmit(boolean success) {
+        (success ? submitSucceeded : submitFailed).increment();
+    }
+
+    public void recordAnswerInsertBatch(int size) {
+        answerInsertBatch.record(size);
+    }
+
+    public void recordAnswerUpdateBatch(int size) {
+        answerUpdateBatch.record(size);
+    }
+
+    public void recordSwitchCountBatch(int size) {
+        switchCountBatch.record(size);
+    }
+
+    public void recordCheatingMarkBatch(int size) {
+        cheatingMarkBatch.record(size);
+    }
+
+    /**
+     * 记录一次获取分布式锁失败
+     * @param lockKey 锁的key，按去掉ID后的前缀打标签（如 lock:exam:token）
+     */
+    public void recordLockFailure(String lockKey) {
+        registry.counter("exam.lock.failures", "lock", lockName(lockKey)).increment();
+    }
+
+    /**
+     * 锁的名称：截取到第一个以数字开头的段之前，例如 lock:exam:token:1:2 -> lock:exam:token
+     */
+    static String lockName(String lockKey) {
+        int end = lockKey.length();
+        for (int i = 0; i < lockKey.length() - 1; i++) {
+            if (lockKey.charAt(i) == ':' && Character.isDigit(lockKey.charAt(i + 1))) {
+                end = i;
+                break;
+            }
+        }
+        return lockKey.substring(0, end);
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            stompSessions.add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        stompSessions.remove(event.getSessionId());
+    }
+}
@@ -0,0 +1,97 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试记录归属校验：考试记录ID → 学生ID
+ * 开始考试时写入本机缓存和 Redis（key 带 {examRecordId} hash tag，与答案数据同一槽位），
+ * 保存答案时依次查本机缓存、Redis，都未命中才查数据库并回填，保存答案的路径上不再每次访问 MySQL
+ * 考试记录的归属创建后不会改变，缓存不需要失效，只按条数和过期时间限制大小
+ */
+@Component
+public class ExamRecordOwnerCache {
+
+    // 本机缓存的考试记录数上限，超过后整体清空重新加载（单节点同时在考的记录远少于这个数）
+    private static final int MAX_CACHED_RECORDS = 100_000;
+
+    // Redis 中归属的过期时间，与答案数据一致
+    private static final long OWNER_TTL_SECONDS = 2 * 60 * 60;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+
+    private final Map<Long, Long> owners = new ConcurrentHashMap<>();
+
+    /**
+     * 开始考试时记录归属
+     */
+    public void remember(Long examRecordId, Long studentId) {
+        cacheLocally(examRecordId, studentId);
+        try {
+            stringRedisTemplate.opsForValue().set(ExamRedisKeys.recordOwner(examRecordId), studentId.toString(),
+                    OWNER_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 写入失败时之后的校验回退到数据库
+            System.err.println("写入考试记录归属失败: examRecordId=" + examRecordId + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * 校验考试记录属于该学生，不属于或记录不存在时抛出异常
+     */
+    public void checkOwner(Long examRecordId, Long studentId) {
+        Long owner = examRecordId != null ? getOwner(examRecordId) : null;
+        if (owner == null || !owner.equals(studentId)) {
+            throw new RuntimeException("考试记录不存在或无权访问");
+        }
+    }
+
+    /**
+     * 查询考试记录所属学生，记录不存在时返回null
+     */
+    public Long getOwner(Long examRecordId) {
+        Long owner = owners.get(examRecordId);
+        if (owner != null) {
+            return owner;
+        }
+
+        String key = ExamRedisKeys.recordOwner(examRecordId);
+        try {
+            String value = stringRedisTemplate.opsForValue().get(key);
+            if (value != null) {
+                owner = Long.parseLong(value);
+                cacheLocally(examRecordId, owner);
+                return owner;
+            }
+        } catch (Exception e) {
+            // Redis 不可用时直接查数据库
+            System.err.println("读取考试记录归属失败: examRecordId=" + examRecordId + ", " + e.getMessage());
+        }
+
+        ExamRecordDO record = examRecordMapper.selectById(examRecordId);
+        if (record == null || record.getStudentId() == null) {
+            return null;
+        }
+        remember(examRecordId, record.getStudentId());
+        return record.getStudentId();
+    }
+
+    private void cacheLocally(Long examRecordId, Long studentId) {
+        if (owners.size() >= MAX_CACHED_RECORDS) {
+            owners.clear();
+        }
+        owners.put(examRecordId, studentId);
+    }
+}
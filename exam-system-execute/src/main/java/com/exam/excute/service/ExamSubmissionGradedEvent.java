@@ -0,0 +1,78 @@
+package com.exam.excute.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 考生交卷并批改完成的事件
+ * 考试记录状态由 in_progress 变为 submitted 的那一次才发布，同一考生只会发布一次，
+ * 统计分析模块（exam-system-analyse）据此增量更新考试成绩统计
+ */
+@Data
+@AllArgsConstructor
+public class ExamSubmissionGradedEvent {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 学生ID
+     */
+    private Long studentId;
+
+    /**
+     * 试卷ID
+     */
+    private Long paperId;
+
+    /**
+     * 得分（自动批改部分）
+     */
+    private int score;
+
+    /**
+     * 试卷总分
+     */
+    private int totalScore;
+
+    /**
+     * 提交时间（与 exam_record.submit_time 一致）
+     */
+    private LocalDateTime submitTime;
+
+    /**
+     * 已作答题目的批改结果（未作答的题目不在其中）
+     */
+    private List<QuestionResult> questions;
+
+    /**
+     * 单题批改结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class QuestionResult {
+        /**
+         * 题目ID
+         */
+        private Long questionId;
+
+        /**
+         * 是否正确：0-错误, 1-正确, 2-部分正确，null-待人工批改
+         */
+        private Integer isCorrect;
+
+        /**
+         * 得分，null-待人工批改
+         */
+        private Integer score;
+    }
+}
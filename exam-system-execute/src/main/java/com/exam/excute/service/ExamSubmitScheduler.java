@@ -1,10 +1,14 @@
 package com.exam.excute.service;
 
+import com.exam.manage.util.ExamRedisKeys;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -19,10 +23,12 @@ public class ExamSubmitScheduler {
     private ExamSyncService examSyncService;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
 
-    private static final String SUBMIT_QUEUE_PREFIX = "exam:submit:queue:";
-    private static final String TIMEOUT_EXAMS_KEY = "exam:timeout:exams";
+    @Autowired
+    private ExamMetrics examMetrics;
+
+    private static final String TIMEOUT_EXAMS_KEY = ExamRedisKeys.TIMEOUT_EXAMS;
     
     // 每次处理的批次大小（限流：每次最多处理10个考生）
     private static final int BATCH_SIZE = 10;
@@ -34,24 +40,28 @@ public class ExamSubmitScheduler {
     @Scheduled(fixedDelay = 10000) // 10秒
     public void processSubmitQueues() {
         // 获取所有待处理的考试ID
-        Set<Object> examIds = redisTemplate.opsForSet().members(TIMEOUT_EXAMS_KEY);
+        Set<String> examIds = stringRedisTemplate.opsForSet().members(TIMEOUT_EXAMS_KEY);
         if (examIds == null || examIds.isEmpty()) {
+            examMetrics.updateSubmitQueueDepths(Collections.emptyMap());
             return;
         }
 
-        for (Object examIdObj : examIds) {
+        // 各考试本轮处理前的队列深度（监控用）
+        Map<Long, Long> queueDepths = new HashMap<>();
+        for (String examIdObj : examIds) {
             try {
-                Long examId = Long.parseLong(examIdObj.toString());
-                String submitQueueKey = SUBMIT_QUEUE_PREFIX + examId;
+                Long examId = Long.parseLong(examIdObj);
+                String submitQueueKey = ExamRedisKeys.submitQueue(examId);
                 
                 // 检查队列是否还有待处理的考生
-                Long queueSize = redisTemplate.opsForList().size(submitQueueKey);
+                Long queueSize = stringRedisTemplate.opsForList().size(submitQueueKey);
+                queueDepths.put(examId, queueSize != null ? queueSize : 0L);
                 if (queueSize == null || queueSize == 0) {
                     // 队列为空，检查是否所有考生都已处理完成，清除考试令牌
                     examSyncService.revokeExamTokenIfQueueEmpty(examId);
                     
                     // 从待处理列表中移除
-                    redisTemplate.opsForSet().remove(TIMEOUT_EXAMS_KEY, examIdObj);
+                    stringRedisTemplate.opsForSet().remove(TIMEOUT_EXAMS_KEY, examIdObj);
                     continue;
                 }
                 
@@ -62,6 +72,7 @@ public class ExamSubmitScheduler {
                 System.err.println("处理提交队列失败: " + examIdObj + ", 错误: " + e.getMessage());
             }
         }
+        examMetrics.updateSubmitQueueDepths(queueDepths);
     }
 
     /**
@@ -70,18 +81,18 @@ public class ExamSubmitScheduler {
     @Scheduled(fixedDelay = 30000) // 30秒
     public void initSubmitQueues() {
         // 获取所有待处理的考试ID
-        Set<Object> examIds = redisTemplate.opsForSet().members(TIMEOUT_EXAMS_KEY);
+        Set<String> examIds = stringRedisTemplate.opsForSet().members(TIMEOUT_EXAMS_KEY);
         if (examIds == null || examIds.isEmpty()) {
             return;
         }
 
-        for (Object examIdObj : examIds) {
+        for (String examIdObj : examIds) {
             try {
-                Long examId = Long.parseLong(examIdObj.toString());
-                String submitQueueKey = SUBMIT_QUEUE_PREFIX + examId;
+                Long examId = Long.parseLong(examIdObj);
+                String submitQueueKey = ExamRedisKeys.submitQueue(examId);
                 
                 // 检查队列是否已初始化
-                Long queueSize = redisTemplate.opsForList().size(submitQueueKey);
+                Long queueSize = stringRedisTemplate.opsForList().size(submitQueueKey);
                 if (queueSize == null || queueSize == 0) {
                     // 队列为空，可能是新加入的考试，初始化提交队列
                     examSyncService.processTimeoutExamSubmission(examId);
@@ -95,21 +106,26 @@ public class ExamSubmitScheduler {
 
     /**
      * 每小时清理过期的提交队列（防止内存泄漏）
+     * 提交队列都登记在 exam:timeout:exams 中，按登记集合检查，不使用 KEYS 扫描（兼容 Redis Cluster）
      */
     @Scheduled(fixedDelay = 3600000) // 1小时
     public void cleanupExpiredSubmitQueues() {
-        Set<String> keys = redisTemplate.keys(SUBMIT_QUEUE_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) {
+        Set<String> examIds = stringRedisTemplate.opsForSet().members(TIMEOUT_EXAMS_KEY);
+        if (examIds == null || examIds.isEmpty()) {
             return;
         }
 
-        for (String key : keys) {
-            // 检查 key 是否还有 TTL，如果没有 TTL 或已过期，删除
-            Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
-            if (ttl == null || ttl <= 0) {
-                redisTemplate.delete(key);
+        for (String examIdObj : examIds) {
+            try {
+                String key = ExamRedisKeys.submitQueue(Long.parseLong(examIdObj));
+                // 检查 key 是否还有 TTL，如果没有 TTL，补上过期时间
+                Long ttl = stringRedisTemplate.getExpire(key, TimeUnit.SECONDS);
+                if (ttl != null && ttl == -1) {
+                    stringRedisTemplate.expire(key, 24, TimeUnit.HOURS);
+                }
+            } catch (Exception e) {
+                System.err.println("清理提交队列失败: " + examIdObj + ", 错误: " + e.getMessage());
             }
         }
     }
 }
-
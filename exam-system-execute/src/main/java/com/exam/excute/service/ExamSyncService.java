@@ -4,11 +4,28 @@ import com.exam.excute.dal.dataobject.AnswerRecordDO;
 import com.exam.excute.dal.dataobject.ExamRecordDO;
 import com.exam.excute.dal.mysqlmapper.AnswerRecordMapper;
 import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.dto.AnswerItemDTO;
+import com.exam.excute.service.rule.AntiCheatRuleEngine;
+import com.exam.excute.service.rule.BehaviorEventType;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -27,17 +44,93 @@ public class ExamSyncService {
     private ExamTokenService examTokenService;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private ExamMessagePublisher examMessagePublisher;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
 
-    // Redis key前缀（加入令牌确保唯一性）
-    private static final String ANSWER_KEY_PREFIX = "exam:answer:";  // 单个答案：exam:answer:{token}:{examRecordId}:{questionId}
-    private static final String ANSWERED_QUESTIONS_PREFIX = "exam:answered:";  // 已答题题目Set：exam:answered:{token}:{examRecordId}（自动去重）
-    private static final String PROGRESS_KEY_PREFIX = "exam:progress:";
-    private static final String SYNC_QUEUE_PREFIX = "exam:sync:queue:";  // 待同步队列Set：exam:sync:queue:{token}:{examRecordId}（自动去重）
-    private static final String SUBMIT_QUEUE_PREFIX = "exam:submit:queue:";  // 提交队列List：exam:submit:queue:{examId}（限流队列）
+    @Autowired
+    private AnswerWriteBehindBuffer answerWriteBehindBuffer;
+
+    @Autowired
+    private ProgressPushDispatcher progressPushDispatcher;
+
+    @Autowired
+    private HeartbeatTracker heartbeatTracker;
+
+    @Autowired
+    private AntiCheatService antiCheatService;
+
+    @Autowired
+    private AntiCheatRuleEngine antiCheatRuleEngine;
+
+    @Autowired
+    private ExamMetrics examMetrics;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    // Redis key 统一由 ExamRedisKeys 构造（带 hash tag，兼容 Redis Cluster）
+
+    private static final long ANSWER_TTL_SECONDS = 2 * 60 * 60;
+
+    // 批量保存单次最多题目数（限制单个脚本的执行时间）
+    private static final int MAX_BATCH_SIZE = 200;
+
+    // Lua脚本：按版本号比较并保存一批答案（旧版本丢弃），返回 {本次生效题数, 已答题总数, 是否需要登记待同步}
+    // 所有 KEYS 都带同一个 {examRecordId} hash tag，在 Redis Cluster 中位于同一槽位
+    private static final String SAVE_ANSWERS_LUA =
+        "local ttl = tonumber(ARGV[1]) " +
+        "local applied = 0 " +
+        "local pendingBefore = redis.call('scard', KEYS[2]) " +
+        "for i = 5, #KEYS do " +
+        "    local base = (i - 5) * 3 + 2 " +
+        "    local field = ARGV[base] " +
+        "    local version = tonumber(ARGV[base + 2]) " +
+        "    local accept = true " +
+        "    if version >= 0 then " +
+        "        local current = tonumber(redis.call('hget', KEYS[3], field)) " +
+        "        if current and current >= version then " +
+        "            accept = false " +
+        "        else " +
+        "            redis.call('hset', KEYS[3], field, version) " +
+        "        end " +
+        "    end " +
+        "    if accept then " +
+        "        redis.call('set', KEYS[i], ARGV[base + 1], 'EX', ttl) " +
+        "        redis.call('sadd', KEYS[1], field) " +
+        "        redis.call('sadd', KEYS[2], field) " +
+        "        applied = applied + 1 " +
+        "    end " +
+        "end " +
+        "local answered = redis.call('scard', KEYS[1]) " +
+        "if applied > 0 then " +
+        "    redis.call('expire', KEYS[1], ttl) " +
+        "    redis.call('expire', KEYS[2], ttl) " +
+        "    if redis.call('exists', KEYS[3]) == 1 then " +
+        "        redis.call('expire', KEYS[3], ttl) " +
+        "    end " +
+        "    redis.call('set', KEYS[4], answered, 'EX', ttl) " +
+        "end " +
+        "local register = 0 " +
+        "if applied > 0 and pendingBefore == 0 then " +
+        "    register = 1 " +
+        "end " +
+        "return {applied, answered, register}";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SAVE_ANSWERS_SCRIPT = new DefaultRedisScript<>(SAVE_ANSWERS_LUA, List.class);
+
+    /**
+     * 注册写缓冲的批量刷新逻辑（未开启写缓冲时作为 Redis 不可用时的降级缓冲）
+     */
+    @PostConstruct
+    public void initWriteBehindBuffer() {
+        answerWriteBehindBuffer.start(this::flushBufferedAnswers);
+    }
 
     /**
      * 学生开始一场考试：如果已有记录则直接返回，否则创建新的考试记录
@@ -66,69 +159,256 @@ public class ExamSyncService {
      * 3. 使用 Set 维护待同步队列（自动去重，避免重复同步）
      * 4. 在key中加入考试令牌，确保每个考生的答案key唯一性
      * 5. 避免每次修改都触发数据库操作，大幅降低数据库压力
+     * 6. 可选开启本地写缓冲（AnswerWriteBehindBuffer），合并同一题目的频繁保存后批量写入 Redis
+     * 7. 答案携带客户端版本号时，通过 Lua 脚本原子比较版本，旧版本（重试、乱序到达）直接丢弃，不进入同步队列
+     * 8. Redis 不可用（超时、连接失败、熔断）时答案转入本地缓冲和日志，恢复后补写；
+     *    缓冲中还有未补写的答案时，新的保存也先进缓冲，避免之后补写的旧答案覆盖新答案
      * 
      * @param examRecordId 考试记录ID
      * @param questionId 题目ID
      * @param studentAnswer 学生答案
+     * @param version 答案版本号（为空表示不做版本校验，直接覆盖）
      * @param examToken 考试令牌（用于确保key唯一性）
+     * @return 是否被接受（版本过期时返回 false）
      */
-    public void saveAnswerRealtime(Long examRecordId, Long questionId, String studentAnswer, String examToken) {
-        // 1. 保存答案（String 结构，key中包含令牌确保唯一性）
-        // Key格式：exam:answer:{token}:{examRecordId}:{questionId}
-        String answerKey = ANSWER_KEY_PREFIX + examToken + ":" + examRecordId + ":" + questionId;
-        redisTemplate.opsForValue().set(answerKey, studentAnswer, 2, TimeUnit.HOURS);
-        
-        // 2. 将题目ID加入已答题Set（自动去重，多次保存同一题目不会重复）
-        // Key格式：exam:answered:{token}:{examRecordId}
-        String answeredQuestionsKey = ANSWERED_QUESTIONS_PREFIX + examToken + ":" + examRecordId;
-        redisTemplate.opsForSet().add(answeredQuestionsKey, questionId.toString());
-        redisTemplate.expire(answeredQuestionsKey, 2, TimeUnit.HOURS);
-        
-        // 3. 将题目ID加入待同步队列Set（自动去重，避免重复同步）
-        // Key格式：exam:sync:queue:{token}:{examRecordId}
-        String syncQueueKey = SYNC_QUEUE_PREFIX + examToken + ":" + examRecordId;
-        redisTemplate.opsForSet().add(syncQueueKey, questionId.toString());
-        redisTemplate.expire(syncQueueKey, 2, TimeUnit.HOURS);
-        
-        // 4. 更新进度（使用Set大小，自动去重统计）
-        updateProgress(examRecordId, examToken);
+    public boolean saveAnswerRealtime(Long examRecordId, Long questionId, String studentAnswer, Long version, String examToken) {
+        long begin = System.nanoTime();
+        try {
+            antiCheatRuleEngine.publish(examRecordId, null, BehaviorEventType.ANSWER, questionId);
+
+            // 开启写缓冲时只写本地缓冲，由后台线程批量刷入 Redis（作答事件在刷入成功后发布）
+            if (answerWriteBehindBuffer.isEnabled() || answerWriteBehindBuffer.hasPending()) {
+                return answerWriteBehindBuffer.put(examRecordId, questionId, studentAnswer, version, examToken);
+            }
+
+            List<AnswerItemDTO> items = Collections.singletonList(new AnswerItemDTO(questionId, studentAnswer, version));
+            List<String> keys = saveAnswersScriptKeys(examRecordId, examToken, items);
+            List<?> result;
+            try {
+                result = stringRedisTemplate.execute(SAVE_ANSWERS_SCRIPT, keys, saveAnswersScriptArgs(items));
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                examMetrics.recordDegradedAnswers(1);
+                return answerWriteBehindBuffer.put(examRecordId, questionId, studentAnswer, version, examToken);
+            }
+            long applied = toLong(result.get(0));
+            if (applied == 0) {
+                examMetrics.recordDirectRedisCommands(1);
+                return false;
+            }
+            boolean registered = registerPendingSyncIfNeeded(examRecordId, examToken, result);
+            examMetrics.recordDirectRedisCommands(registered ? 2 : 1);
+            // 只统计实际写入的作答（旧版本被丢弃的不计入答题人数）
+            applicationEventPublisher.publishEvent(ExamActivityEvent.answer(examRecordId, Collections.singletonList(questionId)));
+
+            // 通过WebSocket推送进度更新（进度由脚本原子统计）
+            pushProgress(examRecordId, toLong(result.get(1)));
+            return true;
+        } finally {
+            examMetrics.recordAnswerSave(begin, false);
+        }
     }
 
     /**
-     * 更新答题进度（使用Set大小统计，自动去重，原子操作）
+     * 批量保存同一考生的多道题答案：一次脚本调用完成所有题目的版本比较和写入
      * @param examRecordId 考试记录ID
+     * @param items 答案列表（题目ID、答案、版本号）
      * @param examToken 考试令牌（用于确保key唯一性）
+     * @return 保存后的已答题数量
      */
-    public void updateProgress(Long examRecordId, String examToken) {
-        // 使用Set大小统计已答题数量（自动去重，准确且高效）
-        // Key格式：exam:answered:{token}:{examRecordId}
-        String answeredQuestionsKey = ANSWERED_QUESTIONS_PREFIX + examToken + ":" + examRecordId;
-        Long answeredCount = redisTemplate.opsForSet().size(answeredQuestionsKey);
-        
-        if (answeredCount == null) {
-            answeredCount = 0L;
+    public Long saveAnswersBatch(Long examRecordId, List<AnswerItemDTO> items, String examToken) {
+        if (items == null || items.isEmpty()) {
+            return getProgress(examRecordId);
         }
-        
-        // 更新进度计数器（用于快速查询，避免每次都计算Set大小）
-        String progressKey = PROGRESS_KEY_PREFIX + examRecordId;
-        redisTemplate.opsForValue().set(progressKey, answeredCount, 2, TimeUnit.HOURS);
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("单次最多保存" + MAX_BATCH_SIZE + "道题的答案");
+        }
+        for (AnswerItemDTO item : items) {
+            if (item.getQuestionId() == null || item.getStudentAnswer() == null) {
+                throw new RuntimeException("题目ID和答案不能为空");
+            }
+        }
+        long begin = System.nanoTime();
+        try {
+            // 批量保存是客户端合并后的上传，各题的作答间隔不可见，只按一次作答事件计入规则引擎
+            antiCheatRuleEngine.publish(examRecordId, null, BehaviorEventType.ANSWER,
+                    items.get(items.size() - 1).getQuestionId());
+
+            // 开启写缓冲时只写本地缓冲，进度和作答事件在刷入 Redis 后推送
+            if (answerWriteBehindBuffer.isEnabled() || answerWriteBehindBuffer.hasPending()) {
+                examMetrics.recordDirectRedisCommands(1);
+                return bufferAnswers(examRecordId, items, examToken);
+            }
+
+            List<String> keys = saveAnswersScriptKeys(examRecordId, examToken, items);
+            List<?> result;
+            try {
+                result = stringRedisTemplate.execute(SAVE_ANSWERS_SCRIPT, keys, saveAnswersScriptArgs(items));
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                examMetrics.recordDegradedAnswers(items.size());
+                return bufferAnswers(examRecordId, items, examToken);
+            }
+            Long answeredCount = toLong(result.get(1));
+            boolean registered = false;
+            if (toLong(result.get(0)) > 0) {
+                registered = registerPendingSyncIfNeeded(examRecordId, examToken, result);
+                pushProgress(examRecordId, answeredCount);
+                publishAnswerActivity(examRecordId, items);
+            }
+            examMetrics.recordDirectRedisCommands(registered ? 2 : 1);
+            return answeredCount;
+        } finally {
+            examMetrics.recordAnswerSave(begin, true);
+        }
+    }
+
+    /**
+     * 把一批答案放入本地缓冲
+     * @return 当前已答题数量，Redis 不可用时返回 null（恢复后补写时通过 WebSocket 推送）
+     */
+    private Long bufferAnswers(Long examRecordId, List<AnswerItemDTO> items, String examToken) {
+        for (AnswerItemDTO item : items) {
+            answerWriteBehindBuffer.put(examRecordId, item.getQuestionId(), item.getStudentAnswer(),
+                    item.getVersion(), examToken);
+        }
+        try {
+            return getProgress(examRecordId);
+        } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 将写缓冲中的一批答案写入 Redis：每个考生一次脚本调用，所有脚本调用放在同一个 pipeline 中
+     * @param answers 缓冲中的答案（同一题目已合并为最后一次保存）
+     */
+    public void flushBufferedAnswers(List<AnswerWriteBehindBuffer.BufferedAnswer> answers) {
+        Map<Long, List<AnswerItemDTO>> itemsByRecord = new LinkedHashMap<>();
+        Map<Long, String> tokenByRecord = new LinkedHashMap<>();
+        for (AnswerWriteBehindBuffer.BufferedAnswer answer : answers) {
+            itemsByRecord.computeIfAbsent(answer.getExamRecordId(), k -> new ArrayList<>())
+                    .add(new AnswerItemDTO(answer.getQuestionId(), answer.getStudentAnswer(), answer.getVersion()));
+            tokenByRecord.put(answer.getExamRecordId(), answer.getExamToken());
+        }
+
+        List<Long> recordIds = new ArrayList<>(itemsByRecord.keySet());
+        byte[] scriptBytes = SAVE_ANSWERS_LUA.getBytes(StandardCharsets.UTF_8);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long examRecordId : recordIds) {
+                List<AnswerItemDTO> items = itemsByRecord.get(examRecordId);
+                List<String> keys = saveAnswersScriptKeys(examRecordId, tokenByRecord.get(examRecordId), items);
+                connection.scriptingCommands().eval(scriptBytes, ReturnType.MULTI, keys.size(),
+                        serializeKeysAndArgs(keys, saveAnswersScriptArgs(items)));
+            }
+            return null;
+        });
 
-        // 通过WebSocket推送进度更新
-        messagingTemplate.convertAndSend("/topic/exam/progress/" + examRecordId, answeredCount);
+        int commands = recordIds.size();
+        for (int i = 0; i < recordIds.size(); i++) {
+            if (results.get(i) instanceof List<?> result && toLong(result.get(0)) > 0) {
+                if (registerPendingSyncIfNeeded(recordIds.get(i), tokenByRecord.get(recordIds.get(i)), result)) {
+                    commands++;
+                }
+                pushProgress(recordIds.get(i), toLong(result.get(1)));
+                publishAnswerActivity(recordIds.get(i), itemsByRecord.get(recordIds.get(i)));
+            }
+        }
+        examMetrics.recordWriteBehindRedisCommands(commands);
+    }
+
+    /**
+     * 发布作答事件（基数统计），只在保存脚本实际写入后调用
+     * 脚本只返回写入的题目数，同一批中有写入时按本批全部题目计（旧版本通常是整批重试）
+     */
+    private void publishAnswerActivity(Long examRecordId, List<AnswerItemDTO> items) {
+        List<Long> questionIds = new ArrayList<>(items.size());
+        for (AnswerItemDTO item : items) {
+            questionIds.add(item.getQuestionId());
+        }
+        applicationEventPublisher.publishEvent(ExamActivityEvent.answer(examRecordId, questionIds));
+    }
+
+    /**
+     * 保存答案脚本的 KEYS：已答题Set、待同步队列Set、版本号Hash、进度计数器，之后依次为每道题的答案key
+     */
+    private List<String> saveAnswersScriptKeys(Long examRecordId, String examToken, List<AnswerItemDTO> items) {
+        List<String> keys = new ArrayList<>(4 + items.size());
+        keys.add(ExamRedisKeys.answered(examRecordId, examToken));
+        keys.add(ExamRedisKeys.syncQueue(examRecordId, examToken));
+        keys.add(ExamRedisKeys.answerVersion(examRecordId, examToken));
+        keys.add(ExamRedisKeys.progress(examRecordId));
+        for (AnswerItemDTO item : items) {
+            keys.add(ExamRedisKeys.answer(examRecordId, examToken, item.getQuestionId()));
+        }
+        return keys;
+    }
+
+    /**
+     * 待同步队列由空变为非空时，把考试记录登记到待同步分片集合（定时同步任务从这里取，不再使用 KEYS 扫描）
+     * 登记集合与考试记录不在同一槽位，不能放进保存脚本，只在队列由空变非空时额外写一次
+     * @return 是否执行了登记
+     */
+    private boolean registerPendingSyncIfNeeded(Long examRecordId, String examToken, List<?> scriptResult) {
+        if (scriptResult.size() > 2 && toLong(scriptResult.get(2)) > 0) {
+            registerPendingSync(examRecordId, examToken);
+            return true;
+        }
+        return false;
+    }
+
+    private void registerPendingSync(Long examRecordId, String examToken) {
+        stringRedisTemplate.opsForSet().add(ExamRedisKeys.syncPending(ExamRedisKeys.syncPendingShard(examRecordId)),
+                examRecordId + ":" + examToken);
+    }
+
+    /**
+     * 保存答案脚本的 ARGV：过期时间，之后每道题依次为 题目ID、答案、版本号（-1 表示不校验版本）
+     * 参数都是原始字符串：题目ID 以整数形式写入 Set（Redis 可用 intset 紧凑编码），答案不带 JSON 引号
+     */
+    private Object[] saveAnswersScriptArgs(List<AnswerItemDTO> items) {
+        Object[] args = new Object[1 + items.size() * 3];
+        args[0] = String.valueOf(ANSWER_TTL_SECONDS);
+        int i = 1;
+        for (AnswerItemDTO item : items) {
+            args[i++] = item.getQuestionId().toString();
+            args[i++] = item.getStudentAnswer();
+            args[i++] = String.valueOf(item.getVersion() != null ? item.getVersion() : -1L);
+        }
+        return args;
+    }
+
+    private byte[][] serializeKeysAndArgs(List<String> keys, Object[] args) {
+        RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        int i = 0;
+        for (String key : keys) {
+            keysAndArgs[i++] = serializer.serialize(key);
+        }
+        for (Object arg : args) {
+            keysAndArgs[i++] = serializer.serialize((String) arg);
+        }
+        return keysAndArgs;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * 通过WebSocket推送答题进度（交给 ProgressPushDispatcher 合并后异步推送，同一考生每个推送间隔最多一次）
+     * @param examRecordId 考试记录ID
+     * @param answeredCount 已答题数量
+     */
+    public void pushProgress(Long examRecordId, Long answeredCount) {
+        progressPushDispatcher.submit(examRecordId, answeredCount);
     }
 
     /**
      * 获取答题进度
      */
     public Long getProgress(Long examRecordId) {
-        String key = PROGRESS_KEY_PREFIX + examRecordId;
-        Object raw = redisTemplate.opsForValue().get(key);
-        if (raw instanceof Long) {
-            return (Long) raw;
-        } else if (raw instanceof Integer) {
-            return ((Integer) raw).longValue();
-        }
-        return 0L;
+        String key = ExamRedisKeys.progress(examRecordId);
+        String raw = stringRedisTemplate.opsForValue().get(key);
+        return raw != null ? Long.parseLong(raw) : 0L;
     }
 
     /**
@@ -138,10 +418,13 @@ public class ExamSyncService {
      * @param examToken 考试令牌（用于确保key唯一性）
      */
     public String getAnswerFromRedis(Long examRecordId, Long questionId, String examToken) {
-        // Key格式：exam:answer:{token}:{examRecordId}:{questionId}
-        String answerKey = ANSWER_KEY_PREFIX + examToken + ":" + examRecordId + ":" + questionId;
-        Object answer = redisTemplate.opsForValue().get(answerKey);
-        return answer != null ? answer.toString() : null;
+        // 写缓冲中尚未刷入 Redis 的答案优先
+        AnswerWriteBehindBuffer.BufferedAnswer buffered = answerWriteBehindBuffer.get(examRecordId, questionId);
+        if (buffered != null) {
+            return buffered.getStudentAnswer();
+        }
+        String answerKey = ExamRedisKeys.answer(examRecordId, examToken, questionId);
+        return stringRedisTemplate.opsForValue().get(answerKey);
     }
 
     /**
@@ -150,39 +433,35 @@ public class ExamSyncService {
      * @param examToken 考试令牌（用于确保key唯一性）
      */
     public java.util.Set<String> getAnsweredQuestionIds(Long examRecordId, String examToken) {
-        // Key格式：exam:answered:{token}:{examRecordId}
-        String answeredQuestionsKey = ANSWERED_QUESTIONS_PREFIX + examToken + ":" + examRecordId;
-        java.util.Set<Object> questionIdsObj = (java.util.Set<Object>) redisTemplate.opsForSet().members(answeredQuestionsKey);
-        if (questionIdsObj == null || questionIdsObj.isEmpty()) {
+        String answeredQuestionsKey = ExamRedisKeys.answered(examRecordId, examToken);
+        java.util.Set<String> questionIds = stringRedisTemplate.opsForSet().members(answeredQuestionsKey);
+        if (questionIds == null || questionIds.isEmpty()) {
             return java.util.Collections.emptySet();
         }
-        // 转换为String Set
-        java.util.Set<String> questionIds = new java.util.HashSet<>();
-        for (Object obj : questionIdsObj) {
-            questionIds.add(obj.toString());
-        }
         return questionIds;
     }
 
     /**
      * 批量同步答案到数据库（定时任务调用）
      * 优化：使用Set自动去重，批量操作，减少数据库交互次数
+     * 只同步进行中的考试记录：已提交的记录在交卷时已强制同步，之后又写回 Redis 的答案
+     * （如其他节点回放崩溃前的答案日志）直接丢弃，不覆盖已提交的答案
      * @param examRecordId 考试记录ID
      * @param examToken 考试令牌（用于确保key唯一性）
      */
     public void syncAnswersToDatabase(Long examRecordId, String examToken) {
-        // Key格式：exam:sync:queue:{token}:{examRecordId}
-        String syncQueueKey = SYNC_QUEUE_PREFIX + examToken + ":" + examRecordId;
+        String syncQueueKey = ExamRedisKeys.syncQueue(examRecordId, examToken);
         
         // 获取待同步的题目ID列表（Set自动去重）
-        java.util.Set<Object> questionIdSetObj = (java.util.Set<Object>) redisTemplate.opsForSet().members(syncQueueKey);
-        if (questionIdSetObj == null || questionIdSetObj.isEmpty()) {
+        java.util.Set<String> questionIdSet = stringRedisTemplate.opsForSet().members(syncQueueKey);
+        if (questionIdSet == null || questionIdSet.isEmpty()) {
             return;
         }
-        // 转换为String Set
-        java.util.Set<String> questionIdSet = new java.util.HashSet<>();
-        for (Object obj : questionIdSetObj) {
-            questionIdSet.add(obj.toString());
+
+        ExamRecordDO examRecord = examRecordMapper.selectById(examRecordId);
+        if (examRecord == null || !"in_progress".equals(examRecord.getStatus())) {
+            stringRedisTemplate.delete(syncQueueKey);
+            return;
         }
         
         java.util.List<AnswerRecordDO> toInsert = new java.util.ArrayList<>();
@@ -224,15 +503,21 @@ public class ExamSyncService {
             for (AnswerRecordDO record : toUpdate) {
                 answerRecordMapper.update(record);
             }
+            examMetrics.recordAnswerUpdateBatch(toUpdate.size());
         }
         
         // 批量插入
         if (!toInsert.isEmpty()) {
             answerRecordMapper.batchInsert(toInsert);
+            examMetrics.recordAnswerInsertBatch(toInsert.size());
         }
         
-        // 清空同步队列（Set已自动去重，清空后等待下次添加）
-        redisTemplate.delete(syncQueueKey);
+        // 只移除本次已同步的题目，同步期间新保存的题目留在队列中，并重新登记等待下一轮
+        stringRedisTemplate.opsForSet().remove(syncQueueKey, questionIdSet.toArray());
+        Long remaining = stringRedisTemplate.opsForSet().size(syncQueueKey);
+        if (remaining != null && remaining > 0) {
+            registerPendingSync(examRecordId, examToken);
+        }
     }
 
     /**
@@ -240,12 +525,18 @@ public class ExamSyncService {
      * 使用Set获取已答题列表，自动去重
      * @param examRecordId 考试记录ID
      * @param examToken 考试令牌（用于确保key唯一性）
+     * @param paperKey 试卷标准答案，不为空时写库前先批改（是否正确、得分随答案一起写入，不额外更新）
+     * @return 本次写入的答题记录
      */
-    public void forceSyncAllAnswersToDatabase(Long examRecordId, String examToken) {
+    public List<AnswerRecordDO> forceSyncAllAnswersToDatabase(Long examRecordId, String examToken,
+                                                              ExamGradingService.PaperKey paperKey) {
+        // 先把写缓冲中该考生的答案刷入 Redis
+        answerWriteBehindBuffer.flushRecord(examRecordId);
+        
         // 从Set获取所有已答题的题目ID（自动去重）
         java.util.Set<String> questionIdSet = getAnsweredQuestionIds(examRecordId, examToken);
         if (questionIdSet.isEmpty()) {
-            return;
+            return Collections.emptyList();
         }
         
         java.util.List<AnswerRecordDO> toInsert = new java.util.ArrayList<>();
@@ -277,35 +568,47 @@ public class ExamSyncService {
             }
         }
         
+        if (paperKey != null) {
+            examGradingService.grade(paperKey, toUpdate);
+            examGradingService.grade(paperKey, toInsert);
+        }
+        
         // 批量更新
         if (!toUpdate.isEmpty()) {
             for (AnswerRecordDO record : toUpdate) {
                 answerRecordMapper.update(record);
             }
+            examMetrics.recordAnswerUpdateBatch(toUpdate.size());
         }
         
         // 批量插入
         if (!toInsert.isEmpty()) {
             answerRecordMapper.batchInsert(toInsert);
+            examMetrics.recordAnswerInsertBatch(toInsert.size());
         }
         
         // 清理 Redis 数据（可选，根据业务需求决定是否立即清理）
-        // String answeredQuestionsKey = ANSWERED_QUESTIONS_PREFIX + examRecordId;
-        // redisTemplate.delete(answeredQuestionsKey);
+        // String answeredQuestionsKey = ExamRedisKeys.answered(examRecordId, examToken);
+        // stringRedisTemplate.delete(answeredQuestionsKey);
+        
+        List<AnswerRecordDO> synced = new ArrayList<>(toUpdate.size() + toInsert.size());
+        synced.addAll(toUpdate);
+        synced.addAll(toInsert);
+        return synced;
     }
 
     /**
      * 推送考试状态更新
      */
     public void pushExamStatusUpdate(Long examId, String status) {
-        messagingTemplate.convertAndSend("/topic/exam/status/" + examId, status);
+        examMessagePublisher.send("/topic/exam/status/" + examId, status);
     }
 
     /**
      * 推送警告消息
      */
     public void pushWarning(Long examRecordId, String message) {
-        messagingTemplate.convertAndSend("/queue/exam/warning/" + examRecordId, message);
+        examMessagePublisher.send("/queue/exam/warning/" + examRecordId, message);
     }
 
     /**
@@ -315,19 +618,7 @@ public class ExamSyncService {
      * @param examId 考试ID
      */
     public void submitExamEarly(Long examRecordId, String examToken, Long examId) {
-        // 1. 强制同步所有答案到数据库
-        forceSyncAllAnswersToDatabase(examRecordId, examToken);
-        
-        // 2. 更新考试记录状态为已提交
-        ExamRecordDO record = examRecordMapper.selectById(examRecordId);
-        if (record != null && "in_progress".equals(record.getStatus())) {
-            record.setStatus("submitted");
-            record.setSubmitTime(java.time.LocalDateTime.now());
-            examRecordMapper.update(record);
-        }
-        
-        // 3. 清理该考生的Redis数据
-        cleanupStudentRedisData(examRecordId, examToken);
+        submitAndGrade(examRecordId, examToken);
         
         // 注意：提前结束不清除考试令牌，因为其他考生可能还在考试
         // 考试令牌在考试时间耗尽时统一清除
@@ -340,8 +631,8 @@ public class ExamSyncService {
     public void handleExamTimeout(Long examId) {
         // 1. 将考试ID加入待处理队列（由定时任务限流处理）
         // 使用 Set 避免重复添加
-        redisTemplate.opsForSet().add("exam:timeout:exams", examId.toString());
-        redisTemplate.expire("exam:timeout:exams", 24, TimeUnit.HOURS);
+        stringRedisTemplate.opsForSet().add(ExamRedisKeys.TIMEOUT_EXAMS, examId.toString());
+        stringRedisTemplate.expire(ExamRedisKeys.TIMEOUT_EXAMS, 24, TimeUnit.HOURS);
         
         // 2. 立即处理一次（将考生加入提交队列）
         processTimeoutExamSubmission(examId);
@@ -379,11 +670,13 @@ public class ExamSyncService {
      * @param examToken 考试令牌
      */
     public void addToSubmitQueue(Long examId, Long examRecordId, String examToken) {
-        String submitQueueKey = SUBMIT_QUEUE_PREFIX + examId;
+        String submitQueueKey = ExamRedisKeys.submitQueue(examId);
         // 使用 List 作为队列，格式：{examRecordId}:{examToken}
         String queueItem = examRecordId + ":" + examToken;
-        redisTemplate.opsForList().rightPush(submitQueueKey, queueItem);
-        redisTemplate.expire(submitQueueKey, 24, TimeUnit.HOURS);
+        stringRedisTemplate.opsForList().rightPush(submitQueueKey, queueItem);
+        stringRedisTemplate.expire(submitQueueKey, 24, TimeUnit.HOURS);
+        // 考试已结束、等待限流提交期间客户端断开属于正常情况，停止心跳跟踪
+        heartbeatTracker.untrack(examRecordId);
     }
 
     /**
@@ -392,17 +685,17 @@ public class ExamSyncService {
      * @param batchSize 每次处理的批次大小（限流）
      */
     public void processSubmitQueue(Long examId, int batchSize) {
-        String submitQueueKey = SUBMIT_QUEUE_PREFIX + examId;
+        String submitQueueKey = ExamRedisKeys.submitQueue(examId);
         
         for (int i = 0; i < batchSize; i++) {
             // 从队列左侧取出（FIFO）
-            Object item = redisTemplate.opsForList().leftPop(submitQueueKey);
+            String item = stringRedisTemplate.opsForList().leftPop(submitQueueKey);
             if (item == null) {
                 break; // 队列为空
             }
             
             try {
-                String[] parts = item.toString().split(":", 2);
+                String[] parts = item.split(":", 2);
                 if (parts.length != 2) {
                     continue;
                 }
@@ -411,9 +704,11 @@ public class ExamSyncService {
                 String examToken = parts[1];
                 
                 // 提交该考生的答案
-                submitStudentExam(examRecordId, examToken);
+                submitAndGrade(examRecordId, examToken);
+                examMetrics.recordSubmit(true);
             } catch (Exception e) {
                 // 记录日志，继续处理下一个
+                examMetrics.recordSubmit(false);
                 System.err.println("处理提交队列失败: " + item + ", 错误: " + e.getMessage());
             }
         }
@@ -425,8 +720,8 @@ public class ExamSyncService {
      * @param examId 考试ID
      */
     public void revokeExamTokenIfQueueEmpty(Long examId) {
-        String submitQueueKey = SUBMIT_QUEUE_PREFIX + examId;
-        Long queueSize = redisTemplate.opsForList().size(submitQueueKey);
+        String submitQueueKey = ExamRedisKeys.submitQueue(examId);
+        Long queueSize = stringRedisTemplate.opsForList().size(submitQueueKey);
         if (queueSize == null || queueSize == 0) {
             // 队列为空，所有考生都已提交，清除考试令牌
             examTokenService.revokeToken(examId);
@@ -434,23 +729,43 @@ public class ExamSyncService {
     }
 
     /**
-     * 提交单个考生的考试（从队列中取出后执行）
+     * 交卷：同步答案并批改，更新考试记录，清理 Redis 数据
+     * 考试记录由进行中变为已提交的那一次发布批改完成事件，重复交卷（重试、提前交卷与时间耗尽同时处理）只同步答案
      * @param examRecordId 考试记录ID
      * @param examToken 考试令牌
      */
-    private void submitStudentExam(Long examRecordId, String examToken) {
-        // 1. 强制同步所有答案到数据库
-        forceSyncAllAnswersToDatabase(examRecordId, examToken);
-        
-        // 2. 更新考试记录状态为已提交
+    private void submitAndGrade(Long examRecordId, String examToken) {
+        // 1. 先刷入切屏次数，再查询考试记录（交卷时切屏次数取两者较大值）
+        antiCheatService.flushSwitchCount(examRecordId);
         ExamRecordDO record = examRecordMapper.selectById(examRecordId);
-        if (record != null && "in_progress".equals(record.getStatus())) {
-            record.setStatus("submitted");
-            record.setSubmitTime(java.time.LocalDateTime.now());
-            examRecordMapper.update(record);
+        boolean inProgress = record != null && "in_progress".equals(record.getStatus());
+        
+        // 2. 强制同步所有答案到数据库，进行中的考试同时批改
+        ExamGradingService.PaperKey paperKey = inProgress ? examGradingService.getPaperKey(record.getPaperId()) : null;
+        List<AnswerRecordDO> answers = forceSyncAllAnswersToDatabase(examRecordId, examToken, paperKey);
+        
+        // 3. 更新考试记录状态为已提交，写入得分
+        if (inProgress) {
+            int score = 0;
+            List<ExamSubmissionGradedEvent.QuestionResult> results = new ArrayList<>(answers.size());
+            for (AnswerRecordDO answer : answers) {
+                if (answer.getScore() != null) {
+                    score += answer.getScore();
+                }
+                results.add(new ExamSubmissionGradedEvent.QuestionResult(
+                        answer.getQuestionId(), answer.getIsCorrect(), answer.getScore()));
+            }
+            // 截断到秒：MySQL DATETIME 会对毫秒四舍五入，排行榜重建时同分考生的先后顺序要与实时写入一致
+            record.setSubmitTime(java.time.LocalDateTime.now().truncatedTo(java.time.temporal.ChronoUnit.SECONDS));
+            record.setScore(score);
+            record.setTotalScore(paperKey.getTotalScore());
+            if (examRecordMapper.submit(record) == 1) {
+                applicationEventPublisher.publishEvent(new ExamSubmissionGradedEvent(record.getExamId(), examRecordId,
+                        record.getStudentId(), record.getPaperId(), score, paperKey.getTotalScore(), record.getSubmitTime(), results));
+            }
         }
         
-        // 3. 清理该考生的Redis数据
+        // 4. 清理该考生的Redis数据
         cleanupStudentRedisData(examRecordId, examToken);
     }
 
@@ -460,19 +775,20 @@ public class ExamSyncService {
      * @param examToken 考试令牌
      */
     private void cleanupStudentRedisData(Long examRecordId, String examToken) {
-        // 清理答案相关的Redis数据
-        String answeredQuestionsKey = ANSWERED_QUESTIONS_PREFIX + examToken + ":" + examRecordId;
-        redisTemplate.delete(answeredQuestionsKey);
-        
-        String syncQueueKey = SYNC_QUEUE_PREFIX + examToken + ":" + examRecordId;
-        redisTemplate.delete(syncQueueKey);
-        
+        // 清理答案相关的Redis数据：这些 key 都带 {examRecordId} hash tag，位于同一槽位，一次 DEL 删除
+        List<String> keys = new ArrayList<>();
+        for (String questionId : getAnsweredQuestionIds(examRecordId, examToken)) {
+            keys.add(ExamRedisKeys.answer(examRecordId, examToken, Long.parseLong(questionId)));
+        }
+        keys.add(ExamRedisKeys.answered(examRecordId, examToken));
+        keys.add(ExamRedisKeys.syncQueue(examRecordId, examToken));
+        keys.add(ExamRedisKeys.answerVersion(examRecordId, examToken));
         // 清理进度计数器
-        String progressKey = PROGRESS_KEY_PREFIX + examRecordId;
-        redisTemplate.delete(progressKey);
+        keys.add(ExamRedisKeys.progress(examRecordId));
+        stringRedisTemplate.delete(keys);
         
-        // 清理所有答案key（需要扫描，这里简化处理）
-        // 实际可以使用 SCAN 命令遍历所有相关的 key
+        // 停止心跳跟踪，避免提交后被判定为离线
+        heartbeatTracker.untrack(examRecordId);
     }
 }
 
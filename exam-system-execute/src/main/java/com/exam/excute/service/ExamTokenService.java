@@ -1,7 +1,8 @@
 package com.exam.excute.service;
 
+import com.exam.manage.util.ExamRedisKeys;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -17,10 +18,7 @@ import java.util.concurrent.TimeUnit;
 public class ExamTokenService {
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
-
-    // Redis key前缀
-    private static final String TOKEN_KEY_PREFIX = "exam:token:";
+    private StringRedisTemplate stringRedisTemplate;
 
     /**
      * 为考试签发令牌
@@ -32,23 +30,43 @@ public class ExamTokenService {
         // 生成唯一令牌
         String token = UUID.randomUUID().toString().replace("-", "");
         
-        // 计算过期时间（考试结束时间 + 1小时缓冲，确保考试结束后还能验证）
-        LocalDateTime expireTime = endTime.plusHours(1);
-        Duration duration = Duration.between(LocalDateTime.now(), expireTime);
-        long seconds = duration.getSeconds();
-        
-        // 如果已经过期，设置最小过期时间为1小时
-        if (seconds <= 0) {
-            seconds = 3600;
-        }
+        long seconds = tokenTtlSeconds(endTime);
         
         // 存储到Redis，key格式：exam:token:{examId}
-        String key = TOKEN_KEY_PREFIX + examId;
-        redisTemplate.opsForValue().set(key, token, seconds, TimeUnit.SECONDS);
+        String key = ExamRedisKeys.examToken(examId);
+        stringRedisTemplate.opsForValue().set(key, token, seconds, TimeUnit.SECONDS);
         
         return token;
     }
 
+    /**
+     * 获取考试令牌，不存在时签发（兜底签发使用 SET NX，多个学生同时兜底时只有一个令牌生效，不会互相覆盖）
+     * @param examId 考试ID
+     * @param endTime 考试结束时间（用于设置令牌过期时间）
+     * @return 考试令牌
+     */
+    public String getOrIssueToken(Long examId, LocalDateTime endTime) {
+        String key = ExamRedisKeys.examToken(examId);
+        String token = stringRedisTemplate.opsForValue().get(key);
+        if (token != null) {
+            return token;
+        }
+        token = UUID.randomUUID().toString().replace("-", "");
+        Boolean issued = stringRedisTemplate.opsForValue().setIfAbsent(key, token, tokenTtlSeconds(endTime), TimeUnit.SECONDS);
+        if (Boolean.TRUE.equals(issued)) {
+            return token;
+        }
+        String existing = stringRedisTemplate.opsForValue().get(key);
+        return existing != null ? existing : issueToken(examId, endTime);
+    }
+
+    private static long tokenTtlSeconds(LocalDateTime endTime) {
+        // 计算过期时间（考试结束时间 + 1小时缓冲，确保考试结束后还能验证）
+        long seconds = Duration.between(LocalDateTime.now(), endTime.plusHours(1)).getSeconds();
+        // 如果已经过期，设置最小过期时间为1小时
+        return seconds > 0 ? seconds : 3600;
+    }
+
     /**
      * 验证考试令牌
      * @param examId 考试ID
@@ -60,14 +78,14 @@ public class ExamTokenService {
             return false;
         }
         
-        String key = TOKEN_KEY_PREFIX + examId;
-        Object storedToken = redisTemplate.opsForValue().get(key);
+        String key = ExamRedisKeys.examToken(examId);
+        String storedToken = stringRedisTemplate.opsForValue().get(key);
         
         if (storedToken == null) {
             return false;
         }
         
-        return token.equals(storedToken.toString());
+        return token.equals(storedToken);
     }
 
     /**
@@ -75,8 +93,8 @@ public class ExamTokenService {
      * @param examId 考试ID
      */
     public void revokeToken(Long examId) {
-        String key = TOKEN_KEY_PREFIX + examId;
-        redisTemplate.delete(key);
+        String key = ExamRedisKeys.examToken(examId);
+        stringRedisTemplate.delete(key);
     }
 
     /**
@@ -85,8 +103,8 @@ public class ExamTokenService {
      * @return 是否有有效令牌
      */
     public boolean hasToken(Long examId) {
-        String key = TOKEN_KEY_PREFIX + examId;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        String key = ExamRedisKeys.examToken(examId);
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
     }
 
     /**
@@ -95,9 +113,8 @@ public class ExamTokenService {
      * @return 考试令牌，如果不存在则返回null
      */
     public String getToken(Long examId) {
-        String key = TOKEN_KEY_PREFIX + examId;
-        Object token = redisTemplate.opsForValue().get(key);
-        return token != null ? token.toString() : null;
+        String key = ExamRedisKeys.examToken(examId);
+        return stringRedisTemplate.opsForValue().get(key);
     }
 }
 
@@ -0,0 +1,264 @@
+package com.exam.excute.service;
+
+import com.exam.excute.util.LongLongHashMap;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 本地心跳表 + 时间轮超时检测
+ * 1. 学生的 WebSocket 会话固定连接在某个节点上，心跳只会到达该节点，因此心跳表只需本地维护
+ * 2. 心跳表按 examRecordId 分片，每个分片是 long -> long 的原始类型哈希表（examRecordId -> 最近心跳时间）
+ * 3. 心跳只更新本地表，只有上线/离线状态变化才写 Redis
+ * 4. 时间轮每个刻度检查到期的考生：仍有新心跳则重新挂到新的到期刻度，否则判定离线并回调超时监听器
+ * 5. 已提交或已进入提交队列的考生会被 untrack 删除在线状态，离线状态只在 key 仍存在时写入，
+ *    因此连接在其他节点上的考生交卷后断开也不会被记为离线
+ */
+@Component
+public class HeartbeatTracker {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${exam.heartbeat.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${exam.heartbeat.tick-ms:1000}")
+    private long tickMs;
+
+    // 在线状态key：exam:heartbeat:{examRecordId}，值为 online/offline（仅状态变化时写入）
+    private static final String STATUS_ONLINE = "online";
+    private static final String STATUS_OFFLINE = "offline";
+
+    private static final int SHARD_COUNT = 16;
+    // 时间轮槽数，需大于 超时时间/刻度，保证任何到期时间都在一圈以内
+    private static final int MIN_WHEEL_SIZE = 64;
+
+    private final LongLongHashMap[] shards = new LongLongHashMap[SHARD_COUNT];
+
+    private WheelSlot[] wheel;
+    private long timeoutMs;
+    private long currentTick;
+
+    private volatile LongConsumer timeoutListener = examRecordId -> { };
+
+    private ScheduledExecutorService wheelExecutor;
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new LongLongHashMap(1024);
+        }
+        timeoutMs = timeoutSeconds * 1000;
+        int wheelSize = (int) Math.max(MIN_WHEEL_SIZE, timeoutMs / tickMs * 2);
+        wheel = new WheelSlot[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new WheelSlot();
+        }
+        currentTick = System.currentTimeMillis() / tickMs;
+
+        wheelExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "heartbeat-timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        wheelExecutor.scheduleWithFixedDelay(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 注册离线（心跳超时）回调
+     */
+    public void setTimeoutListener(LongConsumer timeoutListener) {
+        this.timeoutListener = timeoutListener;
+    }
+
+    /**
+     * 记录一次心跳：已在线时只更新本地心跳时间；首次心跳（或离线后恢复）时写入在线状态并挂到时间轮
+     */
+    public void heartbeat(Long examRecordId) {
+        long now = System.currentTimeMillis();
+        LongLongHashMap shard = shardOf(examRecordId);
+        long previous;
+        synchronized (shard) {
+            previous = shard.put(examRecordId, now);
+        }
+        if (previous == LongLongHashMap.MISSING) {
+            schedule(examRecordId, now + timeoutMs);
+            writeStatus(examRecordId, STATUS_ONLINE);
+        }
+    }
+
+    /**
+     * 判断心跳是否超时：本节点跟踪的考生看本地心跳表，否则看 Redis 中的在线状态（可能连接在其他节点）
+     */
+    public boolean isTimeout(Long examRecordId) {
+        LongLongHashMap shard = shardOf(examRecordId);
+        long lastSeen;
+        synchronized (shard) {
+            lastSeen = shard.get(examRecordId);
+        }
+        if (lastSeen != LongLongHashMap.MISSING) {
+            return System.currentTimeMillis() - lastSeen > timeoutMs;
+        }
+        String status = stringRedisTemplate.opsForValue().get(ExamRedisKeys.heartbeat(examRecordId));
+        return !STATUS_ONLINE.equals(status);
+    }
+
+    /**
+     * 停止跟踪（考生提交或进入提交队列后调用，避免交卷后断开被判定为离线）
+     */
+    public void untrack(Long examRecordId) {
+        LongLongHashMap shard = shardOf(examRecordId);
+        synchronized (shard) {
+            shard.remove(examRecordId);
+        }
+        stringRedisTemplate.delete(ExamRedisKeys.heartbeat(examRecordId));
+    }
+
+    /**
+     * 时间轮前进：处理从上次位置到当前时间之间所有刻度上挂着的考生
+     */
+    private void advance() {
+        long nowTick = System.currentTimeMillis() / tickMs;
+        while (currentTick <= nowTick) {
+            WheelSlot slot = wheel[(int) (currentTick % wheel.length)];
+            long[] due = slot.drain();
+            for (long examRecordId : due) {
+                try {
+                    checkExpired(examRecordId);
+                } catch (Exception e) {
+                    System.err.println("心跳超时检测失败: " + examRecordId + ", 错误: " + e.getMessage());
+                }
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * 检查到期的考生：先写离线状态，再在分片锁内确认写入期间没有新心跳才移除
+     * 写入期间条目仍在心跳表中，新到的心跳只更新时间、不会写在线状态，因此离线状态不会覆盖新的在线状态；
+     * 写入期间有新心跳则恢复在线状态并重新挂到时间轮，写入失败则保留条目、下一个刻度重试
+     */
+    private void checkExpired(long examRecordId) {
+        long now = System.currentTimeMillis();
+        LongLongHashMap shard = shardOf(examRecordId);
+        long lastSeen;
+        synchronized (shard) {
+            lastSeen = shard.get(examRecordId);
+        }
+        if (lastSeen == LongLongHashMap.MISSING) {
+            return; // 已停止跟踪
+        }
+        if (lastSeen + timeoutMs > now) {
+            // 期间有新心跳，按最新心跳时间重新挂到时间轮
+            schedule(examRecordId, lastSeen + timeoutMs);
+            return;
+        }
+
+        boolean written;
+        try {
+            written = markOffline(examRecordId);
+        } catch (Exception e) {
+            System.err.println("写入在线状态失败: " + examRecordId + ", 错误: " + e.getMessage());
+            schedule(examRecordId, now);
+            return;
+        }
+
+        long current;
+        synchronized (shard) {
+            current = shard.get(examRecordId);
+            if (current == lastSeen) {
+                shard.remove(examRecordId);
+            }
+        }
+        if (current == lastSeen) {
+            // 在线状态已被 untrack 删除（在其他节点交卷）时不回调
+            if (written) {
+                timeoutListener.accept(examRecordId);
+            }
+        } else if (current != LongLongHashMap.MISSING) {
+            // 写入期间有新心跳：恢复在线状态
+            if (written) {
+                restoreOnline(examRecordId);
+            }
+            schedule(examRecordId, current + timeoutMs);
+        }
+    }
+
+    private void schedule(long examRecordId, long deadline) {
+        // 挂到到期时间所在刻度的下一个刻度，保证检查时已经到期
+        long tick = deadline / tickMs + 1;
+        wheel[(int) (tick % wheel.length)].add(examRecordId);
+    }
+
+    /**
+     * 写入离线状态：只覆盖仍存在的在线状态，已被 untrack 删除的（已交卷或排队提交）不再写入
+     * @return 是否写入
+     */
+    private boolean markOffline(long examRecordId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfPresent(ExamRedisKeys.heartbeat(examRecordId), STATUS_OFFLINE, 2, TimeUnit.HOURS));
+    }
+
+    /**
+     * 恢复在线状态（同样只在 key 仍存在时写入，不会恢复已被 untrack 删除的状态）
+     */
+    private void restoreOnline(long examRecordId) {
+        try {
+            stringRedisTemplate.opsForValue()
+                    .setIfPresent(ExamRedisKeys.heartbeat(examRecordId), STATUS_ONLINE, 2, TimeUnit.HOURS);
+        } catch (Exception e) {
+            System.err.println("写入在线状态失败: " + examRecordId + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private void writeStatus(long examRecordId, String status) {
+        try {
+            stringRedisTemplate.opsForValue().set(ExamRedisKeys.heartbeat(examRecordId), status, 2, TimeUnit.HOURS);
+        } catch (Exception e) {
+            System.err.println("写入在线状态失败: " + examRecordId + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private LongLongHashMap shardOf(long examRecordId) {
+        return shards[(int) (examRecordId & (SHARD_COUNT - 1))];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (wheelExecutor != null) {
+            wheelExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 时间轮的一个刻度：挂在该刻度上的 examRecordId 列表
+     */
+    private static final class WheelSlot {
+        private long[] items = new long[16];
+        private int size;
+
+        synchronized void add(long examRecordId) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = examRecordId;
+        }
+
+        synchronized long[] drain() {
+            long[] due = Arrays.copyOf(items, size);
+            size = 0;
+            return due;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.exam.excute.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 答题进度推送合并器
+ * 保存答案时只记录每个考生最新的已答题数量，由独立线程按固定间隔批量推送，
+ * 同一考生在一个推送间隔内最多推送一次，推送不占用请求线程
+ */
+@Component
+public class ProgressPushDispatcher {
+
+    @Autowired
+    private ExamMessagePublisher examMessagePublisher;
+
+    @Value("${exam.progress.push-interval-ms:500}")
+    private long pushIntervalMs;
+
+    // 待推送的最新进度：examRecordId -> 已答题数量
+    private final Map<Long, Long> latestProgress = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService pushExecutor;
+
+    @PostConstruct
+    public void start() {
+        pushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "exam-progress-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pushExecutor.scheduleWithFixedDelay(this::pushPending, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录最新进度（覆盖同一考生尚未推送的旧值），由推送线程稍后发送
+     * @param examRecordId 考试记录ID
+     * @param answeredCount 已答题数量（来自保存答案脚本的返回值）
+     */
+    public void submit(Long examRecordId, Long answeredCount) {
+        latestProgress.put(examRecordId, answeredCount);
+    }
+
+    /**
+     * 等待推送的考生数
+     */
+    public int pendingCount() {
+        return latestProgress.size();
+    }
+
+    /**
+     * 推送所有待推送的进度
+     */
+    private void pushPending() {
+        if (latestProgress.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<Long, Long>> iterator = latestProgress.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            Long examRecordId = entry.getKey();
+            Long answeredCount = entry.getValue();
+            // 只移除本次读取到的值，推送期间写入的新值留到下一轮
+            latestProgress.remove(examRecordId, answeredCount);
+            try {
+                examMessagePublisher.send("/topic/exam/progress/" + examRecordId, answeredCount);
+            } catch (Exception e) {
+                System.err.println("推送答题进度失败: " + examRecordId + ", 错误: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pushExecutor != null) {
+            pushExecutor.shutdownNow();
+        }
+    }
+}
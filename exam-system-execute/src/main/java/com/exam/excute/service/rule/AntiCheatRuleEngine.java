@@ -0,0 +1,324 @@
+package com.exam.excute.service.rule;
+
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.service.ExamMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 防作弊流式规则引擎
+ * 1. WebSocket/REST 线程只把行为事件放入内存队列，不做任何 Redis/MySQL 访问
+ * 2. 单个消费线程按考试记录维护各类事件的环形缓冲区（只保存时间戳），逐个事件评估滑动窗口规则
+ * 3. 每批事件处理完后，把本批命中的规则合并成一条批量 UPDATE 写库，规则数量不影响每个事件的 I/O
+ * 4. 失焦超过 long-blur-ms 后聚焦，在引擎内部按一次切屏事件评估切屏规则；
+ *    同时计入累计切屏次数：本批的长时间失焦在批次处理完后一次性交给回调（由 AntiCheatService 批量累加）
+ * 同一考生的事件都经过其 WebSocket 会话所在节点，因此窗口状态只需本地维护
+ */
+@Component
+public class AntiCheatRuleEngine {
+
+    @Autowired
+    private AntiCheatRuleProperties properties;
+
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+
+    @Autowired
+    private ExamMetrics examMetrics;
+
+    // 每次从队列取出的最大事件数
+    private static final int DRAIN_BATCH_SIZE = 1024;
+    // 空闲状态清理间隔（毫秒）
+    private static final long SWEEP_INTERVAL_MS = 60 * 1000;
+    // 空闲状态最短保留时间（毫秒），心跳事件会持续刷新考试中考生的状态
+    private static final long MIN_IDLE_MS = 10 * 60 * 1000;
+    // 规则命中标记使用 long 位图，规则数量上限
+    private static final int MAX_RULES = 64;
+
+    private static final int TYPE_COUNT = BehaviorEventType.values().length;
+
+    private BlockingQueue<BehaviorEvent> queue;
+
+    private List<AntiCheatRuleProperties.Rule> rules;
+    // 每种事件类型需要保留的最近时间戳个数（0 表示该类型不进入缓冲区）
+    private final int[] ringCapacity = new int[TYPE_COUNT];
+    private long idleTimeoutMs;
+
+    // 仅由消费线程访问
+    private final Map<Long, RecordWindow> windows = new HashMap<>();
+    // 本批检测到的长时间失焦（按切屏事件），批次处理完后交给回调
+    private final List<BehaviorEvent> longBlurs = new ArrayList<>();
+    private long lastSweepAt;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private volatile Consumer<List<BehaviorEvent>> longBlurListener = events -> { };
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        rules = new ArrayList<>();
+        long maxWindowMs = 0;
+        for (AntiCheatRuleProperties.Rule rule : properties.getRules()) {
+            if (rule.getEventType() == null || rule.getCount() <= 0) {
+                System.err.println("忽略无效的防作弊规则: " + rule.getName());
+                continue;
+            }
+            if (rules.size() == MAX_RULES) {
+                System.err.println("防作弊规则超过上限 " + MAX_RULES + "，忽略: " + rule.getName());
+                continue;
+            }
+            rules.add(rule);
+            int type = rule.getEventType().ordinal();
+            int needed = rule.getMode() == AntiCheatRuleProperties.Mode.INTERVAL ? rule.getCount() + 1 : rule.getCount();
+            ringCapacity[type] = Math.max(ringCapacity[type], needed);
+            long ruleWindowMs = rule.getMode() == AntiCheatRuleProperties.Mode.INTERVAL
+                    ? rule.getMaxIntervalMs() * rule.getCount()
+                    : rule.getWindowSeconds() * 1000;
+            maxWindowMs = Math.max(maxWindowMs, ruleWindowMs);
+        }
+        idleTimeoutMs = Math.max(MIN_IDLE_MS, Math.max(maxWindowMs, properties.getLongBlurMs()) * 2);
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        running = true;
+        worker = new Thread(this::consume, "anti-cheat-rule-engine");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 注册长时间失焦回调：每批事件处理完后调用一次，参数为本批的长时间失焦（切屏事件）
+     */
+    public void setLongBlurListener(Consumer<List<BehaviorEvent>> longBlurListener) {
+        this.longBlurListener = longBlurListener;
+    }
+
+    /**
+     * 发布一个行为事件（非阻塞，队列满时丢弃）
+     */
+    public void publish(Long examRecordId, Long studentId, BehaviorEventType type, Long questionId) {
+        if (examRecordId == null) {
+            return;
+        }
+        BehaviorEvent event = new BehaviorEvent(examRecordId, studentId, type, questionId, System.currentTimeMillis());
+        if (!queue.offer(event)) {
+            long dropped = droppedEvents.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                System.err.println("防作弊事件队列已满，累计丢弃 " + dropped + " 个事件");
+            }
+        }
+    }
+
+    private void consume() {
+        List<BehaviorEvent> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        Map<Long, String> detections = new LinkedHashMap<>();
+        while (running) {
+            try {
+                BehaviorEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                    for (BehaviorEvent event : batch) {
+                        process(event, detections);
+                    }
+                    batch.clear();
+                    flushDetections(detections);
+                    flushLongBlurs();
+                }
+                sweepIdle();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                batch.clear();
+                longBlurs.clear();
+                System.err.println("防作弊规则引擎处理失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private void process(BehaviorEvent event, Map<Long, String> detections) {
+        long now = event.getTimestamp();
+        RecordWindow window = windows.get(event.getExamRecordId());
+        if (window == null) {
+            window = new RecordWindow(ringCapacity);
+            windows.put(event.getExamRecordId(), window);
+        }
+        window.lastEventAt = now;
+
+        BehaviorEventType type = event.getType();
+        if (type == BehaviorEventType.BLUR) {
+            if (window.blurStart == 0) {
+                window.blurStart = now;
+            }
+        } else if (type == BehaviorEventType.FOCUS) {
+            boolean longBlur = window.blurStart != 0 && now - window.blurStart > properties.getLongBlurMs();
+            window.blurStart = 0;
+            if (longBlur) {
+                // 长时间失焦按一次切屏参与切屏规则评估，命中结果和本批其他检测结果一起写库
+                BehaviorEvent switchEvent = new BehaviorEvent(event.getExamRecordId(), event.getStudentId(),
+                        BehaviorEventType.SWITCH, null, now);
+                longBlurs.add(switchEvent);
+                process(switchEvent, detections);
+            }
+        } else if (type == BehaviorEventType.ANSWER) {
+            // 同一题目的多次保存（自动保存）不计入作答间隔
+            if (event.getQuestionId() == null || event.getQuestionId() == window.lastQuestionId) {
+                return;
+            }
+            window.lastQuestionId = event.getQuestionId();
+        }
+
+        int typeIndex = type.ordinal();
+        if (ringCapacity[typeIndex] == 0) {
+            return;
+        }
+        window.add(typeIndex, now);
+
+        for (int i = 0; i < rules.size(); i++) {
+            AntiCheatRuleProperties.Rule rule = rules.get(i);
+            if (rule.getEventType() != type || (window.fired & (1L << i)) != 0) {
+                continue;
+            }
+            if (matches(rule, window, typeIndex)) {
+                // 每条规则对同一考生只触发一次
+                window.fired |= 1L << i;
+                detections.merge(event.getExamRecordId(), reasonOf(rule), (a, b) -> a + "；" + b);
+            }
+        }
+    }
+
+    private boolean matches(AntiCheatRuleProperties.Rule rule, RecordWindow window, int typeIndex) {
+        int count = rule.getCount();
+        if (rule.getMode() == AntiCheatRuleProperties.Mode.INTERVAL) {
+            if (window.sizes[typeIndex] < count + 1) {
+                return false;
+            }
+            for (int k = 0; k < count; k++) {
+                if (window.recent(typeIndex, k) - window.recent(typeIndex, k + 1) >= rule.getMaxIntervalMs()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (window.sizes[typeIndex] < count) {
+            return false;
+        }
+        return window.recent(typeIndex, 0) - window.recent(typeIndex, count - 1) <= rule.getWindowSeconds() * 1000;
+    }
+
+    private String reasonOf(AntiCheatRuleProperties.Rule rule) {
+        if (rule.getReason() != null && !rule.getReason().isEmpty()) {
+            return rule.getReason();
+        }
+        if (rule.getMode() == AntiCheatRuleProperties.Mode.INTERVAL) {
+            return "连续" + rule.getCount() + "次" + rule.getEventType() + "事件间隔小于" + rule.getMaxIntervalMs() + "毫秒";
+        }
+        return rule.getWindowSeconds() + "秒内" + rule.getEventType() + "事件达到" + rule.getCount() + "次";
+    }
+
+    private void flushDetections(Map<Long, String> detections) {
+        if (detections.isEmpty()) {
+            return;
+        }
+        try {
+            examRecordMapper.batchMarkCheating(detections);
+            examMetrics.recordCheatingMarkBatch(detections.size());
+        } catch (Exception e) {
+            System.err.println("批量标记作弊失败: " + detections.keySet() + ", 错误: " + e.getMessage());
+        }
+        detections.clear();
+    }
+
+    private void flushLongBlurs() {
+        if (longBlurs.isEmpty()) {
+            return;
+        }
+        try {
+            longBlurListener.accept(longBlurs);
+        } catch (Exception e) {
+            System.err.println("处理长时间失焦失败: " + longBlurs.size() + " 个事件, 错误: " + e.getMessage());
+        }
+        longBlurs.clear();
+    }
+
+    private void sweepIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweepAt < SWEEP_INTERVAL_MS) {
+            return;
+        }
+        lastSweepAt = now;
+        Iterator<RecordWindow> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastEventAt > idleTimeoutMs) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 单个考试记录的窗口状态：每种事件类型一个时间戳环形缓冲区
+     */
+    private static final class RecordWindow {
+        private final long[][] rings;
+        private final int[] heads;
+        private final int[] sizes;
+        private long lastEventAt;
+        private long blurStart;
+        private long lastQuestionId;
+        // 已触发的规则位图
+        private long fired;
+
+        RecordWindow(int[] capacity) {
+            rings = new long[capacity.length][];
+            heads = new int[capacity.length];
+            sizes = new int[capacity.length];
+            for (int i = 0; i < capacity.length; i++) {
+                if (capacity[i] > 0) {
+                    rings[i] = new long[capacity[i]];
+                }
+            }
+        }
+
+        void add(int type, long timestamp) {
+            long[] ring = rings[type];
+            ring[heads[type]] = timestamp;
+            heads[type] = (heads[type] + 1) % ring.length;
+            if (sizes[type] < ring.length) {
+                sizes[type]++;
+            }
+        }
+
+        /**
+         * 第 k 个最近的时间戳（k=0 为最新）
+         */
+        long recent(int type, int k) {
+            long[] ring = rings[type];
+            return ring[(heads[type] - 1 - k + ring.length * 2) % ring.length];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.exam.excute.service.rule;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 防作弊规则配置（exam.anti-cheat.rule-engine）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.anti-cheat.rule-engine")
+public class AntiCheatRuleProperties {
+
+    /**
+     * 事件队列容量，队列满时丢弃新事件（不阻塞 WebSocket 线程）
+     */
+    private int queueCapacity = 65536;
+
+    /**
+     * 失焦超过该时长后再聚焦，按一次切屏处理（参与切屏规则评估并计入累计切屏次数），单位：毫秒
+     */
+    private long longBlurMs = 10000;
+
+    /**
+     * 滑动窗口规则列表
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * 滑动窗口规则
+     * COUNT：window-seconds 秒内出现 count 次 event-type 事件
+     * INTERVAL：连续 count 个 event-type 事件间隔都小于 max-interval-ms（答案事件只统计切换到新题目的保存）
+     */
+    @Data
+    public static class Rule {
+        /**
+         * 规则名称
+         */
+        private String name;
+
+        /**
+         * 事件类型
+         */
+        private BehaviorEventType eventType;
+
+        /**
+         * 规则模式：COUNT / INTERVAL
+         */
+        private Mode mode = Mode.COUNT;
+
+        /**
+         * 触发次数
+         */
+        private int count;
+
+        /**
+         * 窗口大小（COUNT 模式），单位：秒
+         */
+        private long windowSeconds;
+
+        /**
+         * 最大间隔（INTERVAL 模式），单位：毫秒
+         */
+        private long maxIntervalMs;
+
+        /**
+         * 作弊原因，为空时按规则自动生成
+         */
+        private String reason;
+    }
+
+    public enum Mode {
+        COUNT,
+        INTERVAL
+    }
+}
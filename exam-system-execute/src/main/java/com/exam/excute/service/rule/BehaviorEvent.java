@@ -0,0 +1,36 @@
+package com.exam.excute.service.rule;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 考生行为事件（进入规则引擎的事件流）
+ */
+@Data
+@AllArgsConstructor
+public class BehaviorEvent {
+    /**
+     * 考试记录ID
+     */
+    private Long examRecordId;
+
+    /**
+     * 学生ID（答案事件可能为空）
+     */
+    private Long studentId;
+
+    /**
+     * 事件类型
+     */
+    private BehaviorEventType type;
+
+    /**
+     * 题目ID（仅答案事件）
+     */
+    private Long questionId;
+
+    /**
+     * 服务端接收时间（毫秒），不使用客户端时间
+     */
+    private long timestamp;
+}
@@ -0,0 +1,27 @@
+package com.exam.excute.service.rule;
+
+/**
+ * 考生行为事件类型
+ */
+public enum BehaviorEventType {
+    /**
+     * 切屏
+     */
+    SWITCH,
+    /**
+     * 窗口失焦
+     */
+    BLUR,
+    /**
+     * 窗口聚焦
+     */
+    FOCUS,
+    /**
+     * 心跳
+     */
+    HEARTBEAT,
+    /**
+     * 保存答案
+     */
+    ANSWER
+}
@@ -0,0 +1,138 @@
+package com.exam.excute.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 获取客户端IP
+ * X-Forwarded-For、X-Real-IP 可以由客户端任意填写，只有连接的对端是配置的可信代理（exam.client-ip.trusted-proxies）时才读取，
+ * 否则直接使用对端地址，避免伪造请求头绕过按IP限流
+ */
+@Component
+public class ClientIpUtil {
+
+    // 可信代理：逗号分隔的IP或网段（如 10.0.0.0/8），为空时不信任任何转发请求头
+    @Value("${exam.client-ip.trusted-proxies:}")
+    private String trustedProxies;
+
+    private List<Range> trustedRanges = List.of();
+
+    @PostConstruct
+    public void init() {
+        List<Range> ranges = new ArrayList<>();
+        for (String item : trustedProxies.split(",")) {
+            if (!item.isBlank()) {
+                ranges.add(Range.parse(item.trim()));
+            }
+        }
+        trustedRanges = ranges;
+    }
+
+    /**
+     * HTTP 请求的客户端IP
+     */
+    public String fromRequest(HttpServletRequest request) {
+        return resolve(request.getHeader("X-Forwarded-For"), request.getHeader("X-Real-IP"), request.getRemoteAddr());
+    }
+
+    /**
+     * 选择客户端IP
+     * 对端不是可信代理：对端地址
+     * 对端是可信代理：X-Forwarded-For 从右向左第一个不是可信代理的地址（左侧的地址可能是客户端自己填写的）> X-Real-IP > 对端地址
+     */
+    public String resolve(String forwardedFor, String realIp, String remoteAddr) {
+        if (remoteAddr == null || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (hop.isEmpty() || "unknown".equalsIgnoreCase(hop)) {
+                    break;
+                }
+                if (i == 0 || !isTrusted(hop)) {
+                    return hop;
+                }
+            }
+        }
+        if (realIp != null && !realIp.isBlank()) {
+            return realIp.trim();
+        }
+        return remoteAddr;
+    }
+
+    private boolean isTrusted(String ip) {
+        if (trustedRanges.isEmpty()) {
+            return false;
+        }
+        byte[] address = Range.toBytes(ip);
+        if (address == null) {
+            return false;
+        }
+        for (Range range : trustedRanges) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 可信代理的IP网段
+     */
+    private record Range(byte[] network, int prefixLength) {
+
+        static Range parse(String text) {
+            int slash = text.indexOf('/');
+            byte[] network = toBytes(slash >= 0 ? text.substring(0, slash) : text);
+            if (network == null) {
+                throw new IllegalArgumentException("可信代理配置不是IP地址: " + text);
+            }
+            int prefixLength = slash >= 0 ? Integer.parseInt(text.substring(slash + 1)) : network.length * 8;
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("可信代理网段前缀长度不正确: " + text);
+            }
+            return new Range(network, prefixLength);
+        }
+
+        /**
+         * IP字面量转为字节（不做DNS解析），不是IP字面量时返回 null
+         */
+        static byte[] toBytes(String ip) {
+            if (ip.isEmpty() || ip.indexOf(':') < 0 && !ip.chars().allMatch(c -> c == '.' || Character.isDigit(c))) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(ip).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
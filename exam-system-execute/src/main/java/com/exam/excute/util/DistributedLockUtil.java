@@ -1,7 +1,8 @@
 package com.exam.excute.util;
 
+import com.exam.excute.service.ExamMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
@@ -17,7 +18,10 @@ import java.util.concurrent.TimeUnit;
 public class DistributedLockUtil {
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ExamMetrics examMetrics;
 
     // Lua脚本：释放锁（确保只释放自己持有的锁）
     private static final String UNLOCK_SCRIPT = 
@@ -34,14 +38,11 @@ public class DistributedLockUtil {
      * @return 锁的value，如果获取失败返回null
      */
     public String tryLock(String lockKey, long timeout) {
-        String lockValue = UUID.randomUUID().toString();
-        Boolean success = redisTemplate.opsForValue()
-            .setIfAbsent(lockKey, lockValue, timeout, TimeUnit.SECONDS);
-        
-        if (Boolean.TRUE.equals(success)) {
-            return lockValue;
+        String lockValue = acquire(lockKey, timeout);
+        if (lockValue == null) {
+            examMetrics.recordLockFailure(lockKey);
         }
-        return null;
+        return lockValue;
     }
 
     /**
@@ -56,7 +57,7 @@ public class DistributedLockUtil {
         String lockValue = null;
         
         while (System.currentTimeMillis() < endTime) {
-            lockValue = tryLock(lockKey, timeout);
+            lockValue = acquire(lockKey, timeout);
             if (lockValue != null) {
                 return lockValue;
             }
@@ -66,10 +67,23 @@ public class DistributedLockUtil {
                 Thread.sleep(50); // 50ms
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                return null;
+                break;
             }
         }
         
+        // 等待期间的重试不计入，超时后只记一次获取失败
+        examMetrics.recordLockFailure(lockKey);
+        return null;
+    }
+
+    private String acquire(String lockKey, long timeout) {
+        String lockValue = UUID.randomUUID().toString();
+        Boolean success = stringRedisTemplate.opsForValue()
+            .setIfAbsent(lockKey, lockValue, timeout, TimeUnit.SECONDS);
+        
+        if (Boolean.TRUE.equals(success)) {
+            return lockValue;
+        }
         return null;
     }
 
@@ -88,7 +102,7 @@ public class DistributedLockUtil {
         script.setScriptText(UNLOCK_SCRIPT);
         script.setResultType(Long.class);
         
-        Long result = redisTemplate.execute(script, 
+        Long result = stringRedisTemplate.execute(script, 
             Collections.singletonList(lockKey), 
             lockValue);
         
@@ -0,0 +1,131 @@
+package com.exam.excute.util;
+
+/**
+ * long -> long 开放寻址哈希表（线性探测），避免 Long 装箱和 Entry 对象分配
+ * key 必须为正数（0 作为空槽标记），非线程安全，调用方自行加锁
+ */
+public final class LongLongHashMap {
+
+    /**
+     * key 不存在时 get/put/remove 的返回值
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 写入 key 对应的值
+     * @return 旧值，key 不存在时返回 {@link #MISSING}
+     */
+    public long put(long key, long value) {
+        checkKey(key);
+        int index = indexOf(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                long previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 {@link #MISSING}
+     */
+    public long get(long key) {
+        int index = indexOf(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * 删除 key（后移删除，不留墓碑）
+     * @return 被删除的值，不存在时返回 {@link #MISSING}
+     */
+    public long remove(long key) {
+        int index = indexOf(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                long previous = values[index];
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 删除 index 处的元素后，把后续同一探测链上的元素前移，保证查找不断链
+     */
+    private void shiftBack(int index) {
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int ideal = indexOf(keys[next]);
+            // ideal 不在 (gap, next] 区间内时，元素可以移到 gap
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0L;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("key必须为正数: " + key);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.exam.excute.perf;
+
+import com.exam.excute.service.AnswerSyncScheduler;
+import com.exam.excute.service.ExamSubmitScheduler;
+import com.exam.excute.service.ExamSyncService;
+import com.exam.excute.service.ExamTokenService;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 执行模块性能测试：模拟整场考试（进入考试 -> 并发保存答案 -> 定时同步入库 -> 时间耗尽批量提交）
+ * Redis 使用 jedis-mock，MySQL 使用 H2，不依赖任何外部服务，随 mvn test 执行
+ * 普通 mvn test 只校验结果正确性，吞吐量和延迟只输出到日志；使用 perf profile 时超出预算测试失败，
+ * 预算和规模可以通过系统属性调整，例如：
+ * mvn test -Pperf -pl exam-system-execute -Dperf.students=5000 -Dperf.save.min-ops=3000
+ */
+@SpringBootTest(classes = PerfTestApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:exam_perf;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:perf-schema.sql",
+        "mybatis.configuration.map-underscore-to-camel-case=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ExamExecuteLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamExecuteLoadTest.class);
+
+    // 是否校验吞吐量、延迟预算（perf profile 开启），共享或较慢的 CI 机器上默认只输出结果
+    private static final boolean ENFORCE_BUDGETS = Boolean.getBoolean("perf.enforce-budgets");
+
+    // 规模
+    private static final int STUDENTS = Integer.getInteger("perf.students", 1000);
+    private static final int QUESTIONS = Integer.getInteger("perf.questions", 10);
+    private static final int THREADS = Integer.getInteger("perf.threads", 16);
+
+    // 预算：默认值约为内嵌替身（单线程 jedis-mock + H2）在单核机器上实测值的 1/3 ~ 1/2，留出 CI 机器的波动余量
+    // 真实 Redis/MySQL 上会快得多，压测环境可以通过系统属性收紧
+    private static final long START_MIN_OPS = Long.getLong("perf.start.min-ops", 200);
+    private static final long SAVE_MIN_OPS = Long.getLong("perf.save.min-ops", 300);
+    private static final double SAVE_MAX_P99_MS = Double.parseDouble(System.getProperty("perf.save.max-p99-ms", "300"));
+    private static final long SYNC_MAX_MS = Long.getLong("perf.sync.max-ms", 30000);
+    private static final long SUBMIT_MAX_MS = Long.getLong("perf.submit.max-ms", 30000);
+
+    private static final long EXAM_ID = 1L;
+    private static final long PAPER_ID = 1L;
+
+    private static final RedisServer REDIS = startRedis();
+
+    @Autowired
+    private ExamSyncService examSyncService;
+
+    @Autowired
+    private ExamTokenService examTokenService;
+
+    @Autowired
+    private AnswerSyncScheduler answerSyncScheduler;
+
+    @Autowired
+    private ExamSubmitScheduler examSubmitScheduler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String examToken;
+    private final List<Long> examRecordIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", REDIS::getHost);
+        registry.add("spring.data.redis.port", REDIS::getBindPort);
+    }
+
+    private static RedisServer startRedis() {
+        try {
+            return RedisServer.newRedisServer().start();
+        } catch (IOException e) {
+            throw new IllegalStateException("启动 Redis 替身失败", e);
+        }
+    }
+
+    @AfterAll
+    void stopRedis() throws IOException {
+        REDIS.stop();
+    }
+
+    @Test
+    @Order(1)
+    void studentsStartExamConcurrently() throws Exception {
+        examToken = examTokenService.issueToken(EXAM_ID, LocalDateTime.now().plusHours(2));
+
+        LatencyRecorder latency = new LatencyRecorder(STUDENTS);
+        List<Long> ids = new ArrayList<>(STUDENTS);
+        long elapsed = runConcurrently(STUDENTS, i -> {
+            long begin = System.nanoTime();
+            Long examRecordId = examSyncService.startExam(EXAM_ID, 10_000L + i, PAPER_ID);
+            latency.record(System.nanoTime() - begin);
+            synchronized (ids) {
+                ids.add(examRecordId);
+            }
+        });
+        examRecordIds.addAll(ids);
+
+        long opsPerSecond = opsPerSecond(STUDENTS, elapsed);
+        report("进入考试", opsPerSecond, latency);
+        assertEquals(STUDENTS, examRecordIds.stream().distinct().count());
+        assertWithinBudget(opsPerSecond >= START_MIN_OPS, "进入考试吞吐量低于预算: " + opsPerSecond + " < " + START_MIN_OPS);
+    }
+
+    @Test
+    @Order(2)
+    void studentsSaveAnswersConcurrently() throws Exception {
+        int total = STUDENTS * QUESTIONS;
+        LatencyRecorder latency = new LatencyRecorder(total);
+        // 每个考生按题目顺序作答，不同考生并发
+        long elapsed = runConcurrently(total, i -> {
+            Long examRecordId = examRecordIds.get(i % STUDENTS);
+            long questionId = i / STUDENTS + 1;
+            long begin = System.nanoTime();
+            examSyncService.saveAnswerRealtime(examRecordId, questionId, answerOf(examRecordId, questionId), 2L, examToken);
+            latency.record(System.nanoTime() - begin);
+        });
+
+        long opsPerSecond = opsPerSecond(total, elapsed);
+        report("保存答案", opsPerSecond, latency);
+
+        // 重试或乱序到达的旧版本不能覆盖新答案
+        Long probe = examRecordIds.get(0);
+        assertFalse(examSyncService.saveAnswerRealtime(probe, 1L, "stale", 1L, examToken));
+        assertEquals(answerOf(probe, 1L), examSyncService.getAnswerFromRedis(probe, 1L, examToken));
+        for (Long examRecordId : examRecordIds) {
+            assertEquals(QUESTIONS, examSyncService.getProgress(examRecordId));
+        }
+        // 被丢弃的旧版本不发布作答事件（不计入答题人数统计）
+        assertEquals(total, PerfTestApplication.ANSWER_EVENTS.get());
+        // 每次保存（包括被丢弃的旧版本）都计入保存计时器；每名考生首次保存时额外登记一次待同步
+        assertEquals(total + 1, meterRegistry.get("exam.answer.save").tag("type", "single").timer().count());
+        assertEquals(total + 1 + STUDENTS,
+                meterRegistry.get("exam.answer.redis.commands").tag("path", "direct").counter().count());
+        assertWithinBudget(opsPerSecond >= SAVE_MIN_OPS, "保存答案吞吐量低于预算: " + opsPerSecond + " < " + SAVE_MIN_OPS);
+        assertWithinBudget(latency.percentileMillis(99) <= SAVE_MAX_P99_MS,
+                "保存答案 p99 延迟超出预算: " + latency.percentileMillis(99) + "ms > " + SAVE_MAX_P99_MS + "ms");
+    }
+
+    @Test
+    @Order(3)
+    void periodicSyncPersistsAllAnswers() {
+        long begin = System.nanoTime();
+        answerSyncScheduler.syncAnswersPeriodically();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        log.info("[perf] 定时同步: records={} answers={} elapsed={}ms", STUDENTS, STUDENTS * QUESTIONS, elapsedMs);
+
+        Integer persisted = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM answer_record", Integer.class);
+        assertEquals(STUDENTS * QUESTIONS, persisted);
+        assertEquals(STUDENTS, meterRegistry.get("exam.answer.sync.records").counter().count());
+        String sample = jdbcTemplate.queryForObject(
+                "SELECT student_answer FROM answer_record WHERE exam_record_id = ? AND question_id = ?",
+                String.class, examRecordIds.get(0), (long) QUESTIONS);
+        assertEquals(answerOf(examRecordIds.get(0), QUESTIONS), sample);
+        assertWithinBudget(elapsedMs <= SYNC_MAX_MS, "定时同步耗时超出预算: " + elapsedMs + "ms > " + SYNC_MAX_MS + "ms");
+    }
+
+    @Test
+    @Order(4)
+    void timeoutSubmissionDrainsAllStudents() {
+        // 试卷：每题单选 10 分，标准答案 A（answerOf 约四分之一的题答对）
+        for (long questionId = 1; questionId <= QUESTIONS; questionId++) {
+            jdbcTemplate.update("INSERT INTO question (id, content, type, answer, score) VALUES (?, ?, 'single_choice', 'A', 10)",
+                    questionId, "题目" + questionId);
+            jdbcTemplate.update("INSERT INTO paper_question (paper_id, question_id, order_num, score) VALUES (?, ?, ?, 10)",
+                    PAPER_ID, questionId, (int) questionId);
+        }
+        long expectedScoreSum = 0;
+        for (Long examRecordId : examRecordIds) {
+            for (long questionId = 1; questionId <= QUESTIONS; questionId++) {
+                expectedScoreSum += "A".equals(answerOf(examRecordId, questionId)) ? 10 : 0;
+            }
+        }
+
+        long begin = System.nanoTime();
+        examSyncService.handleExamTimeout(EXAM_ID);
+        // 定时任务每轮限流处理一批，这里连续触发直到队列清空
+        int rounds = 0;
+        while (examTokenService.hasToken(EXAM_ID)) {
+            examSubmitScheduler.processSubmitQueues();
+            rounds++;
+            assertTrue(rounds <= STUDENTS + 1, "提交队列没有按预期清空");
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        log.info("[perf] 批量提交: students={} rounds={} elapsed={}ms", STUDENTS, rounds, elapsedMs);
+
+        Integer submitted = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM exam_record WHERE exam_id = ? AND status = 'submitted'", Integer.class, EXAM_ID);
+        assertEquals(STUDENTS, submitted);
+        assertEquals(STUDENTS, meterRegistry.get("exam.submit.processed").tag("result", "success").counter().count());
+
+        // 交卷时批改：得分写入考试记录和答题记录，每名考生发布一次批改完成事件
+        Long scoreSum = jdbcTemplate.queryForObject(
+                "SELECT SUM(score) FROM exam_record WHERE exam_id = ? AND total_score = ?", Long.class, EXAM_ID, QUESTIONS * 10);
+        assertEquals(expectedScoreSum, scoreSum);
+        Integer correct = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM answer_record WHERE is_correct = 1", Integer.class);
+        assertEquals(expectedScoreSum / 10, (long) correct);
+        assertEquals(STUDENTS, PerfTestApplication.GRADED_SUBMISSIONS.get());
+        assertEquals(expectedScoreSum, PerfTestApplication.GRADED_SCORE_SUM.get());
+        assertEquals(0L, examSyncService.getProgress(examRecordIds.get(0)));
+        assertWithinBudget(elapsedMs <= SUBMIT_MAX_MS, "批量提交耗时超出预算: " + elapsedMs + "ms > " + SUBMIT_MAX_MS + "ms");
+    }
+
+    private static String answerOf(Long examRecordId, long questionId) {
+        return "ABCD".charAt((int) ((examRecordId + questionId) % 4)) + "";
+    }
+
+    /**
+     * 用固定线程池并发执行 total 次操作，返回总耗时（纳秒）
+     */
+    private static long runConcurrently(int total, IndexedTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            AtomicInteger next = new AtomicInteger();
+            long begin = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < total) {
+                        task.run(i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long opsPerSecond(int total, long elapsedNanos) {
+        return total * 1_000_000_000L / Math.max(1, elapsedNanos);
+    }
+
+    private static void report(String name, long opsPerSecond, LatencyRecorder latency) {
+        log.info("[perf] {}: {} ops/s, {}", name, opsPerSecond, latency.summary());
+    }
+
+    /**
+     * 预算检查：perf profile 下不满足时测试失败，否则只记录警告
+     */
+    private static void assertWithinBudget(boolean withinBudget, String message) {
+        if (ENFORCE_BUDGETS) {
+            assertTrue(withinBudget, message);
+        } else if (!withinBudget) {
+            log.warn("[perf] {}（未开启 perf profile，不判定失败）", message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+}
@@ -0,0 +1,49 @@
+package com.exam.excute.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 延迟记录器：每次操作的耗时（纳秒）写入预分配数组，结束后排序计算分位数
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+    private long[] sorted;
+
+    public LatencyRecorder(int capacity) {
+        samples = new long[capacity];
+    }
+
+    public void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    public int count() {
+        return Math.min(count.get(), samples.length);
+    }
+
+    /**
+     * 分位数（毫秒），percentile 取值 0~100
+     */
+    public double percentileMillis(double percentile) {
+        if (sorted == null) {
+            sorted = Arrays.copyOf(samples, count());
+            Arrays.sort(sorted);
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    public String summary() {
+        return String.format("count=%d p50=%.2fms p99=%.2fms max=%.2fms",
+                count(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
@@ -0,0 +1,100 @@
+package com.exam.excute.perf;
+
+import com.exam.excute.config.RedisConfig;
+import com.exam.excute.service.AnswerSyncScheduler;
+import com.exam.excute.service.AnswerWriteBehindBuffer;
+import com.exam.excute.service.AntiCheatService;
+import com.exam.excute.service.ExamActivityEvent;
+import com.exam.excute.service.ExamMessagePublisher;
+import com.exam.excute.service.ExamGradingService;
+import com.exam.excute.service.ExamMetrics;
+import com.exam.excute.service.ExamSubmissionGradedEvent;
+import com.exam.excute.service.ExamSubmitScheduler;
+import com.exam.excute.service.ExamSyncService;
+import com.exam.excute.service.ExamTokenService;
+import com.exam.excute.service.HeartbeatTracker;
+import com.exam.excute.service.ProgressPushDispatcher;
+import com.exam.excute.service.rule.AntiCheatRuleEngine;
+import com.exam.excute.service.rule.AntiCheatRuleProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 性能测试用的最小 Spring 上下文：只装配执行模块的同步/提交相关组件
+ * Redis 使用内嵌的 jedis-mock，MySQL 使用 H2（MySQL 兼容模式），不需要部署任何外部服务
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@MapperScan({"com.exam.excute.dal.mysqlmapper", "com.exam.manage.dal.mysqlmapper"})
+@Import({
+        RedisConfig.class,
+        ExamSyncService.class,
+        ExamTokenService.class,
+        AnswerWriteBehindBuffer.class,
+        ProgressPushDispatcher.class,
+        ExamMessagePublisher.class,
+        ExamMetrics.class,
+        ExamGradingService.class,
+        HeartbeatTracker.class,
+        AntiCheatService.class,
+        AntiCheatRuleEngine.class,
+        AntiCheatRuleProperties.class,
+        AnswerSyncScheduler.class,
+        ExamSubmitScheduler.class
+})
+public class PerfTestApplication {
+
+    /**
+     * WebSocket 推送计数（测试中没有消息代理，推送只计数）
+     */
+    public static final AtomicLong PUSHED_MESSAGES = new AtomicLong();
+
+    /**
+     * 交卷批改完成事件计数和得分合计（统计分析模块不在测试上下文中）
+     */
+    public static final AtomicLong GRADED_SUBMISSIONS = new AtomicLong();
+    public static final AtomicLong GRADED_SCORE_SUM = new AtomicLong();
+
+    /**
+     * 作答活动事件计数（只有实际写入的保存才发布）
+     */
+    public static final AtomicLong ANSWER_EVENTS = new AtomicLong();
+
+    @Bean
+    public SimpMessagingTemplate simpMessagingTemplate() {
+        return new SimpMessagingTemplate((message, timeout) -> {
+            PUSHED_MESSAGES.incrementAndGet();
+            return true;
+        });
+    }
+
+    @EventListener
+    public void onSubmissionGraded(ExamSubmissionGradedEvent event) {
+        GRADED_SUBMISSIONS.incrementAndGet();
+        GRADED_SCORE_SUM.addAndGet(event.getScore());
+    }
+
+    @EventListener
+    public void onActivity(ExamActivityEvent event) {
+        if (event.getType() == ExamActivityEvent.Type.ANSWER) {
+            ANSWER_EVENTS.incrementAndGet();
+        }
+    }
+
+    /**
+     * 指标注册表（测试中不引入 Actuator，用内存注册表校验指标）
+     */
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
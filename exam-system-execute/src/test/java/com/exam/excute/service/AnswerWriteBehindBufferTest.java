@@ -0,0 +1,156 @@
+package com.exam.excute.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 答案写缓冲：刷新后到达的旧版本被拒绝；崩溃后按分段顺序回放日志，已提交考生（结束标记）的答案不回放；
+ * 刷新成功后删除已封存的分段
+ */
+class AnswerWriteBehindBufferTest {
+
+    private static final long WAIT_MS = 5000;
+    private static final long SEGMENT_ROTATE_MS = 50;
+
+    @TempDir
+    Path journalDir;
+
+    private final List<AnswerWriteBehindBuffer> buffers = new ArrayList<>();
+
+    // 刷入的答案：{examRecordId}:{questionId} -> 答案
+    private final Map<String, String> flushed = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        for (AnswerWriteBehindBuffer buffer : buffers) {
+            buffer.shutdown();
+        }
+    }
+
+    private AnswerWriteBehindBuffer start(Consumer<List<AnswerWriteBehindBuffer.BufferedAnswer>> flusher) {
+        AnswerWriteBehindBuffer buffer = new AnswerWriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(buffer, "journalPath", journalDir.resolve("answer-journal.log").toString());
+        ReflectionTestUtils.setField(buffer, "segmentRotateMs", SEGMENT_ROTATE_MS);
+        buffer.start(flusher);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private void record(List<AnswerWriteBehindBuffer.BufferedAnswer> answers) {
+        for (AnswerWriteBehindBuffer.BufferedAnswer answer : answers) {
+            flushed.put(answer.getExamRecordId() + ":" + answer.getQuestionId(), answer.getStudentAnswer());
+        }
+    }
+
+    /**
+     * 模拟节点崩溃：Redis 不可用时停机，缓冲中的答案只留在日志中
+     */
+    private void crash(AnswerWriteBehindBuffer buffer) {
+        buffer.shutdown();
+        buffers.remove(buffer);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void staleVersionAfterFlushIsRejected() throws Exception {
+        AnswerWriteBehindBuffer buffer = start(this::record);
+        assertTrue(buffer.put(1L, 1L, "A", 1L, "token"));
+        assertTrue(buffer.put(1L, 1L, "B", 2L, "token"));
+        assertFalse(buffer.put(1L, 1L, "stale", 1L, "token"));
+        await(() -> !buffer.hasPending(), "刷新");
+        assertEquals("B", flushed.get("1:1"));
+
+        // 缓冲中已没有该题目：已刷入的版本号仍然拒绝旧版本重试
+        assertFalse(buffer.put(1L, 1L, "stale", 2L, "token"));
+        assertNull(buffer.get(1L, 1L));
+        assertTrue(buffer.put(1L, 1L, "C", 3L, "token"));
+        await(() -> "C".equals(flushed.get("1:1")), "刷新新版本");
+    }
+
+    @Test
+    void replayAcrossRotatedSegmentsKeepsLatestAnswer() throws Exception {
+        AnswerWriteBehindBuffer buffer = start(answers -> {
+            throw new IllegalStateException("Redis 不可用");
+        });
+        buffer.put(1L, 1L, "A", 1L, "token");
+        buffer.put(1L, 2L, "X", 1L, "token");
+        // 等到分段切换后再写同一题目的新版本
+        await(() -> {
+            try {
+                return segmentFiles() >= 2;
+            } catch (IOException e) {
+                return false;
+            }
+        }, "分段切换");
+        buffer.put(1L, 1L, "B", 2L, "token");
+        crash(buffer);
+
+        AnswerWriteBehindBuffer recovered = start(this::record);
+        await(() -> !recovered.hasPending(), "回放刷新");
+        assertEquals("B", flushed.get("1:1"));
+        assertEquals("X", flushed.get("1:2"));
+        // 刷新成功后回放的分段全部删除，只剩当前分段
+        await(() -> {
+            try {
+                return segmentFiles() == 1;
+            } catch (IOException e) {
+                return false;
+            }
+        }, "删除已刷新的分段");
+    }
+
+    @Test
+    void endMarkerDiscardsSubmittedRecordOnReplay() throws Exception {
+        // 考生 2 的答案一直刷新失败，考生 1 提交前刷新成功并写入结束标记
+        AnswerWriteBehindBuffer buffer = start(answers -> {
+            if (answers.stream().anyMatch(answer -> answer.getExamRecordId() == 2L)) {
+                throw new IllegalStateException("Redis 不可用");
+            }
+            record(answers);
+        });
+        buffer.put(1L, 1L, "A", 1L, "token");
+        buffer.put(2L, 1L, "B", 1L, "token");
+        buffer.flushRecord(1L);
+        assertEquals("A", flushed.remove("1:1"));
+        crash(buffer);
+
+        AnswerWriteBehindBuffer recovered = start(this::record);
+        await(() -> !recovered.hasPending(), "回放刷新");
+        assertEquals(Map.of("2:1", "B"), flushed);
+    }
+
+    private static void await(BooleanSupplier condition, String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(name + "超时（" + WAIT_MS + "ms）");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.service.rule.AntiCheatRuleEngine;
+import com.exam.excute.service.rule.AntiCheatRuleProperties;
+import com.exam.manage.util.ExamRedisKeys;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 切屏累计次数（jedis-mock）：长时间失焦由规则引擎按批回调，和普通切屏一起计入 Redis 累计次数、
+ * 进入待刷新集合，并参与累计阈值判定
+ */
+class AntiCheatServiceTest {
+
+    private static final long EXAM_RECORD_ID = 1L;
+    private static final long STUDENT_ID = 100L;
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate template;
+    private ExamRecordMapper examRecordMapper;
+    private AntiCheatRuleEngine engine;
+    private AntiCheatService antiCheatService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        template = new StringRedisTemplate(connectionFactory);
+
+        examRecordMapper = mock(ExamRecordMapper.class);
+        AntiCheatRuleProperties properties = new AntiCheatRuleProperties();
+        properties.setLongBlurMs(1);
+        engine = new AntiCheatRuleEngine();
+        ReflectionTestUtils.setField(engine, "properties", properties);
+        ReflectionTestUtils.setField(engine, "examRecordMapper", examRecordMapper);
+        ReflectionTestUtils.setField(engine, "examMetrics", mock(ExamMetrics.class));
+        engine.start();
+
+        antiCheatService = new AntiCheatService();
+        ReflectionTestUtils.setField(antiCheatService, "examRecordMapper", examRecordMapper);
+        ReflectionTestUtils.setField(antiCheatService, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(antiCheatService, "antiCheatRuleEngine", engine);
+        ReflectionTestUtils.setField(antiCheatService, "examMetrics", mock(ExamMetrics.class));
+        ReflectionTestUtils.setField(antiCheatService, "maxSwitchCount", 5);
+        antiCheatService.registerListeners();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        engine.shutdown();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void longBlursCountTowardsCumulativeThreshold() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            antiCheatService.recordSwitch(EXAM_RECORD_ID, STUDENT_ID);
+        }
+        verify(examRecordMapper, never()).markCheating(anyLong(), anyString());
+
+        // 两次长时间失焦：累计达到 5 次
+        for (int i = 0; i < 2; i++) {
+            antiCheatService.recordBlur(EXAM_RECORD_ID, STUDENT_ID);
+            Thread.sleep(10);
+            antiCheatService.recordFocus(EXAM_RECORD_ID, STUDENT_ID);
+        }
+
+        verify(examRecordMapper, timeout(5000)).markCheating(EXAM_RECORD_ID, "切屏次数超过限制（5次）");
+        String key = ExamRedisKeys.switchCount(EXAM_RECORD_ID, STUDENT_ID);
+        assertEquals("5", template.opsForValue().get(key));
+
+        antiCheatService.flushSwitchCount(EXAM_RECORD_ID);
+        verify(examRecordMapper).batchUpdateSwitchCount(Map.of(EXAM_RECORD_ID, 5L));
+    }
+}
@@ -0,0 +1,126 @@
+package com.exam.excute.service;
+
+import com.exam.excute.config.RedisBroadcastConfig;
+import com.exam.excute.config.RedisConfig;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * redis 广播模式的跨节点分发：两个节点连接同一个 Redis（jedis-mock），
+ * 任一节点发布的推送都由两个节点各自投递给本地 WebSocket 客户端，且只投递一次
+ */
+class ExamMessageBroadcastTest {
+
+    private RedisServer redis;
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        nodeA = new Node(redis, "redis");
+        nodeB = new Node(redis, "redis");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        nodeA.stop();
+        nodeB.stop();
+        redis.stop();
+    }
+
+    @Test
+    void pushFromOneNodeIsDeliveredByEveryNode() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("examRecordId", 42);
+        payload.put("answeredCount", 7);
+
+        nodeA.publisher.send("/topic/exam/progress/42", payload);
+
+        verify(nodeA.messagingTemplate, timeout(5000)).convertAndSend("/topic/exam/progress/42", (Object) payload);
+        verify(nodeB.messagingTemplate, timeout(5000)).convertAndSend("/topic/exam/progress/42", (Object) payload);
+        // 每个节点只投递一次
+        verify(nodeA.messagingTemplate, after(300).times(1)).convertAndSend(anyString(), any(Object.class));
+        verify(nodeB.messagingTemplate, times(1)).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void pushesFromBothNodesReachBothNodes() {
+        nodeA.publisher.send("/topic/exam/1/notice", "from-a");
+        nodeB.publisher.send("/topic/exam/1/notice", "from-b");
+
+        for (Node node : new Node[]{nodeA, nodeB}) {
+            verify(node.messagingTemplate, timeout(5000)).convertAndSend("/topic/exam/1/notice", (Object) "from-a");
+            verify(node.messagingTemplate, timeout(5000)).convertAndSend("/topic/exam/1/notice", (Object) "from-b");
+        }
+    }
+
+    @Test
+    void simpleModeDeliversLocallyWithoutRedis() throws IOException {
+        Node simple = new Node(redis, "simple");
+        try {
+            simple.publisher.send("/topic/exam/1/notice", "local");
+
+            verify(simple.messagingTemplate).convertAndSend("/topic/exam/1/notice", (Object) "local");
+            verify(nodeA.messagingTemplate, after(300).never()).convertAndSend(anyString(), any(Object.class));
+        } finally {
+            simple.stop();
+        }
+    }
+
+    /**
+     * 一个应用节点：独立的 Redis 连接、消息发布器和广播订阅（与 RedisConfig、RedisBroadcastConfig 的装配一致）
+     */
+    private static final class Node {
+        private final LettuceConnectionFactory connectionFactory;
+        private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        private final ExamMessagePublisher publisher = new ExamMessagePublisher();
+        private RedisMessageListenerContainer container;
+
+        private Node(RedisServer redis, String brokerMode) {
+            connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(redis.getHost(), redis.getBindPort()));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+
+            ReflectionTestUtils.setField(publisher, "messagingTemplate", messagingTemplate);
+            ReflectionTestUtils.setField(publisher, "redisTemplate", redisTemplate);
+            ReflectionTestUtils.setField(publisher, "brokerMode", brokerMode);
+
+            if ("redis".equals(brokerMode)) {
+                container = new RedisBroadcastConfig().examBroadcastListenerContainer(connectionFactory, publisher);
+                container.afterPropertiesSet();
+                container.start();
+            }
+        }
+
+        private void stop() {
+            if (container != null) {
+                container.stop();
+            }
+            connectionFactory.destroy();
+        }
+    }
+}
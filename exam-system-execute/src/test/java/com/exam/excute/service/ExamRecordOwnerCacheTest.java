@@ -0,0 +1,82 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 考试记录归属校验：开始考试后校验不访问数据库；其他节点开始的考试从 Redis 读取；
+ * Redis 未命中或不可用时才查数据库，查到后回填
+ */
+class ExamRecordOwnerCacheTest {
+
+    private ValueOperations<String, String> valueOperations;
+    private ExamRecordMapper examRecordMapper;
+    private ExamRecordOwnerCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(template.opsForValue()).thenReturn(valueOperations);
+        examRecordMapper = mock(ExamRecordMapper.class);
+        cache = new ExamRecordOwnerCache();
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(cache, "examRecordMapper", examRecordMapper);
+    }
+
+    @Test
+    void rememberedOwnerIsCheckedLocally() {
+        cache.remember(1L, 100L);
+
+        assertDoesNotThrow(() -> cache.checkOwner(1L, 100L));
+        assertThrows(RuntimeException.class, () -> cache.checkOwner(1L, 200L));
+        verify(valueOperations, never()).get(any());
+        verify(examRecordMapper, never()).selectById(any());
+    }
+
+    @Test
+    void ownerFromAnotherNodeIsReadFromRedis() {
+        when(valueOperations.get(ExamRedisKeys.recordOwner(1L))).thenReturn("100");
+
+        assertDoesNotThrow(() -> cache.checkOwner(1L, 100L));
+        assertDoesNotThrow(() -> cache.checkOwner(1L, 100L));
+        verify(valueOperations, times(1)).get(any());
+        verify(examRecordMapper, never()).selectById(any());
+    }
+
+    @Test
+    void fallsBackToDatabaseOnlyOnMiss() {
+        when(valueOperations.get(any())).thenThrow(new RedisConnectionFailureException("down"));
+        ExamRecordDO record = new ExamRecordDO();
+        record.setId(1L);
+        record.setStudentId(100L);
+        when(examRecordMapper.selectById(1L)).thenReturn(record);
+
+        assertDoesNotThrow(() -> cache.checkOwner(1L, 100L));
+        assertDoesNotThrow(() -> cache.checkOwner(1L, 100L));
+        verify(examRecordMapper, times(1)).selectById(1L);
+        verify(valueOperations).set(any(), any(), anyLong(), any());
+
+        // 不存在的记录
+        assertThrows(RuntimeException.class, () -> cache.checkOwner(2L, 100L));
+        assertThrows(RuntimeException.class, () -> cache.checkOwner(null, 100L));
+    }
+}
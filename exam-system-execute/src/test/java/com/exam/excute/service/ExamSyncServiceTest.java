@@ -0,0 +1,92 @@
+package com.exam.excute.service;
+
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.dal.mysqlmapper.AnswerRecordMapper;
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 定时同步答案：只同步进行中的考试记录，已提交记录的待同步队列直接丢弃（如其他节点回放日志写回 Redis 的答案）
+ */
+class ExamSyncServiceTest {
+
+    private static final long EXAM_RECORD_ID = 1L;
+    private static final String TOKEN = "token";
+    private static final String SYNC_QUEUE = ExamRedisKeys.syncQueue(EXAM_RECORD_ID, TOKEN);
+
+    private StringRedisTemplate template;
+    private ExamRecordMapper examRecordMapper;
+    private AnswerRecordMapper answerRecordMapper;
+    private ExamSyncService examSyncService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        template = mock(StringRedisTemplate.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(template.opsForSet()).thenReturn(setOperations);
+        when(template.opsForValue()).thenReturn(valueOperations);
+        when(setOperations.members(SYNC_QUEUE)).thenReturn(Set.of("5"));
+        when(valueOperations.get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 5L))).thenReturn("A");
+
+        examRecordMapper = mock(ExamRecordMapper.class);
+        answerRecordMapper = mock(AnswerRecordMapper.class);
+        examSyncService = new ExamSyncService();
+        ReflectionTestUtils.setField(examSyncService, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(examSyncService, "examRecordMapper", examRecordMapper);
+        ReflectionTestUtils.setField(examSyncService, "answerRecordMapper", answerRecordMapper);
+        ReflectionTestUtils.setField(examSyncService, "answerWriteBehindBuffer", new AnswerWriteBehindBuffer());
+        ReflectionTestUtils.setField(examSyncService, "examMetrics", mock(ExamMetrics.class));
+    }
+
+    private void givenStatus(String status) {
+        ExamRecordDO record = new ExamRecordDO();
+        record.setId(EXAM_RECORD_ID);
+        record.setStatus(status);
+        when(examRecordMapper.selectById(EXAM_RECORD_ID)).thenReturn(record);
+    }
+
+    @Test
+    void inProgressRecordIsSynced() {
+        givenStatus("in_progress");
+
+        examSyncService.syncAnswersToDatabase(EXAM_RECORD_ID, TOKEN);
+
+        verify(answerRecordMapper).batchInsert(anyList());
+        verify(template, never()).delete(SYNC_QUEUE);
+    }
+
+    @Test
+    void submittedRecordIsNotRewritten() {
+        givenStatus("submitted");
+
+        examSyncService.syncAnswersToDatabase(EXAM_RECORD_ID, TOKEN);
+
+        verifyNoInteractions(answerRecordMapper);
+        verify(template).delete(SYNC_QUEUE);
+    }
+
+    @Test
+    void missingRecordIsNotWritten() {
+        examSyncService.syncAnswersToDatabase(EXAM_RECORD_ID, TOKEN);
+
+        verifyNoInteractions(answerRecordMapper);
+        verify(template).delete(SYNC_QUEUE);
+    }
+}
@@ -0,0 +1,177 @@
+package com.exam.excute.service;
+
+import com.exam.excute.util.LongLongHashMap;
+import com.exam.manage.util.ExamRedisKeys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 心跳时间轮：持续心跳不超时、停止心跳后判定离线、停止跟踪后不再判定；
+ * 写入离线状态期间到达的心跳不会被离线状态覆盖，写入失败时保留条目下次重试
+ */
+class HeartbeatTrackerTest {
+
+    private static final long EXAM_RECORD_ID = 7L;
+    private static final String KEY = ExamRedisKeys.heartbeat(EXAM_RECORD_ID);
+
+    private StringRedisTemplate template;
+    private ValueOperations<String, String> valueOperations;
+    private HeartbeatTracker tracker;
+    private final List<Long> timeouts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        template = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(template.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfPresent(anyString(), anyString(), anyLong(), eq(TimeUnit.HOURS))).thenReturn(true);
+
+        tracker = new HeartbeatTracker();
+        ReflectionTestUtils.setField(tracker, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(tracker, "timeoutSeconds", 1L);
+        ReflectionTestUtils.setField(tracker, "tickMs", 20L);
+        tracker.start();
+        tracker.setTimeoutListener(timeouts::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    /**
+     * 停止时间轮线程，由测试直接调用到期检查
+     */
+    private void stopWheel() {
+        tracker.shutdown();
+    }
+
+    private void checkExpired() {
+        ReflectionTestUtils.invokeMethod(tracker, "checkExpired", EXAM_RECORD_ID);
+    }
+
+    private void expireLastHeartbeat() {
+        // 把本地心跳时间往前拨到超时之前
+        tracker.heartbeat(EXAM_RECORD_ID);
+        LongLongHashMap[] shards = (LongLongHashMap[]) ReflectionTestUtils.getField(tracker, "shards");
+        LongLongHashMap shard = shards[(int) (EXAM_RECORD_ID & (shards.length - 1))];
+        synchronized (shard) {
+            shard.put(EXAM_RECORD_ID, System.currentTimeMillis() - 5000);
+        }
+    }
+
+    @Test
+    void heartbeatsKeepStudentOnline() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            tracker.heartbeat(EXAM_RECORD_ID);
+            Thread.sleep(100);
+        }
+
+        assertTrue(timeouts.isEmpty());
+        assertFalse(tracker.isTimeout(EXAM_RECORD_ID));
+        // 只在首次心跳时写入在线状态
+        verify(valueOperations).set(KEY, "online", 2, TimeUnit.HOURS);
+        verify(valueOperations, never()).setIfPresent(KEY, "offline", 2, TimeUnit.HOURS);
+    }
+
+    @Test
+    void missingHeartbeatsMarkOffline() {
+        tracker.heartbeat(EXAM_RECORD_ID);
+
+        verify(valueOperations, timeout(3000)).setIfPresent(KEY, "offline", 2, TimeUnit.HOURS);
+        verify(valueOperations, timeout(1000)).set(KEY, "online", 2, TimeUnit.HOURS);
+        assertEqualsEventually(List.of(EXAM_RECORD_ID));
+    }
+
+    @Test
+    void untrackedStudentIsNotChecked() throws InterruptedException {
+        tracker.heartbeat(EXAM_RECORD_ID);
+        tracker.untrack(EXAM_RECORD_ID);
+        Thread.sleep(1500);
+
+        assertTrue(timeouts.isEmpty());
+        verify(template).delete(KEY);
+        verify(valueOperations, never()).setIfPresent(anyString(), eq("offline"), anyLong(), eq(TimeUnit.HOURS));
+    }
+
+    @Test
+    void heartbeatDuringOfflineWriteKeepsStudentOnline() {
+        stopWheel();
+        expireLastHeartbeat();
+        // 写入离线状态期间到达一次心跳
+        when(valueOperations.setIfPresent(KEY, "offline", 2, TimeUnit.HOURS)).thenAnswer(invocation -> {
+            tracker.heartbeat(EXAM_RECORD_ID);
+            return true;
+        });
+
+        checkExpired();
+
+        assertTrue(timeouts.isEmpty());
+        verify(valueOperations).setIfPresent(KEY, "online", 2, TimeUnit.HOURS);
+        assertFalse(tracker.isTimeout(EXAM_RECORD_ID));
+        // 新心跳没有重复写在线状态（条目仍在心跳表中）
+        verify(valueOperations).set(KEY, "online", 2, TimeUnit.HOURS);
+    }
+
+    @Test
+    void failedOfflineWriteIsRetried() {
+        stopWheel();
+        expireLastHeartbeat();
+        when(valueOperations.setIfPresent(KEY, "offline", 2, TimeUnit.HOURS))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(true);
+
+        checkExpired();
+        assertTrue(timeouts.isEmpty());
+        // 条目保留在心跳表中，仍判定为超时
+        assertTrue(tracker.isTimeout(EXAM_RECORD_ID));
+
+        checkExpired();
+        assertEquals(List.of(EXAM_RECORD_ID), timeouts);
+    }
+
+    @Test
+    void submittedOnAnotherNodeIsNotReported() {
+        stopWheel();
+        expireLastHeartbeat();
+        // 在线状态已被其他节点 untrack 删除
+        when(valueOperations.setIfPresent(KEY, "offline", 2, TimeUnit.HOURS)).thenReturn(false);
+
+        checkExpired();
+        checkExpired();
+
+        assertTrue(timeouts.isEmpty());
+        verify(valueOperations).setIfPresent(KEY, "offline", 2, TimeUnit.HOURS);
+    }
+
+    private void assertEqualsEventually(List<Long> expected) {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!expected.equals(timeouts) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, timeouts);
+    }
+}
@@ -0,0 +1,49 @@
+package com.exam.excute.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 客户端IP：只有对端是可信代理时才读取转发请求头，伪造的 X-Forwarded-For 不能改变限流用的IP
+ */
+class ClientIpUtilTest {
+
+    private static ClientIpUtil withTrustedProxies(String trustedProxies) {
+        ClientIpUtil util = new ClientIpUtil();
+        ReflectionTestUtils.setField(util, "trustedProxies", trustedProxies);
+        util.init();
+        return util;
+    }
+
+    @Test
+    void headersIgnoredWhenPeerIsNotTrusted() {
+        ClientIpUtil util = withTrustedProxies("10.0.0.0/8");
+        assertEquals("203.0.113.7", util.resolve("1.2.3.4", "5.6.7.8", "203.0.113.7"));
+
+        ClientIpUtil none = withTrustedProxies("");
+        assertEquals("10.1.2.3", none.resolve("1.2.3.4", null, "10.1.2.3"));
+    }
+
+    @Test
+    void forwardedForReadFromRightSkippingTrustedHops() {
+        ClientIpUtil util = withTrustedProxies("10.0.0.0/8, 192.168.1.1");
+        // 客户端自己填写了 1.2.3.4，代理追加了真实对端 198.51.100.9，内层代理 10.0.0.2 也是可信的
+        assertEquals("198.51.100.9", util.resolve("1.2.3.4, 198.51.100.9, 10.0.0.2", null, "192.168.1.1"));
+        assertEquals("198.51.100.9", util.resolve("198.51.100.9", "9.9.9.9", "10.20.30.40"));
+        // 全部是可信代理时取最左侧的地址
+        assertEquals("10.0.0.3", util.resolve("10.0.0.3, 10.0.0.2", null, "10.0.0.1"));
+        // 没有 X-Forwarded-For 时使用 X-Real-IP
+        assertEquals("198.51.100.9", util.resolve(null, " 198.51.100.9 ", "10.0.0.1"));
+        assertEquals("10.0.0.1", util.resolve("unknown", null, "10.0.0.1"));
+    }
+
+    @Test
+    void ipv6ProxiesMatchByPrefix() {
+        ClientIpUtil util = withTrustedProxies("::1,fd00::/8");
+        assertEquals("2001:db8::1", util.resolve("2001:db8::1", null, "0:0:0:0:0:0:0:1"));
+        assertEquals("2001:db8::1", util.resolve("2001:db8::1", null, "fd12:3456::1"));
+        assertEquals("fe80::1", util.resolve("2001:db8::1", null, "fe80::1"));
+    }
+}
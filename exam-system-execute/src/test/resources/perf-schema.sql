@@ -0,0 +1,66 @@
+-- 性能测试用表结构（H2 MySQL 兼容模式，只包含执行模块用到的表（含交卷批改读取的题目和试卷题目），去掉外键）
+DROP TABLE IF EXISTS answer_record;
+DROP TABLE IF EXISTS exam_record;
+
+CREATE TABLE exam_record (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    exam_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    paper_id BIGINT NOT NULL,
+    start_time DATETIME NOT NULL,
+    submit_time DATETIME,
+    total_score INT,
+    score INT,
+    status VARCHAR(20) NOT NULL DEFAULT 'in_progress',
+    switch_count INT NOT NULL DEFAULT 0,
+    is_cheating TINYINT NOT NULL DEFAULT 0,
+    cheating_reason VARCHAR(500),
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE (exam_id, student_id)
+);
+CREATE INDEX idx_exam_record_status ON exam_record (exam_id, status);
+
+CREATE TABLE answer_record (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    exam_record_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    student_answer TEXT,
+    is_correct TINYINT,
+    score INT,
+    answer_time BIGINT,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE (exam_record_id, question_id)
+);
+
+DROP TABLE IF EXISTS paper_question;
+DROP TABLE IF EXISTS question;
+
+CREATE TABLE question (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    content TEXT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    difficulty VARCHAR(10) NOT NULL DEFAULT 'medium',
+    options TEXT,
+    answer TEXT NOT NULL,
+    score INT NOT NULL DEFAULT 5,
+    category VARCHAR(100),
+    create_user_id BIGINT,
+    status TINYINT NOT NULL DEFAULT 1,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE paper_question (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    paper_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    order_num INT NOT NULL,
+    score INT NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (paper_id, question_id)
+);
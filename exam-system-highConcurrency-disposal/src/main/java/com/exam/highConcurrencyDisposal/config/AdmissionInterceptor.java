@@ -0,0 +1,79 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.excute.config.AuthUtil;
+import com.exam.highConcurrencyDisposal.service.WaitingRoomService;
+import com.exam.userService.dto.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 考试入口放行拦截器：获取考试令牌和进入考试前校验等候室签发的放行凭证
+ * 凭证只做本地签名校验，不访问 Redis；没有凭证或凭证无效时返回 429，客户端应先加入等候室排队
+ * 同时记录入口接口的响应时间，作为自适应放行速率的依据
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    /**
+     * 放行凭证请求头
+     */
+    public static final String PASS_HEADER = "X-Admission-Pass";
+
+    private static final String START_TIME_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".startTime";
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String examId = variables != null ? variables.get("examId") : null;
+        if (examId == null) {
+            return true;
+        }
+        Long studentId = authUtil.checkStudent(request);
+        Long id;
+        try {
+            id = Long.valueOf(examId);
+        } catch (NumberFormatException e) {
+            // 交给控制器返回参数错误
+            return true;
+        }
+        if (!waitingRoomService.verifyPass(id, studentId, request.getHeader(PASS_HEADER))) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(),
+                    Result.error(HttpStatus.TOO_MANY_REQUESTS.value(), "考试入口排队中，请先进入等候室等待放行"));
+            return false;
+        }
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_TIME_ATTRIBUTE);
+        if (start instanceof Long startNanos) {
+            waitingRoomService.recordLatency((System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.excute.annotation.RequestPriority;
+import com.exam.highConcurrencyDisposal.service.ConcurrencyLimiter;
+import com.exam.highConcurrencyDisposal.service.DependencyUnavailableException;
+import com.exam.userService.dto.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 考试执行接口的并发限制拦截器：超过当前优先级可用的并发名额时直接返回 503（带 Retry-After），不进入控制器
+ * 名额在请求完成后归还，并把耗时作为并发上限调整的样本
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String START_TIME_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".startTime";
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RequestPriority priority = handlerMethod.getMethodAnnotation(RequestPriority.class);
+        if (!concurrencyLimiter.tryAcquire(priority != null ? priority.value() : RequestPriority.Level.NORMAL)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(),
+                    Result.error(HttpStatus.SERVICE_UNAVAILABLE.value(), "服务繁忙，请稍后重试"));
+            return false;
+        }
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_TIME_ATTRIBUTE);
+        if (start instanceof Long startNanos) {
+            concurrencyLimiter.release(System.nanoTime() - startNanos, isRttSample(response, ex));
+        }
+    }
+
+    /**
+     * 被等候室或限流快速拒绝的请求（429）、依赖熔断或舱壁已满被快速拒绝的请求（503）不代表后端的响应时间：
+     * Redis、MySQL 故障期间这些微秒级的拒绝会拉低平均响应时间，使并发上限在应该收缩时反而增大
+     */
+    private static boolean isRttSample(HttpServletResponse response, Exception ex) {
+        int status = response.getStatus();
+        return status != HttpStatus.TOO_MANY_REQUESTS.value()
+                && status != HttpStatus.SERVICE_UNAVAILABLE.value()
+                && !(ex instanceof DependencyUnavailableException);
+    }
+}
@@ -0,0 +1,74 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 考试执行接口自适应并发限制配置（exam.concurrency-limit）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否开启并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 50;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 10;
+
+    /**
+     * 并发上限的上限（应小于 Tomcat 工作线程数，给其他接口留出线程）
+     */
+    private int maxLimit = 180;
+
+    /**
+     * 估计排队数少于 alpha × log10(上限) 时缓慢增大上限
+     */
+    private double alpha = 3;
+
+    /**
+     * 估计排队数超过 beta × log10(上限) 时减小上限
+     */
+    private double beta = 6;
+
+    /**
+     * 每次调整时新上限所占的权重（平滑系数）
+     */
+    private double smoothing = 0.5;
+
+    /**
+     * 调整上限的采样窗口，单位：毫秒
+     */
+    private long windowMs = 100;
+
+    /**
+     * 每个窗口至少需要的样本数，不足时延后调整
+     */
+    private int minWindowSamples = 10;
+
+    /**
+     * 每隔多少个采样窗口重新测量无负载响应时间
+     */
+    private int probeIntervalWindows = 600;
+
+    /**
+     * NORMAL 请求可以使用的并发比例
+     */
+    private double normalRatio = 0.85;
+
+    /**
+     * LOW 请求可以使用的并发比例
+     */
+    private double lowRatio = 0.6;
+}
@@ -0,0 +1,30 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 在考试执行接口前注册并发限制拦截器（排在其他拦截器之前，过载时尽早拒绝）
+ */
+@Configuration
+public class ConcurrencyLimitWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!concurrencyLimitProperties.isEnabled()) {
+            return;
+        }
+        registry.addInterceptor(concurrencyLimitInterceptor)
+                .addPathPatterns("/exam-online/execute/**")
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,29 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyUnavailableException;
+import com.exam.userService.dto.Result;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 依赖被熔断或舱壁已满时返回 503 和 Retry-After（秒），优先于全局异常处理器
+ * MyBatis 会把插件抛出的异常包装一层，这里按异常链匹配
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DependencyGuardExceptionHandler {
+
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<Result<Long>> handleUnavailable(DependencyUnavailableException e) {
+        Result<Long> result = Result.error(HttpStatus.SERVICE_UNAVAILABLE.value(), "系统繁忙，请稍后重试");
+        result.setData(e.getRetryAfterMs());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMs() + 999) / 1000))
+                .body(result);
+    }
+}
@@ -0,0 +1,87 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis、MySQL 依赖隔离配置（exam.dependency-guard）：每个依赖单独的并发舱壁和熔断器
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.dependency-guard")
+public class DependencyGuardProperties {
+
+    /**
+     * Redis 调用（StringRedisTemplate、RedisTemplate）
+     */
+    private Policy redis = new Policy(64, 50, 500);
+
+    /**
+     * MySQL 调用（MyBatis 执行的所有语句）
+     */
+    private Policy mysql = new Policy(20, 200, 2000);
+
+    @Data
+    public static class Policy {
+
+        /**
+         * 是否开启
+         */
+        private boolean enabled = true;
+
+        /**
+         * 舱壁：同时进行的最大调用数
+         */
+        private int maxConcurrentCalls;
+
+        /**
+         * 舱壁已满时最多等待的时间，单位：毫秒
+         */
+        private long maxWaitMs;
+
+        /**
+         * 耗时达到该值的调用计为慢调用，单位：毫秒
+         */
+        private long slowCallMs;
+
+        /**
+         * 失败率达到该百分比时熔断
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 慢调用比例达到该百分比时熔断
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * 统计窗口内至少需要的调用数，不足时不计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 统计窗口长度，单位：秒
+         */
+        private int windowSeconds = 10;
+
+        /**
+         * 熔断后拒绝调用的时长，之后进入半开状态放行试探调用，单位：毫秒
+         */
+        private long openMs = 5000;
+
+        /**
+         * 半开状态放行的试探调用数，全部成功后恢复
+         */
+        private int halfOpenCalls = 5;
+
+        public Policy() {
+        }
+
+        public Policy(int maxConcurrentCalls, long maxWaitMs, long slowCallMs) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.maxWaitMs = maxWaitMs;
+            this.slowCallMs = slowCallMs;
+        }
+    }
+}
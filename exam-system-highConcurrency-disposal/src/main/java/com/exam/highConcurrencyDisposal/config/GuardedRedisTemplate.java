@@ -0,0 +1,24 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyGuard;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 受 Redis 舱壁和熔断器保护的 RedisTemplate（JSON 序列化的消息广播等）
+ */
+public class GuardedRedisTemplate<K, V> extends RedisTemplate<K, V> {
+
+    private final Supplier<DependencyGuard> guard;
+
+    public GuardedRedisTemplate(Supplier<DependencyGuard> guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+        return guard.get().call(() -> super.execute(action, exposeConnection, pipeline));
+    }
+}
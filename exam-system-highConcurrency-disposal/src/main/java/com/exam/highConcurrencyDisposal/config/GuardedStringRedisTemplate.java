@@ -0,0 +1,27 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyGuard;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 受 Redis 舱壁和熔断器保护的 StringRedisTemplate
+ * opsForXxx、脚本、pipeline、事务最终都经过 execute(RedisCallback, boolean, boolean)，只需要在这里拦截
+ */
+public class GuardedStringRedisTemplate extends StringRedisTemplate {
+
+    private final Supplier<DependencyGuard> guard;
+
+    public GuardedStringRedisTemplate(RedisConnectionFactory connectionFactory, Supplier<DependencyGuard> guard) {
+        super(connectionFactory);
+        this.guard = guard;
+    }
+
+    @Override
+    public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+        return guard.get().call(() -> super.execute(action, exposeConnection, pipeline));
+    }
+}
@@ -0,0 +1,53 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyGuard;
+import com.exam.highConcurrencyDisposal.service.DependencyGuards;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * MySQL 舱壁和熔断器（MyBatis 插件，由 mybatis-spring-boot 自动注册到所有 SqlSessionFactory）
+ * 拦截 Executor 的查询和更新：耗时包含从连接池获取连接的时间，连接池耗尽、数据库卡住时很快熔断，
+ * 请求直接失败，不再每个线程等满连接超时；被拒绝的调用抛出 DependencyUnavailableException
+ * 游标查询只保护打开游标的过程，逐行读取不占用舱壁
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class MysqlGuardInterceptor implements Interceptor {
+
+    @Autowired
+    private DependencyGuards dependencyGuards;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        DependencyGuard guard = dependencyGuards.mysql();
+        long permit = guard.acquire();
+        Throwable error = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            guard.release(permit, error);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.excute.annotation.RateLimit;
+import com.exam.excute.config.AuthUtil;
+import com.exam.excute.config.ClientIpHandshakeInterceptor;
+import com.exam.excute.dal.dataobject.ExamRecordDO;
+import com.exam.excute.dal.mysqlmapper.ExamRecordMapper;
+import com.exam.excute.util.ClientIpUtil;
+import com.exam.highConcurrencyDisposal.service.RateLimitExceededException;
+import com.exam.highConcurrencyDisposal.service.RateLimiterService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpAttributes;
+import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 执行 @RateLimit 限流：在 HTTP 接口和 STOMP 消息处理方法执行前按注解依次取令牌，任意一个被拒绝即抛出 RateLimitExceededException
+ * 限流对象的解析：
+ * 1. 学生：方法参数中有 Principal（STOMP 会话身份）时使用它，否则从 HTTP 请求的登录令牌解析
+ * 2. 考试：HTTP 路径参数 examId；没有时取考试记录ID（路径参数 examRecordId 或消息体的 examRecordId 属性），查询所属考试并在本地缓存
+ * 3. IP：HTTP 请求的客户端IP，STOMP 会话握手时记录的IP
+ * 无法解析出限流对象时跳过该限流（由接口自身的参数校验处理）
+ */
+@Aspect
+@Component
+public class RateLimitAspect {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+
+    @Autowired
+    private ClientIpUtil clientIpUtil;
+
+    // 考试记录ID -> 考试ID 本地缓存的条目上限，超过后清空重建
+    private static final int MAX_CACHED_RECORDS = 100_000;
+
+    private final Map<Method, RateLimit[]> methodLimits = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> recordExamIds = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.exam.excute.annotation.RateLimit) || @annotation(com.exam.excute.annotation.RateLimits)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!properties.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RateLimit[] limits = methodLimits.computeIfAbsent(method, m -> m.getAnnotationsByType(RateLimit.class));
+        HttpServletRequest request = currentRequest();
+        for (RateLimit limit : limits) {
+            String key = resolveKey(limit.key(), joinPoint.getArgs(), request);
+            if (key == null) {
+                continue;
+            }
+            String name = limit.name().isEmpty()
+                    ? method.getDeclaringClass().getSimpleName() + "." + method.getName() : limit.name();
+            int burst = limit.burst() > 0 ? limit.burst() : (int) Math.max(1, Math.ceil(limit.permitsPerSecond()));
+            long retryAfterMs = rateLimiterService.tryAcquire(name + ":" + limit.key().name().toLowerCase(), key,
+                    limit.permitsPerSecond(), burst);
+            if (retryAfterMs > 0) {
+                throw new RateLimitExceededException(retryAfterMs);
+            }
+        }
+        return joinPoint.proceed();
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest() : null;
+    }
+
+    private String resolveKey(RateLimit.Key type, Object[] args, HttpServletRequest request) {
+        switch (type) {
+            case STUDENT:
+                for (Object arg : args) {
+                    if (arg instanceof Principal principal) {
+                        return principal.getName();
+                    }
+                }
+                return request != null ? String.valueOf(authUtil.checkStudent(request)) : null;
+            case IP:
+                if (request != null) {
+                    return clientIpUtil.fromRequest(request);
+                }
+                SimpAttributes attributes = SimpAttributesContextHolder.getAttributes();
+                Object clientIp = attributes != null ? attributes.getAttribute(ClientIpHandshakeInterceptor.CLIENT_IP_ATTRIBUTE) : null;
+                return clientIp != null ? clientIp.toString() : null;
+            case EXAM:
+                String examId = pathVariable(request, "examId");
+                if (examId != null) {
+                    return examId;
+                }
+                Long examRecordId = examRecordId(args, request);
+                if (examRecordId == null) {
+                    return null;
+                }
+                Long id = examIdOfRecord(examRecordId);
+                return id != null ? id.toString() : null;
+            default:
+                return null;
+        }
+    }
+
+    private static String pathVariable(HttpServletRequest request, String name) {
+        if (request == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables != null ? variables.get(name) : null;
+    }
+
+    private static Long examRecordId(Object[] args, HttpServletRequest request) {
+        String fromPath = pathVariable(request, "examRecordId");
+        if (fromPath != null) {
+            try {
+                return Long.valueOf(fromPath);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        for (Object arg : args) {
+            if (arg == null || arg instanceof Principal || arg instanceof HttpServletRequest) {
+                continue;
+            }
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(arg);
+            if (wrapper.isReadableProperty("examRecordId") && wrapper.getPropertyValue("examRecordId") instanceof Long id) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private Long examIdOfRecord(Long examRecordId) {
+        Long examId = recordExamIds.get(examRecordId);
+        if (examId != null) {
+            return examId;
+        }
+        ExamRecordDO record = examRecordMapper.selectById(examRecordId);
+        if (record == null) {
+            return null;
+        }
+        if (recordExamIds.size() >= MAX_CACHED_RECORDS) {
+            recordExamIds.clear();
+        }
+        recordExamIds.put(examRecordId, record.getExamId());
+        return record.getExamId();
+    }
+}
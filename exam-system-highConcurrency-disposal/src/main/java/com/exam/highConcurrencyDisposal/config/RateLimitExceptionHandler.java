@@ -0,0 +1,41 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.RateLimitExceededException;
+import com.exam.userService.dto.Result;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 限流拒绝的处理（优先于全局异常处理器）
+ * HTTP 返回 429 和 Retry-After（秒），STOMP 向发送者推送到 /user/queue/rate-limit；data 为建议的重试间隔（毫秒）
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitExceptionHandler {
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Result<Long>> handleRateLimit(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMs() + 999) / 1000))
+                .body(toResult(e));
+    }
+
+    @MessageExceptionHandler(RateLimitExceededException.class)
+    @SendToUser(destinations = "/queue/rate-limit", broadcast = false)
+    public Result<Long> handleMessageRateLimit(RateLimitExceededException e) {
+        return toResult(e);
+    }
+
+    private static Result<Long> toResult(RateLimitExceededException e) {
+        Result<Long> result = Result.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+        result.setData(e.getRetryAfterMs());
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接口限流配置（exam.rate-limit），各接口的速率在 @RateLimit 注解上
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地预取令牌的有效期：每次从 Redis 预取约该时长内的令牌（不超过桶容量），到期未用完的作废，单位：毫秒
+     */
+    private long leaseMs = 500;
+}
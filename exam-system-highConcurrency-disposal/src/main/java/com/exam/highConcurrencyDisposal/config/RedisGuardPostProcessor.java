@@ -0,0 +1,88 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyGuard;
+import com.exam.highConcurrencyDisposal.service.DependencyGuards;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把容器中的 StringRedisTemplate、RedisTemplate 替换为受保护的版本（连接工厂、序列化、事务支持、脚本执行器等配置保持不变）
+ * 所有通过模板访问 Redis 的代码都经过同一个舱壁和熔断器，不需要逐个修改调用方；
+ * 跨节点消息的订阅（RedisMessageListenerContainer）直接使用连接工厂，不受影响
+ * 保护器在第一次调用时才获取（后置处理器初始化时属性绑定还没有完成）
+ */
+@Component
+public class RedisGuardPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<DependencyGuards> guards;
+
+    private volatile DependencyGuard redisGuard;
+
+    public RedisGuardPostProcessor(ObjectProvider<DependencyGuards> guards) {
+        this.guards = guards;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // 只替换原生类型，自定义子类保持原样
+        if (bean.getClass() == StringRedisTemplate.class) {
+            StringRedisTemplate template = (StringRedisTemplate) bean;
+            GuardedStringRedisTemplate guarded = new GuardedStringRedisTemplate(template.getConnectionFactory(), this::redisGuard);
+            guarded.setExposeConnection(template.isExposeConnection());
+            copyHiddenSettings(template, guarded);
+            guarded.afterPropertiesSet();
+            return guarded;
+        }
+        if (bean.getClass() == RedisTemplate.class) {
+            RedisTemplate template = (RedisTemplate) bean;
+            GuardedRedisTemplate guarded = new GuardedRedisTemplate<>(this::redisGuard);
+            guarded.setConnectionFactory(template.getConnectionFactory());
+            guarded.setExposeConnection(template.isExposeConnection());
+            guarded.setEnableDefaultSerializer(template.isEnableDefaultSerializer());
+            guarded.setDefaultSerializer(template.getDefaultSerializer());
+            guarded.setKeySerializer(template.getKeySerializer());
+            guarded.setValueSerializer(template.getValueSerializer());
+            guarded.setHashKeySerializer(template.getHashKeySerializer());
+            guarded.setHashValueSerializer(template.getHashValueSerializer());
+            guarded.setStringSerializer(template.getStringSerializer());
+            copyHiddenSettings(template, guarded);
+            guarded.afterPropertiesSet();
+            return guarded;
+        }
+        return bean;
+    }
+
+    /**
+     * 复制没有公开读取方法的设置：事务支持、类加载器、脚本执行器
+     * 默认脚本执行器绑定在原模板上，通过它执行脚本会绕过保护，不复制，由新模板创建绑定到自身的默认执行器
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyHiddenSettings(RedisTemplate<?, ?> source, RedisTemplate target) {
+        DirectFieldAccessor accessor = new DirectFieldAccessor(source);
+        target.setEnableTransactionSupport((Boolean) accessor.getPropertyValue("enableTransactionSupport"));
+        ClassLoader classLoader = (ClassLoader) accessor.getPropertyValue("classLoader");
+        if (classLoader != null) {
+            target.setBeanClassLoader(classLoader);
+        }
+        Object scriptExecutor = accessor.getPropertyValue("scriptExecutor");
+        if (scriptExecutor != null && scriptExecutor.getClass() != DefaultScriptExecutor.class) {
+            target.setScriptExecutor((ScriptExecutor) scriptExecutor);
+        }
+    }
+
+    private DependencyGuard redisGuard() {
+        DependencyGuard guard = redisGuard;
+        if (guard == null) {
+            guard = guards.getObject().redis();
+            redisGuard = guard;
+        }
+        return guard;
+    }
+}
@@ -0,0 +1,79 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 考试入口等候室配置（exam.waiting-room）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "exam.waiting-room")
+public class WaitingRoomProperties {
+
+    /**
+     * 是否开启等候室（开启后获取考试令牌和进入考试都需要携带放行凭证）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每秒放行人数（开启自适应时为初始速率）
+     */
+    private double admitRate = 200;
+
+    /**
+     * 考试开始瞬间（或空闲之后）可以立即放行的人数
+     */
+    private int burst = 100;
+
+    /**
+     * 是否根据入口接口的响应时间自动调整放行速率
+     */
+    private boolean adaptive = false;
+
+    /**
+     * 自适应时的最低放行速率（每秒）
+     */
+    private double minAdmitRate = 20;
+
+    /**
+     * 自适应时的最高放行速率（每秒）
+     */
+    private double maxAdmitRate = 2000;
+
+    /**
+     * 自适应的目标响应时间：平均响应时间低于该值时加速，高于该值时减速，单位：毫秒
+     */
+    private long targetLatencyMs = 200;
+
+    /**
+     * 每次加速增加的速率（每秒）
+     */
+    private double increaseStep = 20;
+
+    /**
+     * 每次减速的倍数
+     */
+    private double decreaseFactor = 0.7;
+
+    /**
+     * 两次调整速率的最小间隔（所有节点共用），单位：毫秒
+     */
+    private long adjustIntervalMs = 2000;
+
+    /**
+     * 放行推进和推送间隔，单位：毫秒
+     */
+    private long tickMs = 1000;
+
+    /**
+     * 放行凭证有效期，单位：秒
+     */
+    private long passTtlSeconds = 600;
+
+    /**
+     * 放行凭证签名密钥（多节点必须一致，默认使用 JWT 密钥）
+     */
+    private String passSecret;
+}
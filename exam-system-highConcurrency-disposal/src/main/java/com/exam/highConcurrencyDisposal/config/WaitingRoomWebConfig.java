@@ -0,0 +1,28 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 等候室开启时，在获取考试令牌和进入考试接口前注册放行拦截器
+ */
+@Configuration
+public class WaitingRoomWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private WaitingRoomProperties waitingRoomProperties;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!waitingRoomProperties.isEnabled()) {
+            return;
+        }
+        registry.addInterceptor(admissionInterceptor)
+                .addPathPatterns("/exam-online/execute/token/*", "/exam-online/execute/start/*");
+    }
+}
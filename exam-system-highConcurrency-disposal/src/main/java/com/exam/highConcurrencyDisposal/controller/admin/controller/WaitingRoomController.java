@@ -0,0 +1,43 @@
+package com.exam.highConcurrencyDisposal.controller.admin.controller;
+
+import com.exam.excute.config.AuthUtil;
+import com.exam.highConcurrencyDisposal.dto.WaitingRoomStatusDTO;
+import com.exam.highConcurrencyDisposal.service.WaitingRoomService;
+import com.exam.userService.dto.Result;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 考试入口等候室控制器
+ * 学生先加入等候室拿到排队号，轮询状态（或订阅 /topic/waiting-room/{examId}）直到放行，
+ * 再携带放行凭证获取考试令牌、进入考试
+ */
+@RestController
+@RequestMapping("/exam-online/waiting-room")
+public class WaitingRoomController {
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private AuthUtil authUtil;
+
+    /**
+     * 加入等候室（可以在考试开始前加入，重复加入返回原排队号）
+     */
+    @PostMapping("/{examId}/join")
+    public Result<WaitingRoomStatusDTO> join(@PathVariable Long examId, HttpServletRequest request) {
+        Long studentId = authUtil.checkStudent(request);
+        return Result.success(waitingRoomService.join(examId, studentId));
+    }
+
+    /**
+     * 查询排队状态，已放行时返回放行凭证
+     */
+    @GetMapping("/{examId}/status")
+    public Result<WaitingRoomStatusDTO> getStatus(@PathVariable Long examId, HttpServletRequest request) {
+        Long studentId = authUtil.checkStudent(request);
+        return Result.success(waitingRoomService.getStatus(examId, studentId));
+    }
+}
@@ -0,0 +1,33 @@
+package com.exam.highConcurrencyDisposal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 等候室放行进度推送DTO（推送到 /topic/waiting-room/{examId}，客户端用自己的排队号比较）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomProgressDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 已放行到的排队号
+     */
+    private Long admittedUpTo;
+
+    /**
+     * 等候室中尚未放行的人数
+     */
+    private Long waitingCount;
+
+    /**
+     * 当前放行速率（每秒）
+     */
+    private Double admitRate;
+}
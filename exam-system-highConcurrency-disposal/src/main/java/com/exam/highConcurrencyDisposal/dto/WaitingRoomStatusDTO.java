@@ -0,0 +1,64 @@
+package com.exam.highConcurrencyDisposal.dto;
+
+import lombok.Data;
+
+/**
+ * 等候室排队状态DTO
+ */
+@Data
+public class WaitingRoomStatusDTO {
+    /**
+     * 考试ID
+     */
+    private Long examId;
+
+    /**
+     * 本人的排队号（从1开始，未排队时为空）
+     */
+    private Long position;
+
+    /**
+     * 已放行到的排队号（排队号不大于该值的考生可以进入）
+     */
+    private Long admittedUpTo;
+
+    /**
+     * 前面还有多少人
+     */
+    private Long ahead;
+
+    /**
+     * 等候室中尚未放行的人数
+     */
+    private Long waitingCount;
+
+    /**
+     * 是否已放行
+     */
+    private Boolean admitted;
+
+    /**
+     * 放行凭证（已放行时返回，获取考试令牌和进入考试时放在请求头 X-Admission-Pass 中）
+     */
+    private String admissionPass;
+
+    /**
+     * 考试是否已开始放行（考试开始前只排队不放行）
+     */
+    private Boolean examOpen;
+
+    /**
+     * 当前放行速率（每秒）
+     */
+    private Double admitRate;
+
+    /**
+     * 预计等待时间，单位：秒
+     */
+    private Long estimatedWaitSeconds;
+
+    /**
+     * 建议下次查询的间隔，单位：毫秒（也可以订阅 /topic/waiting-room/{examId} 接收放行进度推送）
+     */
+    private Long pollAfterMs;
+}
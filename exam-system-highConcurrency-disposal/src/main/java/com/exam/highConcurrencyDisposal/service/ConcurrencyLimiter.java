@@ -0,0 +1,178 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.excute.annotation.RequestPriority;
+import com.exam.highConcurrencyDisposal.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 考试执行接口的自适应并发限制（Vegas 算法）
+ * 并发上限不是固定值，而是按响应时间估计后端的排队长度来调整：
+ * 1. 无负载响应时间取各采样窗口平均响应时间的最小值，每隔 probe-interval-windows 个窗口重新测量一次，适应后端本身变快变慢
+ * 2. 估计排队数 = 上限 × (1 - 无负载响应时间 / 窗口平均响应时间)：
+ *    排队很少时快速增大上限，少于 alpha 时缓慢增大，超过 beta 时减小（alpha、beta 随上限按对数增长）
+ * 3. Redis、MySQL 变慢时响应时间上升，估计排队数变大，上限随之收缩，多出来的请求在入口直接拒绝，而不是占着 Tomcat 线程等待
+ * 4. 实际并发不到上限一半时不调整，避免空闲时上限无限增长
+ * 优先级：LOW 请求只能使用上限的 low-ratio，NORMAL 只能使用 normal-ratio，CRITICAL 可以使用全部，
+ * 并发升高时进度轮询等请求先被拒绝，交卷和保存答案保留余量
+ */
+@Service
+public class ConcurrencyLimiter {
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+
+    // 无负载响应时间（纳秒）和距下次重新测量的窗口数，只由持有 updating 的线程修改
+    private double noLoadRttNanos;
+    private int windowsUntilProbe;
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+    private final AtomicLong nextUpdateAt = new AtomicLong();
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private final Map<RequestPriority.Level, Counter> rejected = new EnumMap<>(RequestPriority.Level.class);
+
+    @PostConstruct
+    public void init() {
+        limit = properties.getInitialLimit();
+        nextUpdateAt.set(System.nanoTime());
+
+        // 没有注册表时记录到全局注册表
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+        Gauge.builder("exam.concurrency.limit", this, ConcurrencyLimiter::getLimit)
+                .description("考试执行接口当前的自适应并发上限")
+                .register(registry);
+        Gauge.builder("exam.concurrency.inflight", inflight, AtomicInteger::get)
+                .description("考试执行接口正在处理的请求数")
+                .register(registry);
+        for (RequestPriority.Level level : RequestPriority.Level.values()) {
+            rejected.put(level, Counter.builder("exam.concurrency.rejected")
+                    .description("超过并发上限被拒绝的请求数")
+                    .tag("priority", level.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * 申请一个并发名额
+     * @param level 请求优先级
+     * @return 是否获得名额，获得后必须调用 {@link #release}
+     */
+    public boolean tryAcquire(RequestPriority.Level level) {
+        int allowed = allowed(level);
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                rejected.get(level).increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                windowMaxInflight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还名额
+     * @param rttNanos 请求耗时（纳秒）
+     * @param sample 是否作为响应时间样本（被其他保护措施快速拒绝的请求不计入）
+     */
+    public void release(long rttNanos, boolean sample) {
+        inflight.decrementAndGet();
+        if (!sample) {
+            return;
+        }
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        long now = System.nanoTime();
+        if (now - nextUpdateAt.get() >= 0 && windowSamples.sum() >= properties.getMinWindowSamples()
+                && updating.compareAndSet(false, true)) {
+            try {
+                update(now);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    /**
+     * 按上一个采样窗口调整并发上限（包内可见，便于测试指定时间）
+     */
+    void update(long now) {
+        if (now - nextUpdateAt.get() < 0) {
+            return;
+        }
+        nextUpdateAt.set(now + properties.getWindowMs() * 1_000_000);
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int maxInflight = windowMaxInflight.getAndSet(inflight.get());
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = Math.max(1, (double) rttSum / samples);
+        if (noLoadRttNanos == 0 || shortRtt < noLoadRttNanos || --windowsUntilProbe <= 0) {
+            noLoadRttNanos = shortRtt;
+            if (windowsUntilProbe <= 0) {
+                windowsUntilProbe = properties.getProbeIntervalWindows();
+            }
+        }
+
+        double current = limit;
+        if (maxInflight < current / 2) {
+            return;
+        }
+        double log = Math.log10(Math.max(10, current));
+        double queue = current * (1 - noLoadRttNanos / shortRtt);
+        double target;
+        if (queue <= log) {
+            target = current + properties.getBeta() * log;
+        } else if (queue < properties.getAlpha() * log) {
+            target = current + log;
+        } else if (queue > properties.getBeta() * log) {
+            target = current - log;
+        } else {
+            return;
+        }
+        double next = current * (1 - properties.getSmoothing()) + target * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+    }
+
+    private int allowed(RequestPriority.Level level) {
+        double current = limit;
+        return switch (level) {
+            case CRITICAL -> (int) current;
+            case NORMAL -> Math.max(1, (int) (current * properties.getNormalRatio()));
+            case LOW -> Math.max(1, (int) (current * properties.getLowRatio()));
+        };
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,341 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.highConcurrencyDisposal.config.DependencyGuardProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 单个依赖（Redis、MySQL）的舱壁 + 熔断器
+ * 舱壁：信号量限制同时访问该依赖的线程数，依赖卡住时最多占住 max-concurrent-calls 个线程，
+ * 其余线程等待 max-wait-ms 后直接失败，不会把 Tomcat 线程全部耗在同一个依赖上，不访问该依赖的接口不受影响
+ * 熔断器：
+ * 1. CLOSED：按秒分桶统计最近 window-seconds 秒的调用，调用数达到 minimum-calls 且失败率或慢调用比例超过阈值时熔断
+ * 2. OPEN：open-ms 内所有调用直接抛出 DependencyUnavailableException，不再等待超时
+ * 3. HALF_OPEN：放行 half-open-calls 个试探调用，全部成功则恢复，任何一个失败或过慢则重新熔断；
+ *    只有本轮半开时放行的试探调用计入，关闭状态下发出、半开后才返回的调用不算试探调用
+ * 同一线程嵌套的调用（如 SessionCallback 内的多条命令）只在最外层占用舱壁和计入统计
+ */
+public class DependencyGuard {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // acquire 返回的特殊值：未开启保护、嵌套调用
+    private static final long PASS_THROUGH = Long.MIN_VALUE;
+    private static final long REENTRANT = Long.MIN_VALUE + 1;
+
+    private final String name;
+    private final DependencyGuardProperties.Policy policy;
+    private final Predicate<Throwable> failureClassifier;
+    private final Semaphore bulkhead;
+    private final long slowCallNanos;
+
+    // 当前线程的调用：[0] 嵌套深度，[1] 最外层调用是试探调用时为放行它的半开轮次，否则为 0
+    private final ThreadLocal<int[]> callState = ThreadLocal.withInitial(() -> new int[2]);
+
+    private final Object stateLock = new Object();
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    // 半开轮次，每次进入半开状态加一
+    private volatile int halfOpenRound;
+
+    private final Bucket[] buckets;
+
+    private final Counter rejectedOpen;
+    private final Counter rejectedBulkhead;
+    private final Counter opened;
+
+    /**
+     * @param name 依赖名称（用于日志、指标标签）
+     * @param policy 舱壁和熔断参数
+     * @param failureClassifier 判断异常是否属于依赖故障（业务异常如唯一键冲突不计入失败率）
+     * @param registry 指标注册表
+     */
+    public DependencyGuard(String name, DependencyGuardProperties.Policy policy,
+                           Predicate<Throwable> failureClassifier, MeterRegistry registry) {
+        this.name = name;
+        this.policy = policy;
+        this.failureClassifier = failureClassifier;
+        this.bulkhead = new Semaphore(policy.getMaxConcurrentCalls());
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallMs());
+        this.buckets = new Bucket[Math.max(1, policy.getWindowSeconds())];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+
+        Gauge.builder("exam.dependency.state", this, guard -> guard.state.ordinal())
+                .description("依赖熔断器状态：0 关闭，1 熔断，2 半开")
+                .tag("dependency", name)
+                .register(registry);
+        Gauge.builder("exam.dependency.inflight", this, DependencyGuard::getInflight)
+                .description("正在访问依赖的调用数")
+                .tag("dependency", name)
+                .register(registry);
+        rejectedOpen = Counter.builder("exam.dependency.rejected")
+                .description("被熔断器或舱壁拒绝的依赖调用数")
+                .tags("dependency", name, "reason", "open")
+                .register(registry);
+        rejectedBulkhead = Counter.builder("exam.dependency.rejected")
+                .description("被熔断器或舱壁拒绝的依赖调用数")
+                .tags("dependency", name, "reason", "bulkhead")
+                .register(registry);
+        opened = Counter.builder("exam.dependency.opened")
+                .description("熔断次数")
+                .tag("dependency", name)
+                .register(registry);
+    }
+
+    /**
+     * 在保护下执行一次依赖调用
+     */
+    public <T> T call(Supplier<T> call) {
+        long permit = acquire();
+        Throwable error = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            release(permit, error);
+        }
+    }
+
+    /**
+     * 申请调用许可，被拒绝时抛出 DependencyUnavailableException
+     * @return 许可，调用结束后必须传给 {@link #release}
+     */
+    public long acquire() {
+        if (!policy.isEnabled()) {
+            return PASS_THROUGH;
+        }
+        int[] current = callState.get();
+        if (current[0] > 0) {
+            current[0]++;
+            return REENTRANT;
+        }
+        int trialRound = admit();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(policy.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (trialRound != 0 && trialRound == halfOpenRound) {
+                halfOpenPermits.decrementAndGet();
+            }
+            rejectedBulkhead.increment();
+            throw new DependencyUnavailableException(name, name + " 并发访问已满，请稍后重试", policy.getMaxWaitMs());
+        }
+        current[0] = 1;
+        current[1] = trialRound;
+        return System.nanoTime();
+    }
+
+    /**
+     * 归还许可并记录调用结果
+     * @param permit {@link #acquire} 的返回值
+     * @param error 调用抛出的异常，成功时为 null
+     */
+    public void release(long permit, Throwable error) {
+        if (permit == PASS_THROUGH) {
+            return;
+        }
+        int[] current = callState.get();
+        if (permit == REENTRANT) {
+            current[0]--;
+            return;
+        }
+        int trialRound = current[1];
+        current[0] = 0;
+        current[1] = 0;
+        bulkhead.release();
+        boolean failed = error != null && failureClassifier.test(error);
+        boolean slow = System.nanoTime() - permit >= slowCallNanos;
+        onResult(trialRound, failed, slow);
+    }
+
+    /**
+     * 检查熔断状态
+     * @return 半开状态的试探调用返回放行它的半开轮次，否则返回 0
+     */
+    private int admit() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        if (state == State.OPEN) {
+            long remainingNanos = openUntilNanos - System.nanoTime();
+            if (remainingNanos > 0) {
+                throw rejectOpen(TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1);
+            }
+            synchronized (stateLock) {
+                if (state == State.OPEN && openUntilNanos - System.nanoTime() <= 0) {
+                    halfOpenPermits.set(0);
+                    halfOpenSuccesses.set(0);
+                    halfOpenRound++;
+                    state = State.HALF_OPEN;
+                }
+            }
+        }
+        State current = state;
+        int round = halfOpenRound;
+        if (current == State.CLOSED) {
+            return 0;
+        }
+        if (current == State.OPEN || halfOpenPermits.incrementAndGet() > policy.getHalfOpenCalls()) {
+            if (current == State.HALF_OPEN) {
+                halfOpenPermits.decrementAndGet();
+            }
+            // 试探调用尚未返回，等待约一个试探调用的超时时间
+            throw rejectOpen(policy.getSlowCallMs());
+        }
+        return round;
+    }
+
+    private DependencyUnavailableException rejectOpen(long retryAfterMs) {
+        rejectedOpen.increment();
+        return new DependencyUnavailableException(name, name + " 暂时不可用（已熔断），请稍后重试", retryAfterMs);
+    }
+
+    /**
+     * 记录调用结果
+     * @param trialRound 试探调用的半开轮次，不是试探调用时为 0
+     */
+    private void onResult(int trialRound, boolean failed, boolean slow) {
+        State current = state;
+        if (trialRound != 0) {
+            if (current != State.HALF_OPEN || trialRound != halfOpenRound) {
+                // 上一轮半开的试探调用（期间已重新熔断）不再统计
+                return;
+            }
+            if (failed || slow) {
+                trip("试探调用" + (failed ? "失败" : "过慢"));
+            } else if (halfOpenSuccesses.incrementAndGet() >= policy.getHalfOpenCalls()) {
+                close(trialRound);
+            }
+            return;
+        }
+        if (current != State.CLOSED) {
+            // 关闭状态下发出、熔断或半开后才返回的调用不再统计，也不算试探调用
+            return;
+        }
+
+        long second = System.nanoTime() / 1_000_000_000L;
+        Bucket bucket = buckets[(int) (second % buckets.length)];
+        bucket.roll(second);
+        bucket.calls.increment();
+        if (failed) {
+            bucket.failures.increment();
+        }
+        if (slow) {
+            bucket.slowCalls.increment();
+        }
+        // 成功且不慢的调用只会降低比例，不需要检查
+        if (!failed && !slow) {
+            return;
+        }
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (Bucket b : buckets) {
+            if (second - b.second < buckets.length) {
+                calls += b.calls.sum();
+                failures += b.failures.sum();
+                slowCalls += b.slowCalls.sum();
+            }
+        }
+        if (calls < policy.getMinimumCalls()) {
+            return;
+        }
+        if (failures * 100 >= (long) policy.getFailureRateThreshold() * calls) {
+            trip("失败率 " + failures * 100 / calls + "%");
+        } else if (slowCalls * 100 >= (long) policy.getSlowCallRateThreshold() * calls) {
+            trip("慢调用比例 " + slowCalls * 100 / calls + "%");
+        }
+    }
+
+    private void trip(String reason) {
+        synchronized (stateLock) {
+            if (state == State.OPEN) {
+                return;
+            }
+            openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getOpenMs());
+            state = State.OPEN;
+            resetWindow();
+        }
+        opened.increment();
+        System.err.println(name + " 熔断（" + reason + "），" + policy.getOpenMs() + "ms 内的调用直接失败");
+    }
+
+    private void close(int round) {
+        synchronized (stateLock) {
+            if (state != State.HALF_OPEN || halfOpenRound != round) {
+                return;
+            }
+            resetWindow();
+            state = State.CLOSED;
+        }
+        System.err.println(name + " 试探调用全部成功，熔断恢复");
+    }
+
+    private void resetWindow() {
+        for (Bucket bucket : buckets) {
+            bucket.reset(Long.MIN_VALUE / 2);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 正在访问依赖的调用数
+     */
+    public int getInflight() {
+        return policy.getMaxConcurrentCalls() - bulkhead.availablePermits();
+    }
+
+    /**
+     * 一秒的统计桶（并发滚动时可能丢失少量计数，不影响比例判断）
+     */
+    private static final class Bucket {
+        private volatile long second = Long.MIN_VALUE / 2;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder slowCalls = new LongAdder();
+
+        private void roll(long now) {
+            if (second != now) {
+                synchronized (this) {
+                    if (second != now) {
+                        reset(now);
+                    }
+                }
+            }
+        }
+
+        private void reset(long now) {
+            calls.reset();
+            failures.reset();
+            slowCalls.reset();
+            second = now;
+        }
+    }
+}
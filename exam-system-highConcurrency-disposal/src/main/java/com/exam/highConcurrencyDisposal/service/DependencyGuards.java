@@ -0,0 +1,96 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.highConcurrencyDisposal.config.DependencyGuardProperties;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientException;
+
+/**
+ * Redis、MySQL 的依赖保护（舱壁 + 熔断器），两者的并发名额和熔断状态互相独立
+ * Redis 保护作用在 StringRedisTemplate / RedisTemplate 上（见 RedisGuardPostProcessor），
+ * MySQL 保护作用在 MyBatis Executor 上（见 MysqlGuardInterceptor）
+ */
+@Service
+public class DependencyGuards {
+
+    @Autowired
+    private DependencyGuardProperties properties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private DependencyGuard redis;
+
+    private DependencyGuard mysql;
+
+    @PostConstruct
+    public void init() {
+        // 没有注册表时记录到全局注册表
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+        redis = new DependencyGuard("redis", properties.getRedis(), DependencyGuards::isRedisFailure, registry);
+        mysql = new DependencyGuard("mysql", properties.getMysql(), DependencyGuards::isMysqlFailure, registry);
+    }
+
+    public DependencyGuard redis() {
+        return redis;
+    }
+
+    public DependencyGuard mysql() {
+        return mysql;
+    }
+
+    /**
+     * Redis 故障：连接失败、命令超时；命令本身报错（如脚本错误、类型错误）说明 Redis 正常，不计入
+     */
+    static boolean isRedisFailure(Throwable error) {
+        if (error instanceof RedisSystemException && error.getCause() instanceof RedisCommandExecutionException) {
+            return false;
+        }
+        return error instanceof DataAccessResourceFailureException
+                || error instanceof TransientDataAccessException
+                || error instanceof RedisSystemException;
+    }
+
+    /**
+     * MySQL 故障：取不到连接、连接中断、超时、死锁等；唯一键冲突、语法和数据错误属于业务或程序问题，不计入
+     */
+    static boolean isMysqlFailure(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof InvocationTargetException invocation) {
+                e = invocation.getTargetException();
+                if (e == null) {
+                    return false;
+                }
+            }
+            if (e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLSyntaxErrorException
+                    || e instanceof SQLDataException) {
+                return false;
+            }
+            if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                    || e instanceof SQLNonTransientConnectionException
+                    || e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessException) {
+                return true;
+            }
+            if (e instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                // SQLState 08xxx：连接异常
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * 依赖调用被熔断器或舱壁拒绝（没有真正访问依赖）
+ * 属于 Spring 的 TransientDataAccessException，调用方按 Redis / 数据库暂时不可用的情况处理即可
+ */
+public class DependencyUnavailableException extends TransientDataAccessResourceException {
+
+    private final String dependency;
+
+    private final long retryAfterMs;
+
+    public DependencyUnavailableException(String dependency, String message, long retryAfterMs) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * 依赖名称（redis、mysql）
+     */
+    public String getDependency() {
+        return dependency;
+    }
+
+    /**
+     * 建议的重试间隔，单位：毫秒
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
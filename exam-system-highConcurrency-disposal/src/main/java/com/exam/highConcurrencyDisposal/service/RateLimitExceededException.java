@@ -0,0 +1,21 @@
+package com.exam.highConcurrencyDisposal.service;
+
+/**
+ * 请求超出限流
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterMs;
+
+    public RateLimitExceededException(long retryAfterMs) {
+        super("请求过于频繁，请稍后重试");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * 建议的重试间隔，单位：毫秒
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,162 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.highConcurrencyDisposal.config.RateLimitProperties;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式令牌桶限流
+ * 令牌桶保存在 Redis 中（所有节点共用），但节点不是每个请求都访问 Redis：
+ * 1. 本地没有可用令牌时，一次从 Redis 预取约 lease-ms 内的令牌（不超过桶容量），之后的请求在本地扣减
+ * 2. Redis 中的令牌不足时，按返回的等待时间在本地记录拒绝截止时间，截止前同一对象的请求直接在本地拒绝，
+ *    刷接口的客户端不会把压力转移到 Redis
+ * 3. 预取的令牌到期未用完即作废，多节点合计放行的请求数不会超过令牌桶的限制
+ * 同一限流对象在本节点的预取串行执行（持有该对象的本地锁），并发请求不会同时访问 Redis
+ * Redis 不可用时放行（限流只是保护措施，不能因为限流组件故障拒绝考试请求）
+ */
+@Service
+public class RateLimiterService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    // 清理过期本地令牌的间隔（毫秒）
+    private static final long EVICT_INTERVAL_MS = 10000;
+
+    // Lua脚本：令牌桶取令牌，返回 {取到的令牌数, 没有取到时距下一个令牌的毫秒数}
+    // KEYS[1] 令牌桶Hash
+    // ARGV[1] 每秒生成的令牌数，ARGV[2] 桶容量，ARGV[3] 当前时间（毫秒），ARGV[4] 希望取的令牌数
+    private static final String ACQUIRE_LUA =
+        "local rate = tonumber(ARGV[1]) " +
+        "local capacity = tonumber(ARGV[2]) " +
+        "local now = tonumber(ARGV[3]) " +
+        "local state = redis.call('hmget', KEYS[1], 'tokens', 'ts') " +
+        "local tokens = tonumber(state[1]) or capacity " +
+        "local ts = tonumber(state[2]) or now " +
+        "if now > ts then " +
+        "    tokens = math.min(capacity, tokens + (now - ts) * rate / 1000) " +
+        "end " +
+        "local granted = math.min(tonumber(ARGV[4]), math.floor(tokens)) " +
+        "tokens = tokens - granted " +
+        "local wait = 0 " +
+        "if granted == 0 then " +
+        "    wait = math.ceil((1 - tokens) * 1000 / rate) " +
+        "end " +
+        "redis.call('hset', KEYS[1], 'tokens', tostring(tokens), 'ts', math.max(now, ts)) " +
+        "redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) " +
+        "return {granted, wait}";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> ACQUIRE_SCRIPT = new DefaultRedisScript<>(ACQUIRE_LUA, List.class);
+
+    // 令牌桶key -> 本节点预取的令牌
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    private ScheduledExecutorService evictExecutor;
+
+    /**
+     * 本节点持有的某个令牌桶的令牌（访问时持有对象锁）
+     */
+    private static final class Lease {
+        private int remaining;
+        private long expiresAt;
+        private long deniedUntil;
+
+        private boolean isIdle(long now) {
+            return now >= expiresAt && now >= deniedUntil;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        evictExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rate-limit-evict");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictExecutor.scheduleWithFixedDelay(this::evict, EVICT_INTERVAL_MS, EVICT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取一个令牌
+     * @param name 限流名称
+     * @param key 限流对象（学生ID、考试ID或IP）
+     * @param permitsPerSecond 每秒允许的请求数
+     * @param burst 令牌桶容量
+     * @return 0 表示放行，大于 0 表示被拒绝，值为建议的重试间隔（毫秒）
+     */
+    public long tryAcquire(String name, String key, double permitsPerSecond, int burst) {
+        String bucket = ExamRedisKeys.rateLimitBucket(name, key);
+        Lease lease = leases.computeIfAbsent(bucket, k -> new Lease());
+        synchronized (lease) {
+            long now = System.currentTimeMillis();
+            if (lease.remaining > 0 && now < lease.expiresAt) {
+                lease.remaining--;
+                return 0;
+            }
+            if (now < lease.deniedUntil) {
+                return lease.deniedUntil - now;
+            }
+
+            int chunk = (int) Math.max(1, Math.min(burst, Math.ceil(permitsPerSecond * properties.getLeaseMs() / 1000)));
+            List<?> result;
+            try {
+                result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(bucket),
+                        String.valueOf(permitsPerSecond), String.valueOf(burst), String.valueOf(now), String.valueOf(chunk));
+            } catch (Exception e) {
+                long failures = redisFailures.incrementAndGet();
+                if (failures % 1000 == 1) {
+                    System.err.println("限流令牌桶访问失败，暂时放行，累计 " + failures + " 次, 错误: " + e.getMessage());
+                }
+                return 0;
+            }
+            long granted = ((Number) result.get(0)).longValue();
+            if (granted > 0) {
+                lease.remaining = (int) granted - 1;
+                lease.expiresAt = now + properties.getLeaseMs();
+                return 0;
+            }
+            long waitMs = Math.max(1, ((Number) result.get(1)).longValue());
+            lease.remaining = 0;
+            lease.deniedUntil = now + waitMs;
+            return waitMs;
+        }
+    }
+
+    /**
+     * 移除已过期的本地令牌（被移除时如果有线程正在使用，最多多访问一次 Redis）
+     */
+    void evict() {
+        long now = System.currentTimeMillis();
+        leases.values().removeIf(lease -> {
+            synchronized (lease) {
+                return lease.isIdle(now);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (evictExecutor != null) {
+            evictExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.highConcurrencyDisposal.config.WaitingRoomProperties;
+import com.exam.highConcurrencyDisposal.dto.WaitingRoomProgressDTO;
+import com.exam.highConcurrencyDisposal.dto.WaitingRoomStatusDTO;
+import com.exam.manage.dal.dataobject.ExamDO;
+import com.exam.manage.dal.mysqlmapper.ExamMapper;
+import com.exam.manage.util.ExamRedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 考试入口等候室（虚拟排队）
+ * 考试开始瞬间上万考生同时获取令牌、进入考试，直接打到后端会造成数据库和 Redis 的尖峰。开启等候室后：
+ * 1. 考生先加入等候室，由 Redis 计数器（INCR）分配排队号，同一考生重复加入返回同一个排队号
+ * 2. 考试开始后按令牌桶匀速推进"已放行到的排队号"（开考瞬间最多放行 burst 人，之后每秒放行 admit-rate 人），
+ *    推进由查询状态和各节点的定时任务顺带完成，Lua 脚本按时间差计算额度，多节点同时推进也不会重复放行
+ * 3. 排队号不大于放行进度的考生拿到签名的放行凭证，获取令牌和进入考试时由 AdmissionInterceptor 本地校验签名，不访问 Redis
+ * 4. 客户端可以按 pollAfterMs 轮询状态，也可以订阅 /topic/waiting-room/{examId}，每个节点每个 tick 推送一次放行进度
+ * 开启自适应时，各节点统计入口接口的平均响应时间，低于目标值时加速、高于目标值时减速（加性增、乘性减），
+ * 调整间隔由 Redis 中的时间戳控制，所有节点合计每个间隔只调整一次
+ */
+@Service
+public class WaitingRoomService {
+
+    /**
+     * 放行进度推送地址前缀
+     */
+    public static final String PROGRESS_TOPIC_PREFIX = "/topic/waiting-room/";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private WaitingRoomProperties properties;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${jwt.secret:exam-online-system-secret-key-2024}")
+    private String jwtSecret;
+
+    // 等候室相关 key 的保留时间（秒），有活动时续期
+    private static final long ROOM_TTL_SECONDS = 24 * 60 * 60;
+
+    // 考试信息本地缓存有效期（毫秒），决定开考后多久开始放行
+    private static final long EXAM_CACHE_TTL_MS = 2000;
+
+    // 本地缓存的考试个数上限，超过后清空重建
+    private static final int MAX_CACHED_EXAMS = 1024;
+
+    // 超过该时间没有加入、查询和订阅的考试不再推进和推送（毫秒）
+    private static final long ACTIVE_IDLE_MS = 10 * 60 * 1000;
+
+    // 排队期间单次推进最多累计的时间（毫秒），避免长时间无人推进后一次放行过多
+    private static final long MAX_ACCRUAL_GAP_MS = 5000;
+
+    // 建议轮询间隔的上下限（毫秒）
+    private static final long MIN_POLL_MS = 1000;
+    private static final long MAX_POLL_MS = 10000;
+
+    private static final String PASS_ALGORITHM = "HmacSHA256";
+
+    // Lua脚本：分配排队号（可选）并按令牌桶推进放行进度
+    // KEYS[1] 排队号计数器，KEYS[2] 放行状态Hash，KEYS[3] 排队号Hash（同一 {examId} hash tag）
+    // ARGV[1] 当前时间（毫秒），ARGV[2] 配置的放行速率，ARGV[3] burst，ARGV[4] 是否已开考，ARGV[5] 是否自适应，
+    // ARGV[6] key 保留时间，ARGV[7] 学生ID（为空表示不查询排队号），ARGV[8] 是否加入
+    // 令牌只在空闲（上次推进后没有人排队，剩余额度 >= 1）时受 burst 限制；排队期间两次推进之间的额度全部有效，
+    // 否则推进间隔大于 burst / 速率时实际放行速率会被 burst 截断
+    // 返回 {排队号（未加入为0）, 已放行到的排队号, 已分配的排队号总数, 放行速率}
+    private static final String ADVANCE_LUA =
+        "local now = tonumber(ARGV[1]) " +
+        "local burst = tonumber(ARGV[3]) " +
+        "local ttl = tonumber(ARGV[6]) " +
+        "local MAX_GAP_MS = " + MAX_ACCRUAL_GAP_MS + " " +
+        "local pos = 0 " +
+        "if ARGV[7] ~= '' then " +
+        "    pos = tonumber(redis.call('hget', KEYS[3], ARGV[7])) or 0 " +
+        "    if pos == 0 and ARGV[8] == '1' then " +
+        "        pos = redis.call('incr', KEYS[1]) " +
+        "        redis.call('hset', KEYS[3], ARGV[7], pos) " +
+        "        redis.call('expire', KEYS[1], ttl) " +
+        "        redis.call('expire', KEYS[3], ttl) " +
+        "    end " +
+        "end " +
+        "local seq = tonumber(redis.call('get', KEYS[1])) or 0 " +
+        "local state = redis.call('hmget', KEYS[2], 'admitted', 'tokens', 'last', 'rate') " +
+        "local admitted = tonumber(state[1]) or 0 " +
+        "local tokens = tonumber(state[2]) or burst " +
+        "local last = tonumber(state[3]) or now " +
+        "local rate = tonumber(ARGV[2]) " +
+        "if ARGV[5] == '1' and tonumber(state[4]) then " +
+        "    rate = tonumber(state[4]) " +
+        "end " +
+        "if ARGV[4] == '1' then " +
+        "    if now > last then " +
+        "        local accrued = math.min(now - last, MAX_GAP_MS) * rate / 1000 " +
+        "        if tokens >= 1 then " +
+        "            tokens = math.min(burst, tokens + accrued) " +
+        "        else " +
+        "            tokens = tokens + accrued " +
+        "        end " +
+        "    end " +
+        "    local n = math.min(math.floor(tokens), seq - admitted) " +
+        "    if n > 0 then " +
+        "        admitted = admitted + n " +
+        "        tokens = tokens - n " +
+        "    end " +
+        "end " +
+        "redis.call('hset', KEYS[2], 'admitted', admitted, 'tokens', tostring(tokens), 'last', math.max(now, last)) " +
+        "redis.call('expire', KEYS[2], ttl) " +
+        "return {pos, admitted, seq, tostring(rate)}";
+
+    // Lua脚本：自适应调整放行速率（距上次调整不足间隔时不调整）
+    // KEYS[1] 放行状态Hash
+    // ARGV[1] 当前时间（毫秒），ARGV[2] 平均响应时间，ARGV[3] 目标响应时间，ARGV[4] 最低速率，ARGV[5] 最高速率，
+    // ARGV[6] 加速步长，ARGV[7] 减速倍数，ARGV[8] 调整间隔，ARGV[9] 初始速率
+    private static final String ADJUST_LUA =
+        "local now = tonumber(ARGV[1]) " +
+        "local state = redis.call('hmget', KEYS[1], 'rate', 'adjusted') " +
+        "local rate = tonumber(state[1]) or tonumber(ARGV[9]) " +
+        "if now - (tonumber(state[2]) or 0) < tonumber(ARGV[8]) then " +
+        "    return tostring(rate) " +
+        "end " +
+        "if tonumber(ARGV[2]) > tonumber(ARGV[3]) then " +
+        "    rate = math.max(tonumber(ARGV[4]), rate * tonumber(ARGV[7])) " +
+        "else " +
+        "    rate = math.min(tonumber(ARGV[5]), rate + tonumber(ARGV[6])) " +
+        "end " +
+        "redis.call('hset', KEYS[1], 'rate', tostring(rate), 'adjusted', now) " +
+        "return tostring(rate)";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> ADVANCE_SCRIPT = new DefaultRedisScript<>(ADVANCE_LUA, List.class);
+
+    private static final DefaultRedisScript<String> ADJUST_SCRIPT = new DefaultRedisScript<>(ADJUST_LUA, String.class);
+
+    // 考试ID -> 最近一次加入、查询或订阅的时间
+    private final Map<Long, Long> activeExams = new ConcurrentHashMap<>();
+
+    private final Map<Long, CachedExam> examCache = new ConcurrentHashMap<>();
+
+    // 本节点入口接口（获取令牌、进入考试）的响应时间统计，每个 tick 取出后清零
+    private final LongAdder latencyCount = new LongAdder();
+    private final LongAdder latencySumMs = new LongAdder();
+
+    private SecretKeySpec passKey;
+
+    private final ThreadLocal<Mac> passMac = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(PASS_ALGORITHM);
+            mac.init(passKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化放行凭证签名失败", e);
+        }
+    });
+
+    private ScheduledExecutorService tickExecutor;
+
+    private static final class CachedExam {
+        private final ExamDO exam;
+        private final long loadedAt;
+
+        private CachedExam(ExamDO exam, long loadedAt) {
+            this.exam = exam;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 一次推进的结果
+     */
+    private record Progress(long position, long admittedUpTo, long issued, double rate) {
+    }
+
+    @PostConstruct
+    public void start() {
+        String secret = properties.getPassSecret() != null && !properties.getPassSecret().isBlank()
+                ? properties.getPassSecret() : jwtSecret;
+        passKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), PASS_ALGORITHM);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "waiting-room-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tickExecutor.scheduleWithFixedDelay(this::tick, properties.getTickMs(), properties.getTickMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 加入等候室（重复加入返回原排队号）
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     */
+    public WaitingRoomStatusDTO join(Long examId, Long studentId) {
+        return status(examId, studentId, true);
+    }
+
+    /**
+     * 查询本人的排队状态
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     */
+    public WaitingRoomStatusDTO getStatus(Long examId, Long studentId) {
+        return status(examId, studentId, false);
+    }
+
+    private WaitingRoomStatusDTO status(Long examId, Long studentId, boolean join) {
+        ExamDO exam = getExam(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+        if ("finished".equals(exam.getStatus()) || "cancelled".equals(exam.getStatus())) {
+            throw new RuntimeException("考试已结束或已取消");
+        }
+        boolean open = "in_progress".equals(exam.getStatus());
+
+        WaitingRoomStatusDTO status = new WaitingRoomStatusDTO();
+        status.setExamId(examId);
+        status.setExamOpen(open);
+        if (!properties.isEnabled()) {
+            // 未开启等候室：直接放行，入口不校验凭证
+            status.setAdmitted(true);
+            status.setPollAfterMs(0L);
+            return status;
+        }
+
+        activeExams.put(examId, System.currentTimeMillis());
+        Progress progress = advance(examId, open, studentId, join);
+        long waiting = Math.max(0, progress.issued() - progress.admittedUpTo());
+        boolean queued = progress.position() > 0;
+        boolean admitted = queued && progress.position() <= progress.admittedUpTo();
+        long ahead = queued ? Math.max(0, progress.position() - progress.admittedUpTo() - 1) : waiting;
+
+        status.setPosition(queued ? progress.position() : null);
+        status.setAdmittedUpTo(progress.admittedUpTo());
+        status.setAhead(admitted ? 0L : ahead);
+        status.setWaitingCount(waiting);
+        status.setAdmitted(admitted);
+        status.setAdmitRate(progress.rate());
+        if (admitted) {
+            status.setAdmissionPass(issuePass(examId, studentId));
+            status.setEstimatedWaitSeconds(0L);
+            status.setPollAfterMs(0L);
+        } else {
+            // 未开考时无法估计等待时间，按最长间隔轮询
+            long waitMs = open && progress.rate() > 0 ? (long) Math.ceil((ahead + 1) * 1000 / progress.rate()) : MAX_POLL_MS;
+            status.setEstimatedWaitSeconds(open ? (waitMs + 999) / 1000 : null);
+            status.setPollAfterMs(Math.min(MAX_POLL_MS, Math.max(MIN_POLL_MS, waitMs / 2)));
+        }
+        return status;
+    }
+
+    private Progress advance(Long examId, boolean open, Long studentId, boolean join) {
+        List<String> keys = List.of(ExamRedisKeys.waitingRoomSeq(examId), ExamRedisKeys.waitingRoomState(examId),
+                ExamRedisKeys.waitingRoomPositions(examId));
+        List<?> result = stringRedisTemplate.execute(ADVANCE_SCRIPT, keys,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(properties.getAdmitRate()),
+                String.valueOf(properties.getBurst()),
+                open ? "1" : "0",
+                properties.isAdaptive() ? "1" : "0",
+                String.valueOf(ROOM_TTL_SECONDS),
+                studentId != null ? studentId.toString() : "",
+                join ? "1" : "0");
+        return new Progress(toLong(result.get(0)), toLong(result.get(1)), toLong(result.get(2)),
+                Double.parseDouble(result.get(3).toString()));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+
+    private ExamDO getExam(Long examId) {
+        long now = System.currentTimeMillis();
+        CachedExam cached = examCache.get(examId);
+        if (cached != null && now - cached.loadedAt < EXAM_CACHE_TTL_MS) {
+            return cached.exam;
+        }
+        ExamDO exam = examMapper.selectById(examId);
+        if (examCache.size() >= MAX_CACHED_EXAMS) {
+            examCache.clear();
+        }
+        examCache.put(examId, new CachedExam(exam, now));
+        return exam;
+    }
+
+    /**
+     * 签发放行凭证：{过期时间秒}.{HMAC(考试ID:学生ID:过期时间秒)}
+     */
+    String issuePass(Long examId, Long studentId) {
+        long expiresAt = System.currentTimeMillis() / 1000 + properties.getPassTtlSeconds();
+        return expiresAt + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(examId, studentId, expiresAt));
+    }
+
+    /**
+     * 校验放行凭证（只做本地签名校验，不访问 Redis）
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     * @param pass 放行凭证
+     */
+    public boolean verifyPass(Long examId, Long studentId, String pass) {
+        if (pass == null) {
+            return false;
+        }
+        int dot = pass.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        try {
+            long expiresAt = Long.parseLong(pass.substring(0, dot));
+            if (expiresAt < System.currentTimeMillis() / 1000) {
+                return false;
+            }
+            byte[] signature = Base64.getUrlDecoder().decode(pass.substring(dot + 1));
+            return MessageDigest.isEqual(signature, sign(examId, studentId, expiresAt));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] sign(Long examId, Long studentId, long expiresAt) {
+        return passMac.get().doFinal((examId + ":" + studentId + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 记录一次入口接口的响应时间（自适应放行速率的依据）
+     */
+    public void recordLatency(long millis) {
+        latencyCount.increment();
+        latencySumMs.add(millis);
+    }
+
+    /**
+     * 客户端订阅放行进度时，本节点开始为该考试推送
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        if (!properties.isEnabled() || destination == null || !destination.startsWith(PROGRESS_TOPIC_PREFIX)) {
+            return;
+        }
+        try {
+            activeExams.put(Long.valueOf(destination.substring(PROGRESS_TOPIC_PREFIX.length())), System.currentTimeMillis());
+        } catch (NumberFormatException ignored) {
+            // 非法的订阅地址，不处理
+        }
+    }
+
+    /**
+     * 定时推进本节点活跃考试的放行进度，按需调整速率，并推送给本节点的订阅者
+     */
+    void tick() {
+        long count = latencyCount.sumThenReset();
+        long sumMs = latencySumMs.sumThenReset();
+        long now = System.currentTimeMillis();
+        activeExams.entrySet().removeIf(entry -> now - entry.getValue() > ACTIVE_IDLE_MS);
+
+        for (Long examId : activeExams.keySet()) {
+            try {
+                ExamDO exam = getExam(examId);
+                if (exam == null) {
+                    activeExams.remove(examId);
+                    continue;
+                }
+                boolean open = "in_progress".equals(exam.getStatus());
+                Progress progress = advance(examId, open, null, false);
+                long waiting = Math.max(0, progress.issued() - progress.admittedUpTo());
+                double rate = progress.rate();
+                // 只在有人排队且本节点有入口请求样本时调整
+                if (properties.isAdaptive() && open && waiting > 0 && count > 0) {
+                    rate = Double.parseDouble(stringRedisTemplate.execute(ADJUST_SCRIPT,
+                            List.of(ExamRedisKeys.waitingRoomState(examId)),
+                            String.valueOf(now),
+                            String.valueOf(sumMs / count),
+                            String.valueOf(properties.getTargetLatencyMs()),
+                            String.valueOf(properties.getMinAdmitRate()),
+                            String.valueOf(properties.getMaxAdmitRate()),
+                            String.valueOf(properties.getIncreaseStep()),
+                            String.valueOf(properties.getDecreaseFactor()),
+                            String.valueOf(properties.getAdjustIntervalMs()),
+                            String.valueOf(properties.getAdmitRate())));
+                }
+                // 每个节点只推送给自己的订阅者（消息内容幂等，重复收到没有影响）
+                messagingTemplate.convertAndSend(PROGRESS_TOPIC_PREFIX + examId,
+                        new WaitingRoomProgressDTO(examId, progress.admittedUpTo(), waiting, rate));
+            } catch (Exception e) {
+                System.err.println("推进等候室放行进度失败: " + examId + ", 错误: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (tickExecutor != null) {
+            tickExecutor.shutdownNow();
+        }
+    }
+}
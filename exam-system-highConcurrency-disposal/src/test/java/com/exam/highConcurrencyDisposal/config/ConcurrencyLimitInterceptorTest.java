@@ -0,0 +1,61 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.ConcurrencyLimiter;
+import com.exam.highConcurrencyDisposal.service.DependencyUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 并发限制拦截器：快速拒绝的请求（429、503）归还名额但不作为响应时间样本
+ */
+class ConcurrencyLimitInterceptorTest {
+
+    private ConcurrencyLimiter limiter;
+    private ConcurrencyLimitInterceptor interceptor;
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        limiter = mock(ConcurrencyLimiter.class);
+        when(limiter.tryAcquire(any())).thenReturn(true);
+        interceptor = new ConcurrencyLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "concurrencyLimiter", limiter);
+        handler = new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+    }
+
+    private void complete(int status, Exception ex) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, handler));
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, handler, ex);
+    }
+
+    @Test
+    void successfulRequestIsSampled() throws Exception {
+        complete(200, null);
+        verify(limiter).release(anyLong(), eq(true));
+    }
+
+    @Test
+    void fastRejectionsAreNotSampled() throws Exception {
+        complete(429, null);
+        complete(503, null);
+        // 未被异常处理器转换的依赖不可用异常
+        complete(200, new DependencyUnavailableException("redis", "Redis 熔断中", 1000));
+        verify(limiter, times(3)).release(anyLong(), eq(false));
+    }
+}
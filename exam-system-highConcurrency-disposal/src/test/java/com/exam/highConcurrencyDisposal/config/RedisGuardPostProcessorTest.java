@@ -0,0 +1,72 @@
+package com.exam.highConcurrencyDisposal.config;
+
+import com.exam.highConcurrencyDisposal.service.DependencyGuards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Redis 模板替换：受保护的模板保留原模板的连接工厂、序列化、事务支持和脚本执行器，
+ * 默认脚本执行器绑定到受保护的模板（脚本调用也经过保护）
+ */
+class RedisGuardPostProcessorTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisGuardPostProcessor postProcessor = new RedisGuardPostProcessor(mock(ObjectProvider.class));
+
+    private final RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisTemplateKeepsAllSettings() {
+        ScriptExecutor<String> scriptExecutor = mock(ScriptExecutor.class);
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setEnableTransactionSupport(true);
+        template.setExposeConnection(true);
+        template.setScriptExecutor(scriptExecutor);
+        template.afterPropertiesSet();
+
+        Object processed = postProcessor.postProcessAfterInitialization(template, "redisTemplate");
+
+        GuardedRedisTemplate<String, Object> guarded = assertInstanceOf(GuardedRedisTemplate.class, processed);
+        assertSame(connectionFactory, guarded.getConnectionFactory());
+        assertSame(template.getKeySerializer(), guarded.getKeySerializer());
+        assertSame(template.getValueSerializer(), guarded.getValueSerializer());
+        assertTrue(guarded.isExposeConnection());
+        DirectFieldAccessor accessor = new DirectFieldAccessor(guarded);
+        assertEquals(true, accessor.getPropertyValue("enableTransactionSupport"));
+        assertSame(scriptExecutor, accessor.getPropertyValue("scriptExecutor"));
+    }
+
+    @Test
+    void defaultScriptExecutorIsBoundToGuardedTemplate() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        template.setEnableTransactionSupport(true);
+        template.afterPropertiesSet();
+
+        Object processed = postProcessor.postProcessAfterInitialization(template, "stringRedisTemplate");
+
+        GuardedStringRedisTemplate guarded = assertInstanceOf(GuardedStringRedisTemplate.class, processed);
+        DirectFieldAccessor accessor = new DirectFieldAccessor(guarded);
+        assertEquals(true, accessor.getPropertyValue("enableTransactionSupport"));
+        DefaultScriptExecutor<?> scriptExecutor = assertInstanceOf(DefaultScriptExecutor.class,
+                accessor.getPropertyValue("scriptExecutor"));
+        assertSame(guarded, new DirectFieldAccessor(scriptExecutor).getPropertyValue("template"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.excute.annotation.RequestPriority;
+import com.exam.highConcurrencyDisposal.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应并发上限的调整：按窗口手动调用 update，校验响应时间不变时增大、响应时间上升时减小、
+ * 并发不足一半时不调整，以及上下限
+ */
+class ConcurrencyLimiterTest {
+
+    private static final double DELTA = 1e-9;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private ConcurrencyLimitProperties properties;
+    private ConcurrencyLimiter limiter;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        // 归还名额时不自动调整，由测试按窗口调用 update
+        properties.setMinWindowSamples(Integer.MAX_VALUE);
+        limiter = new ConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "properties", properties);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+        limiter.init();
+        now = System.nanoTime();
+    }
+
+    /**
+     * 一个采样窗口：同时占用 concurrent 个名额，全部以 rttNanos 归还，然后调整上限
+     */
+    private void window(int concurrent, long rttNanos) {
+        for (int i = 0; i < concurrent; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.Level.CRITICAL));
+        }
+        for (int i = 0; i < concurrent; i++) {
+            limiter.release(rttNanos, true);
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(properties.getWindowMs());
+        limiter.update(now);
+    }
+
+    private void fullWindow(long rttNanos) {
+        window((int) limiter.getLimit(), rttNanos);
+    }
+
+    @Test
+    void growsWhileResponseTimeStaysAtNoLoadLevel() {
+        fullWindow(FAST);
+        // 没有排队：目标 = 50 + beta × log10(50)，按平滑系数 0.5 取一半
+        double expected = 50 + 0.5 * 6 * Math.log10(50);
+        assertEquals(expected, limiter.getLimit(), DELTA);
+
+        for (int i = 0; i < 100; i++) {
+            fullWindow(FAST);
+        }
+        assertEquals(properties.getMaxLimit(), limiter.getLimit(), DELTA);
+    }
+
+    @Test
+    void shrinksWhenResponseTimeRises() {
+        fullWindow(FAST);
+        double before = limiter.getLimit();
+
+        // 响应时间翻倍：估计排队数 = 上限 × 0.5，超过 beta × log10(上限)，目标 = 上限 - log10(上限)
+        fullWindow(SLOW);
+        assertEquals(before - 0.5 * Math.log10(before), limiter.getLimit(), DELTA);
+
+        for (int i = 0; i < 200; i++) {
+            fullWindow(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertEquals(properties.getMinLimit(), limiter.getLimit(), DELTA);
+    }
+
+    @Test
+    void unchangedWhenLessThanHalfTheLimitIsUsed() {
+        fullWindow(FAST);
+        double before = limiter.getLimit();
+        window((int) (before / 2) - 1, TimeUnit.MILLISECONDS.toNanos(100));
+        window((int) (before / 2) - 1, FAST);
+        assertEquals(before, limiter.getLimit(), DELTA);
+    }
+
+    @Test
+    void unsampledReleasesDoNotPullAverageDown() {
+        fullWindow(FAST);
+        double before = limiter.getLimit();
+
+        // 一半请求变慢，另一半被快速拒绝（不作为样本）：平均响应时间只按变慢的请求计算
+        int concurrent = (int) before;
+        for (int i = 0; i < concurrent; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.Level.CRITICAL));
+        }
+        for (int i = 0; i < concurrent; i++) {
+            limiter.release(i % 2 == 0 ? SLOW : 1_000, i % 2 == 0);
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(properties.getWindowMs());
+        limiter.update(now);
+
+        assertEquals(before - 0.5 * Math.log10(before), limiter.getLimit(), DELTA);
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    void lowerPrioritiesAreRejectedFirst() {
+        // 初始上限 50：LOW 可用 30，NORMAL 可用 42
+        for (int i = 0; i < 30; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.Level.LOW));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriority.Level.LOW));
+        for (int i = 30; i < 42; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.Level.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriority.Level.NORMAL));
+        for (int i = 42; i < 50; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.Level.CRITICAL));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriority.Level.CRITICAL));
+    }
+}
@@ -0,0 +1,327 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.highConcurrencyDisposal.config.DependencyGuardProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 依赖保护：熔断器 CLOSED -> OPEN -> HALF_OPEN -> CLOSED / OPEN 的状态转换、试探调用的判定、舱壁拒绝和嵌套调用
+ */
+class DependencyGuardTest {
+
+    private static final long OPEN_MS = 100;
+
+    private DependencyGuardProperties.Policy policy;
+    private SimpleMeterRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        policy = new DependencyGuardProperties.Policy(4, 20, 1000);
+        policy.setMinimumCalls(10);
+        policy.setFailureRateThreshold(50);
+        policy.setOpenMs(OPEN_MS);
+        policy.setHalfOpenCalls(2);
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 依赖故障用 IllegalStateException 表示，其他异常视为业务异常
+     */
+    private DependencyGuard guard() {
+        return new DependencyGuard("test", policy, e -> e instanceof IllegalStateException, registry);
+    }
+
+    private static void succeed(DependencyGuard guard) {
+        assertEquals("ok", guard.call(() -> "ok"));
+    }
+
+    private static void fail(DependencyGuard guard) {
+        assertThrows(IllegalStateException.class, () -> guard.call(() -> {
+            throw new IllegalStateException("连接失败");
+        }));
+    }
+
+    private static void trip(DependencyGuard guard) {
+        for (int i = 0; i < 5; i++) {
+            succeed(guard);
+        }
+        for (int i = 0; i < 5; i++) {
+            fail(guard);
+        }
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+    }
+
+    private static void waitOpenPeriod() throws InterruptedException {
+        Thread.sleep(OPEN_MS + 20);
+    }
+
+    /**
+     * 在另一个线程中发起一次调用，阻塞到 release 计数归零后返回
+     */
+    private Future<String> blockedCall(DependencyGuard guard, CountDownLatch started, CountDownLatch release) {
+        return executor.submit(() -> guard.call(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "ok";
+        }));
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThresholdAfterMinimumCalls() {
+        DependencyGuard guard = guard();
+        // 调用数不足 minimum-calls 时不熔断
+        for (int i = 0; i < 9; i++) {
+            fail(guard);
+        }
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+        fail(guard);
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+
+        // 熔断期间不再访问依赖
+        AtomicInteger invoked = new AtomicInteger();
+        DependencyUnavailableException rejected = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call(invoked::incrementAndGet));
+        assertEquals(0, invoked.get());
+        assertEquals("test", rejected.getDependency());
+        assertTrue(rejected.getRetryAfterMs() > 0 && rejected.getRetryAfterMs() <= OPEN_MS + 1);
+        assertEquals(1, registry.get("exam.dependency.rejected").tag("reason", "open").counter().count());
+    }
+
+    @Test
+    void businessExceptionsDoNotCountAsFailures() {
+        DependencyGuard guard = guard();
+        for (int i = 0; i < 20; i++) {
+            assertThrows(IllegalArgumentException.class, () -> guard.call(() -> {
+                throw new IllegalArgumentException("唯一键冲突");
+            }));
+        }
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterAllTrialsSucceed() throws InterruptedException {
+        DependencyGuard guard = guard();
+        trip(guard);
+        waitOpenPeriod();
+
+        succeed(guard);
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+        succeed(guard);
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+
+        // 恢复后统计窗口从零开始：之前的失败不会让少量新失败再次熔断
+        for (int i = 0; i < 9; i++) {
+            fail(guard);
+        }
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void failedOrSlowTrialReopens() throws InterruptedException {
+        DependencyGuard guard = guard();
+        trip(guard);
+        waitOpenPeriod();
+        succeed(guard);
+        fail(guard);
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+        assertThrows(DependencyUnavailableException.class, () -> guard.call(() -> "ok"));
+
+        policy.setSlowCallMs(10);
+        DependencyGuard slowGuard = guard();
+        trip(slowGuard);
+        waitOpenPeriod();
+        slowGuard.call(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        });
+        assertEquals(DependencyGuard.State.OPEN, slowGuard.getState());
+        // 两个保护器名称相同，共用熔断次数指标：各自熔断、重新熔断一次
+        assertEquals(4, registry.get("exam.dependency.opened").counter().count());
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyConfiguredTrials() throws Exception {
+        DependencyGuard guard = guard();
+        trip(guard);
+        waitOpenPeriod();
+
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = blockedCall(guard, started, release);
+        Future<String> second = blockedCall(guard, started, release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 两个试探调用都未返回：第三个调用被拒绝
+        assertThrows(DependencyUnavailableException.class, () -> guard.call(() -> "ok"));
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+
+        release.countDown();
+        assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void callAdmittedWhileClosedIsNotCountedAsTrial() throws Exception {
+        policy.setHalfOpenCalls(1);
+        DependencyGuard guard = guard();
+
+        // 关闭状态下发出的慢请求，半开后才返回
+        CountDownLatch lateStarted = new CountDownLatch(1);
+        CountDownLatch lateRelease = new CountDownLatch(1);
+        Future<String> late = blockedCall(guard, lateStarted, lateRelease);
+        assertTrue(lateStarted.await(5, TimeUnit.SECONDS));
+
+        trip(guard);
+        waitOpenPeriod();
+
+        // 真正的试探调用进入半开并保持未返回
+        CountDownLatch trialStarted = new CountDownLatch(1);
+        CountDownLatch trialRelease = new CountDownLatch(1);
+        Future<String> trial = blockedCall(guard, trialStarted, trialRelease);
+        assertTrue(trialStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+
+        lateRelease.countDown();
+        assertEquals("ok", late.get(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+
+        trialRelease.countDown();
+        assertEquals("ok", trial.get(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void trialFromPreviousHalfOpenRoundIsIgnored() throws Exception {
+        DependencyGuard guard = guard();
+        trip(guard);
+        waitOpenPeriod();
+
+        // 第一轮半开：一个试探调用未返回，另一个失败后重新熔断
+        CountDownLatch staleStarted = new CountDownLatch(1);
+        CountDownLatch staleRelease = new CountDownLatch(1);
+        Future<String> stale = blockedCall(guard, staleStarted, staleRelease);
+        assertTrue(staleStarted.await(5, TimeUnit.SECONDS));
+        fail(guard);
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+
+        // 第二轮半开：一个试探调用成功，上一轮的试探调用返回不计入本轮
+        waitOpenPeriod();
+        succeed(guard);
+        staleRelease.countDown();
+        assertEquals("ok", stale.get(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+        succeed(guard);
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void bulkheadRejectsWhenAllPermitsAreHeld() throws Exception {
+        DependencyGuard guard = guard();
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?>[] holders = new Future<?>[4];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = blockedCall(guard, started, release);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, guard.getInflight());
+
+        AtomicInteger invoked = new AtomicInteger();
+        long begin = System.nanoTime();
+        DependencyUnavailableException rejected = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call(invoked::incrementAndGet));
+        // 等待 max-wait-ms 后直接失败
+        assertTrue(System.nanoTime() - begin >= TimeUnit.MILLISECONDS.toNanos(policy.getMaxWaitMs()));
+        assertEquals(0, invoked.get());
+        assertEquals(policy.getMaxWaitMs(), rejected.getRetryAfterMs());
+        assertEquals(1, registry.get("exam.dependency.rejected").tag("reason", "bulkhead").counter().count());
+        // 舱壁拒绝不计入失败率
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+
+        release.countDown();
+        for (Future<?> holder : holders) {
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, guard.getInflight());
+        succeed(guard);
+    }
+
+    @Test
+    void bulkheadRejectionReturnsTrialPermit() throws Exception {
+        policy = new DependencyGuardProperties.Policy(1, 20, 1000);
+        policy.setMinimumCalls(10);
+        policy.setOpenMs(OPEN_MS);
+        policy.setHalfOpenCalls(2);
+        DependencyGuard guard = guard();
+        trip(guard);
+        waitOpenPeriod();
+
+        // 第一个试探调用占住唯一的舱壁名额
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> holder = blockedCall(guard, started, release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 之后的试探调用因舱壁已满被拒绝，试探名额归还，不会被当作试探调用未返回而拒绝
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DependencyUnavailableException.class, () -> guard.call(() -> "ok"));
+        }
+        assertEquals(3, registry.get("exam.dependency.rejected").tag("reason", "bulkhead").counter().count());
+        assertEquals(0, registry.get("exam.dependency.rejected").tag("reason", "open").counter().count());
+
+        release.countDown();
+        assertEquals("ok", holder.get(5, TimeUnit.SECONDS));
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+        succeed(guard);
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void nestedCallsUseOnePermit() {
+        policy = new DependencyGuardProperties.Policy(1, 0, 1000);
+        DependencyGuard guard = guard();
+        String result = guard.call(() -> guard.call(() -> guard.call(() -> "nested")));
+        assertEquals("nested", result);
+        assertEquals(0, guard.getInflight());
+        succeed(guard);
+    }
+
+    @Test
+    void disabledGuardPassesThrough() {
+        policy.setEnabled(false);
+        DependencyGuard guard = guard();
+        for (int i = 0; i < 20; i++) {
+            fail(guard);
+        }
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+}
@@ -0,0 +1,163 @@
+package com.exam.highConcurrencyDisposal.service;
+
+import com.exam.excute.dto.AnswerItemDTO;
+import com.exam.excute.service.AnswerWriteBehindBuffer;
+import com.exam.excute.service.ExamMetrics;
+import com.exam.excute.service.ExamSyncService;
+import com.exam.excute.service.ProgressPushDispatcher;
+import com.exam.excute.service.rule.AntiCheatRuleEngine;
+import com.exam.highConcurrencyDisposal.config.DependencyGuardProperties;
+import com.exam.highConcurrencyDisposal.config.GuardedStringRedisTemplate;
+import com.exam.manage.util.ExamRedisKeys;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Redis 故障与恢复（jedis-mock）：Redis 停止后保存答案转入本地缓冲和日志，后台补写失败使熔断器打开；
+ * Redis 重新启动后试探调用成功、熔断恢复，缓冲中的答案补写到 Redis（同一题目只保留最新版本）
+ */
+class RedisOutageDegradationTest {
+
+    private static final long EXAM_RECORD_ID = 1L;
+    private static final String TOKEN = "token";
+    private static final long WAIT_MS = 15_000;
+
+    @TempDir
+    Path journalDir;
+
+    private RedisServer redis;
+    private int port;
+    private LettuceConnectionFactory connectionFactory;
+    private DependencyGuard redisGuard;
+    private AnswerWriteBehindBuffer buffer;
+    private ExamSyncService examSyncService;
+    private StringRedisTemplate template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        port = redis.getBindPort();
+        // 命令超时设短，Redis 停止期间调用很快失败（jedis-mock 第一次执行 Lua 脚本需要几百毫秒）
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofSeconds(1))
+                .build();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), port),
+                clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        DependencyGuardProperties properties = new DependencyGuardProperties();
+        DependencyGuardProperties.Policy policy = properties.getRedis();
+        policy.setMinimumCalls(3);
+        policy.setOpenMs(300);
+        policy.setHalfOpenCalls(2);
+        // jedis-mock 重新启动后第一次执行 Lua 脚本较慢，不按慢调用判定
+        policy.setSlowCallMs(5000);
+        DependencyGuards guards = new DependencyGuards();
+        ReflectionTestUtils.setField(guards, "properties", properties);
+        ReflectionTestUtils.setField(guards, "meterRegistry", new SimpleMeterRegistry());
+        guards.init();
+        redisGuard = guards.redis();
+        template = new GuardedStringRedisTemplate(connectionFactory, () -> redisGuard);
+
+        // 未开启写缓冲：只作为 Redis 不可用时的降级缓冲
+        buffer = new AnswerWriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "enabled", false);
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(buffer, "journalPath", journalDir.resolve("answer-journal.log").toString());
+        ReflectionTestUtils.setField(buffer, "segmentRotateMs", 1000L);
+
+        examSyncService = new ExamSyncService();
+        ReflectionTestUtils.setField(examSyncService, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(examSyncService, "answerWriteBehindBuffer", buffer);
+        ReflectionTestUtils.setField(examSyncService, "antiCheatRuleEngine", mock(AntiCheatRuleEngine.class));
+        ReflectionTestUtils.setField(examSyncService, "examMetrics", mock(ExamMetrics.class));
+        ReflectionTestUtils.setField(examSyncService, "progressPushDispatcher", mock(ProgressPushDispatcher.class));
+        ReflectionTestUtils.setField(examSyncService, "applicationEventPublisher", mock(ApplicationEventPublisher.class));
+        examSyncService.initWriteBehindBuffer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        buffer.shutdown();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void answersSavedDuringOutageAreReplayedAfterRecovery() throws Exception {
+        assertTrue(examSyncService.saveAnswerRealtime(EXAM_RECORD_ID, 1L, "A", 1L, TOKEN));
+        assertFalse(buffer.hasPending());
+        assertEquals("A", template.opsForValue().get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 1L)));
+
+        redis.stop();
+
+        // Redis 不可用：保存答案转入本地缓冲，接口仍然成功
+        assertTrue(examSyncService.saveAnswerRealtime(EXAM_RECORD_ID, 2L, "B", 1L, TOKEN));
+        assertTrue(buffer.hasPending());
+        // 缓冲中还有未补写的答案：之后的保存直接进入缓冲，同一题目只保留最新版本
+        assertTrue(examSyncService.saveAnswerRealtime(EXAM_RECORD_ID, 2L, "C", 2L, TOKEN));
+        assertFalse(examSyncService.saveAnswerRealtime(EXAM_RECORD_ID, 2L, "stale", 1L, TOKEN));
+        examSyncService.saveAnswersBatch(EXAM_RECORD_ID,
+                List.of(new AnswerItemDTO(3L, "D", 1L), new AnswerItemDTO(4L, "E", 1L)), TOKEN);
+        assertEquals("C", examSyncService.getAnswerFromRedis(EXAM_RECORD_ID, 2L, TOKEN));
+
+        // 后台补写持续失败，熔断器打开
+        await(() -> redisGuard.getState() == DependencyGuard.State.OPEN, "Redis 熔断");
+        assertTrue(buffer.hasPending());
+
+        redis = RedisServer.newRedisServer(port).start();
+
+        // 熔断时长结束后后台补写作为试探调用放行，缓冲中的答案全部补写
+        await(() -> !buffer.hasPending(), "缓冲答案补写");
+        assertTrue(redisGuard.getState() != DependencyGuard.State.OPEN);
+
+        // 重新启动的 jedis-mock 没有之前的数据，只校验降级期间保存的答案
+        assertEquals("C", template.opsForValue().get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 2L)));
+        assertEquals("D", template.opsForValue().get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 3L)));
+        assertEquals("E", template.opsForValue().get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 4L)));
+        assertEquals("2", template.<String, String>opsForHash()
+                .get(ExamRedisKeys.answerVersion(EXAM_RECORD_ID, TOKEN), "2"));
+        assertEquals(3L, template.opsForSet().size(ExamRedisKeys.syncQueue(EXAM_RECORD_ID, TOKEN)));
+        assertTrue(template.opsForSet().isMember(ExamRedisKeys.syncPending(ExamRedisKeys.syncPendingShard(EXAM_RECORD_ID)),
+                EXAM_RECORD_ID + ":" + TOKEN));
+        // 试探调用全部成功，熔断恢复
+        assertEquals(DependencyGuard.State.CLOSED, redisGuard.getState());
+
+        // 恢复后新的保存直接写入 Redis
+        assertTrue(examSyncService.saveAnswerRealtime(EXAM_RECORD_ID, 5L, "F", 1L, TOKEN));
+        assertFalse(buffer.hasPending());
+        assertEquals("F", template.opsForValue().get(ExamRedisKeys.answer(EXAM_RECORD_ID, TOKEN, 5L)));
+    }
+
+    private static void await(BooleanSupplier condition, String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(name + "超时（" + WAIT_MS + "ms）");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.exam.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 考试系统 REST 接口客户端（java.net.http，阻塞调用，由虚拟线程承载）
+ * 每个调用都传入计划发出时间，用于计算修正协调遗漏后的响应时间；
+ * 业务失败（HTTP 非 200 或 Result.code 非 200）计入失败数并抛出异常
+ */
+public class ExamApiClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final Semaphore inFlight;
+    private final LoadMetrics metrics;
+
+    public ExamApiClient(HttpClient httpClient, LoadTestConfig config, LoadMetrics metrics) {
+        this.httpClient = httpClient;
+        this.baseUrl = config.getBaseUrl();
+        this.requestTimeout = config.getRequestTimeout();
+        this.inFlight = new Semaphore(config.getMaxInFlight());
+        this.metrics = metrics;
+    }
+
+    /**
+     * 注册学生账号
+     */
+    public void register(String username, String password, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("username", username);
+        body.put("password", password);
+        call(LoadMetrics.REGISTER, intendedStartNanos, post("/exam-online/auth/register", null, null, body));
+    }
+
+    /**
+     * 登录，返回 JWT
+     */
+    public String login(String username, String password, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("username", username);
+        body.put("password", password);
+        JsonNode data = call(LoadMetrics.LOGIN, intendedStartNanos, post("/exam-online/auth/login", null, null, body));
+        return data.path("token").asText();
+    }
+
+    /**
+     * 获取考试令牌
+     */
+    public String getExamToken(String jwt, long examId, long intendedStartNanos) {
+        HttpRequest request = request("/exam-online/execute/token/" + examId, jwt, null).GET().build();
+        return call(LoadMetrics.TOKEN, intendedStartNanos, request).asText();
+    }
+
+    /**
+     * 进入考试，返回考试记录ID
+     */
+    public long startExam(String jwt, String examToken, long examId, long intendedStartNanos) {
+        HttpRequest request = post("/exam-online/execute/start/" + examId, jwt, examToken, null);
+        return call(LoadMetrics.START, intendedStartNanos, request).asLong();
+    }
+
+    /**
+     * 保存单题答案
+     */
+    public void saveAnswer(String jwt, String examToken, long examRecordId, long questionId, String answer,
+                           long version, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("examRecordId", examRecordId);
+        body.put("questionId", questionId);
+        body.put("studentAnswer", answer);
+        body.put("version", version);
+        call(LoadMetrics.ANSWER_REST, intendedStartNanos, post("/exam-online/execute/answer", jwt, examToken, body));
+    }
+
+    /**
+     * 批量保存答案
+     */
+    public void saveAnswerBatch(String jwt, String examToken, long examRecordId, ArrayNode answers, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("examRecordId", examRecordId);
+        body.set("answers", answers);
+        call(LoadMetrics.ANSWER_REST, intendedStartNanos, post("/exam-online/execute/answer/batch", jwt, examToken, body));
+    }
+
+    /**
+     * 交卷
+     */
+    public void submit(String jwt, String examToken, long examRecordId, long intendedStartNanos) {
+        HttpRequest request = post("/exam-online/execute/submit/" + examRecordId, jwt, examToken, null);
+        call(LoadMetrics.SUBMIT, intendedStartNanos, request);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    private HttpRequest post(String path, String jwt, String examToken, JsonNode body) {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(toBytes(body));
+        return request(path, jwt, examToken).POST(publisher).build();
+    }
+
+    private HttpRequest.Builder request(String path, String jwt, String examToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json");
+        if (jwt != null) {
+            builder.header("Authorization", "Bearer " + jwt);
+        }
+        if (examToken != null) {
+            builder.header("X-Exam-Token", examToken);
+        }
+        return builder;
+    }
+
+    /**
+     * 发送请求并解析 Result，返回 data 字段
+     */
+    private JsonNode call(String operation, long intendedStartNanos, HttpRequest request) {
+        OperationStats stats = metrics.get(operation);
+        boolean acquired = false;
+        try {
+            inFlight.acquire();
+            acquired = true;
+            long actualStart = System.nanoTime();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long end = System.nanoTime();
+            inFlight.release();
+            acquired = false;
+
+            if (response.statusCode() != 200) {
+                throw new RuntimeException(operation + " 返回 HTTP " + response.statusCode());
+            }
+            JsonNode result = objectMapper.readTree(response.body());
+            if (result.path("code").asInt() != 200) {
+                throw new RuntimeException(operation + " 失败: " + result.path("message").asText());
+            }
+            stats.record(intendedStartNanos, actualStart, end);
+            return result.path("data");
+        } catch (IOException e) {
+            stats.fail();
+            throw new RuntimeException(operation + " 请求异常: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.fail();
+            throw new RuntimeException(operation + " 被中断", e);
+        } catch (RuntimeException e) {
+            stats.fail();
+            throw e;
+        } finally {
+            if (acquired) {
+                inFlight.release();
+            }
+        }
+    }
+
+    private byte[] toBytes(JsonNode body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new RuntimeException("序列化请求体失败", e);
+        }
+    }
+}
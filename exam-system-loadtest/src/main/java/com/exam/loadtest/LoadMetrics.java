@@ -0,0 +1,160 @@
+package com.exam.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测指标汇总
+ * 报告线程按固定周期取出各操作的区间直方图：打印进度、写入 HdrHistogram 日志（loadtest.hlog，可用 HistogramLogProcessor 绘图），
+ * 结束时输出汇总表和每个操作的百分位分布文件（*.hgrm，可粘贴到 HdrHistogram 在线绘图页面）
+ */
+public class LoadMetrics {
+
+    public static final String REGISTER = "register";
+    public static final String LOGIN = "login";
+    public static final String TOKEN = "token";
+    public static final String START = "start";
+    public static final String WS_CONNECT = "ws_connect";
+    public static final String ANSWER_REST = "answer_rest";
+    public static final String ANSWER_WS = "answer_ws";
+    public static final String HEARTBEAT_WS = "heartbeat_ws";
+    public static final String SUBMIT = "submit";
+
+    private final Map<String, OperationStats> operations = new LinkedHashMap<>();
+    private final AtomicInteger activeStudents = new AtomicInteger();
+    private final AtomicInteger abortedStudents = new AtomicInteger();
+    private final AtomicInteger wsMessagesReceived = new AtomicInteger();
+    private final Path outputDir;
+    private final long reportIntervalMillis;
+
+    private ScheduledExecutorService reporter;
+    private HistogramLogWriter logWriter;
+    private long startMillis;
+
+    public LoadMetrics(Path outputDir, long reportIntervalMillis) {
+        this.outputDir = outputDir;
+        this.reportIntervalMillis = reportIntervalMillis;
+        for (String name : new String[]{REGISTER, LOGIN, TOKEN, START, WS_CONNECT, ANSWER_REST, ANSWER_WS, HEARTBEAT_WS, SUBMIT}) {
+            operations.put(name, new OperationStats(name));
+        }
+    }
+
+    public OperationStats get(String name) {
+        return operations.get(name);
+    }
+
+    public AtomicInteger getActiveStudents() {
+        return activeStudents;
+    }
+
+    public AtomicInteger getAbortedStudents() {
+        return abortedStudents;
+    }
+
+    public AtomicInteger getWsMessagesReceived() {
+        return wsMessagesReceived;
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(outputDir);
+        startMillis = System.currentTimeMillis();
+        logWriter = new HistogramLogWriter(outputDir.resolve("loadtest.hlog").toFile());
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(startMillis);
+        logWriter.setBaseTime(startMillis);
+        logWriter.outputLegend();
+
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::reportInterval, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止报告线程，取出最后一个周期，输出汇总表和百分位分布文件
+     */
+    public void finish(PrintStream out) throws FileNotFoundException {
+        reporter.shutdown();
+        try {
+            reporter.awaitTermination(reportIntervalMillis * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reportInterval();
+        logWriter.close();
+
+        out.println();
+        out.println("==================== 压测结果（响应时间，已修正协调遗漏，单位：毫秒） ====================");
+        out.printf("%-13s %9s %7s %9s %9s %9s %9s %9s %9s %12s%n",
+                "操作", "成功", "失败", "平均", "p50", "p90", "p99", "p99.9", "最大", "服务时间p99");
+        for (OperationStats stats : operations.values()) {
+            Histogram response = stats.getResponseTotal();
+            if (response.getTotalCount() == 0 && stats.getFailed() == 0) {
+                continue;
+            }
+            out.printf("%-13s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %12.1f%n",
+                    stats.getName(), response.getTotalCount(), stats.getFailed(),
+                    response.getMean() / 1000.0,
+                    millis(response, 50), millis(response, 90), millis(response, 99), millis(response, 99.9),
+                    response.getMaxValue() / 1000.0,
+                    millis(stats.getServiceTotal(), 99));
+            writePercentiles(stats.getName() + ".hgrm", response);
+            writePercentiles(stats.getName() + "-service.hgrm", stats.getServiceTotal());
+        }
+        out.println("中途放弃的考生: " + abortedStudents.get() + "，收到的 STOMP 推送: " + wsMessagesReceived.get());
+        out.println("百分位分布和区间日志已写入 " + outputDir.toAbsolutePath());
+    }
+
+    private synchronized void reportInterval() {
+        try {
+            long elapsedSeconds = (System.currentTimeMillis() - startMillis) / 1000;
+            StringBuilder line = new StringBuilder();
+            line.append(String.format("[%5ds] 在线考生 %6d", elapsedSeconds, activeStudents.get()));
+            for (OperationStats stats : operations.values()) {
+                OperationStats.Interval interval = stats.drainInterval();
+                Histogram response = interval.response;
+                if (response.getTotalCount() == 0 && interval.failed == 0) {
+                    continue;
+                }
+                response.setTag(stats.getName());
+                logWriter.outputIntervalHistogram(response);
+                interval.service.setTag(stats.getName() + "-service");
+                logWriter.outputIntervalHistogram(interval.service);
+
+                double seconds = reportIntervalMillis / 1000.0;
+                line.append(String.format(" | %s %.0f/s p99=%.1fms", stats.getName(), response.getTotalCount() / seconds,
+                        millis(response, 99)));
+                if (interval.failed > 0) {
+                    line.append(" 失败=").append(interval.failed);
+                }
+            }
+            System.out.println(line);
+        } catch (RuntimeException e) {
+            System.err.println("输出压测进度失败: " + e.getMessage());
+        }
+    }
+
+    private void writePercentiles(String fileName, Histogram histogram) throws FileNotFoundException {
+        try (PrintStream file = new PrintStream(outputDir.resolve(fileName).toFile())) {
+            histogram.outputPercentileDistribution(file, 1000.0);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
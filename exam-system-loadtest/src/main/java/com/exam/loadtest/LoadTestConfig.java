@@ -0,0 +1,171 @@
+package com.exam.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * 压测配置
+ * 全部通过系统属性传入，例如：java -Dload.students=50000 -Dload.arrival-rate=500 -jar loadtest.jar
+ */
+public class LoadTestConfig {
+
+    /**
+     * 服务地址
+     */
+    private final String baseUrl = System.getProperty("load.base-url", "http://localhost:8080");
+
+    /**
+     * STOMP 地址（原生 WebSocket 端点，不走 SockJS），默认由服务地址推导
+     */
+    private final String wsUrl = System.getProperty("load.ws-url",
+            baseUrl.replaceFirst("^http", "ws") + "/ws/exam-native");
+
+    /**
+     * 考试ID（需要先创建并开启）
+     */
+    private final long examId = Long.getLong("load.exam-id", 1L);
+
+    /**
+     * 考生人数，以及起始编号（多台压测机分片时错开，例如第二台从 25001 开始）
+     */
+    private final int students = Integer.getInteger("load.students", 50000);
+    private final int firstStudent = Integer.getInteger("load.first-student", 1);
+
+    /**
+     * 考生账号：用户名前缀 + 编号，统一密码；register=true 时先注册（已存在的账号注册失败不影响后续流程）
+     */
+    private final String usernamePrefix = System.getProperty("load.username-prefix", "student_");
+    private final String password = System.getProperty("load.password", "123456");
+    private final boolean register = Boolean.getBoolean("load.register");
+
+    /**
+     * 开放模型到达率：每秒进入多少名考生（登录 -> 获取令牌 -> 进入考试），与服务端响应快慢无关
+     */
+    private final double arrivalRate = Double.parseDouble(System.getProperty("load.arrival-rate", "500"));
+
+    /**
+     * 最后一名考生到达后的作答时长，之后统一打铃交卷，单位：秒
+     */
+    private final long examDurationSeconds = Long.getLong("load.exam-duration-s", 300L);
+
+    /**
+     * 题目数量、每名考生保存答案的间隔、每次保存的题数（大于 1 时使用批量接口）
+     */
+    private final int questions = Integer.getInteger("load.questions", 50);
+    private final long answerIntervalMs = Long.getLong("load.answer-interval-ms", 5000L);
+    private final int answerBatchSize = Integer.getInteger("load.answer-batch-size", 1);
+
+    /**
+     * 通过 STOMP 作答的考生比例（0~1），其余考生走 REST；STOMP 考生同时发送心跳
+     */
+    private final double wsRatio = Double.parseDouble(System.getProperty("load.ws-ratio", "0.5"));
+    private final long heartbeatIntervalMs = Long.getLong("load.heartbeat-interval-ms", 10000L);
+
+    /**
+     * 打铃后交卷请求的分散时间（客户端自动交卷的抖动），单位：毫秒
+     */
+    private final long submitSpreadMs = Long.getLong("load.submit-spread-ms", 1000L);
+
+    /**
+     * 同时在途的 HTTP 请求上限（受压测机文件句柄和端口数限制），等待许可的时间计入响应时间
+     */
+    private final int maxInFlight = Integer.getInteger("load.max-in-flight", 20000);
+    private final long requestTimeoutMs = Long.getLong("load.request-timeout-ms", 30000L);
+
+    /**
+     * 结果输出目录和进度报告间隔
+     */
+    private final String outputDir = System.getProperty("load.output-dir", "target/loadtest");
+    private final long reportIntervalSeconds = Long.getLong("load.report-interval-s", 5L);
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getWsUrl() {
+        return wsUrl;
+    }
+
+    public long getExamId() {
+        return examId;
+    }
+
+    public int getStudents() {
+        return students;
+    }
+
+    public int getFirstStudent() {
+        return firstStudent;
+    }
+
+    public String getUsernamePrefix() {
+        return usernamePrefix;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public boolean isRegister() {
+        return register;
+    }
+
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    public Duration getExamDuration() {
+        return Duration.ofSeconds(examDurationSeconds);
+    }
+
+    public int getQuestions() {
+        return questions;
+    }
+
+    public Duration getAnswerInterval() {
+        return Duration.ofMillis(answerIntervalMs);
+    }
+
+    public int getAnswerBatchSize() {
+        return answerBatchSize;
+    }
+
+    public double getWsRatio() {
+        return wsRatio;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return Duration.ofMillis(heartbeatIntervalMs);
+    }
+
+    public Duration getSubmitSpread() {
+        return Duration.ofMillis(submitSpreadMs);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getRequestTimeout() {
+        return Duration.ofMillis(requestTimeoutMs);
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public Duration getReportInterval() {
+        return Duration.ofSeconds(reportIntervalSeconds);
+    }
+
+    public void print(PrintStream out) {
+        out.println("==================== 压测配置 ====================");
+        out.println("服务地址: " + baseUrl + "，STOMP: " + wsUrl);
+        out.println("考试ID: " + examId + "，考生: " + students + "（编号 " + firstStudent + " 起）");
+        out.println("到达率: " + arrivalRate + " 人/秒，作答时长: " + examDurationSeconds + " 秒");
+        out.println("题目: " + questions + "，保存间隔: " + answerIntervalMs + "ms，每次保存: " + answerBatchSize + " 题");
+        out.println("STOMP 考生比例: " + wsRatio + "，心跳间隔: " + heartbeatIntervalMs + "ms");
+        out.println("在途请求上限: " + maxInFlight + "，请求超时: " + requestTimeoutMs + "ms");
+        out.println("==================================================");
+    }
+}
@@ -0,0 +1,50 @@
+package com.exam.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 考试系统压测入口
+ * 开放模型：考生按固定到达率进入考试，每名考生一个虚拟线程；所有考生到达后再作答 exam-duration-s 秒，然后统一打铃交卷
+ *
+ * 用法：java [-Dload.xxx=...] -jar target/loadtest.jar，参数见 LoadTestConfig
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        config.print(System.out);
+
+        LoadMetrics metrics = new LoadMetrics(Paths.get(config.getOutputDir()), config.getReportInterval().toMillis());
+        // HttpClient 使用默认执行器（平台线程），与考生虚拟线程分开，考生执行器关闭时不影响 HttpClient 的内部任务
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.getRequestTimeout())
+                .build();
+        ExamApiClient api = new ExamApiClient(httpClient, config, metrics);
+
+        // 第一名考生在 1 秒后到达，留出启动时间
+        long testStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long rampNanos = (long) (config.getStudents() * 1_000_000_000.0 / config.getArrivalRate());
+        long bellNanos = testStart + rampNanos + config.getExamDuration().toNanos();
+        System.out.printf("全部考生预计 %.1f 秒内到达，%.1f 秒后打铃交卷%n",
+                rampNanos / 1e9, (bellNanos - System.nanoTime()) / 1e9);
+
+        metrics.start();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < config.getStudents(); i++) {
+            long arrival = testStart + (long) (i * 1_000_000_000.0 / config.getArrivalRate());
+            // 按比例均匀分配 STOMP 考生
+            boolean useStomp = (int) ((i + 1) * config.getWsRatio()) > (int) (i * config.getWsRatio());
+            executor.submit(new StudentSession(config, api, httpClient, metrics,
+                    config.getFirstStudent() + i, arrival, bellNanos, useStomp));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        metrics.finish(System.out);
+    }
+}
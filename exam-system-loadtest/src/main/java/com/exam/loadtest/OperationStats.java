@@ -0,0 +1,98 @@
+package com.exam.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的延迟统计
+ * 同时记录两种延迟（单位：微秒）：
+ * 响应时间 = 完成时间 - 计划发出时间，包含压测端排队和前一个请求拖延造成的等待，已修正协调遗漏（coordinated omission）；
+ * 服务时间 = 完成时间 - 实际发出时间，即传统压测工具报告的延迟，仅作对照
+ */
+public class OperationStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String name;
+    private final Recorder responseRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder serviceRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram responseTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram serviceTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder failed = new LongAdder();
+
+    private Histogram responseInterval;
+    private Histogram serviceInterval;
+    private long failedReported;
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录一次成功的操作
+     * @param intendedStartNanos 计划发出时间（开放模型下由到达率决定，与上一个请求是否返回无关）
+     * @param actualStartNanos 实际发出时间
+     * @param endNanos 完成时间
+     */
+    public void record(long intendedStartNanos, long actualStartNanos, long endNanos) {
+        responseRecorder.recordValue(toMicros(endNanos - Math.min(intendedStartNanos, actualStartNanos)));
+        serviceRecorder.recordValue(toMicros(endNanos - actualStartNanos));
+    }
+
+    public void fail() {
+        failed.increment();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public Histogram getResponseTotal() {
+        return responseTotal;
+    }
+
+    public Histogram getServiceTotal() {
+        return serviceTotal;
+    }
+
+    /**
+     * 取出本周期的直方图并累加到总计，仅由报告线程调用
+     */
+    synchronized Interval drainInterval() {
+        responseInterval = responseRecorder.getIntervalHistogram(responseInterval);
+        serviceInterval = serviceRecorder.getIntervalHistogram(serviceInterval);
+        responseTotal.add(responseInterval);
+        serviceTotal.add(serviceInterval);
+        long failedNow = failed.sum();
+        long failedDelta = failedNow - failedReported;
+        failedReported = failedNow;
+        return new Interval(responseInterval, serviceInterval, failedDelta);
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /**
+     * 一个报告周期内的统计
+     */
+    static final class Interval {
+        final Histogram response;
+        final Histogram service;
+        final long failed;
+
+        Interval(Histogram response, Histogram service, long failed) {
+            this.response = response;
+            this.service = service;
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.exam.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最小 STOMP 1.2 客户端（基于 java.net.http.WebSocket，只实现压测需要的 CONNECT / SUBSCRIBE / SEND / DISCONNECT）
+ * 连接服务端的原生 WebSocket 端点 /ws/exam-native，CONNECT 帧携带 JWT（见服务端 StompAuthChannelInterceptor）
+ */
+public class StompClient implements WebSocket.Listener {
+
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final StringBuilder partial = new StringBuilder();
+    private final AtomicInteger messagesReceived;
+    private final Duration timeout;
+
+    private WebSocket webSocket;
+    private int subscriptionId;
+    private volatile String lastError;
+
+    private StompClient(AtomicInteger messagesReceived, Duration timeout) {
+        this.messagesReceived = messagesReceived;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 建立 WebSocket 连接并完成 STOMP 握手
+     */
+    public static StompClient connect(HttpClient httpClient, URI uri, String jwt, Duration timeout,
+                                      AtomicInteger messagesReceived) {
+        StompClient client = new StompClient(messagesReceived, timeout);
+        try {
+            client.webSocket = httpClient.newWebSocketBuilder()
+                    .connectTimeout(timeout)
+                    .buildAsync(uri, client)
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            client.sendFrame("CONNECT\n"
+                    + "accept-version:1.2\n"
+                    + "host:" + uri.getHost() + "\n"
+                    + "heart-beat:0,0\n"
+                    + "Authorization:Bearer " + jwt + "\n"
+                    + "\n");
+            client.connected.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return client;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            client.abort();
+            throw new RuntimeException("STOMP 连接被中断", e);
+        } catch (ExecutionException | TimeoutException e) {
+            client.abort();
+            throw new RuntimeException("STOMP 连接失败: " + (client.lastError != null ? client.lastError : e.getMessage()), e);
+        }
+    }
+
+    public void subscribe(String destination) {
+        sendFrame("SUBSCRIBE\n"
+                + "id:sub-" + (subscriptionId++) + "\n"
+                + "destination:" + destination + "\n"
+                + "\n");
+    }
+
+    /**
+     * 发送 JSON 消息，返回时帧已写入连接（STOMP SEND 没有应答，无法测量服务端处理耗时）
+     */
+    public void send(String destination, String json) {
+        int length = json.getBytes(StandardCharsets.UTF_8).length;
+        sendFrame("SEND\n"
+                + "destination:" + destination + "\n"
+                + "content-type:application/json\n"
+                + "content-length:" + length + "\n"
+                + "\n"
+                + json);
+    }
+
+    public void disconnect() {
+        try {
+            sendFrame("DISCONNECT\n\n");
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            abort();
+        }
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * java.net.http.WebSocket 同一时间只允许一个未完成的发送，这里串行化并等待写入完成
+     * 使用 ReentrantLock 而不是 synchronized：虚拟线程在 synchronized 块内阻塞会钉住载体线程
+     */
+    private void sendFrame(String frame) {
+        if (lastError != null && connected.isDone()) {
+            throw new RuntimeException("STOMP 连接已出错: " + lastError);
+        }
+        sendLock.lock();
+        try {
+            webSocket.sendText(frame + "\0", true).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("STOMP 发送被中断", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("STOMP 发送失败: " + e.getMessage(), e);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void abort() {
+        if (webSocket != null) {
+            webSocket.abort();
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String text = partial.toString();
+            partial.setLength(0);
+            for (String frame : text.split("\0")) {
+                handleFrame(frame);
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (!connected.isDone()) {
+            connected.completeExceptionally(new IllegalStateException("连接被关闭: " + statusCode + " " + reason));
+        }
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        lastError = error.getMessage();
+        connected.completeExceptionally(error);
+    }
+
+    private void handleFrame(String frame) {
+        // 跳过心跳换行
+        int start = 0;
+        while (start < frame.length() && (frame.charAt(start) == '\n' || frame.charAt(start) == '\r')) {
+            start++;
+        }
+        if (start == frame.length()) {
+            return;
+        }
+        int lineEnd = frame.indexOf('\n', start);
+        String command = lineEnd < 0 ? frame.substring(start) : frame.substring(start, lineEnd);
+        switch (command.trim()) {
+            case "CONNECTED":
+                connected.complete(null);
+                break;
+            case "MESSAGE":
+                messagesReceived.incrementAndGet();
+                break;
+            case "ERROR":
+                lastError = header(frame, "message");
+                connected.completeExceptionally(new IllegalStateException(lastError));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String header(String frame, String name) {
+        for (String line : frame.split("\n")) {
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.startsWith(name + ":")) {
+                return line.substring(name.length() + 1);
+            }
+        }
+        return "ERROR";
+    }
+}
@@ -0,0 +1,193 @@
+package com.exam.loadtest;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单名考生的完整考试流程（运行在独立的虚拟线程上）
+ * 登录 -> 获取考试令牌 -> 进入考试 -> 按固定节奏保存答案（REST 或 STOMP）-> 打铃交卷
+ *
+ * 作答请求按计划时间表发出：下一次保存的计划时间只由间隔决定，不会因为上一次请求变慢而整体后移，
+ * 响应时间从计划时间算起，服务端变慢造成的排队会如实体现在百分位中
+ */
+public class StudentSession implements Runnable {
+
+    private static final String[] CHOICES = {"A", "B", "C", "D", "A,B", "B,D", "A,C,D"};
+
+    private final LoadTestConfig config;
+    private final ExamApiClient api;
+    private final HttpClient httpClient;
+    private final LoadMetrics metrics;
+    private final int studentNo;
+    private final long arrivalNanos;
+    private final long bellNanos;
+    private final boolean useStomp;
+
+    private String jwt;
+    private String examToken;
+    private long examRecordId;
+    private StompClient stomp;
+    private long[] versions;
+
+    public StudentSession(LoadTestConfig config, ExamApiClient api, HttpClient httpClient, LoadMetrics metrics,
+                          int studentNo, long arrivalNanos, long bellNanos, boolean useStomp) {
+        this.config = config;
+        this.api = api;
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.studentNo = studentNo;
+        this.arrivalNanos = arrivalNanos;
+        this.bellNanos = bellNanos;
+        this.useStomp = useStomp;
+    }
+
+    @Override
+    public void run() {
+        sleepUntil(arrivalNanos);
+        metrics.getActiveStudents().incrementAndGet();
+        try {
+            enterExam();
+            answerUntilBell();
+            submitAtBell();
+        } catch (RuntimeException e) {
+            metrics.getAbortedStudents().incrementAndGet();
+            if (metrics.getAbortedStudents().get() <= 10) {
+                System.err.println("考生 " + studentNo + " 中途放弃: " + e.getMessage());
+            }
+        } finally {
+            if (stomp != null) {
+                stomp.disconnect();
+            }
+            metrics.getActiveStudents().decrementAndGet();
+        }
+    }
+
+    private void enterExam() {
+        String username = config.getUsernamePrefix() + studentNo;
+        long intended = arrivalNanos;
+        if (config.isRegister()) {
+            try {
+                api.register(username, config.getPassword(), intended);
+            } catch (RuntimeException ignored) {
+                // 账号已存在
+            }
+            intended = System.nanoTime();
+        }
+        // 以下步骤依赖上一步的结果，计划时间即上一步完成的时间
+        jwt = api.login(username, config.getPassword(), intended);
+        examToken = api.getExamToken(jwt, config.getExamId(), System.nanoTime());
+        examRecordId = api.startExam(jwt, examToken, config.getExamId(), System.nanoTime());
+
+        if (useStomp) {
+            OperationStats stats = metrics.get(LoadMetrics.WS_CONNECT);
+            long begin = System.nanoTime();
+            try {
+                stomp = StompClient.connect(httpClient, URI.create(config.getWsUrl()), jwt,
+                        config.getRequestTimeout(), metrics.getWsMessagesReceived());
+                stomp.subscribe("/topic/exam/progress/" + examRecordId);
+                stomp.subscribe("/queue/exam/warning/" + examRecordId);
+                stats.record(begin, begin, System.nanoTime());
+            } catch (RuntimeException e) {
+                stats.fail();
+                throw e;
+            }
+        }
+    }
+
+    private void answerUntilBell() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long interval = config.getAnswerInterval().toNanos();
+        long heartbeatInterval = config.getHeartbeatInterval().toNanos();
+        // 随机错开第一次保存，避免所有考生同一时刻发出
+        long nextAnswer = System.nanoTime() + random.nextLong(Math.max(1, interval));
+        long nextHeartbeat = System.nanoTime() + random.nextLong(Math.max(1, heartbeatInterval));
+        versions = new long[config.getQuestions() + 1];
+        int question = 0;
+
+        while (nextAnswer < bellNanos) {
+            if (stomp != null && nextHeartbeat <= nextAnswer) {
+                sleepUntil(nextHeartbeat);
+                sendStomp(LoadMetrics.HEARTBEAT_WS, nextHeartbeat, "/app/exam/heartbeat",
+                        "{\"examRecordId\":" + examRecordId + "}");
+                nextHeartbeat += heartbeatInterval;
+                continue;
+            }
+            sleepUntil(nextAnswer);
+            try {
+                question = saveAnswers(question, random, nextAnswer);
+            } catch (RuntimeException e) {
+                // 单次保存失败已计入失败数，继续按时间表作答
+            }
+            nextAnswer += interval;
+        }
+    }
+
+    /**
+     * 保存一批答案（默认 1 题），题目按顺序循环，同一题重复作答时版本号递增
+     */
+    private int saveAnswers(int question, ThreadLocalRandom random, long intended) {
+        int batchSize = config.getAnswerBatchSize();
+        ArrayNode items = api.getObjectMapper().createArrayNode();
+        for (int i = 0; i < batchSize; i++) {
+            question = question % config.getQuestions() + 1;
+            ObjectNode item = items.addObject();
+            item.put("questionId", question);
+            item.put("studentAnswer", CHOICES[random.nextInt(CHOICES.length)]);
+            item.put("version", ++versions[question]);
+        }
+
+        if (stomp != null) {
+            ObjectNode message = api.getObjectMapper().createObjectNode();
+            message.put("examRecordId", examRecordId);
+            message.put("examToken", examToken);
+            if (batchSize == 1) {
+                message.setAll((ObjectNode) items.get(0));
+                sendStomp(LoadMetrics.ANSWER_WS, intended, "/app/exam/answer", message.toString());
+            } else {
+                message.set("answers", items);
+                sendStomp(LoadMetrics.ANSWER_WS, intended, "/app/exam/answer/batch", message.toString());
+            }
+        } else if (batchSize == 1) {
+            ObjectNode item = (ObjectNode) items.get(0);
+            api.saveAnswer(jwt, examToken, examRecordId, item.get("questionId").asLong(),
+                    item.get("studentAnswer").asText(), item.get("version").asLong(), intended);
+        } else {
+            api.saveAnswerBatch(jwt, examToken, examRecordId, items, intended);
+        }
+        return question;
+    }
+
+    private void submitAtBell() {
+        long spread = config.getSubmitSpread().toNanos();
+        long intended = bellNanos + (spread > 0 ? ThreadLocalRandom.current().nextLong(spread) : 0);
+        sleepUntil(intended);
+        api.submit(jwt, examToken, examRecordId, intended);
+    }
+
+    private void sendStomp(String operation, long intended, String destination, String json) {
+        OperationStats stats = metrics.get(operation);
+        long actualStart = System.nanoTime();
+        try {
+            stomp.send(destination, json);
+            stats.record(intended, actualStart, System.nanoTime());
+        } catch (RuntimeException e) {
+            stats.fail();
+            throw e;
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("压测被中断");
+            }
+        }
+    }
+}
@@ -26,6 +26,16 @@ public interface QuestionMapper {
             "FROM question WHERE id = #{id}")
     QuestionDO selectById(@Param("id") Long id);
 
+    /**
+     * 根据ID批量查询题目（批改时加载试卷的标准答案）
+     */
+    @Select("<script>" +
+            "SELECT id, content, type, difficulty, options, answer, score, category, create_user_id, status, create_time, update_time " +
+            "FROM question WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<QuestionDO> selectByIds(@Param("ids") List<Long> ids);
+
     /**
      * 更新题目
      */
@@ -7,6 +7,7 @@ import com.exam.manage.dal.mysqlmapper.PaperMapper;
 import com.exam.manage.dto.ExamDTO;
 import com.exam.manage.dto.ExamPageDTO;
 import com.exam.manage.dto.ExamQueryDTO;
+import com.exam.manage.util.ExamRedisKeys;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,7 +33,7 @@ public class ExamService {
     private ExamTokenUtil examTokenUtil;
 
     @Autowired
-    private org.springframework.data.redis.core.RedisTemplate<String, Object> redisTemplate;
+    private org.springframework.data.redis.core.StringRedisTemplate stringRedisTemplate;
 
     /**
      * 创建考试安排
@@ -285,8 +286,8 @@ public class ExamService {
         
         // 将考试ID加入待处理队列（执行模块的定时任务会处理）
         // Key: exam:timeout:exams (Set)
-        redisTemplate.opsForSet().add("exam:timeout:exams", examId.toString());
-        redisTemplate.expire("exam:timeout:exams", 24, java.util.concurrent.TimeUnit.HOURS);
+        stringRedisTemplate.opsForSet().add(ExamRedisKeys.TIMEOUT_EXAMS, examId.toString());
+        stringRedisTemplate.expire(ExamRedisKeys.TIMEOUT_EXAMS, 24, java.util.concurrent.TimeUnit.HOURS);
     }
 
     /**
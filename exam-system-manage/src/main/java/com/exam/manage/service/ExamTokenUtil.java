@@ -1,7 +1,8 @@
 package com.exam.manage.service;
 
+import com.exam.manage.util.ExamRedisKeys;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
@@ -11,16 +12,13 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 考试令牌工具类（用于管理模块签发令牌）
- * 与执行模块的 ExamTokenService 使用相同的 Redis key 格式
+ * 与执行模块的 ExamTokenService 共用 ExamRedisKeys 构造的 key
  */
 @Component
 public class ExamTokenUtil {
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
-
-    // Redis key前缀（与执行模块保持一致）
-    private static final String TOKEN_KEY_PREFIX = "exam:token:";
+    private StringRedisTemplate stringRedisTemplate;
 
     /**
      * 为考试签发令牌
@@ -43,8 +41,8 @@ public class ExamTokenUtil {
         }
         
         // 存储到Redis，key格式：exam:token:{examId}
-        String key = TOKEN_KEY_PREFIX + examId;
-        redisTemplate.opsForValue().set(key, token, seconds, TimeUnit.SECONDS);
+        String key = ExamRedisKeys.examToken(examId);
+        stringRedisTemplate.opsForValue().set(key, token, seconds, TimeUnit.SECONDS);
         
         return token;
     }
@@ -0,0 +1,239 @@
+package com.exam.manage.util;
+
+/**
+ * 考试相关 Redis key 统一构造（管理模块与执行模块共用）
+ * 为兼容 Redis Cluster，key 中使用 hash tag（花括号部分）决定所在槽位：
+ * 1. 同一考试记录的 key 都带 {examRecordId}，保证答案、已答题、待同步、版本号、进度在同一槽位，可以在一个 Lua 脚本中原子操作
+ * 2. 同一场考试的 key 都带 {examId}
+ * 3. 全局登记集合按固定分片数拆成多个 key，分散到不同节点，替代 KEYS 扫描
+ */
+public final class ExamRedisKeys {
+
+    /**
+     * 待同步登记集合的分片数
+     */
+    public static final int SYNC_PENDING_SHARDS = 16;
+
+    /**
+     * 时间耗尽待批量提交的考试ID集合
+     */
+    public static final String TIMEOUT_EXAMS = "exam:timeout:exams";
+
+    private ExamRedisKeys() {
+    }
+
+    private static String tag(Long id) {
+        return "{" + id + "}";
+    }
+
+    /**
+     * 单个答案：exam:answer:{examRecordId}:{token}:{questionId}
+     */
+    public static String answer(Long examRecordId, String examToken, Long questionId) {
+        return "exam:answer:" + tag(examRecordId) + ":" + examToken + ":" + questionId;
+    }
+
+    /**
+     * 已答题题目Set：exam:answered:{examRecordId}:{token}
+     */
+    public static String answered(Long examRecordId, String examToken) {
+        return "exam:answered:" + tag(examRecordId) + ":" + examToken;
+    }
+
+    /**
+     * 待同步题目Set：exam:sync:queue:{examRecordId}:{token}
+     */
+    public static String syncQueue(Long examRecordId, String examToken) {
+        return "exam:sync:queue:" + tag(examRecordId) + ":" + examToken;
+    }
+
+    /**
+     * 答案版本号Hash：exam:answer:version:{examRecordId}:{token}，field为题目ID
+     */
+    public static String answerVersion(Long examRecordId, String examToken) {
+        return "exam:answer:version:" + tag(examRecordId) + ":" + examToken;
+    }
+
+    /**
+     * 答题进度：exam:progress:{examRecordId}
+     */
+    public static String progress(Long examRecordId) {
+        return "exam:progress:" + tag(examRecordId);
+    }
+
+    /**
+     * 在线状态：exam:heartbeat:{examRecordId}
+     */
+    public static String heartbeat(Long examRecordId) {
+        return "exam:heartbeat:" + tag(examRecordId);
+    }
+
+    /**
+     * 考试记录所属学生：exam:record:owner:{examRecordId}，值为学生ID
+     */
+    public static String recordOwner(Long examRecordId) {
+        return "exam:record:owner:" + tag(examRecordId);
+    }
+
+    /**
+     * 切屏次数：exam:switch:{examRecordId}:{studentId}
+     */
+    public static String switchCount(Long examRecordId, Long studentId) {
+        return "exam:switch:" + tag(examRecordId) + ":" + studentId;
+    }
+
+    /**
+     * 考试令牌：exam:token:{examId}
+     */
+    public static String examToken(Long examId) {
+        return "exam:token:" + tag(examId);
+    }
+
+    /**
+     * 提交队列List：exam:submit:queue:{examId}
+     */
+    public static String submitQueue(Long examId) {
+        return "exam:submit:queue:" + tag(examId);
+    }
+
+    /**
+     * 考试成绩统计Hash：exam:analyse:score:{examId}（人数、均值、M2、最值、及格人数、分数段人数）
+     */
+    public static String analyseScore(Long examId) {
+        return "exam:analyse:score:" + tag(examId);
+    }
+
+    /**
+     * 考试逐题统计Hash：exam:analyse:question:{examId}，field 为 {questionId}:{指标}
+     */
+    public static String analyseQuestion(Long examId) {
+        return "exam:analyse:question:" + tag(examId);
+    }
+
+    /**
+     * 考试总分分布：exam:analyse:dist:{examId}（Hash，field 为得分，value 为人数）
+     */
+    public static String analyseDistribution(Long examId) {
+        return "exam:analyse:dist:" + tag(examId);
+    }
+
+    /**
+     * 考试分类（知识点）得分分布：exam:analyse:dist:{examId}:{category}
+     */
+    public static String analyseCategoryDistribution(Long examId, String category) {
+        return "exam:analyse:dist:" + tag(examId) + ":" + category;
+    }
+
+    /**
+     * 考试排行榜ZSet：exam:analyse:rank:{examId}，member 为学生ID，score 为得分和提交时间组合的排序分
+     */
+    public static String leaderboard(Long examId) {
+        return "exam:analyse:rank:" + tag(examId);
+    }
+
+    /**
+     * 排行榜为空的标记：exam:analyse:rank:empty:{examId}，短时间内不再从 MySQL 重建尚无人交卷的排行榜
+     */
+    public static String leaderboardEmpty(Long examId) {
+        return "exam:analyse:rank:empty:" + tag(examId);
+    }
+
+    /**
+     * 进入考试或在线过的考生 HyperLogLog：exam:analyse:hll:{examId}:connected，元素为考试记录ID
+     */
+    public static String analyseConnectedStudents(Long examId) {
+        return "exam:analyse:hll:" + tag(examId) + ":connected";
+    }
+
+    /**
+     * 至少保存过一道题答案的考生 HyperLogLog：exam:analyse:hll:{examId}:answered，元素为考试记录ID
+     */
+    public static String analyseAnsweredStudents(Long examId) {
+        return "exam:analyse:hll:" + tag(examId) + ":answered";
+    }
+
+    /**
+     * 某道题作答过的考生 HyperLogLog：exam:analyse:hll:{examId}:q:{questionId}，元素为考试记录ID
+     */
+    public static String analyseQuestionStudents(Long examId, Long questionId) {
+        return "exam:analyse:hll:" + tag(examId) + ":q:" + questionId;
+    }
+
+    /**
+     * 客户端IP HyperLogLog：exam:analyse:hll:{examId}:ip
+     */
+    public static String analyseClientIps(Long examId) {
+        return "exam:analyse:hll:" + tag(examId) + ":ip";
+    }
+
+    /**
+     * 考试等候室排队号计数器：exam:waiting:seq:{examId}
+     */
+    public static String waitingRoomSeq(Long examId) {
+        return "exam:waiting:seq:" + tag(examId);
+    }
+
+    /**
+     * 考试等候室排队号Hash：exam:waiting:pos:{examId}，field 为学生ID，value 为排队号
+     */
+    public static String waitingRoomPositions(Long examId) {
+        return "exam:waiting:pos:" + tag(examId);
+    }
+
+    /**
+     * 考试等候室放行状态Hash：exam:waiting:state:{examId}（已放行到的排队号、令牌桶余量、放行速率等）
+     */
+    public static String waitingRoomState(Long examId) {
+        return "exam:waiting:state:" + tag(examId);
+    }
+
+    /**
+     * 限流令牌桶：exam:ratelimit:限流名称:{限流对象}（学生ID、考试ID或IP），单 key 操作，按限流对象分散
+     */
+    public static String rateLimitBucket(String name, String key) {
+        return "exam:ratelimit:" + name + ":{" + key + "}";
+    }
+
+    /**
+     * 待同步登记集合分片：exam:sync:pending:{shard}，成员格式 {examRecordId}:{token}
+     */
+    public static String syncPending(int shard) {
+        return "exam:sync:pending:{" + shard + "}";
+    }
+
+    /**
+     * 考试记录所属的待同步登记分片
+     */
+    public static int syncPendingShard(Long examRecordId) {
+        return (int) Math.floorMod(examRecordId, (long) SYNC_PENDING_SHARDS);
+    }
+
+    /**
+     * 获取考试令牌的锁：lock:exam:token:{examId}:{studentId}
+     * 锁只做单 key 操作，不需要和其他 key 同槽位，按学生分散，避免同一场考试的锁集中到一个节点
+     */
+    public static String tokenLock(Long examId, Long studentId) {
+        return "lock:exam:token:" + examId + ":" + studentId;
+    }
+
+    /**
+     * 进入考试的锁：lock:exam:start:{examId}:{studentId}
+     */
+    public static String startLock(Long examId, Long studentId) {
+        return "lock:exam:start:" + examId + ":" + studentId;
+    }
+
+    /**
+     * 试题分析的锁：lock:exam:item-analysis:{examId}，多节点时同一场考试只由一个节点计算
+     */
+    public static String itemAnalysisLock(Long examId) {
+        return "lock:exam:item-analysis:" + examId;
+    }
+
+    /**
+     * 重建排行榜的锁：lock:exam:leaderboard:{examId}
+     */
+    public static String leaderboardLock(Long examId) {
+        return "lock:exam:leaderboard:" + examId;
+    }
+}
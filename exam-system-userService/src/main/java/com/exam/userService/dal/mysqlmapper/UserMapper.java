@@ -3,6 +3,8 @@ package com.exam.userService.dal.mysqlmapper;
 import com.exam.userService.dal.dataobject.UserDO;
 import org.apache.ibatis.annotations.*;
 
+import java.util.List;
+
 /**
  * 用户Mapper接口
  */
@@ -26,6 +28,17 @@ public interface UserMapper {
             "FROM user WHERE id = #{id}")
     UserDO selectById(@Param("id") Long id);
 
+    /**
+     * 根据用户ID批量查询用户名（不返回密码）
+     * @param ids 用户ID列表
+     * @return 用户信息（只有 id、username）
+     */
+    @Select("<script>" +
+            "SELECT id, username FROM user WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<UserDO> selectUsernamesByIds(@Param("ids") List<Long> ids);
+
     /**
      * 插入新用户
      * @param user 用户实体